@@ -31,15 +31,29 @@ import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.identity.IdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.rest.BackoffRetryPolicy;
+import com.gsma.mobileconnect.r2.rest.BlockingRestClientAdapter;
+import com.gsma.mobileconnect.r2.rest.CircuitBreaker;
+import com.gsma.mobileconnect.r2.rest.CircuitBreakerConfig;
+import com.gsma.mobileconnect.r2.rest.CircuitBreakerRestClient;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolConfig;
+import com.gsma.mobileconnect.r2.rest.ConnectionPoolStats;
+import com.gsma.mobileconnect.r2.rest.IAsyncRestClient;
+import com.gsma.mobileconnect.r2.rest.ICircuitBreakerListener;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.IRetryPolicy;
 import com.gsma.mobileconnect.r2.rest.RestClient;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import org.apache.http.client.HttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -59,7 +73,7 @@ import java.util.concurrent.TimeUnit;
  * @see IIdentityService
  * @since 2.0
  */
-public final class MobileConnect
+public final class MobileConnect implements Closeable
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MobileConnect.class);
 
@@ -70,10 +84,16 @@ public final class MobileConnect
     private final MobileConnectInterface mobileConnectInterface;
     private final MobileConnectWebInterface mobileConnectWebInterface;
     private final IMobileConnectEncodeDecoder iMobileConnectEncoderDecoder;
+    private final IRestClient restClient;
+    private final ConcurrentCache defaultCache;
+    private final RestClient defaultRestClient;
 
     private MobileConnect(final Builder builder)
     {
         this.iMobileConnectEncoderDecoder = builder.iMobileConnectEncodeDecoder;
+        this.restClient = builder.restClient;
+        this.defaultCache = builder.defaultCache;
+        this.defaultRestClient = builder.defaultRestClient;
 
         this.discoveryService = new DiscoveryService.Builder()
             .withCache(builder.cache)
@@ -233,6 +253,61 @@ public final class MobileConnect
         return this.mobileConnectWebInterface;
     }
 
+    /**
+     * Close the rest client built by default, closing its pool of connections, see {@link
+     * RestClient#close()}, and stop the background work of the cache built by default, see
+     * {@link ConcurrentCache#close()}.  A rest client, http client, cache or executor service
+     * supplied to the builder is left for its owner to close.
+     */
+    @Override
+    public void close()
+    {
+        if (this.defaultRestClient != null)
+        {
+            try
+            {
+                this.defaultRestClient.close();
+            }
+            catch (final IOException ioe)
+            {
+                LOGGER.warn("Failed to close rest client", ioe);
+            }
+        }
+        if (this.defaultCache != null)
+        {
+            this.defaultCache.close();
+        }
+    }
+
+    /**
+     * Statistics of the pool of HTTP connections used to call operators.
+     *
+     * @return connection pool statistics, null if a rest client or http client was supplied to
+     * the builder.
+     */
+    public ConnectionPoolStats getConnectionPoolStats()
+    {
+        final IRestClient client = this.restClient instanceof CircuitBreakerRestClient
+                                   ? ((CircuitBreakerRestClient) this.restClient).getRestClient()
+                                   : this.restClient;
+        return client instanceof RestClient
+               ? ((RestClient) client).getConnectionPoolStats()
+               : null;
+    }
+
+    /**
+     * The circuits kept for each operator host called, see {@link
+     * Builder#withCircuitBreaker(CircuitBreakerConfig)}.
+     *
+     * @return circuits for each host, empty if circuit breaking is not enabled.
+     */
+    public List<CircuitBreaker> getCircuitBreakers()
+    {
+        return this.restClient instanceof CircuitBreakerRestClient
+               ? ((CircuitBreakerRestClient) this.restClient).getCircuitBreakers()
+               : Collections.<CircuitBreaker>emptyList();
+    }
+
     /**
      * Builds a configured instance of MobileConnect.
      */
@@ -245,20 +320,30 @@ public final class MobileConnect
         private ICache cache = null;
         private ScheduledExecutorService scheduledExecutorService = null;
         private HttpClient httpClient = null;
+        private ConnectionPoolConfig connectionPoolConfig = null;
         private TimeUnit timeoutTimeUnit = TimeUnit.MILLISECONDS;
         private Long timeoutDuration = DefaultOptions.TIMEOUT_MS;
         private IRestClient restClient = null;
+        private IRetryPolicy retryPolicy = null;
+        private ConcurrentCache defaultCache = null;
+        private RestClient defaultRestClient = null;
+        private CircuitBreakerConfig circuitBreakerConfig = null;
+        private final List<ICircuitBreakerListener> circuitBreakerListeners =
+            new ArrayList<ICircuitBreakerListener>();
 
         /**
          * Start the builder, specifying the required configuration.  The defaults applied by this
          * builder are as follows: <ul> <li>scheduledExecutorService will use {@link
          * Executors#newScheduledThreadPool(int)} with core size of {@link
-         * DefaultOptions#THREAD_POOL_SIZE}</li> <li>httpClient will use default result of {@link
-         * HttpClientBuilder}</li> <li>http timeout will be set to {@link
-         * DefaultOptions#TIMEOUT_MS}</li><li>restClient will use {@link RestClient}, with timeout
-         * and http client above</li><li>cache will use {@link ConcurrentCache}</li></ul><p>Note
-         * that specifying a rest client instance will overrule any setting of http client, or
-         * timeout duration.</p>
+         * DefaultOptions#THREAD_POOL_SIZE}</li> <li>httpClient will be built over a pool of
+         * connections with the default settings of {@link ConnectionPoolConfig}</li> <li>http
+         * timeout will be set to {@link DefaultOptions#TIMEOUT_MS}</li><li>failed GET requests,
+         * other than those which timed out, will be retried with the default settings of {@link
+         * BackoffRetryPolicy}</li><li>restClient will use {@link RestClient}, with timeout, http
+         * client and retry policy above</li><li>cache will use {@link ConcurrentCache}, sweeping
+         * expired entries every {@link DefaultOptions#CACHE_SWEEP_PERIOD_MS} on the executor
+         * service</li></ul><p>Note that specifying a rest client instance will overrule any
+         * setting of http client, timeout duration or retry policy.</p>
          *
          * @param config for Mobile Connect.
          */
@@ -308,6 +393,19 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify the settings of the pool of HTTP connections, used when no http client or rest
+         * client is specified.
+         *
+         * @param val connection pool settings to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withConnectionPool(final ConnectionPoolConfig val)
+        {
+            this.connectionPoolConfig = val;
+            return this;
+        }
+
         /**
          * Specify the timeout for HTTP connections.
          *
@@ -322,6 +420,46 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify the policy deciding which failed GET requests are retried.
+         *
+         * @param val retry policy to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withRetryPolicy(final IRetryPolicy val)
+        {
+            this.retryPolicy = val;
+            return this;
+        }
+
+        /**
+         * Enable a circuit breaker for each operator host, so that requests to a host whose
+         * recent requests have failed or been slow fail at once, with an error status of
+         * circuit_open, rather than waiting for the HTTP timeout.  Applies to a supplied rest
+         * client as well as the one built by default.
+         *
+         * @param val circuit breaker settings to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCircuitBreaker(final CircuitBreakerConfig val)
+        {
+            this.circuitBreakerConfig = val;
+            return this;
+        }
+
+        /**
+         * Add a listener to be told of circuits changing state, used when circuit breaking is
+         * enabled with {@link #withCircuitBreaker(CircuitBreakerConfig)}.
+         *
+         * @param val listener to add.
+         * @return builder to continue further configuration.
+         */
+        public Builder withCircuitBreakerListener(final ICircuitBreakerListener val)
+        {
+            this.circuitBreakerListeners.add(ObjectUtils.requireNonNull(val, "val"));
+            return this;
+        }
+
         /**
          * Specify a configured cache to use.
          *
@@ -336,7 +474,7 @@ public final class MobileConnect
 
         /**
          * Specify a configured rest client to use.  Note that setting this will result in any
-         * configuration of http client or timeout to be ignored.
+         * configuration of http client, timeout or retry policy to be ignored.
          *
          * @param val rest client to be used.
          * @return builder to continue further configuration.
@@ -347,6 +485,20 @@ public final class MobileConnect
             return this;
         }
 
+        /**
+         * Specify a configured non-blocking rest client to use, on which the services wait for
+         * each request to complete.  As with {@link #withRestClient(IRestClient)}, any
+         * configuration of http client, timeout or retry policy is ignored.
+         *
+         * @param val async rest client to be used.
+         * @return builder to continue further configuration.
+         */
+        public Builder withAsyncRestClient(final IAsyncRestClient val)
+        {
+            this.restClient = BlockingRestClientAdapter.of(val);
+            return this;
+        }
+
         /**
          * Create an instance of MobileConnect that will provide access to the full suite of
          * MobileConnect interfaces.
@@ -366,27 +518,55 @@ public final class MobileConnect
 
             if (this.restClient == null)
             {
+                final RestClient.Builder restClientBuilder = new RestClient.Builder()
+                    .withJsonService(this.jsonService)
+                    .withTimeout(this.timeoutDuration, this.timeoutTimeUnit)
+                    .withRetryPolicy(this.retryPolicy == null
+                                     ? new BackoffRetryPolicy.Builder().build()
+                                     : this.retryPolicy);
                 if (this.httpClient == null)
                 {
-                    LOGGER.info("Building default instance of HttpClient");
-                    this.httpClient = HttpClientBuilder.create().build();
+                    LOGGER.info("Building pooled instance of HttpClient");
+                    restClientBuilder.withConnectionPool(this.connectionPoolConfig == null
+                        ? new ConnectionPoolConfig.Builder().build()
+                        : this.connectionPoolConfig);
+                }
+                else
+                {
+                    restClientBuilder.withHttpClient(this.httpClient);
                 }
 
                 LOGGER.info("Building RestClient with timeout of duration={}, unit={}",
                     this.timeoutDuration, this.timeoutTimeUnit.name());
-                this.restClient = new RestClient.Builder()
-                    .withScheduledExecutorService(this.scheduledExecutorService)
-                    .withHttpClient(this.httpClient)
-                    .withJsonService(this.jsonService)
-                    .withTimeout(this.timeoutDuration, this.timeoutTimeUnit)
-                    .build();
+                this.defaultRestClient = restClientBuilder.build();
+                this.restClient = this.defaultRestClient;
+            }
+
+            if (this.circuitBreakerConfig != null
+                && !(this.restClient instanceof CircuitBreakerRestClient))
+            {
+                LOGGER.info("Wrapping rest client with circuit breakers, config={}",
+                    this.circuitBreakerConfig);
+                final CircuitBreakerRestClient.Builder circuitBreakerBuilder =
+                    new CircuitBreakerRestClient.Builder()
+                        .withRestClient(this.restClient)
+                        .withConfig(this.circuitBreakerConfig);
+                for (final ICircuitBreakerListener listener : this.circuitBreakerListeners)
+                {
+                    circuitBreakerBuilder.withListener(listener);
+                }
+                this.restClient = circuitBreakerBuilder.build();
             }
 
             if (this.cache == null)
             {
                 LOGGER.info("Building default instance of ConcurrentCache");
-                this.cache =
-                    new ConcurrentCache.Builder().withJsonService(this.jsonService).build();
+                this.defaultCache = new ConcurrentCache.Builder()
+                    .withJsonService(this.jsonService)
+                    .withExpirySweeper(this.scheduledExecutorService,
+                        DefaultOptions.CACHE_SWEEP_PERIOD_MS, TimeUnit.MILLISECONDS)
+                    .build();
+                this.cache = this.defaultCache;
             }
 
             return new MobileConnect(this);
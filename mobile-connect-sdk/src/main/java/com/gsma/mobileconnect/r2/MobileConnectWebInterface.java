@@ -18,9 +18,12 @@ package com.gsma.mobileconnect.r2;
 
 import com.gsma.mobileconnect.r2.authentication.*;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.discovery.*;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
+import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.identity.IIdentityService;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
@@ -706,8 +709,11 @@ public class MobileConnectWebInterface
             final String sessionId = UUID.randomUUID().toString();
             try
             {
-                LOGGER.debug("Storing discovery response with sdkSession={}", sessionId);
-                this.discoveryService.getCache().add(sessionId, status.getDiscoveryResponse());
+                final SdkSession session =
+                    SdkSession.forDiscoveryResponse(status.getDiscoveryResponse());
+                LOGGER.debug("Storing session referencing discoveryKey={} with sdkSession={}",
+                    session.getDiscoveryKey(), sessionId);
+                this.discoveryService.getCache().add(sessionId, session);
                 return status.withSdkSession(sessionId);
             }
             catch (final CacheAccessException cae)
@@ -731,8 +737,7 @@ public class MobileConnectWebInterface
         {
             try
             {
-                final DiscoveryResponse response =
-                    this.discoveryService.getCache().get(sdkSession, DiscoveryResponse.class);
+                final DiscoveryResponse response = this.resolveSession(sdkSession);
                 if (response == null && required)
                 {
                     LOGGER.info("Failed to find cached session sdkSession={}", sdkSession);
@@ -752,6 +757,82 @@ public class MobileConnectWebInterface
         }
     }
 
+    /**
+     * Resolve a cached session to its discovery response, reading the response shared in the
+     * discovery cache unless the session embeds its own.  The shared response is read even once
+     * expired, as a session may outlive it, and discovered again should it no longer be held.
+     */
+    private DiscoveryResponse resolveSession(final String sdkSession) throws CacheAccessException
+    {
+        final ICache cache = this.discoveryService.getCache();
+        final SdkSession session = cache.get(sdkSession, SdkSession.class);
+        if (session == null)
+        {
+            return null;
+        }
+
+        DiscoveryResponse response = session.getDiscoveryResponse();
+        if (response == null && session.getDiscoveryKey() == null)
+        {
+            // stored by an earlier version as a copy of the discovery response
+            return cache.get(sdkSession, DiscoveryResponse.class);
+        }
+        else if (response == null)
+        {
+            response = cache.get(session.getDiscoveryKey(), DiscoveryResponse.class, false);
+            if (response == null)
+            {
+                LOGGER.info(
+                    "Discovery response discoveryKey={} of sdkSession={} is no longer cached",
+                    session.getDiscoveryKey(), sdkSession);
+                response = this.rediscover(session.getDiscoveryKey(), sdkSession);
+                if (response == null)
+                {
+                    return null;
+                }
+            }
+
+            final OperatorUrls operatorUrls = response.getOperatorUrls();
+            if (operatorUrls != null && operatorUrls.getProviderMetadataUri() != null)
+            {
+                response.setProviderMetadata(this.discoveryService.retrieveProviderMetadata(
+                    URI.create(operatorUrls.getProviderMetadataUri()), true));
+            }
+        }
+
+        return session.getSubscriberId() == null
+               ? response
+               : response.withSubscriberId(session.getSubscriberId());
+    }
+
+    /**
+     * Discover the operator of a session again from the mcc_mnc key of its discovery response,
+     * which stores the response in the discovery cache once more.
+     */
+    private DiscoveryResponse rediscover(final String discoveryKey, final String sdkSession)
+    {
+        final int separator = discoveryKey.indexOf('_');
+        if (separator <= 0 || separator == discoveryKey.length() - 1)
+        {
+            return null;
+        }
+
+        try
+        {
+            final DiscoveryResponse response =
+                this.discoveryService.completeSelectedOperatorDiscovery(this.config,
+                    this.config.getRedirectUrl(), discoveryKey.substring(0, separator),
+                    discoveryKey.substring(separator + 1));
+            return response == null || response.getErrorResponse() != null ? null : response;
+        }
+        catch (final RequestFailedException | InvalidResponseException e)
+        {
+            LOGGER.warn("Failed to discover discoveryKey={} again for sdkSession={}", discoveryKey,
+                sdkSession, e);
+            return null;
+        }
+    }
+
     private MobileConnectStatus cacheError(final Exception e)
     {
         return MobileConnectStatus.error("sdksession_not_found", "session not found or expired", e);
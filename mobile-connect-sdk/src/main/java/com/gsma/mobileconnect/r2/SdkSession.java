@@ -0,0 +1,159 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.Date;
+
+/**
+ * Entry cached against an sdkSession by {@link MobileConnectWebInterface}.  Rather than a copy of
+ * the discovery response it holds the key of the response shared in the discovery cache along
+ * with the details specific to the user; the response is only embedded where it is not held in
+ * the discovery cache.
+ *
+ * @since 2.0
+ */
+@JsonDeserialize(builder = SdkSession.Builder.class)
+public class SdkSession extends AbstractCacheable
+{
+    private final String discoveryKey;
+    private final String subscriberId;
+    private final Date created;
+    private final Date expiry;
+    private final DiscoveryResponse discoveryResponse;
+
+    private SdkSession(final Builder builder)
+    {
+        this.discoveryKey = builder.discoveryKey;
+        this.subscriberId = builder.subscriberId;
+        this.created = builder.created;
+        this.expiry = builder.expiry;
+        this.discoveryResponse = builder.discoveryResponse;
+    }
+
+    /**
+     * Create a session for a discovery response, referencing it by its key in the discovery cache
+     * where it is held there.
+     *
+     * @param response to create the session for.
+     * @return the session.
+     */
+    public static SdkSession forDiscoveryResponse(final DiscoveryResponse response)
+    {
+        final String key = response.getCacheKey();
+
+        return new Builder()
+            .withDiscoveryKey(key)
+            .withSubscriberId(response.getResponseData() == null
+                              ? null
+                              : response.getResponseData().getSubscriberId())
+            .withCreated(new Date())
+            .withExpiry(response.getTtl())
+            .withDiscoveryResponse(key == null ? response : null)
+            .build();
+    }
+
+    /**
+     * @return the key of the shared discovery response in the discovery cache, null if the
+     * response is embedded.
+     */
+    public String getDiscoveryKey()
+    {
+        return this.discoveryKey;
+    }
+
+    public String getSubscriberId()
+    {
+        return this.subscriberId;
+    }
+
+    public Date getCreated()
+    {
+        return this.created;
+    }
+
+    public Date getExpiry()
+    {
+        return this.expiry;
+    }
+
+    /**
+     * @return the embedded discovery response, null if it is shared.
+     */
+    public DiscoveryResponse getDiscoveryResponse()
+    {
+        return this.discoveryResponse;
+    }
+
+    /**
+     * @return the ttl of the discovery response the session was created for.
+     */
+    @Override
+    public Date expiryDeadline()
+    {
+        return this.expiry;
+    }
+
+    public static final class Builder implements IBuilder<SdkSession>
+    {
+        private String discoveryKey;
+        private String subscriberId;
+        private Date created;
+        private Date expiry;
+        private DiscoveryResponse discoveryResponse;
+
+        public Builder withDiscoveryKey(final String val)
+        {
+            this.discoveryKey = val;
+            return this;
+        }
+
+        public Builder withSubscriberId(final String val)
+        {
+            this.subscriberId = val;
+            return this;
+        }
+
+        public Builder withCreated(final Date val)
+        {
+            this.created = val;
+            return this;
+        }
+
+        public Builder withExpiry(final Date val)
+        {
+            this.expiry = val;
+            return this;
+        }
+
+        public Builder withDiscoveryResponse(final DiscoveryResponse val)
+        {
+            this.discoveryResponse = val;
+            return this;
+        }
+
+        @Override
+        public SdkSession build()
+        {
+            return new SdkSession(this);
+        }
+    }
+}
@@ -317,7 +317,8 @@ public class AuthenticationService implements IAuthenticationService
         final RestAuthentication authentication =
             RestAuthentication.basic(clientId, clientSecret, this.iMobileConnectEncodeDecoder);
         final RestResponse restResponse =
-            this.restClient.postFormData(refreshTokenUrl, authentication, formData, null, null);
+            this.restClient.postFormData(refreshTokenUrl, authentication, formData, null, null,
+                RequestTokenResponse.RESPONSE_TYPES);
 
         return RequestTokenResponse.fromRestResponse(restResponse, this.jsonService,
             this.iMobileConnectEncodeDecoder);
@@ -375,7 +376,8 @@ public class AuthenticationService implements IAuthenticationService
         final RestAuthentication authentication =
             RestAuthentication.basic(clientId, clientSecret, this.iMobileConnectEncodeDecoder);
         final RestResponse restResponse =
-            this.restClient.postFormData(requestTokenUrl, authentication, formData, null, null);
+            this.restClient.postFormData(requestTokenUrl, authentication, formData, null, null,
+                RequestTokenResponse.RESPONSE_TYPES);
 
         return RequestTokenResponse.fromRestResponse(restResponse, this.jsonService,
             this.iMobileConnectEncodeDecoder);
@@ -21,6 +21,7 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.encoding.IMobileConnectEncodeDecoder;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.*;
 
@@ -35,6 +36,12 @@ import java.util.List;
  */
 public class RequestTokenResponse
 {
+    /**
+     * Types into which a token response is read by {@link #fromRestResponse}.
+     */
+    public static final JsonResponseTypes RESPONSE_TYPES =
+        JsonResponseTypes.of(RequestTokenResponseData.class, ErrorResponse.class);
+
     private final int responseCode;
     private final List<KeyValuePair> headers;
     private final RequestTokenResponseData responseData;
@@ -77,13 +84,12 @@ public class RequestTokenResponse
             if (HttpUtils.isHttpErrorCode(restResponse.getStatusCode()))
             {
                 builder.withErrorResponse(
-                    jsonService.deserialize(restResponse.getContent(), ErrorResponse.class));
+                    restResponse.readContent(ErrorResponse.class, jsonService));
             }
             else
             {
                 final RequestTokenResponseData data =
-                    jsonService.deserialize(restResponse.getContent(),
-                        RequestTokenResponseData.class);
+                    restResponse.readContent(RequestTokenResponseData.class, jsonService);
 
                 builder
                     .withResponseData(data)
@@ -28,9 +28,33 @@ import com.gsma.mobileconnect.r2.utils.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Base class for Discovery Caches that implements basic cache control mechanisms and type casting
@@ -49,13 +73,22 @@ public abstract class AbstractCache implements ICache
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCache.class);
 
-    private final Map<Class<? extends AbstractCacheable>, Long> cacheExpiryTimes =
-        new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Long>()
-            .add(ProviderMetadata.class, DefaultOptions.PROVIDER_METADATA_TTL_MS)
-            .build();
-    private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits;
+    // replaced as a whole whenever an expiry time changes, never modified in place
+    private final AtomicReference<CacheExpiryPolicy> expiryPolicy;
+    private final ConcurrentMap<String, FutureTask<AbstractCacheable>> loadsInFlight =
+        new ConcurrentHashMap<String, FutureTask<AbstractCacheable>>();
 
-    private final IJsonService jsonService;
+    private final CacheStatsCounter statsCounter = new CacheStatsCounter();
+
+    private final ICacheEntryCodec codec;
+
+    // seeded from the clock so that versions keep increasing across restarts
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() << 20);
+
+    private final List<RemovalListenerRegistration> removalListeners =
+        new CopyOnWriteArrayList<RemovalListenerRegistration>();
+
+    private volatile double refreshAheadFraction = DefaultOptions.CACHE_REFRESH_AHEAD_FRACTION;
 
     /**
      * Construct an instance of this discovery cache, setting the executor service to use for
@@ -67,34 +100,122 @@ public abstract class AbstractCache implements ICache
     protected AbstractCache(final IJsonService jsonService,
         final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits)
     {
-        this.jsonService = jsonService;
-        this.cacheExpiryLimits = cacheExpiryLimits;
+        this(jsonService == null ? null : new JsonCacheEntryCodec(jsonService), cacheExpiryLimits);
+    }
+
+    /**
+     * Construct an instance of this cache, setting the codec used to convert values to the
+     * payloads held by the cache.
+     *
+     * @param codec             used to encode and decode values.
+     * @param cacheExpiryLimits map defining limits for which types may be cached.
+     */
+    protected AbstractCache(final ICacheEntryCodec codec,
+        final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits)
+    {
+        this.codec = codec;
+        this.expiryPolicy = new AtomicReference<CacheExpiryPolicy>(new CacheExpiryPolicy(
+            new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Long>()
+                .add(ProviderMetadata.class, DefaultOptions.PROVIDER_METADATA_TTL_MS)
+                .build(), cacheExpiryLimits));
     }
 
     @Override
     public <T extends AbstractCacheable> void add(final String key, final T value)
         throws CacheAccessException
+    {
+        ObjectUtils.requireNonNull(value, "value");
+
+        this.add(key, value, value.expiryDeadline());
+    }
+
+    @Override
+    public <T extends AbstractCacheable> void add(final String key, final T value,
+        final Date expiry) throws CacheAccessException
     {
         StringUtils.requireNonEmpty(key, "key");
         ObjectUtils.requireNonNull(value, "value");
 
         if (key != null)
         {
-            try
+            this.internalAdd(key, this.newCacheEntry(key, value, expiry));
+        }
+    }
+
+    @Override
+    public <T extends AbstractCacheable> boolean replace(final String key,
+        final long expectedVersion, final T value) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final CacheEntry current = this.internalGet(key);
+        if (current == null ? expectedVersion != NO_VERSION
+                            : current.getVersion() != expectedVersion)
+        {
+            LOGGER.debug("Not replacing key={} as version={} is no longer held", key,
+                expectedVersion);
+            return false;
+        }
+
+        if (!this.internalReplace(key, current,
+            this.newCacheEntry(key, value, value.expiryDeadline())))
+        {
+            return false;
+        }
+        if (current != null)
+        {
+            this.notifyRemoval(key, current.getCachedClass(),
+                ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractCacheable> T addIfAbsent(final String key, final T value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        final CacheEntry entry = this.newCacheEntry(key, value, value.expiryDeadline());
+        while (true)
+        {
+            final CacheEntry current = this.internalGet(key);
+            if (current != null && !this.checkAndSetExpiry(current))
             {
-                final String json = this.jsonService.serialize(value);
-                this.internalAdd(key, new CacheEntry(json, value.getClass()));
+                return this.readEntry(key, current, (Class<T>) value.getClass(), false, true);
             }
-            catch (final JsonSerializationException jse)
+            if (this.internalReplace(key, current, entry))
             {
-                LOGGER.warn("Failed to serialize instance of class={} to add to cache with key={}",
-                    value.getClass(), key, jse);
-                throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
-                    value.getClass(), jse);
+                if (current != null)
+                {
+                    this.notifyRemoval(key, current.getCachedClass(),
+                        ICacheRemovalListener.RemovalCause.EXPIRED);
+                }
+                return null;
             }
         }
     }
 
+    @Override
+    public boolean remove(final String key, final long expectedVersion)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final CacheEntry current = this.internalGet(key);
+        if (current == null || current.getVersion() != expectedVersion
+            || !this.internalReplace(key, current, null))
+        {
+            return false;
+        }
+        this.notifyRemoval(key, current.getCachedClass(),
+            ICacheRemovalListener.RemovalCause.EXPLICIT);
+        return true;
+    }
+
     @Override
     public <T extends AbstractCacheable> T get(final String key, final Class<T> clazz)
         throws CacheAccessException
@@ -105,37 +226,114 @@ public abstract class AbstractCache implements ICache
     @Override
     public <T extends AbstractCacheable> T get(final String key, final Class<T> clazz,
         final boolean removeIfExpired) throws CacheAccessException
+    {
+        return this.get(key, clazz, removeIfExpired, true);
+    }
+
+    private <T extends AbstractCacheable> T get(final String key, final Class<T> clazz,
+        final boolean removeIfExpired, final boolean recordStats) throws CacheAccessException
     {
         ObjectUtils.requireNonNull(clazz, "clazz");
 
+        return key == null
+               ? null
+               : this.readEntry(key, this.internalGet(key), clazz, removeIfExpired, recordStats);
+    }
+
+    @Override
+    public Map<String, AbstractCacheable> getAll(
+        final Map<String, Class<? extends AbstractCacheable>> keys) throws CacheAccessException
+    {
+        return this.getAll(keys, true);
+    }
+
+    @Override
+    public Map<String, AbstractCacheable> getAll(
+        final Map<String, Class<? extends AbstractCacheable>> keys, final boolean removeIfExpired)
+        throws CacheAccessException
+    {
+        ObjectUtils.requireNonNull(keys, "keys");
+
+        final Map<String, CacheEntry> entries = this.internalGetAll(keys.keySet());
+        final Map<String, AbstractCacheable> results =
+            new HashMap<String, AbstractCacheable>(Math.max(4, keys.size() * 2));
+        for (final Map.Entry<String, Class<? extends AbstractCacheable>> key : keys.entrySet())
+        {
+            ObjectUtils.requireNonNull(key.getValue(), "clazz");
+
+            final AbstractCacheable result =
+                this.readEntry(key.getKey(), entries.get(key.getKey()), key.getValue(),
+                    removeIfExpired, true);
+            if (result != null)
+            {
+                results.put(key.getKey(), result);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void addAll(final Map<String, ? extends AbstractCacheable> values)
+        throws CacheAccessException
+    {
+        ObjectUtils.requireNonNull(values, "values");
+
+        final Map<String, CacheEntry> entries =
+            new LinkedHashMap<String, CacheEntry>(Math.max(4, values.size() * 2));
+        for (final Map.Entry<String, ? extends AbstractCacheable> value : values.entrySet())
+        {
+            StringUtils.requireNonEmpty(value.getKey(), "key");
+            ObjectUtils.requireNonNull(value.getValue(), "value");
+
+            entries.put(value.getKey(), this.newCacheEntry(value.getKey(), value.getValue(),
+                value.getValue().expiryDeadline()));
+        }
+        this.internalAddAll(entries);
+    }
+
+    private <T extends AbstractCacheable> T readEntry(final String key, final CacheEntry value,
+        final Class<T> clazz, final boolean removeIfExpired, final boolean recordStats)
+        throws CacheAccessException
+    {
         T result = null;
 
-        if (key != null)
+        if (value == null)
         {
-            final CacheEntry value = this.internalGet(key);
-            if (value != null)
+            if (recordStats)
+            {
+                this.statsCounter.recordMiss(clazz);
+            }
+        }
+        else
+        {
+            result = this.readCacheEntry(key, value, clazz);
+            this.checkAndSetExpiry(value);
+            result.setCacheInfo(value);
+            if (this.isRefreshDue(value))
+            {
+                result.markRefreshDue();
+            }
+
+            if (recordStats)
             {
-                try
+                if (value.isExpired())
                 {
-                    result = this.jsonService.deserialize(value.getValue(), clazz);
+                    this.statsCounter.recordMiss(clazz);
                 }
-                catch (final JsonDeserializationException jde)
+                else
                 {
-                    this.internalRemove(key, value.getValue());
-                    LOGGER.warn(
-                        "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
-                        clazz, key, jde);
-                    throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz,
-                        jde);
+                    this.statsCounter.recordHit(clazz);
                 }
-                this.checkAndSetExpiry(value);
-                result.setCacheInfo(value);
+            }
 
-                if (removeIfExpired && value.isExpired())
+            if (removeIfExpired && value.isExpired())
+            {
+                LOGGER.debug("Removing expired cached entry class={} with key={}", clazz, key);
+                result = null;
+                if (this.internalRemove(key, value))
                 {
-                    LOGGER.debug("Removing expired cached entry class={} with key={}", clazz, key);
-                    result = null;
-                    this.internalRemove(key, value.getValue());
+                    this.notifyRemoval(key, value.getCachedClass(),
+                        ICacheRemovalListener.RemovalCause.EXPIRED);
                 }
             }
         }
@@ -143,6 +341,564 @@ public abstract class AbstractCache implements ICache
         return result;
     }
 
+    private <T extends AbstractCacheable> CacheEntry newCacheEntry(final String key,
+        final T value, final Date expiry) throws CacheAccessException
+    {
+        return this.createCacheEntry(key, value, expiry).withVersion(this.nextVersion());
+    }
+
+    /**
+     * @return a version greater than any previously stamped on an entry by this cache, or
+     * observed by it.
+     */
+    long nextVersion()
+    {
+        return this.versions.incrementAndGet();
+    }
+
+    /**
+     * Record a version stamped by another instance sharing the same store, so that versions this
+     * cache stamps afterwards are greater.
+     *
+     * @param version read from the store.
+     */
+    void observeVersion(final long version)
+    {
+        long current;
+        do
+        {
+            current = this.versions.get();
+        }
+        while (current < version && !this.versions.compareAndSet(current, version));
+    }
+
+    /**
+     * Convert a value into the entry held by the cache.  By default the value is encoded by the
+     * codec of the cache; implementations that hold values in another form may override this
+     * along with {@link #readCacheEntry(String, CacheEntry, Class)}.
+     *
+     * @param key    the value is to be stored against.
+     * @param value  to convert.
+     * @param expiry time after which the value expires, null if the expiry time of its class
+     *               applies.
+     * @param <T>    type of the value.
+     * @return entry to store.
+     * @throws CacheAccessException if the value could not be converted.
+     */
+    protected <T extends AbstractCacheable> CacheEntry createCacheEntry(final String key,
+        final T value, final Date expiry) throws CacheAccessException
+    {
+        try
+        {
+            return new CacheEntry(this.codec.encode(value), value.getClass(), expiry);
+        }
+        catch (final JsonSerializationException jse)
+        {
+            LOGGER.warn("Failed to serialize instance of class={} to add to cache with key={}",
+                value.getClass(), key, jse);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getClass(), jse);
+        }
+    }
+
+    /**
+     * Convert an entry held by the cache back into an instance of the requested class.  By default
+     * the payload held by the entry is decoded; an entry that cannot be decoded is expelled from
+     * the cache.
+     *
+     * @param key   the entry was stored against.
+     * @param entry to convert.
+     * @param clazz the type of object to return.
+     * @param <T>   the type to be returned.
+     * @return a new instance of clazz.
+     * @throws CacheAccessException if the entry could not be converted.
+     */
+    protected <T extends AbstractCacheable> T readCacheEntry(final String key,
+        final CacheEntry entry, final Class<T> clazz) throws CacheAccessException
+    {
+        try
+        {
+            return this.codec.decode(entry.getPayload(), clazz);
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            this.internalRemove(key, entry);
+            LOGGER.warn(
+                "Failed to deserialize cached instance of class={} with key={}; the value has been expelled from the cache",
+                clazz, key, jde);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz, jde);
+        }
+    }
+
+    @Override
+    public <T extends AbstractCacheable, E extends Exception> T getOrLoad(final String key,
+        final Class<T> clazz, final ICacheLoader<T, E> loader) throws CacheAccessException, E
+    {
+        return this.getOrLoad(key, clazz, loader, true);
+    }
+
+    @Override
+    public <T extends AbstractCacheable, E extends Exception> T getOrLoad(final String key,
+        final Class<T> clazz, final ICacheLoader<T, E> loader, final boolean recordStats)
+        throws CacheAccessException, E
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(clazz, "clazz");
+        ObjectUtils.requireNonNull(loader, "loader");
+
+        final T cached = this.get(key, clazz, false, recordStats);
+        if (cached != null && !cached.hasExpired())
+        {
+            return cached;
+        }
+
+        // read only by the thread running the load, after it has run
+        final boolean[] foundCached = new boolean[1];
+        final FutureTask<AbstractCacheable> load =
+            new FutureTask<AbstractCacheable>(new Callable<AbstractCacheable>()
+            {
+                @Override
+                public AbstractCacheable call() throws Exception
+                {
+                    // a load for this key may have completed since the first check
+                    final T current = AbstractCache.this.get(key, clazz, false, false);
+                    foundCached[0] = current != null && !current.hasExpired();
+                    final T value =
+                        foundCached[0] ? current : AbstractCache.this.load(clazz, loader);
+
+                    // publish a copy no caller is handed, so each caller copies from a value
+                    // that none of them can be changing
+                    return value == null ? null : value.copy();
+                }
+            });
+
+        final FutureTask<AbstractCacheable> inFlight = this.loadsInFlight.putIfAbsent(key, load);
+        if (inFlight == null)
+        {
+            try
+            {
+                load.run();
+            }
+            finally
+            {
+                this.loadsInFlight.remove(key, load);
+            }
+            return copyOf(clazz, this.<E>awaitLoad(key, clazz, load), foundCached[0]);
+        }
+
+        LOGGER.debug("Waiting for load in progress of class={} with key={}", clazz, key);
+
+        return copyOf(clazz, this.<E>awaitLoad(key, clazz, inFlight), true);
+    }
+
+    private static <T extends AbstractCacheable> T copyOf(final Class<T> clazz,
+        final AbstractCacheable loaded, final boolean markCached)
+    {
+        if (loaded == null)
+        {
+            return null;
+        }
+
+        final T copy = clazz.cast(loaded.copy());
+        if (markCached)
+        {
+            copy.markCached(false);
+        }
+        return copy;
+    }
+
+    @Override
+    public <T extends AbstractCacheable, E extends Exception> boolean refreshAsync(
+        final String key, final Class<T> clazz, final ICacheLoader<T, E> loader,
+        final Executor executor)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(clazz, "clazz");
+        ObjectUtils.requireNonNull(loader, "loader");
+        ObjectUtils.requireNonNull(executor, "executor");
+
+        final FutureTask<AbstractCacheable> load =
+            new FutureTask<AbstractCacheable>(new Callable<AbstractCacheable>()
+            {
+                @Override
+                public AbstractCacheable call() throws Exception
+                {
+                    return AbstractCache.this.load(clazz, loader);
+                }
+            });
+
+        if (this.loadsInFlight.putIfAbsent(key, load) != null)
+        {
+            LOGGER.debug("Load already in progress for key={}, not refreshing", key);
+            return false;
+        }
+
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    AbstractCache.this.runRefresh(key, load);
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            LOGGER.warn("Failed to schedule refresh of cached entry with key={}", key, ree);
+            this.loadsInFlight.remove(key, load);
+            load.cancel(false);
+            return false;
+        }
+
+        LOGGER.debug("Scheduled refresh of cached entry with key={}", key);
+        return true;
+    }
+
+    private <T extends AbstractCacheable, E extends Exception> T load(final Class<T> clazz,
+        final ICacheLoader<T, E> loader) throws E
+    {
+        final long start = System.nanoTime();
+        boolean loaded = false;
+        try
+        {
+            final T value = loader.load();
+            loaded = value != null;
+            return value;
+        }
+        finally
+        {
+            if (loaded)
+            {
+                this.statsCounter.recordLoadSuccess(clazz, System.nanoTime() - start);
+            }
+            else
+            {
+                this.statsCounter.recordLoadFailure(clazz, System.nanoTime() - start);
+            }
+        }
+    }
+
+    @Override
+    public int snapshot(final OutputStream out) throws IOException
+    {
+        ObjectUtils.requireNonNull(out, "out");
+
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        CacheSnapshot.writeHeader(data);
+
+        int written = 0;
+        for (final Map.Entry<String, CacheEntry> entry : this.internalEntries().entrySet())
+        {
+            final CacheEntry cacheEntry = entry.getValue();
+            if (this.getExpiryDeadline(cacheEntry) < System.currentTimeMillis())
+            {
+                continue;
+            }
+
+            final byte[] payload;
+            try
+            {
+                payload = this.snapshotPayload(entry.getKey(), cacheEntry);
+            }
+            catch (final CacheAccessException cae)
+            {
+                LOGGER.warn("Leaving key={}, class={} out of snapshot", entry.getKey(),
+                    cacheEntry.getCachedClass(), cae);
+                continue;
+            }
+            CacheSnapshot.writeRecord(data, entry.getKey(), cacheEntry, payload);
+            written++;
+        }
+
+        CacheSnapshot.writeEnd(data);
+        data.flush();
+
+        LOGGER.info("Wrote snapshot of {} cached entries", written);
+        return written;
+    }
+
+    @Override
+    public int preload(final InputStream in) throws IOException
+    {
+        ObjectUtils.requireNonNull(in, "in");
+
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        CacheSnapshot.readHeader(data);
+
+        int read = 0;
+        int added = 0;
+        CacheSnapshot.Record record;
+        while ((record = CacheSnapshot.readRecord(data)) != null)
+        {
+            read++;
+            final Class<? extends AbstractCacheable> clazz =
+                resolveCacheableClass(record.className);
+            if (clazz == null)
+            {
+                LOGGER.warn("Skipping key={} of snapshot as class={} is not known or not cacheable",
+                    record.key, record.className);
+            }
+            else if (this.preload(record, clazz))
+            {
+                added++;
+            }
+        }
+
+        LOGGER.info("Preloaded {} of {} entries from snapshot", added, read);
+        return added;
+    }
+
+    private boolean preload(final CacheSnapshot.Record record,
+        final Class<? extends AbstractCacheable> clazz)
+    {
+        try
+        {
+            final CacheEntry entry = this.restoreCacheEntry(record.key, record.payload, clazz,
+                record.cachedTime, record.expiry).withVersion(this.nextVersion());
+            if (this.getExpiryDeadline(entry) < System.currentTimeMillis())
+            {
+                LOGGER.debug("Not preloading expired key={}, class={}", record.key, clazz);
+                return false;
+            }
+            return this.internalReplace(record.key, null, entry);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to preload key={}, class={} from snapshot", record.key, clazz,
+                cae);
+            return false;
+        }
+    }
+
+    /**
+     * Resolve the name of a class read from a snapshot, file or shared store.  Such names are not
+     * trusted, so the class is checked to be cacheable before it can be initialised.
+     *
+     * @param className name of the class.
+     * @return the class, null if it is not known or is not cacheable.
+     */
+    protected static Class<? extends AbstractCacheable> resolveCacheableClass(
+        final String className)
+    {
+        try
+        {
+            final Class<?> clazz =
+                Class.forName(className, false, AbstractCache.class.getClassLoader());
+            return AbstractCacheable.class.isAssignableFrom(clazz)
+                   ? clazz.asSubclass(AbstractCacheable.class)
+                   : null;
+        }
+        catch (final ClassNotFoundException cnfe)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Preload the cache from a snapshot file, as configured on the builder of the cache.  A
+     * missing or unreadable snapshot is logged and leaves the cache as it is, so that a cache can
+     * always be built.
+     *
+     * @param file holding a snapshot written by {@link #snapshot(OutputStream)}.
+     */
+    void preloadSnapshot(final File file)
+    {
+        if (!file.isFile())
+        {
+            LOGGER.info("No cache snapshot found at {}, starting with an empty cache", file);
+            return;
+        }
+
+        try
+        {
+            final InputStream in = new FileInputStream(file);
+            try
+            {
+                this.preload(in);
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Failed to preload cache from snapshot {}", file, ioe);
+        }
+    }
+
+    /**
+     * Produce the payload written to a snapshot for an entry.  Defaults to the payload held by
+     * the entry; implementations that hold values in another form must override this along with
+     * {@link #restoreCacheEntry(String, byte[], Class, Date, Date)}.
+     *
+     * @param key   the entry is held against.
+     * @param entry to write.
+     * @return the payload.
+     * @throws CacheAccessException if the entry could not be converted.
+     */
+    protected byte[] snapshotPayload(final String key, final CacheEntry entry)
+        throws CacheAccessException
+    {
+        return entry.getPayload();
+    }
+
+    /**
+     * Convert a payload read from a snapshot into the entry held by the cache.
+     *
+     * @param key        the entry is to be held against.
+     * @param payload    read from the snapshot.
+     * @param clazz      the type of value.
+     * @param cachedTime the time the value was originally cached.
+     * @param expiry     time after which the value expires, null if the expiry time of its
+     *                   class applies.
+     * @return entry to store.
+     * @throws CacheAccessException if the payload could not be converted.
+     */
+    protected CacheEntry restoreCacheEntry(final String key, final byte[] payload,
+        final Class<? extends AbstractCacheable> clazz, final Date cachedTime, final Date expiry)
+        throws CacheAccessException
+    {
+        return new CacheEntry(payload, clazz, cachedTime, expiry);
+    }
+
+    @Override
+    public void addRemovalListener(final ICacheRemovalListener listener, final Executor executor)
+    {
+        ObjectUtils.requireNonNull(listener, "listener");
+        ObjectUtils.requireNonNull(executor, "executor");
+
+        this.removalListeners.add(new RemovalListenerRegistration(listener, executor));
+    }
+
+    @Override
+    public void removeRemovalListener(final ICacheRemovalListener listener)
+    {
+        for (final RemovalListenerRegistration registration : this.removalListeners)
+        {
+            if (registration.listener == listener)
+            {
+                this.removalListeners.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * @return true if any removal listeners are registered, implementations may skip work that is
+     * only needed to report removals when there are none.
+     */
+    protected boolean hasRemovalListeners()
+    {
+        return !this.removalListeners.isEmpty();
+    }
+
+    /**
+     * Pass notice of a removed entry to each registered removal listener on its executor.
+     * Implementations report the removals they make in {@link #remove(String)}, {@link #clear()},
+     * {@link #internalAdd(String, CacheEntry)} and when evicting or sweeping entries; removals
+     * made through {@link #internalReplace(String, CacheEntry, CacheEntry)} are reported by this
+     * class.
+     *
+     * @param key   the entry was held against.
+     * @param clazz the type of value the entry held.
+     * @param cause why the entry was removed.
+     */
+    protected void notifyRemoval(final String key, final Class<? extends AbstractCacheable> clazz,
+        final ICacheRemovalListener.RemovalCause cause)
+    {
+        for (final RemovalListenerRegistration registration : this.removalListeners)
+        {
+            registration.deliver(key, clazz, cause);
+        }
+    }
+
+    @Override
+    public CacheStats getStats()
+    {
+        CacheStats total = new CacheStats(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        for (final CacheStats classStats : this.getStatsByClass().values())
+        {
+            total = total.plus(classStats);
+        }
+        return total;
+    }
+
+    @Override
+    public Map<Class<? extends AbstractCacheable>, CacheStats> getStatsByClass()
+    {
+        final Map<Class<? extends AbstractCacheable>, Long> sizes =
+            new HashMap<Class<? extends AbstractCacheable>, Long>();
+        for (final CacheEntry cacheEntry : this.internalEntries().values())
+        {
+            final Long size = sizes.get(cacheEntry.getCachedClass());
+            sizes.put(cacheEntry.getCachedClass(), size == null ? 1L : size + 1L);
+        }
+        return this.statsCounter.snapshot(sizes);
+    }
+
+    /**
+     * Record that an entry was removed to keep the cache within its bounds.
+     *
+     * @param cacheEntry evicted.
+     */
+    protected void recordEviction(final CacheEntry cacheEntry)
+    {
+        this.statsCounter.recordEviction(cacheEntry.getCachedClass());
+    }
+
+    private void runRefresh(final String key, final FutureTask<AbstractCacheable> load)
+    {
+        try
+        {
+            load.run();
+            load.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (final ExecutionException ee)
+        {
+            LOGGER.warn("Failed to refresh cached entry with key={}", key, ee.getCause());
+        }
+        finally
+        {
+            this.loadsInFlight.remove(key, load);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> AbstractCacheable awaitLoad(final String key,
+        final Class<? extends AbstractCacheable> clazz, final FutureTask<AbstractCacheable> load)
+        throws CacheAccessException, E
+    {
+        try
+        {
+            return load.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz, ie);
+        }
+        catch (final ExecutionException ee)
+        {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            // the loader may only throw E, or a CacheAccessException from the cache itself
+            throw (E) cause;
+        }
+    }
+
     /**
      * Checks if a object has been cached past the defined caching time or if internally the object
      * has been marked as expired.
@@ -156,42 +912,115 @@ public abstract class AbstractCache implements ICache
 
         if (!cacheEntry.isExpired())
         {
-            final Long timeToExpire = this.cacheExpiryTimes.get(cacheEntry.getCachedClass());
-            if (timeToExpire != null)
+            expired = this.getExpiryDeadline(cacheEntry) < System.currentTimeMillis();
+            if (expired && cacheEntry.expire())
             {
-                expired = cacheEntry.getCachedTime().getTime() + timeToExpire
-                    < System.currentTimeMillis();
-                if (expired)
-                {
-                    cacheEntry.expire();
-                }
+                this.statsCounter.recordExpiry(cacheEntry.getCachedClass());
             }
         }
 
         return expired || cacheEntry.isExpired();
     }
 
+    /**
+     * Checks if an entry that has not expired has been cached past the refresh ahead fraction of
+     * the expiry time configured for its class.
+     *
+     * @param cacheEntry to check.
+     * @return true if the entry should be refreshed.
+     */
+    protected boolean isRefreshDue(final CacheEntry cacheEntry)
+    {
+        if (cacheEntry.isExpired() || this.refreshAheadFraction >= 1.0)
+        {
+            return false;
+        }
+
+        final long deadline = this.getExpiryDeadline(cacheEntry);
+        if (deadline == Long.MAX_VALUE)
+        {
+            return false;
+        }
+
+        final long cachedTime = cacheEntry.getCachedTime().getTime();
+        return cachedTime + (long) ((deadline - cachedTime) * this.refreshAheadFraction)
+            <= System.currentTimeMillis();
+    }
+
+    /**
+     * Calculates the time at which an entry will expire, based on its own expiry time if it has
+     * one, otherwise the expiry time configured for its class.
+     *
+     * @param cacheEntry to check.
+     * @return the expiry deadline in milliseconds since the epoch, {@link Long#MAX_VALUE} if the
+     * entry does not expire.
+     */
+    protected long getExpiryDeadline(final CacheEntry cacheEntry)
+    {
+        final long cachedTime = cacheEntry.getCachedTime().getTime();
+
+        if (cacheEntry.isExpired())
+        {
+            return cachedTime;
+        }
+
+        if (cacheEntry.getExpiry() != null)
+        {
+            return cacheEntry.getExpiry().getTime();
+        }
+
+        final long timeToExpire =
+            this.expiryPolicy.get().getExpiryTimeMillis(cacheEntry.getCachedClass());
+        return timeToExpire == CacheExpiryPolicy.NO_EXPIRY
+               ? Long.MAX_VALUE
+               : cachedTime + timeToExpire;
+    }
+
     @Override
     public void setCacheExpiryTime(long duration, TimeUnit unit,
         Class<? extends AbstractCacheable> clazz) throws CacheExpiryLimitException
     {
+        ObjectUtils.requireNonNull(clazz, "clazz");
         final long cacheTime = unit.toMillis(duration);
-        final Tuple<Long, Long> limits = this.cacheExpiryLimits.get(clazz);
 
-        if (limits == null)
-        {
-            this.cacheExpiryTimes.put(clazz, unit.toMillis(duration));
-        }
-        else
+        CacheExpiryPolicy current;
+        CacheExpiryPolicy updated;
+        do
         {
-            if (ObjectUtils.defaultIfNull(limits.getFirst(), 0L) >= cacheTime
-                || ObjectUtils.defaultIfNull(limits.getSecond(), Long.MAX_VALUE) <= cacheTime)
+            current = this.expiryPolicy.get();
+            try
+            {
+                updated = current.withExpiryTime(clazz, cacheTime);
+            }
+            catch (final CacheExpiryLimitException cele)
             {
                 LOGGER.warn("Cache expiry limits are invalid; lower={}, upper={}",
-                    limits.getFirst(), limits.getSecond());
-                throw new CacheExpiryLimitException(clazz, limits.getFirst(), limits.getSecond());
+                    current.getLimits().get(clazz).getFirst(),
+                    current.getLimits().get(clazz).getSecond());
+                throw cele;
             }
         }
+        while (!this.expiryPolicy.compareAndSet(current, updated));
+    }
+
+    /**
+     * @return the expiry times currently applied by the cache.
+     */
+    public CacheExpiryPolicy getExpiryPolicy()
+    {
+        return this.expiryPolicy.get();
+    }
+
+    @Override
+    public void setRefreshAheadFraction(final double fraction)
+    {
+        if (!(fraction > 0.0 && fraction <= 1.0))
+        {
+            throw new IllegalArgumentException(
+                String.format("Refresh ahead fraction must be in the range (0, 1], was %s",
+                    fraction));
+        }
+        this.refreshAheadFraction = fraction;
     }
 
     /**
@@ -214,12 +1043,132 @@ public abstract class AbstractCache implements ICache
     protected abstract CacheEntry internalGet(final String key) throws CacheAccessException;
 
     /**
-     * Remove value from the internal cache where key and value match.
+     * Fetch the entries held against several keys.  Defaults to calling {@link
+     * #internalGet(String)} for each key; implementations able to serve several keys at once, such
+     * as those backed by a remote store, should override this.
+     *
+     * @param keys to fetch.
+     * @return the entries found, keyed by key; keys not held are absent.
+     * @throws CacheAccessException if there was an issue fetching the values.
+     */
+    protected Map<String, CacheEntry> internalGetAll(final Collection<String> keys)
+        throws CacheAccessException
+    {
+        final Map<String, CacheEntry> entries =
+            new HashMap<String, CacheEntry>(Math.max(4, keys.size() * 2));
+        for (final String key : keys)
+        {
+            final CacheEntry entry = key == null ? null : this.internalGet(key);
+            if (entry != null)
+            {
+                entries.put(key, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Add several entries to the internal cache.  Defaults to calling {@link #internalAdd(String,
+     * CacheEntry)} for each entry.
+     *
+     * @param entries to add, keyed by key.
+     * @throws CacheAccessException if there was a problem adding the values to the cache.
+     */
+    protected void internalAddAll(final Map<String, CacheEntry> entries)
+        throws CacheAccessException
+    {
+        for (final Map.Entry<String, CacheEntry> entry : entries.entrySet())
+        {
+            this.internalAdd(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Atomically replace the entry held against the key, only if the entry held is still the one
+     * expected, as identified by its version.
+     *
+     * @param key      key
+     * @param expected entry expected to be held, null if none should be held.
+     * @param value    entry to hold, null to remove the entry.
+     * @return true if the entry was replaced.
+     * @throws CacheAccessException if there was a problem updating the cache.
+     */
+    protected abstract boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry value) throws CacheAccessException;
+
+    /**
+     * The entries currently held, used to estimate the size of the cache for {@link
+     * #getStats()} and to write snapshots.  Defaults to none.
+     *
+     * @return a weakly consistent view of the entries held, keyed by key.
+     */
+    protected Map<String, CacheEntry> internalEntries()
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Remove the entry from the internal cache if it is still held against the key.
      *
      * @param key   key
-     * @param value value
+     * @param entry entry
+     * @return true if the entry was removed.
      * @throws CacheAccessException if there was a problem removing the value from the cache.
      */
-    protected abstract void internalRemove(final String key, final String value)
-        throws CacheAccessException;
+    protected boolean internalRemove(final String key, final CacheEntry entry)
+        throws CacheAccessException
+    {
+        if (!this.internalReplace(key, entry, null))
+        {
+            LOGGER.debug("Item with key={} was not removed from cache as it has been replaced",
+                key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removal listener along with the executor it is called on.
+     */
+    private static final class RemovalListenerRegistration
+    {
+        private final ICacheRemovalListener listener;
+        private final Executor executor;
+
+        private RemovalListenerRegistration(final ICacheRemovalListener listener,
+            final Executor executor)
+        {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        private void deliver(final String key, final Class<? extends AbstractCacheable> clazz,
+            final ICacheRemovalListener.RemovalCause cause)
+        {
+            try
+            {
+                this.executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            RemovalListenerRegistration.this.listener.onRemoval(key, clazz,
+                                cause);
+                        }
+                        catch (final RuntimeException re)
+                        {
+                            LOGGER.warn("Removal listener failed for key={}, cause={}", key,
+                                cause, re);
+                        }
+                    }
+                });
+            }
+            catch (final RejectedExecutionException ree)
+            {
+                LOGGER.warn("Dropped removal notice for key={}, cause={}", key, cause, ree);
+            }
+        }
+    }
 }
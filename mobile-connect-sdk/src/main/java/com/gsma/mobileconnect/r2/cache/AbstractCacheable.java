@@ -16,24 +16,41 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Date;
+
 /**
  * Defines core functionality of cacheable items.
  *
  * @since 2.0
  */
-public abstract class AbstractCacheable implements ICacheable
+public abstract class AbstractCacheable implements ICacheable, Cloneable
 {
     private boolean cached = false;
     private boolean expired = false;
+    private boolean refreshDue = false;
+    private long cacheVersion = ICache.NO_VERSION;
 
     void setCacheInfo(final CacheEntry cacheEntry)
+    {
+        this.cacheVersion = cacheEntry.getVersion();
+        this.markCached(cacheEntry.isExpired());
+    }
+
+    void markCached(final boolean expired)
     {
         this.cached = true;
-        this.expired = cacheEntry.isExpired();
+        this.expired = expired;
 
         this.cached();
     }
 
+    void markRefreshDue()
+    {
+        this.refreshDue = true;
+    }
+
     @Override
     public boolean isCached()
     {
@@ -46,6 +63,48 @@ public abstract class AbstractCacheable implements ICacheable
         return this.expired;
     }
 
+    @Override
+    public boolean needsRefresh()
+    {
+        return this.refreshDue && !this.expired;
+    }
+
+    /**
+     * @return the version of the cache entry this object was read from, {@link ICache#NO_VERSION}
+     * if it was not read from a cache.  Pass to {@link ICache#replace(String, long,
+     * AbstractCacheable)} to update the entry only if it has not been changed since.
+     */
+    @JsonIgnore
+    public long getCacheVersion()
+    {
+        return this.cacheVersion;
+    }
+
+    @Override
+    public Date expiryDeadline()
+    {
+        return null;
+    }
+
+    /**
+     * Create a copy of this object, used by {@link ObjectCache} so that instances held by the cache
+     * are never shared with callers.  The default is a shallow copy which is sufficient for
+     * immutable types; implementations holding mutable state should override this.
+     *
+     * @return a copy of this object.
+     */
+    protected AbstractCacheable copy()
+    {
+        try
+        {
+            return (AbstractCacheable) super.clone();
+        }
+        catch (final CloneNotSupportedException cnse)
+        {
+            throw new IllegalStateException(cnse);
+        }
+    }
+
     /**
      * Mark this object as cached.  This is called as the item exits the cache and is marked as
      * cached, implementations may wish to modify their data when this called.
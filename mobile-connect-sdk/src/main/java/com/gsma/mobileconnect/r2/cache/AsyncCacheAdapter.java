@@ -0,0 +1,125 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a synchronous {@link ICache} to {@link IAsyncCache}.  Operations run on the executor
+ * supplied, so that a cache which blocks on a store does not hold the calling thread; without an
+ * executor they run on the calling thread, which suits in-memory caches where handing off to
+ * another thread would cost more than the operation itself.
+ *
+ * @since 2.0
+ */
+public class AsyncCacheAdapter implements IAsyncCache
+{
+    private final ICache cache;
+    private final Executor executor;
+
+    /**
+     * @param cache    to adapt.
+     * @param executor to run operations on, null to run them on the calling thread.
+     */
+    public AsyncCacheAdapter(final ICache cache, final Executor executor)
+    {
+        this.cache = ObjectUtils.requireNonNull(cache, "cache");
+        this.executor = executor;
+    }
+
+    /**
+     * Return the cache as an {@link IAsyncCache}, adapting it only if it does not already
+     * implement the interface.
+     *
+     * @param cache    to adapt, may be null.
+     * @param executor to run operations on if adapted, null to run them on the calling thread.
+     * @return the async cache, null if cache is null.
+     */
+    public static IAsyncCache of(final ICache cache, final Executor executor)
+    {
+        if (cache == null)
+        {
+            return null;
+        }
+        return cache instanceof IAsyncCache
+               ? (IAsyncCache) cache
+               : new AsyncCacheAdapter(cache, executor);
+    }
+
+    /**
+     * Return the cache as an {@link IAsyncCache}, running operations on the calling thread where
+     * the cache is held in memory and on the executor otherwise, so that a read from a shared
+     * store or disk does not block the caller.
+     *
+     * @param cache    to adapt, may be null.
+     * @param executor to run operations on if the cache is not held in memory.
+     * @return the async cache, null if cache is null.
+     */
+    public static IAsyncCache inlineIfInMemory(final ICache cache, final Executor executor)
+    {
+        final boolean inMemory = cache instanceof ConcurrentCache || cache instanceof ObjectCache;
+        return of(cache, inMemory ? null : executor);
+    }
+
+    /**
+     * @return the cache adapted.
+     */
+    public ICache getCache()
+    {
+        return this.cache;
+    }
+
+    @Override
+    public <T extends AbstractCacheable> CallbackFuture<T> getAsync(final String key,
+        final Class<T> clazz)
+    {
+        return this.getAsync(key, clazz, true);
+    }
+
+    @Override
+    public <T extends AbstractCacheable> CallbackFuture<T> getAsync(final String key,
+        final Class<T> clazz, final boolean removeIfExpired)
+    {
+        return CallbackFuture.run(this.executor, new Callable<T>()
+        {
+            @Override
+            public T call() throws CacheAccessException
+            {
+                return AsyncCacheAdapter.this.cache.get(key, clazz, removeIfExpired);
+            }
+        });
+    }
+
+    @Override
+    public <T extends AbstractCacheable> CallbackFuture<Void> addAsync(final String key,
+        final T value)
+    {
+        return CallbackFuture.run(this.executor, new Callable<Void>()
+        {
+            @Override
+            public Void call() throws CacheAccessException
+            {
+                AsyncCacheAdapter.this.cache.add(key, value);
+                return null;
+            }
+        });
+    }
+}
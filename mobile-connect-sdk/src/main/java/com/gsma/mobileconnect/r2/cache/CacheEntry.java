@@ -26,30 +26,135 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 class CacheEntry
 {
-    private final String value;
+    private final byte[] payload;
+    private final AbstractCacheable instance;
     private final Date cachedTime;
+    private final Date expiry;
     private final Class<? extends AbstractCacheable> clazz;
     private final AtomicBoolean expired;
+    private final long version;
 
     /**
-     * Wrap specified value for storage in the cache.
+     * Wrap specified payload for storage in the cache.
      *
-     * @param value to wrap.
+     * @param payload to wrap.
+     * @param expiry time after which the value expires, null if the expiry time of its class
+     *               applies.
      */
-    CacheEntry(final String value, final Class<? extends AbstractCacheable> clazz)
+    CacheEntry(final byte[] payload, final Class<? extends AbstractCacheable> clazz,
+        final Date expiry)
     {
-        this.value = value;
+        this(payload, null, clazz, expiry);
+    }
+
+    /**
+     * Wrap specified payload restored from storage, keeping the time it was originally cached.
+     *
+     * @param payload    to wrap.
+     * @param cachedTime the time the value was originally cached.
+     * @param expiry     time after which the value expires, null if the expiry time of its class
+     *                   applies.
+     */
+    CacheEntry(final byte[] payload, final Class<? extends AbstractCacheable> clazz,
+        final Date cachedTime, final Date expiry)
+    {
+        this(payload, null, clazz, cachedTime, expiry);
+    }
+
+    /**
+     * Wrap a live instance for storage in the cache.
+     *
+     * @param instance to wrap.
+     * @param expiry   time after which the value expires, null if the expiry time of its class
+     *                 applies.
+     */
+    CacheEntry(final AbstractCacheable instance, final Date expiry)
+    {
+        this(null, instance, instance.getClass(), expiry);
+    }
+
+    /**
+     * Wrap a live instance restored from storage, keeping the time it was originally cached.
+     *
+     * @param instance   to wrap.
+     * @param cachedTime the time the value was originally cached.
+     * @param expiry     time after which the value expires, null if the expiry time of its class
+     *                   applies.
+     */
+    CacheEntry(final AbstractCacheable instance, final Date cachedTime, final Date expiry)
+    {
+        this(null, instance, instance.getClass(), cachedTime, expiry);
+    }
+
+    private CacheEntry(final byte[] payload, final AbstractCacheable instance,
+        final Class<? extends AbstractCacheable> clazz, final Date expiry)
+    {
+        this(payload, instance, clazz, new Date(), expiry);
+    }
+
+    private CacheEntry(final byte[] payload, final AbstractCacheable instance,
+        final Class<? extends AbstractCacheable> clazz, final Date cachedTime, final Date expiry)
+    {
+        this(payload, instance, clazz, cachedTime, expiry, ICache.NO_VERSION);
+    }
+
+    private CacheEntry(final byte[] payload, final AbstractCacheable instance,
+        final Class<? extends AbstractCacheable> clazz, final Date cachedTime, final Date expiry,
+        final long version)
+    {
+        this.payload = payload;
+        this.instance = instance;
         this.clazz = clazz;
-        this.cachedTime = new Date();
+        this.cachedTime = cachedTime;
+        this.expiry = expiry;
         this.expired = new AtomicBoolean(false);
+        this.version = version;
     }
 
     /**
-     * @return the value held.
+     * Create a copy of this entry stamped with a version.
+     *
+     * @param version to stamp the copy with.
+     * @return the copy, sharing the value held by this entry.
+     */
+    CacheEntry withVersion(final long version)
+    {
+        return new CacheEntry(this.payload, this.instance, this.clazz, this.cachedTime,
+            this.expiry, version);
+    }
+
+    /**
+     * @return the version stamped on the entry when it was written, {@link ICache#NO_VERSION} if
+     * it has not been stamped.
+     */
+    long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * @return the encoded value held, null if this entry holds a live instance.
      */
-    String getValue()
+    byte[] getPayload()
     {
-        return this.value;
+        return this.payload;
+    }
+
+    /**
+     * @return the live instance held, null if this entry holds an encoded value.
+     */
+    AbstractCacheable getInstance()
+    {
+        return this.instance;
+    }
+
+    /**
+     * @return the approximate size in bytes of the value held, taken from the length of its
+     * payload.
+     */
+    long getWeight()
+    {
+        return this.payload == null ? 0L : this.payload.length;
     }
 
     /**
@@ -60,6 +165,15 @@ class CacheEntry
         return this.cachedTime;
     }
 
+    /**
+     * @return the time after which the item expires, null if the expiry time of its class
+     * applies.
+     */
+    Date getExpiry()
+    {
+        return this.expiry;
+    }
+
     /**
      * @return the class type of the item cached.
      */
@@ -78,9 +192,11 @@ class CacheEntry
 
     /**
      * mark this item as expired.
+     *
+     * @return true if this call marked the item as expired, false if it already was.
      */
-    void expire()
+    boolean expire()
     {
-        this.expired.set(true);
+        return this.expired.compareAndSet(false, true);
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the expiry times configured for each class of value held by a cache, along
+ * with the limits they must fall within.  Changing an expiry time creates a new policy, which the
+ * cache swaps in atomically, so reads of the policy never need to lock.  Lookups by class are
+ * memoized against the class itself so that they cost no more than a field read once warm.
+ *
+ * @since 2.0
+ */
+public final class CacheExpiryPolicy
+{
+    /**
+     * Returned by {@link #getExpiryTimeMillis(Class)} where no expiry time is configured.
+     */
+    public static final long NO_EXPIRY = -1L;
+
+    private final Map<Class<? extends AbstractCacheable>, Long> expiryTimes;
+    private final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> limits;
+    private final ClassValue<Long> lookup = new ClassValue<Long>()
+    {
+        @Override
+        protected Long computeValue(final Class<?> type)
+        {
+            final Long expiryTime = CacheExpiryPolicy.this.expiryTimes.get(type);
+            return expiryTime == null ? NO_EXPIRY : expiryTime;
+        }
+    };
+
+    CacheExpiryPolicy(final Map<Class<? extends AbstractCacheable>, Long> expiryTimes,
+        final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> limits)
+    {
+        this.expiryTimes = Collections.unmodifiableMap(
+            new HashMap<Class<? extends AbstractCacheable>, Long>(expiryTimes));
+        this.limits = limits == null
+                      ? Collections.<Class<? extends AbstractCacheable>, Tuple<Long, Long>>emptyMap()
+                      : Collections.unmodifiableMap(
+                          new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(
+                              limits));
+    }
+
+    /**
+     * @param clazz of the value.
+     * @return the time values of the class are held for in milliseconds, {@link #NO_EXPIRY} if
+     * they do not expire.
+     */
+    public long getExpiryTimeMillis(final Class<? extends AbstractCacheable> clazz)
+    {
+        return this.lookup.get(clazz);
+    }
+
+    /**
+     * @return the expiry times configured for each class.
+     */
+    public Map<Class<? extends AbstractCacheable>, Long> getExpiryTimes()
+    {
+        return this.expiryTimes;
+    }
+
+    /**
+     * @return the lower and upper limits expiry times must fall within for each class.
+     */
+    public Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> getLimits()
+    {
+        return this.limits;
+    }
+
+    /**
+     * Create a copy of this policy with the expiry time of a class changed.
+     *
+     * @param clazz            of the values to change the expiry time of.
+     * @param expiryTimeMillis the new expiry time.
+     * @return the new policy.
+     * @throws CacheExpiryLimitException if the expiry time is outside the limits for the class.
+     */
+    CacheExpiryPolicy withExpiryTime(final Class<? extends AbstractCacheable> clazz,
+        final long expiryTimeMillis) throws CacheExpiryLimitException
+    {
+        final Tuple<Long, Long> classLimits = this.limits.get(clazz);
+        if (classLimits != null && (
+            ObjectUtils.defaultIfNull(classLimits.getFirst(), 0L) >= expiryTimeMillis
+                || ObjectUtils.defaultIfNull(classLimits.getSecond(), Long.MAX_VALUE)
+                <= expiryTimeMillis))
+        {
+            throw new CacheExpiryLimitException(clazz, classLimits.getFirst(),
+                classLimits.getSecond());
+        }
+
+        final Map<Class<? extends AbstractCacheable>, Long> updated =
+            new HashMap<Class<? extends AbstractCacheable>, Long>(this.expiryTimes);
+        updated.put(clazz, expiryTimeMillis);
+        return new CacheExpiryPolicy(updated, this.limits);
+    }
+}
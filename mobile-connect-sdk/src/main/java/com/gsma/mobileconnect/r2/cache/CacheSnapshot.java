@@ -0,0 +1,152 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Stream format written by {@link ICache#snapshot(java.io.OutputStream)} and read by {@link
+ * ICache#preload(java.io.InputStream)}. <p> A snapshot is a header holding a magic number and the
+ * format version, followed by one record per entry and an end marker, so it can be written and
+ * read one entry at a time.  Each record holds the key, the name of the cached class, the time the
+ * value was originally cached, its expiry and the payload produced by the codec of the cache.
+ * </p>
+ *
+ * @since 2.0
+ */
+final class CacheSnapshot
+{
+    static final int MAGIC = 0x4D43534E;
+    static final int FORMAT_VERSION = 1;
+
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+    private static final long NO_EXPIRY = -1L;
+    private static final int MAX_PAYLOAD_LENGTH = 64 * 1024 * 1024;
+
+    private CacheSnapshot()
+    {
+    }
+
+    static void writeHeader(final DataOutputStream out) throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    static void writeRecord(final DataOutputStream out, final String key, final CacheEntry entry,
+        final byte[] payload) throws IOException
+    {
+        out.writeByte(RECORD);
+        out.writeUTF(key);
+        out.writeUTF(entry.getCachedClass().getName());
+        out.writeLong(entry.getCachedTime().getTime());
+        out.writeLong(entry.getExpiry() == null ? NO_EXPIRY : entry.getExpiry().getTime());
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    static void writeEnd(final DataOutputStream out) throws IOException
+    {
+        out.writeByte(END);
+    }
+
+    /**
+     * Read and check the header of a snapshot.
+     *
+     * @param in to read from.
+     * @throws IOException if the stream is not a snapshot, or is of an unsupported version.
+     */
+    static void readHeader(final DataInputStream in) throws IOException
+    {
+        final int magic = in.readInt();
+        if (magic != MAGIC)
+        {
+            throw new IOException(String.format("Not a cache snapshot, magic=%08x", magic));
+        }
+        final int version = in.readInt();
+        if (version != FORMAT_VERSION)
+        {
+            throw new IOException(
+                String.format("Unsupported cache snapshot version=%d, expected version=%d",
+                    version, FORMAT_VERSION));
+        }
+    }
+
+    /**
+     * Read the next record of a snapshot.
+     *
+     * @param in to read from.
+     * @return the record, null once the end of the snapshot is reached.
+     * @throws IOException if the record could not be read, including if the snapshot is
+     *                     truncated.
+     */
+    static Record readRecord(final DataInputStream in) throws IOException
+    {
+        final byte type = in.readByte();
+        if (type == END)
+        {
+            return null;
+        }
+        if (type != RECORD)
+        {
+            throw new IOException("Corrupt cache snapshot, unexpected record type=" + type);
+        }
+
+        final String key = in.readUTF();
+        final String className = in.readUTF();
+        final long cachedTime = in.readLong();
+        final long expiry = in.readLong();
+        final int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_LENGTH)
+        {
+            throw new IOException(
+                String.format("Corrupt cache snapshot, payload length=%d of key=%s", length,
+                    key));
+        }
+        final byte[] payload = new byte[length];
+        in.readFully(payload);
+
+        return new Record(key, className, new Date(cachedTime),
+            expiry == NO_EXPIRY ? null : new Date(expiry), payload);
+    }
+
+    /**
+     * Entry read from a snapshot.
+     */
+    static final class Record
+    {
+        final String key;
+        final String className;
+        final Date cachedTime;
+        final Date expiry;
+        final byte[] payload;
+
+        private Record(final String key, final String className, final Date cachedTime,
+            final Date expiry, final byte[] payload)
+        {
+            this.key = key;
+            this.className = className;
+            this.cachedTime = cachedTime;
+            this.expiry = expiry;
+            this.payload = payload;
+        }
+    }
+}
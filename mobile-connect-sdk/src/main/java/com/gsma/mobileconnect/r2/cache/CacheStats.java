@@ -0,0 +1,154 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+/**
+ * Snapshot of the activity of an {@link ICache}, either for all values or those of a single
+ * class.  Counts accumulate from creation of the cache and are not reset when it is cleared.
+ *
+ * @since 2.0
+ */
+public class CacheStats
+{
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTimeNanos;
+    private final long evictionCount;
+    private final long expiryCount;
+    private final long estimatedSize;
+
+    CacheStats(final long hitCount, final long missCount, final long loadSuccessCount,
+        final long loadFailureCount, final long totalLoadTimeNanos, final long evictionCount,
+        final long expiryCount, final long estimatedSize)
+    {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.evictionCount = evictionCount;
+        this.expiryCount = expiryCount;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * @return the number of reads which returned a value that had not expired.
+     */
+    public long getHitCount()
+    {
+        return this.hitCount;
+    }
+
+    /**
+     * @return the number of reads which found no value, or only an expired one.
+     */
+    public long getMissCount()
+    {
+        return this.missCount;
+    }
+
+    /**
+     * @return the proportion of reads which were hits, 1 if there have been no reads.
+     */
+    public double getHitRate()
+    {
+        final long requestCount = this.hitCount + this.missCount;
+        return requestCount == 0L ? 1.0 : (double) this.hitCount / requestCount;
+    }
+
+    /**
+     * @return the number of loads, see {@link ICache#getOrLoad}, which returned a value.
+     */
+    public long getLoadSuccessCount()
+    {
+        return this.loadSuccessCount;
+    }
+
+    /**
+     * @return the number of loads which threw an exception or returned no value.
+     */
+    public long getLoadFailureCount()
+    {
+        return this.loadFailureCount;
+    }
+
+    /**
+     * @return the total time spent in loads, successful or not.
+     */
+    public long getTotalLoadTimeNanos()
+    {
+        return this.totalLoadTimeNanos;
+    }
+
+    /**
+     * @return the number of values evicted to keep the cache within its bounds.
+     */
+    public long getEvictionCount()
+    {
+        return this.evictionCount;
+    }
+
+    /**
+     * @return the number of values which have expired.
+     */
+    public long getExpiryCount()
+    {
+        return this.expiryCount;
+    }
+
+    /**
+     * @return the approximate number of values held when the snapshot was taken.
+     */
+    public long getEstimatedSize()
+    {
+        return this.estimatedSize;
+    }
+
+    CacheStats plus(final CacheStats other)
+    {
+        return new CacheStats(this.hitCount + other.hitCount, this.missCount + other.missCount,
+            this.loadSuccessCount + other.loadSuccessCount,
+            this.loadFailureCount + other.loadFailureCount,
+            this.totalLoadTimeNanos + other.totalLoadTimeNanos,
+            this.evictionCount + other.evictionCount, this.expiryCount + other.expiryCount,
+            this.estimatedSize + other.estimatedSize);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CacheStats(hits="
+            + this.hitCount
+            + ", misses="
+            + this.missCount
+            + ", loadSuccesses="
+            + this.loadSuccessCount
+            + ", loadFailures="
+            + this.loadFailureCount
+            + ", totalLoadNanos="
+            + this.totalLoadTimeNanos
+            + ", evictions="
+            + this.evictionCount
+            + ", expiries="
+            + this.expiryCount
+            + ", estimatedSize="
+            + this.estimatedSize
+            + ")";
+    }
+}
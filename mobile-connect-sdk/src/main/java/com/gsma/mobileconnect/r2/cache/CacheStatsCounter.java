@@ -0,0 +1,128 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Accumulates the counts reported by {@link CacheStats} for each class of value held by a cache.
+ *
+ * @since 2.0
+ */
+final class CacheStatsCounter
+{
+    private final ConcurrentMap<Class<? extends AbstractCacheable>, Counters> counters =
+        new ConcurrentHashMap<Class<? extends AbstractCacheable>, Counters>();
+
+    void recordHit(final Class<? extends AbstractCacheable> clazz)
+    {
+        this.countersFor(clazz).hits.increment();
+    }
+
+    void recordMiss(final Class<? extends AbstractCacheable> clazz)
+    {
+        this.countersFor(clazz).misses.increment();
+    }
+
+    void recordLoadSuccess(final Class<? extends AbstractCacheable> clazz, final long loadNanos)
+    {
+        final Counters classCounters = this.countersFor(clazz);
+        classCounters.loadSuccesses.increment();
+        classCounters.loadTime.add(loadNanos);
+    }
+
+    void recordLoadFailure(final Class<? extends AbstractCacheable> clazz, final long loadNanos)
+    {
+        final Counters classCounters = this.countersFor(clazz);
+        classCounters.loadFailures.increment();
+        classCounters.loadTime.add(loadNanos);
+    }
+
+    void recordEviction(final Class<? extends AbstractCacheable> clazz)
+    {
+        this.countersFor(clazz).evictions.increment();
+    }
+
+    void recordExpiry(final Class<? extends AbstractCacheable> clazz)
+    {
+        this.countersFor(clazz).expiries.increment();
+    }
+
+    /**
+     * Take a snapshot of the counts for each class.
+     *
+     * @param sizes the number of values held for each class.
+     * @return snapshot of each class which has been counted or is held.
+     */
+    Map<Class<? extends AbstractCacheable>, CacheStats> snapshot(
+        final Map<Class<? extends AbstractCacheable>, Long> sizes)
+    {
+        final Map<Class<? extends AbstractCacheable>, CacheStats> snapshot =
+            new HashMap<Class<? extends AbstractCacheable>, CacheStats>();
+
+        for (final Map.Entry<Class<? extends AbstractCacheable>, Long> size : sizes.entrySet())
+        {
+            this.countersFor(size.getKey());
+        }
+        for (final Map.Entry<Class<? extends AbstractCacheable>, Counters> entry : this.counters
+            .entrySet())
+        {
+            final Long size = sizes.get(entry.getKey());
+            snapshot.put(entry.getKey(),
+                entry.getValue().snapshot(size == null ? 0L : size));
+        }
+
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private Counters countersFor(final Class<? extends AbstractCacheable> clazz)
+    {
+        Counters classCounters = this.counters.get(clazz);
+        if (classCounters == null)
+        {
+            final Counters created = new Counters();
+            classCounters = this.counters.putIfAbsent(clazz, created);
+            if (classCounters == null)
+            {
+                classCounters = created;
+            }
+        }
+        return classCounters;
+    }
+
+    private static final class Counters
+    {
+        private final StripedCounter hits = new StripedCounter();
+        private final StripedCounter misses = new StripedCounter();
+        private final StripedCounter loadSuccesses = new StripedCounter();
+        private final StripedCounter loadFailures = new StripedCounter();
+        private final StripedCounter loadTime = new StripedCounter();
+        private final StripedCounter evictions = new StripedCounter();
+        private final StripedCounter expiries = new StripedCounter();
+
+        private CacheStats snapshot(final long size)
+        {
+            return new CacheStats(this.hits.sum(), this.misses.sum(), this.loadSuccesses.sum(),
+                this.loadFailures.sum(), this.loadTime.sum(), this.evictions.sum(),
+                this.expiries.sum(), size);
+        }
+    }
+}
@@ -20,32 +20,113 @@ import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.TimerWheel;
 import com.gsma.mobileconnect.r2.utils.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Concrete implementation of {@link ICache} using a ConcurrentHashMap as the internal
- * caching mechanism.
+ * caching mechanism. <p> The cache is unbounded unless a maximum entry count or weight is set on
+ * the {@link Builder}, in which case entries are evicted using a {@link SegmentedLruPolicy}.
+ * Writes to a bounded cache are serialised; reads record access only when the policy is not
+ * already locked, so that reads never wait on one another. </p> <p> Expired entries are removed
+ * when read.  Where an executor is supplied via {@link Builder#withExpirySweeper} entries that
+ * are never read again are also removed in the background, each being tracked against its expiry
+ * deadline in a {@link TimerWheel}; the sweeper runs until the cache is closed. </p>
  *
  * @since 2.0
  */
-public class ConcurrentCache extends AbstractCache
+public class ConcurrentCache extends AbstractCache implements Closeable
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentCache.class);
     private final ConcurrentHashMap<String, CacheEntry> cache =
         new ConcurrentHashMap<String, CacheEntry>();
+    private final SegmentedLruPolicy evictionPolicy;
+    private final Lock evictionLock = new ReentrantLock();
+    private final ExpirySweeper expirySweeper;
+    private volatile ScheduledFuture<?> sweepFuture;
+    private volatile boolean closed = false;
 
     private ConcurrentCache(final Builder builder)
     {
-        super(builder.jsonService, builder.cacheExpiryLimits);
+        super(builder.codec == null ? new JsonCacheEntryCodec(builder.jsonService) : builder.codec,
+            builder.cacheExpiryLimits);
 
-        LOGGER.info("New instance of ConcurrentCache created");
+        this.evictionPolicy =
+            builder.maxEntries == Long.MAX_VALUE && builder.maxWeight == Long.MAX_VALUE
+            ? null
+            : new SegmentedLruPolicy(builder.maxEntries, builder.maxWeight);
+
+        if (builder.sweeperExecutorService == null)
+        {
+            this.expirySweeper = null;
+        }
+        else
+        {
+            this.expirySweeper = new ExpirySweeper(builder.sweepPeriodMillis);
+        }
+
+        LOGGER.info(
+            "New instance of ConcurrentCache created with maxEntries={}, maxWeight={}, sweepPeriod={} ms",
+            builder.maxEntries, builder.maxWeight,
+            this.expirySweeper == null ? null : builder.sweepPeriodMillis);
+    }
+
+    /**
+     * Start sweeping expired entries on the executor, once the cache has been constructed.
+     */
+    private void startExpirySweeper(final ScheduledExecutorService executorService,
+        final long periodMillis)
+    {
+        this.sweepFuture = executorService.scheduleWithFixedDelay(this.expirySweeper,
+            periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background expiry sweeper, if enabled.  The cache remains usable, expired entries
+     * still being removed when read.
+     */
+    @Override
+    public void close()
+    {
+        this.closed = true;
+
+        final ScheduledFuture<?> future = this.sweepFuture;
+        if (future != null)
+        {
+            LOGGER.info("Stopping expiry sweeper of ConcurrentCache");
+            future.cancel(false);
+            this.sweepFuture = null;
+        }
+    }
+
+    /**
+     * @return statistics describing the work of the background expiry sweeper, all zero if the
+     * sweeper is not enabled.
+     */
+    public SweepStatistics getSweepStatistics()
+    {
+        return this.expirySweeper == null
+               ? new SweepStatistics(0L, 0L, 0L, 0L, 0, 0L)
+               : this.expirySweeper.statistics();
     }
 
     @Override
@@ -63,7 +144,33 @@ public class ConcurrentCache extends AbstractCache
     {
         LOGGER.debug("Clearing entire cache");
 
-        this.cache.clear();
+        final Map<String, CacheEntry> removed = this.hasRemovalListeners()
+                                                ? new HashMap<String, CacheEntry>(this.cache)
+                                                : Collections.<String, CacheEntry>emptyMap();
+
+        if (this.evictionPolicy == null)
+        {
+            this.cache.clear();
+        }
+        else
+        {
+            this.evictionLock.lock();
+            try
+            {
+                this.cache.clear();
+                this.evictionPolicy.clear();
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        for (final Map.Entry<String, CacheEntry> entry : removed.entrySet())
+        {
+            this.notifyRemoval(entry.getKey(), entry.getValue().getCachedClass(),
+                ICacheRemovalListener.RemovalCause.EXPLICIT);
+        }
     }
 
     @Override
@@ -73,7 +180,30 @@ public class ConcurrentCache extends AbstractCache
         {
             LOGGER.debug("Removing key={} from cache", key);
 
-            this.cache.remove(key);
+            final CacheEntry removed;
+            if (this.evictionPolicy == null)
+            {
+                removed = this.cache.remove(key);
+            }
+            else
+            {
+                this.evictionLock.lock();
+                try
+                {
+                    removed = this.cache.remove(key);
+                    this.evictionPolicy.onRemove(key);
+                }
+                finally
+                {
+                    this.evictionLock.unlock();
+                }
+            }
+
+            if (removed != null)
+            {
+                this.notifyRemoval(key, removed.getCachedClass(),
+                    ICacheRemovalListener.RemovalCause.EXPLICIT);
+            }
         }
     }
 
@@ -85,7 +215,128 @@ public class ConcurrentCache extends AbstractCache
 
         LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
 
-        this.cache.put(key, value);
+        final CacheEntry replaced;
+        List<Tuple<String, CacheEntry>> evicted = Collections.emptyList();
+        if (this.evictionPolicy == null)
+        {
+            replaced = this.cache.put(key, value);
+        }
+        else
+        {
+            this.evictionLock.lock();
+            try
+            {
+                replaced = this.cache.put(key, value);
+                evicted = this.evictAfterAdd(key, value);
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        if (this.expirySweeper != null)
+        {
+            this.expirySweeper.track(key, value);
+        }
+
+        if (replaced != null)
+        {
+            this.notifyRemoval(key, replaced.getCachedClass(),
+                ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+        this.notifyEvictions(evicted);
+    }
+
+    @Override
+    protected void internalAddAll(final Map<String, CacheEntry> entries)
+    {
+        LOGGER.debug("Adding {} entries to cache", entries.size());
+
+        final List<Tuple<String, CacheEntry>> replaced = new ArrayList<Tuple<String, CacheEntry>>();
+        final List<Tuple<String, CacheEntry>> evicted = new ArrayList<Tuple<String, CacheEntry>>();
+        if (this.evictionPolicy == null)
+        {
+            for (final Map.Entry<String, CacheEntry> entry : entries.entrySet())
+            {
+                this.putEntry(entry.getKey(), entry.getValue(), replaced);
+            }
+        }
+        else
+        {
+            this.evictionLock.lock();
+            try
+            {
+                for (final Map.Entry<String, CacheEntry> entry : entries.entrySet())
+                {
+                    this.putEntry(entry.getKey(), entry.getValue(), replaced);
+                    evicted.addAll(this.evictAfterAdd(entry.getKey(), entry.getValue()));
+                }
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        if (this.expirySweeper != null)
+        {
+            for (final Map.Entry<String, CacheEntry> entry : entries.entrySet())
+            {
+                this.expirySweeper.track(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (final Tuple<String, CacheEntry> entry : replaced)
+        {
+            this.notifyRemoval(entry.getFirst(), entry.getSecond().getCachedClass(),
+                ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+        this.notifyEvictions(evicted);
+    }
+
+    private void putEntry(final String key, final CacheEntry value,
+        final List<Tuple<String, CacheEntry>> replaced)
+    {
+        final CacheEntry previous = this.cache.put(key, value);
+        if (previous != null)
+        {
+            replaced.add(new Tuple<String, CacheEntry>(key, previous));
+        }
+    }
+
+    @Override
+    protected Map<String, CacheEntry> internalGetAll(final Collection<String> keys)
+    {
+        final Map<String, CacheEntry> entries =
+            new HashMap<String, CacheEntry>(Math.max(4, keys.size() * 2));
+        for (final String key : keys)
+        {
+            final CacheEntry cacheEntry = key == null ? null : this.cache.get(key);
+            if (cacheEntry != null)
+            {
+                entries.put(key, cacheEntry);
+            }
+        }
+
+        LOGGER.debug("Fetched {} of {} keys from cache", entries.size(), keys.size());
+
+        if (this.evictionPolicy != null && !entries.isEmpty() && this.evictionLock.tryLock())
+        {
+            try
+            {
+                for (final String key : entries.keySet())
+                {
+                    this.evictionPolicy.onAccess(key);
+                }
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        return entries;
     }
 
     @Override
@@ -98,36 +349,268 @@ public class ConcurrentCache extends AbstractCache
         if (cacheEntry != null)
         {
             LOGGER.debug("Fetched key={}, class={} from cache", key, cacheEntry.getCachedClass());
-        }
-        else
-        {
-            LOGGER.info("Item with key={} is not held in the cache", key);
+
+            if (this.evictionPolicy != null && this.evictionLock.tryLock())
+            {
+                try
+                {
+                    this.evictionPolicy.onAccess(key);
+                }
+                finally
+                {
+                    this.evictionLock.unlock();
+                }
+            }
         }
 
         return cacheEntry;
     }
 
     @Override
-    protected void internalRemove(final String key, final String value)
+    protected Map<String, CacheEntry> internalEntries()
+    {
+        return Collections.unmodifiableMap(this.cache);
+    }
+
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry value)
     {
         StringUtils.requireNonEmpty(key, "key");
-        ObjectUtils.requireNonNull(value, "value");
 
-        final CacheEntry cacheEntry = this.internalGet(key);
-        if (value.equals(cacheEntry.getValue()))
+        final boolean replaced;
+        List<Tuple<String, CacheEntry>> evicted = Collections.emptyList();
+        if (this.evictionPolicy == null)
         {
-            LOGGER.debug("Removed key={}, class={} from cache", key, cacheEntry.getCachedClass());
-            this.cache.remove(key, cacheEntry);
+            replaced = this.replaceEntry(key, expected, value);
         }
         else
         {
-            LOGGER.info("Item with key={} was not removed from cache as value did not match");
+            this.evictionLock.lock();
+            try
+            {
+                replaced = this.replaceEntry(key, expected, value);
+                if (replaced && value == null)
+                {
+                    this.evictionPolicy.onRemove(key);
+                }
+                else if (replaced)
+                {
+                    evicted = this.evictAfterAdd(key, value);
+                }
+            }
+            finally
+            {
+                this.evictionLock.unlock();
+            }
+        }
+
+        if (replaced)
+        {
+            LOGGER.debug("Replaced key={} in cache", key);
+            if (value != null && this.expirySweeper != null)
+            {
+                this.expirySweeper.track(key, value);
+            }
+        }
+        this.notifyEvictions(evicted);
+        return replaced;
+    }
+
+    // entries are only ever compared by identity, as each write creates a new entry
+    private boolean replaceEntry(final String key, final CacheEntry expected,
+        final CacheEntry value)
+    {
+        if (expected == null)
+        {
+            return value == null
+                   ? !this.cache.containsKey(key)
+                   : this.cache.putIfAbsent(key, value) == null;
+        }
+        return value == null
+               ? this.cache.remove(key, expected)
+               : this.cache.replace(key, expected, value);
+    }
+
+    // must be called holding the eviction lock, listeners are told of the entries returned once
+    // the lock is released
+    private List<Tuple<String, CacheEntry>> evictAfterAdd(final String key,
+        final CacheEntry value)
+    {
+        final Collection<String> keys = this.evictionPolicy.onAdd(key, value.getWeight());
+        if (keys.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        final List<Tuple<String, CacheEntry>> evicted =
+            new ArrayList<Tuple<String, CacheEntry>>(keys.size());
+        for (final String evictedKey : keys)
+        {
+            LOGGER.debug("Evicting key={} from cache", evictedKey);
+            final CacheEntry evictedEntry = this.cache.remove(evictedKey);
+            if (evictedEntry != null)
+            {
+                this.recordEviction(evictedEntry);
+                evicted.add(new Tuple<String, CacheEntry>(evictedKey, evictedEntry));
+            }
+        }
+        return evicted;
+    }
+
+    private void notifyEvictions(final List<Tuple<String, CacheEntry>> evicted)
+    {
+        for (final Tuple<String, CacheEntry> entry : evicted)
+        {
+            this.notifyRemoval(entry.getFirst(), entry.getSecond().getCachedClass(),
+                ICacheRemovalListener.RemovalCause.EVICTED);
+        }
+    }
+
+    private boolean removeEntry(final String key, final CacheEntry cacheEntry)
+    {
+        if (this.evictionPolicy == null)
+        {
+            return this.cache.remove(key, cacheEntry);
+        }
+
+        this.evictionLock.lock();
+        try
+        {
+            final boolean removed = this.cache.remove(key, cacheEntry);
+            if (removed)
+            {
+                this.evictionPolicy.onRemove(key);
+            }
+            return removed;
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes entries from the cache as their expiry deadline passes.  Entries added are queued
+     * without locking and moved onto the timer wheel by the sweeping thread, which is the only
+     * thread to touch the wheel.
+     */
+    private final class ExpirySweeper implements Runnable
+    {
+        private final ConcurrentLinkedQueue<Tuple<String, CacheEntry>> added =
+            new ConcurrentLinkedQueue<Tuple<String, CacheEntry>>();
+        private final TimerWheel<Tuple<String, CacheEntry>> timerWheel;
+        private final AtomicLong sweepCount = new AtomicLong();
+        private final AtomicLong expiredCount = new AtomicLong();
+        private final AtomicLong rescheduledCount = new AtomicLong();
+        private final AtomicLong staleCount = new AtomicLong();
+        private volatile int pendingCount = 0;
+        private volatile long lastSweepDurationNanos = 0L;
+
+        private ExpirySweeper(final long tickMillis)
+        {
+            this.timerWheel = new TimerWheel<Tuple<String, CacheEntry>>(tickMillis,
+                System.currentTimeMillis());
+        }
+
+        private void track(final String key, final CacheEntry cacheEntry)
+        {
+            if (ConcurrentCache.this.closed)
+            {
+                return;
+            }
+            this.added.offer(new Tuple<String, CacheEntry>(key, cacheEntry));
+        }
+
+        private SweepStatistics statistics()
+        {
+            return new SweepStatistics(this.sweepCount.get(), this.expiredCount.get(),
+                this.rescheduledCount.get(), this.staleCount.get(), this.pendingCount,
+                this.lastSweepDurationNanos);
+        }
+
+        @Override
+        public void run()
+        {
+            final long start = System.nanoTime();
+
+            try
+            {
+                final List<Tuple<String, CacheEntry>> due =
+                    new ArrayList<Tuple<String, CacheEntry>>();
+
+                Tuple<String, CacheEntry> next;
+                while ((next = this.added.poll()) != null)
+                {
+                    this.schedule(next, due);
+                }
+
+                this.timerWheel.advance(System.currentTimeMillis(), due);
+
+                for (final Tuple<String, CacheEntry> tracked : due)
+                {
+                    this.sweep(tracked);
+                }
+            }
+            catch (final RuntimeException re)
+            {
+                LOGGER.warn("Failed to sweep expired entries from cache", re);
+            }
+            finally
+            {
+                this.pendingCount = this.timerWheel.size();
+                this.lastSweepDurationNanos = System.nanoTime() - start;
+                this.sweepCount.incrementAndGet();
+            }
+        }
+
+        private void schedule(final Tuple<String, CacheEntry> tracked,
+            final List<Tuple<String, CacheEntry>> due)
+        {
+            final long deadline = ConcurrentCache.this.getExpiryDeadline(tracked.getSecond());
+            if (deadline != Long.MAX_VALUE)
+            {
+                this.timerWheel.schedule(tracked, deadline, due);
+            }
+        }
+
+        private void sweep(final Tuple<String, CacheEntry> tracked)
+        {
+            final String key = tracked.getFirst();
+            final CacheEntry cacheEntry = tracked.getSecond();
+
+            if (ConcurrentCache.this.cache.get(key) != cacheEntry)
+            {
+                this.staleCount.incrementAndGet();
+            }
+            else if (ConcurrentCache.this.checkAndSetExpiry(cacheEntry))
+            {
+                LOGGER.debug("Sweeping expired key={}, class={} from cache", key,
+                    cacheEntry.getCachedClass());
+                if (ConcurrentCache.this.removeEntry(key, cacheEntry))
+                {
+                    ConcurrentCache.this.notifyRemoval(key, cacheEntry.getCachedClass(),
+                        ICacheRemovalListener.RemovalCause.EXPIRED);
+                }
+                this.expiredCount.incrementAndGet();
+            }
+            else
+            {
+                this.rescheduledCount.incrementAndGet();
+                this.added.offer(tracked);
+            }
         }
     }
 
     public static final class Builder implements IBuilder<ICache>
     {
         private IJsonService jsonService;
+        private ICacheEntryCodec codec;
+        private long maxEntries = Long.MAX_VALUE;
+        private long maxWeight = Long.MAX_VALUE;
+        private ScheduledExecutorService sweeperExecutorService;
+        private long sweepPeriodMillis;
+        private File snapshot;
         private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
             DEFAULT_CACHE_EXPIRY_LIMITS;
 
@@ -137,6 +620,19 @@ public class ConcurrentCache extends AbstractCache
             return this;
         }
 
+        /**
+         * Set the codec used to encode the values held, by default values are held as the json
+         * produced by the json service.
+         *
+         * @param val codec to use.
+         * @return this builder.
+         */
+        public Builder withCodec(final ICacheEntryCodec val)
+        {
+            this.codec = val;
+            return this;
+        }
+
         public Builder withCacheExpiryLimits(
             final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
         {
@@ -147,12 +643,82 @@ public class ConcurrentCache extends AbstractCache
             return this;
         }
 
+        /**
+         * Limit the number of entries held by the cache, by default the cache is unbounded.
+         *
+         * @param val maximum number of entries.
+         * @return this builder.
+         */
+        public Builder withMaxEntries(final long val)
+        {
+            this.maxEntries = val;
+            return this;
+        }
+
+        /**
+         * Limit the total weight of entries held by the cache, measured as the length in bytes of
+         * the payload of each entry.  By default the cache is unbounded.
+         *
+         * @param val maximum weight in bytes.
+         * @return this builder.
+         */
+        public Builder withMaxWeight(final long val)
+        {
+            this.maxWeight = val;
+            return this;
+        }
+
+        /**
+         * Enable background removal of expired entries, by default expired entries are only
+         * removed when read.  The period also sets the resolution at which expiry deadlines are
+         * tracked.
+         *
+         * @param executorService to run the sweeper on.
+         * @param period          delay between sweeps.
+         * @param unit            unit of the period.
+         * @return this builder.
+         */
+        public Builder withExpirySweeper(final ScheduledExecutorService executorService,
+            final long period, final TimeUnit unit)
+        {
+            this.sweeperExecutorService =
+                ObjectUtils.requireNonNull(executorService, "executorService");
+            this.sweepPeriodMillis = Math.max(1L, unit.toMillis(period));
+            return this;
+        }
+
+        /**
+         * Preload the cache from a snapshot file written by {@link ICache#snapshot(
+         * java.io.OutputStream)} when it is built.  A missing or unreadable snapshot leaves the
+         * cache empty.
+         *
+         * @param val snapshot file.
+         * @return this builder.
+         */
+        public Builder withSnapshot(final File val)
+        {
+            this.snapshot = val;
+            return this;
+        }
+
         @Override
         public ConcurrentCache build()
         {
-            ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            if (this.codec == null)
+            {
+                ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            }
 
-            return new ConcurrentCache(this);
+            final ConcurrentCache cache = new ConcurrentCache(this);
+            if (this.sweeperExecutorService != null)
+            {
+                cache.startExpirySweeper(this.sweeperExecutorService, this.sweepPeriodMillis);
+            }
+            if (this.snapshot != null)
+            {
+                cache.preloadSnapshot(this.snapshot);
+            }
+            return cache;
         }
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec compressing the payloads of another codec with Deflate once they exceed a threshold.
+ * Each payload is prefixed with a byte recording whether it was compressed, so smaller payloads
+ * are held as they are.
+ *
+ * @since 2.0
+ */
+public class DeflateCacheEntryCodec implements ICacheEntryCodec
+{
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte COMPRESSED = 1;
+    private static final int BUFFER_SIZE = 1024;
+
+    private final ICacheEntryCodec codec;
+    private final int threshold;
+
+    /**
+     * @param codec     to compress the payloads of.
+     * @param threshold payload size in bytes above which payloads are compressed.
+     */
+    public DeflateCacheEntryCodec(final ICacheEntryCodec codec, final int threshold)
+    {
+        this.codec = ObjectUtils.requireNonNull(codec, "codec");
+        this.threshold = threshold;
+    }
+
+    @Override
+    public byte[] encode(final AbstractCacheable value) throws JsonSerializationException
+    {
+        final byte[] payload = this.codec.encode(value);
+
+        if (payload.length <= this.threshold)
+        {
+            return prefix(UNCOMPRESSED, payload, payload.length);
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try
+        {
+            deflater.setInput(payload);
+            deflater.finish();
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + 1);
+            out.write(COMPRESSED);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished())
+            {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public <T extends AbstractCacheable> T decode(final byte[] payload, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        if (payload.length == 0)
+        {
+            throw new JsonDeserializationException(clazz, null,
+                new IllegalArgumentException("empty payload"));
+        }
+        if (payload[0] == UNCOMPRESSED)
+        {
+            return this.codec.decode(Arrays.copyOfRange(payload, 1, payload.length), clazz);
+        }
+
+        final Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(payload, 1, payload.length - 1);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished())
+            {
+                final int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new DataFormatException("truncated payload");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return this.codec.decode(out.toByteArray(), clazz);
+        }
+        catch (final DataFormatException dfe)
+        {
+            throw new JsonDeserializationException(clazz, null, dfe);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    private static byte[] prefix(final byte flag, final byte[] payload, final int length)
+    {
+        final byte[] prefixed = new byte[length + 1];
+        prefixed[0] = flag;
+        System.arraycopy(payload, 0, prefixed, 1, length);
+        return prefixed;
+    }
+}
@@ -0,0 +1,1123 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of {@link ICache} which persists entries to local disk, so that a restarted
+ * application starts with the values it held before. <p> Entries are appended to a log of
+ * memory-mapped segment files in a directory, each record holding the encoded payload of a value along with
+ * the time it was cached and its expiry.  Only an index of keys to record positions is held in
+ * memory; it is rebuilt by scanning the segments on first use of the cache and values are read
+ * from the mapped segments as they are requested. </p> <p> Replaced and removed records are left
+ * in the log until it is compacted, which happens once they make up more than a set proportion
+ * of it.  Compaction runs on the executor supplied via {@link Builder#withCompactionExecutor},
+ * or on the writing thread if none is supplied.  Reads and writes continue while live records
+ * are copied to new segments, which replace the existing segments once all are written. </p>
+ * <p> The cache must be closed to be sure all writes have reached the disk; a record torn by a
+ * crash is detected by its checksum and discarded along with any after it in the same segment.
+ * </p>
+ *
+ * @since 2.0
+ */
+public class FileCache extends AbstractCache implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCache.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final long NO_EXPIRY = -1L;
+
+    private final File directory;
+    private final int segmentSize;
+    private final double compactionRatio;
+    private final Executor compactionExecutor;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock compactionLock = new ReentrantLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+    private final Map<String, Location> index = new HashMap<String, Location>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+    private Segment activeSegment;
+    private long liveBytes;
+    private long deadBytes;
+    private int generation;
+    private volatile boolean open = false;
+
+    private FileCache(final Builder builder)
+    {
+        super(builder.codec == null ? new JsonCacheEntryCodec(builder.jsonService) : builder.codec,
+            builder.cacheExpiryLimits);
+
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.compactionRatio = builder.compactionRatio;
+        this.compactionExecutor = builder.compactionExecutor;
+
+        LOGGER.info("New instance of FileCache created with directory={}, segmentSize={}",
+            this.directory, this.segmentSize);
+    }
+
+    @Override
+    public boolean isEmpty() throws CacheAccessException
+    {
+        this.ensureOpen(CacheAccessException.Operation.GET, null);
+
+        this.lock.readLock().lock();
+        try
+        {
+            return this.index.isEmpty();
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() throws CacheAccessException
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        this.ensureOpen(CacheAccessException.Operation.REMOVE, null);
+
+        final Map<String, Location> removed;
+        this.lock.writeLock().lock();
+        try
+        {
+            removed = this.hasRemovalListeners()
+                      ? new HashMap<String, Location>(this.index)
+                      : Collections.<String, Location>emptyMap();
+            for (final Segment segment : this.segments.values())
+            {
+                segment.delete();
+            }
+            this.segments.clear();
+            this.index.clear();
+            this.liveBytes = 0L;
+            this.deadBytes = 0L;
+            this.generation++;
+            this.activeSegment = this.newSegment(1L, this.segmentSize);
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(CacheAccessException.Operation.REMOVE, null, ioe);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        for (final Map.Entry<String, Location> location : removed.entrySet())
+        {
+            this.notifyRemoval(location.getKey(), location.getValue().clazz,
+                ICacheRemovalListener.RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void remove(final String key) throws CacheAccessException
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            this.ensureOpen(CacheAccessException.Operation.REMOVE, key);
+
+            final Location location;
+            this.lock.writeLock().lock();
+            try
+            {
+                location = this.index.get(key);
+                if (location != null)
+                {
+                    this.removeLocation(key, location);
+                }
+            }
+            catch (final IOException ioe)
+            {
+                throw this.failure(CacheAccessException.Operation.REMOVE, key, ioe);
+            }
+            finally
+            {
+                this.lock.writeLock().unlock();
+            }
+
+            this.compactIfRequired();
+            if (location != null)
+            {
+                this.notifyRemoval(key, location.clazz,
+                    ICacheRemovalListener.RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        this.ensureOpen(CacheAccessException.Operation.ADD, key);
+
+        final byte[] record = encode(PUT, key, value);
+
+        final Location replaced;
+        this.lock.writeLock().lock();
+        try
+        {
+            replaced = this.putLocation(key, record, value);
+        }
+        catch (final IOException ioe)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getCachedClass(), ioe);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        this.compactIfRequired();
+        if (replaced != null)
+        {
+            this.notifyRemoval(key, replaced.clazz, ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        this.ensureOpen(CacheAccessException.Operation.GET, key);
+
+        this.lock.readLock().lock();
+        try
+        {
+            final Location location = this.index.get(key);
+            return location == null ? null : decode(location);
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry value) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final CacheAccessException.Operation operation = value == null
+                                                         ? CacheAccessException.Operation.REMOVE
+                                                         : CacheAccessException.Operation.ADD;
+        this.ensureOpen(operation, key);
+
+        final byte[] record = value == null ? null : encode(PUT, key, value);
+
+        this.lock.writeLock().lock();
+        try
+        {
+            final Location location = this.index.get(key);
+            if (expected == null
+                ? location != null
+                : location == null || location.version != expected.getVersion())
+            {
+                return false;
+            }
+
+            if (value == null)
+            {
+                this.removeLocation(key, location);
+            }
+            else
+            {
+                this.putLocation(key, record, value);
+            }
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(operation, key, ioe);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        this.compactIfRequired();
+        return true;
+    }
+
+    @Override
+    protected Map<String, CacheEntry> internalEntries()
+    {
+        if (!this.open)
+        {
+            return Collections.emptyMap();
+        }
+
+        this.lock.readLock().lock();
+        try
+        {
+            final Map<String, CacheEntry> entries =
+                new LinkedHashMap<String, CacheEntry>(Math.max(4, this.index.size() * 2));
+            for (final Map.Entry<String, Location> location : this.index.entrySet())
+            {
+                entries.put(location.getKey(), decode(location.getValue()));
+            }
+            return entries;
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flush all segments to disk and release them.  The cache is reopened if it is used again.
+     *
+     * @throws IOException if a segment could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            for (final Segment segment : this.segments.values())
+            {
+                segment.close();
+            }
+            this.segments.clear();
+            this.index.clear();
+            this.activeSegment = null;
+            this.generation++;
+            this.open = false;
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int snapshot(final OutputStream out) throws IOException
+    {
+        // entries persisted by an earlier instance are only known once the segments are loaded
+        try
+        {
+            this.ensureOpen(CacheAccessException.Operation.GET, null);
+        }
+        catch (final CacheAccessException cae)
+        {
+            throw new IOException("Failed to open cache for snapshot", cae);
+        }
+        return super.snapshot(out);
+    }
+
+    /**
+     * Copy all live records to new segments, deleting the existing segments.  Expired records are
+     * dropped.  The cache is only changed once all records have been copied, if copying fails the
+     * new segments are deleted and the cache is left as it was.
+     *
+     * @throws CacheAccessException if the segments could not be written.
+     */
+    public void compact() throws CacheAccessException
+    {
+        this.ensureOpen(CacheAccessException.Operation.ADD, null);
+
+        this.compactionLock.lock();
+        try
+        {
+            this.compactSegments();
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(CacheAccessException.Operation.ADD, null, ioe);
+        }
+        finally
+        {
+            this.compactionLock.unlock();
+        }
+    }
+
+    // must be called holding the compaction lock
+    private void compactSegments() throws IOException
+    {
+        final long start = System.nanoTime();
+        final int generation;
+        final Map<String, Location> live;
+        final List<Segment> compacted;
+        final long firstId;
+        final long lastId;
+
+        // writes continue to a new active segment numbered above those reserved for the copies,
+        // so that the log replays in the order it was written if the process stops part way
+        this.lock.writeLock().lock();
+        try
+        {
+            if (!this.open)
+            {
+                return;
+            }
+            generation = this.generation;
+            live = new HashMap<String, Location>(this.index);
+            compacted = new ArrayList<Segment>(this.segments.values());
+            firstId = this.activeSegment.id + 1L;
+            lastId = this.activeSegment.id + 2L * compacted.size() + 1L;
+            this.activeSegment = this.newSegment(lastId + 1L, this.segmentSize);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        final Map<String, Location> copied = new HashMap<String, Location>(live.size() * 2);
+        final List<String> expired = new ArrayList<String>();
+        final List<Segment> written = new ArrayList<Segment>();
+        boolean swapped = false;
+        try
+        {
+            Segment segment = null;
+            for (final Map.Entry<String, Location> entry : live.entrySet())
+            {
+                final Location location = entry.getValue();
+                if (this.checkAndSetExpiry(decode(location)))
+                {
+                    expired.add(entry.getKey());
+                    continue;
+                }
+
+                final byte[] record = location.read();
+                if (segment == null || segment.remaining() < record.length)
+                {
+                    final long id = segment == null ? firstId : segment.id + 1L;
+                    if (id > lastId)
+                    {
+                        throw new IOException(
+                            String.format("Compaction needs more than %d segments",
+                                lastId - firstId + 1L));
+                    }
+                    segment = Segment.open(id, this.segmentFile(id),
+                        Math.max(this.segmentSize, record.length));
+                    written.add(segment);
+                }
+                copied.put(entry.getKey(),
+                    write(segment, record, location.clazz, location.version));
+            }
+
+            swapped = this.swapSegments(generation, live, copied, expired, compacted, written);
+        }
+        finally
+        {
+            if (!swapped)
+            {
+                deleteSegments(written);
+            }
+        }
+
+        if (swapped)
+        {
+            // the old segments are no longer referenced by the index once it has been swapped
+            deleteSegments(compacted);
+            for (final String key : expired)
+            {
+                this.notifyRemoval(key, live.get(key).clazz,
+                    ICacheRemovalListener.RemovalCause.EXPIRED);
+            }
+            LOGGER.info("Compacted cache in directory={}, dropped {} expired entries in {} ms",
+                this.directory, expired.size(), (System.nanoTime() - start) / 1000000L);
+        }
+    }
+
+    // entries changed while the records were being copied keep their newer location
+    private boolean swapSegments(final int generation, final Map<String, Location> live,
+        final Map<String, Location> copied, final List<String> expired,
+        final List<Segment> compacted, final List<Segment> written)
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            if (!this.open || this.generation != generation)
+            {
+                LOGGER.info("Abandoning compaction of cache in directory={} as it was cleared",
+                    this.directory);
+                return false;
+            }
+
+            for (final Map.Entry<String, Location> entry : copied.entrySet())
+            {
+                if (this.index.get(entry.getKey()) == live.get(entry.getKey()))
+                {
+                    this.index.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (final String key : expired)
+            {
+                if (this.index.get(key) == live.get(key))
+                {
+                    this.index.remove(key);
+                }
+                else
+                {
+                    live.remove(key);
+                }
+            }
+            expired.retainAll(live.keySet());
+
+            for (final Segment segment : compacted)
+            {
+                this.segments.remove(segment.id);
+            }
+            for (final Segment segment : written)
+            {
+                this.segments.put(segment.id, segment);
+            }
+
+            long totalBytes = 0L;
+            for (final Segment segment : this.segments.values())
+            {
+                totalBytes += segment.writePosition;
+            }
+            this.liveBytes = 0L;
+            for (final Location location : this.index.values())
+            {
+                this.liveBytes += location.length;
+            }
+            this.deadBytes = totalBytes - this.liveBytes;
+            return true;
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // must be called holding the write lock, returns the location replaced if any
+    private Location putLocation(final String key, final byte[] record, final CacheEntry value)
+        throws IOException
+    {
+        final Location location = this.append(record, value.getCachedClass(), value.getVersion());
+        final Location previous = this.index.put(key, location);
+        this.liveBytes += location.length;
+        if (previous != null)
+        {
+            this.liveBytes -= previous.length;
+            this.deadBytes += previous.length;
+        }
+        return previous;
+    }
+
+    // must be called holding the write lock
+    private void removeLocation(final String key, final Location location) throws IOException
+    {
+        final Location removal =
+            this.append(encode(REMOVE, key, null), location.clazz, ICache.NO_VERSION);
+        this.index.remove(key);
+        this.liveBytes -= location.length;
+        this.deadBytes += location.length + removal.length;
+
+        LOGGER.debug("Removed key={}, class={} from cache", key, location.clazz);
+    }
+
+    private void compactIfRequired()
+    {
+        final boolean required;
+
+        this.lock.readLock().lock();
+        try
+        {
+            required = this.deadBytes >= this.segmentSize / 2
+                && this.deadBytes > (this.liveBytes + this.deadBytes) * this.compactionRatio;
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+
+        if (required && this.compactionScheduled.compareAndSet(false, true))
+        {
+            final Runnable compaction = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        FileCache.this.compact();
+                    }
+                    catch (final CacheAccessException cae)
+                    {
+                        LOGGER.warn("Failed to compact cache in directory={}",
+                            FileCache.this.directory, cae);
+                    }
+                    finally
+                    {
+                        FileCache.this.compactionScheduled.set(false);
+                    }
+                }
+            };
+
+            if (this.compactionExecutor == null)
+            {
+                compaction.run();
+            }
+            else
+            {
+                try
+                {
+                    this.compactionExecutor.execute(compaction);
+                }
+                catch (final RejectedExecutionException ree)
+                {
+                    LOGGER.warn("Failed to schedule compaction of cache", ree);
+                    this.compactionScheduled.set(false);
+                }
+            }
+        }
+    }
+
+    private void ensureOpen(final CacheAccessException.Operation operation, final String key)
+        throws CacheAccessException
+    {
+        if (this.open)
+        {
+            return;
+        }
+
+        this.lock.writeLock().lock();
+        try
+        {
+            if (!this.open)
+            {
+                this.load();
+                this.open = true;
+            }
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(operation, key, ioe);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        this.compactIfRequired();
+    }
+
+    private void load() throws IOException
+    {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs())
+        {
+            throw new IOException("Failed to create cache directory " + this.directory);
+        }
+
+        final TreeMap<Long, File> files = new TreeMap<Long, File>();
+        final File[] listed = this.directory.listFiles();
+        for (final File file : listed == null ? new File[0] : listed)
+        {
+            final String name = file.getName();
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+            {
+                try
+                {
+                    files.put(Long.valueOf(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+                catch (final NumberFormatException nfe)
+                {
+                    LOGGER.warn("Ignoring unexpected file={} in cache directory", file);
+                }
+            }
+        }
+
+        this.liveBytes = 0L;
+        this.deadBytes = 0L;
+
+        for (final Map.Entry<Long, File> file : files.entrySet())
+        {
+            final Segment segment = Segment.open(file.getKey(), file.getValue(), 0);
+            this.segments.put(segment.id, segment);
+            this.scan(segment);
+        }
+
+        this.activeSegment = this.segments.isEmpty()
+                             ? this.newSegment(1L, this.segmentSize)
+                             : this.segments.lastEntry().getValue();
+
+        LOGGER.info("Loaded {} entries from {} segments in directory={}", this.index.size(),
+            this.segments.size(), this.directory);
+    }
+
+    private void scan(final Segment segment)
+    {
+        final ByteBuffer buffer = segment.view();
+        int position = 0;
+
+        while (position + HEADER_SIZE <= buffer.capacity())
+        {
+            final int length = buffer.getInt(position);
+            if (length == 0)
+            {
+                break;
+            }
+            if (length < 0 || position + HEADER_SIZE + length > buffer.capacity()
+                || checksum(buffer, position + HEADER_SIZE, length) != buffer.getInt(
+                position + 4))
+            {
+                LOGGER.warn("Discarding corrupt records from position={} of segment={}", position,
+                    segment.file);
+                segment.zero(position);
+                break;
+            }
+
+            this.replay(segment, position, HEADER_SIZE + length);
+            position += HEADER_SIZE + length;
+        }
+
+        segment.writePosition = position;
+    }
+
+    private void replay(final Segment segment, final int position, final int length)
+    {
+        final ByteBuffer record = segment.view();
+        record.position(position + HEADER_SIZE);
+        final byte operation = record.get();
+        record.position(record.position() + 16);
+        final String key = readString(record);
+        final String className = readString(record);
+
+        final Location previous;
+        if (operation == PUT)
+        {
+            final Class<? extends AbstractCacheable> clazz = resolveCacheableClass(className);
+            if (clazz == null)
+            {
+                LOGGER.warn("Discarding cached record of unknown or not cacheable class={}",
+                    className);
+                this.deadBytes += length;
+                previous = this.index.remove(key);
+            }
+            else
+            {
+                this.liveBytes += length;
+                previous = this.index.put(key,
+                    new Location(segment, position, length, clazz, this.nextVersion()));
+            }
+        }
+        else
+        {
+            this.deadBytes += length;
+            previous = this.index.remove(key);
+        }
+
+        if (previous != null)
+        {
+            this.liveBytes -= previous.length;
+            this.deadBytes += previous.length;
+        }
+    }
+
+    private Location append(final byte[] record, final Class<? extends AbstractCacheable> clazz,
+        final long version) throws IOException
+    {
+        if (this.activeSegment.remaining() < record.length)
+        {
+            this.activeSegment = this.newSegment(this.activeSegment.id + 1L,
+                Math.max(this.segmentSize, record.length));
+        }
+
+        return write(this.activeSegment, record, clazz, version);
+    }
+
+    private static Location write(final Segment segment, final byte[] record,
+        final Class<? extends AbstractCacheable> clazz, final long version)
+    {
+        final int position = segment.writePosition;
+        final ByteBuffer buffer = segment.view();
+
+        // the length is written last so that a partially written record is seen as the end
+        buffer.position(position + 4);
+        buffer.put(record, 4, record.length - 4);
+        buffer.putInt(position, record.length - HEADER_SIZE);
+        segment.writePosition += record.length;
+
+        return new Location(segment, position, record.length, clazz, version);
+    }
+
+    private static void deleteSegments(final List<Segment> segments)
+    {
+        for (final Segment segment : segments)
+        {
+            try
+            {
+                segment.delete();
+            }
+            catch (final IOException ioe)
+            {
+                LOGGER.warn("Failed to delete cache segment={}", segment.file, ioe);
+            }
+        }
+    }
+
+    private Segment newSegment(final long id, final int size) throws IOException
+    {
+        final Segment segment = Segment.open(id, this.segmentFile(id), size);
+        this.segments.put(id, segment);
+        return segment;
+    }
+
+    private File segmentFile(final long id)
+    {
+        return new File(this.directory,
+            String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private CacheAccessException failure(final CacheAccessException.Operation operation,
+        final String key, final IOException cause)
+    {
+        LOGGER.warn("Failed to access cache in directory={}", this.directory, cause);
+        return new CacheAccessException(operation, key, AbstractCacheable.class, cause);
+    }
+
+    private static byte[] encode(final byte operation, final String key, final CacheEntry entry)
+    {
+        final byte[] keyBytes = key.getBytes(UTF_8);
+        final byte[] classBytes =
+            entry == null ? new byte[0] : entry.getCachedClass().getName().getBytes(UTF_8);
+        final byte[] valueBytes = entry == null ? new byte[0] : entry.getPayload();
+
+        final ByteBuffer buffer = ByteBuffer.allocate(
+            HEADER_SIZE + 1 + 16 + 4 + keyBytes.length + 4 + classBytes.length + 4
+                + valueBytes.length);
+        buffer.position(HEADER_SIZE);
+        buffer.put(operation);
+        buffer.putLong(entry == null ? 0L : entry.getCachedTime().getTime());
+        buffer.putLong(
+            entry == null || entry.getExpiry() == null ? NO_EXPIRY : entry.getExpiry().getTime());
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        buffer.putInt(classBytes.length).put(classBytes);
+        buffer.putInt(valueBytes.length).put(valueBytes);
+
+        buffer.putInt(0, buffer.capacity() - HEADER_SIZE);
+        buffer.putInt(4, checksum(buffer, HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+        return buffer.array();
+    }
+
+    private static CacheEntry decode(final Location location)
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(location.read());
+        buffer.position(HEADER_SIZE + 1);
+        final long cachedTime = buffer.getLong();
+        final long expiry = buffer.getLong();
+        readString(buffer);
+        readString(buffer);
+        final byte[] payload = new byte[buffer.getInt()];
+        buffer.get(payload);
+
+        return new CacheEntry(payload, location.clazz, new Date(cachedTime),
+            expiry == NO_EXPIRY ? null : new Date(expiry)).withVersion(location.version);
+    }
+
+    private static String readString(final ByteBuffer buffer)
+    {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int checksum(final ByteBuffer buffer, final int position, final int length)
+    {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Position of a live record within a segment, along with the version of the entry it holds.
+     * Versions are not written to the segments, entries loaded from disk are stamped afresh.
+     */
+    private static final class Location
+    {
+        private final Segment segment;
+        private final int position;
+        private final int length;
+        private final Class<? extends AbstractCacheable> clazz;
+        private final long version;
+
+        private Location(final Segment segment, final int position, final int length,
+            final Class<? extends AbstractCacheable> clazz, final long version)
+        {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+            this.clazz = clazz;
+            this.version = version;
+        }
+
+        private byte[] read()
+        {
+            final byte[] record = new byte[this.length];
+            final ByteBuffer view = this.segment.view();
+            view.position(this.position);
+            view.get(record);
+            return record;
+        }
+    }
+
+    /**
+     * A memory-mapped file holding a run of records.
+     */
+    private static final class Segment
+    {
+        private final long id;
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(final long id, final File file, final RandomAccessFile randomAccessFile,
+            final MappedByteBuffer buffer)
+        {
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = randomAccessFile;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Map the file, extending it to the size given.
+         */
+        private static Segment open(final long id, final File file, final int size)
+            throws IOException
+        {
+            final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try
+            {
+                if (randomAccessFile.length() < size)
+                {
+                    randomAccessFile.setLength(size);
+                }
+                final MappedByteBuffer buffer = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0L, randomAccessFile.length());
+                return new Segment(id, file, randomAccessFile, buffer);
+            }
+            catch (final IOException ioe)
+            {
+                randomAccessFile.close();
+                throw ioe;
+            }
+        }
+
+        private ByteBuffer view()
+        {
+            return this.buffer.duplicate();
+        }
+
+        private int remaining()
+        {
+            return this.buffer.capacity() - this.writePosition;
+        }
+
+        private void zero(final int from)
+        {
+            for (int i = from; i < this.buffer.capacity(); i++)
+            {
+                this.buffer.put(i, (byte) 0);
+            }
+        }
+
+        private void close() throws IOException
+        {
+            this.buffer.force();
+            this.randomAccessFile.close();
+        }
+
+        private void delete() throws IOException
+        {
+            this.randomAccessFile.close();
+            if (!this.file.delete())
+            {
+                LOGGER.warn("Failed to delete cache segment={}", this.file);
+            }
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private ICacheEntryCodec codec;
+        private File directory;
+        private int segmentSize = 4 * 1024 * 1024;
+        private double compactionRatio = 0.5;
+        private Executor compactionExecutor;
+        private File snapshot;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Set the codec used to encode the values held, by default values are held as the json
+         * produced by the json service.
+         *
+         * @param val codec to use.
+         * @return this builder.
+         */
+        public Builder withCodec(final ICacheEntryCodec val)
+        {
+            this.codec = val;
+            return this;
+        }
+
+        /**
+         * @param val directory to hold the segment files, created if it does not exist.  It must
+         *            not be shared with another cache.
+         * @return this builder.
+         */
+        public Builder withDirectory(final File val)
+        {
+            this.directory = val;
+            return this;
+        }
+
+        /**
+         * @param val size in bytes of each segment file, defaults to 4MB.
+         * @return this builder.
+         */
+        public Builder withSegmentSize(final int val)
+        {
+            this.segmentSize = val;
+            return this;
+        }
+
+        /**
+         * @param val the proportion of the log made up of replaced or removed records above which
+         *            it is compacted, defaults to 0.5.
+         * @return this builder.
+         */
+        public Builder withCompactionRatio(final double val)
+        {
+            this.compactionRatio = val;
+            return this;
+        }
+
+        /**
+         * @param val executor to compact the log on, if not set compaction runs on the thread
+         *            writing to the cache.
+         * @return this builder.
+         */
+        public Builder withCompactionExecutor(final Executor val)
+        {
+            this.compactionExecutor = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Preload the cache from a snapshot file written by {@link ICache#snapshot(
+         * java.io.OutputStream)} when it is built.  A missing or unreadable snapshot leaves the
+         * cache empty.
+         *
+         * @param val snapshot file.
+         * @return this builder.
+         */
+        public Builder withSnapshot(final File val)
+        {
+            this.snapshot = val;
+            return this;
+        }
+
+        @Override
+        public FileCache build()
+        {
+            if (this.codec == null)
+            {
+                ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            }
+            ObjectUtils.requireNonNull(this.directory, "directory");
+
+            final FileCache cache = new FileCache(this);
+            if (this.snapshot != null)
+            {
+                cache.preloadSnapshot(this.snapshot);
+            }
+            return cache;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+
+/**
+ * Non-blocking counterpart of {@link ICache}, for caches backed by a remote or persistent store
+ * where a synchronous call would hold the calling thread while waiting on the store.  Results are
+ * delivered through a {@link CallbackFuture}, which fails with a {@link CacheAccessException}
+ * where the equivalent {@link ICache} method would throw one.  Synchronous caches may be used
+ * through {@link AsyncCacheAdapter}.
+ *
+ * @since 2.0
+ */
+public interface IAsyncCache
+{
+    /**
+     * Fetch a cached value based on the key, removing it if it has expired.
+     *
+     * @param key   to match (required).
+     * @param clazz the type of object to return.
+     * @param <T>   the type to be returned from the cache.
+     * @return future completed with the cached value if present, null otherwise.
+     * @see ICache#get(String, Class)
+     */
+    <T extends AbstractCacheable> CallbackFuture<T> getAsync(final String key,
+        final Class<T> clazz);
+
+    /**
+     * Fetch a cached value based on the key.
+     *
+     * @param key             to match (required).
+     * @param clazz           the type of object to return.
+     * @param removeIfExpired If value should be removed if it is found to be expired.
+     * @param <T>             the type to be returned from the cache.
+     * @return future completed with the cached value if present, null otherwise.
+     * @see ICache#get(String, Class, boolean)
+     */
+    <T extends AbstractCacheable> CallbackFuture<T> getAsync(final String key, final Class<T> clazz,
+        final boolean removeIfExpired);
+
+    /**
+     * Add a value to the cache with the specified key.
+     *
+     * @param key   key (required).
+     * @param value to store (required).
+     * @param <T>   type of the value.
+     * @return future completed once the value is stored.
+     * @see ICache#add(String, AbstractCacheable)
+     */
+    <T extends AbstractCacheable> CallbackFuture<Void> addAsync(final String key, final T value);
+}
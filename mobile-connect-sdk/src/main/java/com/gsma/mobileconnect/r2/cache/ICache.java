@@ -16,6 +16,12 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -27,6 +33,12 @@ import java.util.concurrent.TimeUnit;
  */
 public interface ICache
 {
+    /**
+     * Version of an entry which is not held, see {@link #replace(String, long,
+     * AbstractCacheable)}.
+     */
+    long NO_VERSION = 0L;
+
     /**
      * @return true if the cache is empty.
      * @throws CacheAccessException on failure to query the cache.
@@ -44,6 +56,21 @@ public interface ICache
     <T extends AbstractCacheable> void add(final String key, final T value)
         throws CacheAccessException;
 
+    /**
+     * Add a value to the cache with the specified key, expiring at the time given rather than
+     * after the expiry time configured for its class.  {@link #add(String, AbstractCacheable)}
+     * uses the value's own {@link ICacheable#expiryDeadline()}.
+     *
+     * @param key    key (required).
+     * @param value  to store (required).
+     * @param expiry time after which the value is expired, null to use the expiry time
+     *               configured for its class.
+     * @param <T>    type of the value.
+     * @throws CacheAccessException on failure to store.
+     */
+    <T extends AbstractCacheable> void add(final String key, final T value, final Date expiry)
+        throws CacheAccessException;
+
     /**
      * Return a cached value based on the key.  If it is found to be setExpired it will be removed
      * from the cache. <p>Equivalent to calling:
@@ -75,6 +102,132 @@ public interface ICache
     <T extends AbstractCacheable> T get(final String key, final Class<T> clazz,
         final boolean removeIfExpired) throws CacheAccessException;
 
+    /**
+     * Return the cached values of several keys at once, allowing a cache backed by a remote or
+     * persistent store to serve them together.  Values found to be expired are removed from the
+     * cache. <p>Equivalent to calling:
+     * <pre>
+     *     cache.getAll(keys, true);
+     * </pre>
+     *
+     * @param keys the keys to match (required), each mapped to the type of object to return.
+     * @return the cached values found keyed by key, keys not present are absent.
+     * @throws CacheAccessException on failure to fetch.
+     */
+    Map<String, AbstractCacheable> getAll(
+        final Map<String, Class<? extends AbstractCacheable>> keys) throws CacheAccessException;
+
+    /**
+     * Return the cached values of several keys at once.
+     *
+     * @param keys            the keys to match (required), each mapped to the type of object to
+     *                        return.
+     * @param removeIfExpired If values should be removed if they are found to be expired, see
+     *                        {@link #get(String, Class, boolean)}.
+     * @return the cached values found keyed by key, keys not present are absent.
+     * @throws CacheAccessException on failure to fetch.
+     */
+    Map<String, AbstractCacheable> getAll(
+        final Map<String, Class<? extends AbstractCacheable>> keys, final boolean removeIfExpired)
+        throws CacheAccessException;
+
+    /**
+     * Add several values to the cache at once, each expiring at its own {@link
+     * ICacheable#expiryDeadline()}.
+     *
+     * @param values to store keyed by key (required).
+     * @throws CacheAccessException on failure to store.
+     */
+    void addAll(final Map<String, ? extends AbstractCacheable> values)
+        throws CacheAccessException;
+
+    /**
+     * Return a cached value based on the key, or if it is not present or has expired, the value
+     * returned by the loader.  Only one load is run at a time for each key; callers arriving while
+     * a load is in progress wait for it to complete and receive a copy of its result, or the
+     * exception it threw.
+     *
+     * @param key    to match (required).
+     * @param clazz  the type of object to return.
+     * @param loader used to load the value on a miss, it is responsible for adding the value to
+     *               the cache.
+     * @param <T>    the type to be returned from the cache.
+     * @param <E>    the type of exception thrown by the loader.
+     * @return the cached or loaded value.
+     * @throws CacheAccessException on failure to fetch, or if interrupted while waiting for a load.
+     * @throws E                    on failure of the loader.
+     */
+    <T extends AbstractCacheable, E extends Exception> T getOrLoad(final String key,
+        final Class<T> clazz, final ICacheLoader<T, E> loader) throws CacheAccessException, E;
+
+    /**
+     * As {@link #getOrLoad(String, Class, ICacheLoader)}, for callers which have already read the
+     * key themselves and whose read has been counted as a hit or miss.
+     *
+     * @param key         to match (required).
+     * @param clazz       the type of object to return.
+     * @param loader      used to load the value on a miss, it is responsible for adding the value
+     *                    to the cache.
+     * @param recordStats false if the caller has already read the key, so that the read made
+     *                    here is not counted in the statistics again.
+     * @param <T>         the type to be returned from the cache.
+     * @param <E>         the type of exception thrown by the loader.
+     * @return the cached or loaded value.
+     * @throws CacheAccessException on failure to fetch, or if interrupted while waiting for a load.
+     * @throws E                    on failure of the loader.
+     */
+    <T extends AbstractCacheable, E extends Exception> T getOrLoad(final String key,
+        final Class<T> clazz, final ICacheLoader<T, E> loader, final boolean recordStats)
+        throws CacheAccessException, E;
+
+    /**
+     * Run the loader asynchronously to refresh the value held against the key, unless a load for
+     * the key is already in progress.  Callers of {@link #getOrLoad(String, Class, ICacheLoader)}
+     * for the same key wait on the refresh rather than starting another load.  Failures are
+     * logged and leave the current value in place.
+     *
+     * @param key      to refresh (required).
+     * @param clazz    the type of value loaded.
+     * @param loader   used to load the value, it is responsible for adding the value to the
+     *                 cache.
+     * @param executor to run the loader on.
+     * @param <T>      the type of value loaded.
+     * @param <E>      the type of exception thrown by the loader.
+     * @return true if a refresh was started, false if a load was already in progress.
+     */
+    <T extends AbstractCacheable, E extends Exception> boolean refreshAsync(final String key,
+        final Class<T> clazz, final ICacheLoader<T, E> loader, final Executor executor);
+
+    /**
+     * Register a listener to be told of entries removed from the cache, including entries that
+     * expire, are evicted or are replaced by a new value.  Listeners are called on the executor
+     * given, never on the thread that removed the entry, so a slow listener does not delay the
+     * caller.  Caches shared between processes only report the removals they make themselves.
+     *
+     * @param listener to register (required).
+     * @param executor to call the listener on (required).
+     */
+    void addRemovalListener(final ICacheRemovalListener listener, final Executor executor);
+
+    /**
+     * Stop calling a listener registered with {@link #addRemovalListener(ICacheRemovalListener,
+     * Executor)}.  Notices already passed to its executor may still be delivered.
+     *
+     * @param listener to remove.
+     */
+    void removeRemovalListener(final ICacheRemovalListener listener);
+
+    /**
+     * @return statistics for all values held by the cache.
+     */
+    CacheStats getStats();
+
+    /**
+     * @return statistics for each class of value that has been requested from or held by the
+     * cache.
+     */
+    Map<Class<? extends AbstractCacheable>, CacheStats> getStatsByClass();
+
     /**
      * Remove an entry from the cache that matches the key.
      *
@@ -83,6 +236,47 @@ public interface ICache
      */
     void remove(final String key) throws CacheAccessException;
 
+    /**
+     * Replace the value held against the key only if the entry has not been changed since it was
+     * read, as identified by {@link AbstractCacheable#getCacheVersion()}.  Refreshes should use
+     * this rather than {@link #add(String, AbstractCacheable)} so that a slow refresh never
+     * overwrites a newer value.
+     *
+     * @param key             key (required).
+     * @param expectedVersion version of the entry expected to be held, {@link #NO_VERSION} to
+     *                        only add the value if nothing is held against the key.
+     * @param value           to store (required), expiring at its own {@link
+     *                        ICacheable#expiryDeadline()}.
+     * @param <T>             type of the value.
+     * @return true if the value was stored, false if the entry held did not match.
+     * @throws CacheAccessException on failure to store.
+     */
+    <T extends AbstractCacheable> boolean replace(final String key, final long expectedVersion,
+        final T value) throws CacheAccessException;
+
+    /**
+     * Add the value unless a value that has not expired is already held against the key, as a
+     * single atomic operation.
+     *
+     * @param key   key (required).
+     * @param value to store (required), expiring at its own {@link ICacheable#expiryDeadline()}.
+     * @param <T>   type of the value.
+     * @return null if the value was stored, otherwise the value already held.
+     * @throws CacheAccessException on failure to fetch or store.
+     */
+    <T extends AbstractCacheable> T addIfAbsent(final String key, final T value)
+        throws CacheAccessException;
+
+    /**
+     * Remove the entry held against the key only if it has not been changed since it was read.
+     *
+     * @param key             to match (required).
+     * @param expectedVersion version of the entry expected to be held.
+     * @return true if the entry was removed.
+     * @throws CacheAccessException on failure to remove from the cache.
+     */
+    boolean remove(final String key, final long expectedVersion) throws CacheAccessException;
+
     /**
      * Remove all key value pairs from the cache.
      *
@@ -90,6 +284,31 @@ public interface ICache
      */
     void clear() throws CacheAccessException;
 
+    /**
+     * Write the entries held that have not expired to the stream, so that another instance can
+     * be started with a warm cache using {@link #preload(InputStream)}.  Each entry keeps the time
+     * its value was originally cached and its expiry.  Entries are written one at a time as they
+     * are read from the cache, entries added or removed while the snapshot is being written may
+     * or may not be included.  The stream is not closed.
+     *
+     * @param out to write the snapshot to (required).
+     * @return the number of entries written.
+     * @throws IOException on failure to write to the stream.
+     */
+    int snapshot(final OutputStream out) throws IOException;
+
+    /**
+     * Add the entries of a snapshot written by {@link #snapshot(OutputStream)}.  Entries that
+     * have expired since the snapshot was written, or whose key is already held, are skipped.  A
+     * snapshot must be read by a cache using the same codec as the cache that wrote it.  The
+     * stream is not closed.
+     *
+     * @param in to read the snapshot from (required).
+     * @return the number of entries added.
+     * @throws IOException on failure to read from the stream, or if it does not hold a snapshot.
+     */
+    int preload(final InputStream in) throws IOException;
+
     /**
      * Set length of time before cached values of the specified type are marked as setExpired.
      *
@@ -100,4 +319,13 @@ public interface ICache
      */
     void setCacheExpiryTime(long duration, final TimeUnit unit,
         Class<? extends AbstractCacheable> clazz) throws CacheExpiryLimitException;
+
+    /**
+     * Set the fraction of the expiry time after which cached values are flagged as needing a
+     * refresh, see {@link ICacheable#needsRefresh()}.  A fraction of 1 disables refresh ahead of
+     * expiry.
+     *
+     * @param fraction of the expiry time, greater than 0 and at most 1.
+     */
+    void setRefreshAheadFraction(final double fraction);
 }
@@ -0,0 +1,49 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+
+/**
+ * Converts values to and from the payload held by a cache entry.
+ *
+ * @since 2.0
+ */
+public interface ICacheEntryCodec
+{
+    /**
+     * Convert a value to a payload.
+     *
+     * @param value to convert.
+     * @return the payload.
+     * @throws JsonSerializationException on failure to convert.
+     */
+    byte[] encode(final AbstractCacheable value) throws JsonSerializationException;
+
+    /**
+     * Convert a payload back to a value.
+     *
+     * @param payload to convert.
+     * @param clazz   to instantiate.
+     * @param <T>     type of clazz.
+     * @return instance of clazz.
+     * @throws JsonDeserializationException on failure to convert.
+     */
+    <T extends AbstractCacheable> T decode(final byte[] payload, final Class<T> clazz)
+        throws JsonDeserializationException;
+}
@@ -0,0 +1,59 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+/**
+ * Receives notice of entries removed from an {@link ICache}, registered with {@link
+ * ICache#addRemovalListener(ICacheRemovalListener, java.util.concurrent.Executor)}.
+ *
+ * @since 2.0
+ */
+public interface ICacheRemovalListener
+{
+    /**
+     * Why an entry was removed.
+     */
+    enum RemovalCause
+    {
+        /**
+         * The entry passed its expiry deadline and was removed when read or swept.
+         */
+        EXPIRED,
+        /**
+         * The entry was removed to keep the cache within its bounds.
+         */
+        EVICTED,
+        /**
+         * A new value was stored against the key.
+         */
+        REPLACED,
+        /**
+         * The entry was removed by a call to remove or clear the cache.
+         */
+        EXPLICIT
+    }
+
+    /**
+     * Called on the executor the listener was registered with after an entry has been removed.
+     *
+     * @param key   the entry was held against.
+     * @param clazz the type of value the entry held.
+     * @param cause why the entry was removed.
+     */
+    void onRemoval(final String key, final Class<? extends AbstractCacheable> clazz,
+        final RemovalCause cause);
+}
@@ -16,6 +16,8 @@
  */
 package com.gsma.mobileconnect.r2.cache;
 
+import java.util.Date;
+
 /**
  * Interface for cacheable objects.
  *
@@ -32,4 +34,16 @@ public interface ICacheable
      * @return true if this item has expired.
      */
     boolean hasExpired();
+
+    /**
+     * @return true if this item has not expired but is close enough to expiry that it should be
+     * refreshed.
+     */
+    boolean needsRefresh();
+
+    /**
+     * @return the time after which this item should no longer be served from a cache, null if the
+     * expiry time configured in the cache for its class should apply.
+     */
+    Date expiryDeadline();
 }
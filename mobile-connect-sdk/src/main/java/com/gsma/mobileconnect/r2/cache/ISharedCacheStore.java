@@ -0,0 +1,106 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Store shared by all nodes of a deployment, used as the second tier of a {@link TieredCache}.
+ * Values are opaque records produced by the cache.  Implementations also carry invalidation
+ * messages between nodes so that each node can drop entries it holds locally once they are
+ * changed elsewhere.
+ *
+ * @since 2.0
+ */
+public interface ISharedCacheStore
+{
+    /**
+     * @param key to look up.
+     * @return the record held against the key, null if there is none.
+     * @throws IOException if the store could not be read.
+     */
+    byte[] get(final String key) throws IOException;
+
+    /**
+     * @param keys to look up.
+     * @return the records held against the keys, keys without a record are absent.
+     * @throws IOException if the store could not be read.
+     */
+    Map<String, byte[]> getAll(final Collection<String> keys) throws IOException;
+
+    /**
+     * Store a record, replacing any held against the key.
+     *
+     * @param key    to store the record against.
+     * @param record to store.
+     * @param expiry time after which the store may discard the record, null if it should be kept
+     *               until removed.
+     * @throws IOException if the store could not be written.
+     */
+    void put(final String key, final byte[] record, final Date expiry) throws IOException;
+
+    /**
+     * Atomically replace the record held against the key, only if it is still the record
+     * expected.  Stores without a native compare-and-set may implement this with a transaction
+     * or optimistic lock on the key.
+     *
+     * @param key      of the record.
+     * @param expected record expected to be held, null if none should be held.
+     * @param record   to store, null to remove the record held.
+     * @param expiry   time after which the store may discard the record, null if it should be
+     *                 kept until removed.
+     * @return true if the record was replaced.
+     * @throws IOException if the store could not be written.
+     */
+    boolean replace(final String key, final byte[] expected, final byte[] record,
+        final Date expiry) throws IOException;
+
+    /**
+     * @param key of the record to remove.
+     * @throws IOException if the store could not be written.
+     */
+    void remove(final String key) throws IOException;
+
+    /**
+     * Remove all records.
+     *
+     * @throws IOException if the store could not be written.
+     */
+    void clear() throws IOException;
+
+    /**
+     * @return true if the store holds no records.
+     * @throws IOException if the store could not be read.
+     */
+    boolean isEmpty() throws IOException;
+
+    /**
+     * Publish an invalidation message to all subscribed nodes, including the publisher.
+     *
+     * @param origin identifier of the publishing node.
+     * @param key    of the entry changed, null if the whole store was cleared.
+     */
+    void publish(final String origin, final String key);
+
+    /**
+     * @param listener to receive invalidation messages published by any node.
+     */
+    void subscribe(final ICacheInvalidationListener listener);
+}
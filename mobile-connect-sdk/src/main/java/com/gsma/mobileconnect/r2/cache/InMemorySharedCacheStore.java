@@ -0,0 +1,170 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Implementation of {@link ISharedCacheStore} held in memory, delivering invalidation messages
+ * synchronously on the publishing thread.  Intended for tests and for running several {@link
+ * TieredCache} instances within one process; a deployment of several nodes needs a store backed
+ * by a shared service.
+ *
+ * @since 2.0
+ */
+public class InMemorySharedCacheStore implements ISharedCacheStore
+{
+    private final ConcurrentMap<String, Record> records = new ConcurrentHashMap<String, Record>();
+    private final List<ICacheInvalidationListener> listeners =
+        new CopyOnWriteArrayList<ICacheInvalidationListener>();
+
+    @Override
+    public byte[] get(final String key)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final Record record = this.records.get(key);
+        if (record == null)
+        {
+            return null;
+        }
+        if (record.expiry < System.currentTimeMillis())
+        {
+            this.records.remove(key, record);
+            return null;
+        }
+        return record.value;
+    }
+
+    @Override
+    public Map<String, byte[]> getAll(final Collection<String> keys)
+    {
+        ObjectUtils.requireNonNull(keys, "keys");
+
+        final Map<String, byte[]> found = new HashMap<String, byte[]>();
+        for (final String key : keys)
+        {
+            final byte[] record = this.get(key);
+            if (record != null)
+            {
+                found.put(key, record);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void put(final String key, final byte[] record, final Date expiry)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(record, "record");
+
+        this.records.put(key,
+            new Record(record, expiry == null ? Long.MAX_VALUE : expiry.getTime()));
+    }
+
+    @Override
+    public boolean replace(final String key, final byte[] expected, final byte[] record,
+        final Date expiry)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final Record current = this.records.get(key);
+        final Record updated = record == null
+                               ? null
+                               : new Record(record,
+                                   expiry == null ? Long.MAX_VALUE : expiry.getTime());
+        if (current == null || current.expiry < System.currentTimeMillis())
+        {
+            if (expected != null)
+            {
+                return false;
+            }
+            if (current != null && !this.records.remove(key, current))
+            {
+                return false;
+            }
+            return updated == null || this.records.putIfAbsent(key, updated) == null;
+        }
+
+        if (expected == null || !Arrays.equals(expected, current.value))
+        {
+            return false;
+        }
+        return updated == null
+               ? this.records.remove(key, current)
+               : this.records.replace(key, current, updated);
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        this.records.remove(key);
+    }
+
+    @Override
+    public void clear()
+    {
+        this.records.clear();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.records.isEmpty();
+    }
+
+    @Override
+    public void publish(final String origin, final String key)
+    {
+        for (final ICacheInvalidationListener listener : this.listeners)
+        {
+            listener.onInvalidation(origin, key);
+        }
+    }
+
+    @Override
+    public void subscribe(final ICacheInvalidationListener listener)
+    {
+        this.listeners.add(ObjectUtils.requireNonNull(listener, "listener"));
+    }
+
+    private static final class Record
+    {
+        private final byte[] value;
+        private final long expiry;
+
+        private Record(final byte[] value, final long expiry)
+        {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.io.IOException;
+
+/**
+ * Codec writing values directly to bytes with a Jackson {@link ObjectMapper}. <p> The mapper
+ * determines the format, so a mapper created over a binary data format such as Smile or CBOR
+ * gives a more compact payload than json.  It should be configured as {@link
+ * com.gsma.mobileconnect.r2.json.JacksonJsonService#getObjectMapper()} is. </p>
+ *
+ * @since 2.0
+ */
+public class JacksonCacheEntryCodec implements ICacheEntryCodec
+{
+    private final ObjectMapper objectMapper;
+
+    public JacksonCacheEntryCodec(final ObjectMapper objectMapper)
+    {
+        this.objectMapper = ObjectUtils.requireNonNull(objectMapper, "objectMapper");
+    }
+
+    @Override
+    public byte[] encode(final AbstractCacheable value) throws JsonSerializationException
+    {
+        try
+        {
+            return this.objectMapper.writeValueAsBytes(value);
+        }
+        catch (final IOException ioe)
+        {
+            throw new JsonSerializationException(value, ioe);
+        }
+    }
+
+    @Override
+    public <T extends AbstractCacheable> T decode(final byte[] payload, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        try
+        {
+            return this.objectMapper.readValue(payload, clazz);
+        }
+        catch (final IOException ioe)
+        {
+            throw new JsonDeserializationException(clazz, null, ioe);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+import java.nio.charset.Charset;
+
+/**
+ * Codec holding values as UTF-8 encoded json produced by an {@link IJsonService}.  This is the
+ * default codec of caches built with a json service.
+ *
+ * @since 2.0
+ */
+public class JsonCacheEntryCodec implements ICacheEntryCodec
+{
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final IJsonService jsonService;
+
+    public JsonCacheEntryCodec(final IJsonService jsonService)
+    {
+        this.jsonService = ObjectUtils.requireNonNull(jsonService, "jsonService");
+    }
+
+    @Override
+    public byte[] encode(final AbstractCacheable value) throws JsonSerializationException
+    {
+        return this.jsonService.serialize(value).getBytes(UTF_8);
+    }
+
+    @Override
+    public <T extends AbstractCacheable> T decode(final byte[] payload, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        return this.jsonService.deserialize(new String(payload, UTF_8), clazz);
+    }
+}
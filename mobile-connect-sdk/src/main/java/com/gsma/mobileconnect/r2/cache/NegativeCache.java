@@ -0,0 +1,187 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+
+/**
+ * Records failures to fetch values in an {@link ICache}, so that a dead endpoint is not retried
+ * by every request.  Failures are held as {@link NegativeCacheEntry} values against the key
+ * prefixed with {@link #KEY_PREFIX}, so they are shared by everything using the cache and are
+ * reported in its statistics under that class.  The time attempts are suppressed for is given by
+ * the {@link NegativeCachePolicy}; the count of consecutive failures is retained for twice the
+ * maximum ttl after attempts resume, so a value that keeps failing is retried less and less often.
+ *
+ * @since 2.0
+ */
+public final class NegativeCache
+{
+    public static final String KEY_PREFIX = "negative:";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NegativeCache.class);
+
+    private final ICache cache;
+    private final NegativeCachePolicy policy;
+
+    /**
+     * @param cache  to hold failures in, null to disable.
+     * @param policy determining how long failures suppress attempts.
+     */
+    public NegativeCache(final ICache cache, final NegativeCachePolicy policy)
+    {
+        this.cache = cache;
+        this.policy = ObjectUtils.requireNonNull(policy, "policy");
+    }
+
+    public NegativeCachePolicy getPolicy()
+    {
+        return this.policy;
+    }
+
+    /**
+     * @param key of the value.
+     * @return the failure currently suppressing attempts to fetch the value, null if it may be
+     * fetched.
+     */
+    public NegativeCacheEntry getSuppressing(final String key)
+    {
+        if (!this.isEnabled() || key == null)
+        {
+            return null;
+        }
+        final Date now = new Date();
+        final NegativeCacheEntry entry = this.read(key);
+        return isRetained(entry, now) && entry.suppresses(now) ? entry : null;
+    }
+
+    /**
+     * @param key of the value.
+     * @return true if attempts to fetch the value should be suppressed.
+     */
+    public boolean isSuppressed(final String key)
+    {
+        return this.getSuppressing(key) != null;
+    }
+
+    /**
+     * Record a failure to fetch the value, extending the time attempts are suppressed for if the
+     * previous attempt also failed.  Concurrent failures are each counted, the entry being
+     * replaced only if it has not changed since it was read.
+     *
+     * @param key    of the value.
+     * @param reason description of the failure.
+     * @return the failure recorded, null if negative caching is disabled.
+     */
+    public NegativeCacheEntry recordFailure(final String key, final String reason)
+    {
+        if (!this.isEnabled() || key == null)
+        {
+            return null;
+        }
+
+        while (true)
+        {
+            final NegativeCacheEntry previous = this.read(key);
+            final long now = System.currentTimeMillis();
+            final int failureCount =
+                isRetained(previous, new Date(now)) ? previous.getFailureCount() + 1 : 1;
+            final long ttl = this.policy.ttlMillis(failureCount);
+
+            final NegativeCacheEntry entry = new NegativeCacheEntry.Builder()
+                .withFailureCount(failureCount)
+                .withReason(reason)
+                .withFailedAt(new Date(now))
+                .withRetryAfter(new Date(now + ttl))
+                .withRetainUntil(new Date(now + ttl + this.policy.getMaxTtlMillis() * 2))
+                .build();
+            try
+            {
+                if (!this.cache.replace(KEY_PREFIX + key,
+                    previous == null ? ICache.NO_VERSION : previous.getCacheVersion(), entry))
+                {
+                    // another failure was recorded since the entry was read, count on top of it
+                    continue;
+                }
+                LOGGER.debug(
+                    "Suppressing attempts for key={} for {}ms after {} consecutive failures", key,
+                    ttl, failureCount);
+            }
+            catch (final CacheAccessException cae)
+            {
+                LOGGER.warn("Failed to record failure in negative cache for key={}", key, cae);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Record that the value was fetched, clearing any failures recorded for it.
+     *
+     * @param key of the value.
+     */
+    public void recordSuccess(final String key)
+    {
+        if (!this.isEnabled() || key == null)
+        {
+            return;
+        }
+        try
+        {
+            if (this.read(key) != null)
+            {
+                this.cache.remove(KEY_PREFIX + key);
+            }
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to clear negative cache for key={}", key, cae);
+        }
+    }
+
+    private boolean isEnabled()
+    {
+        return this.cache != null && this.policy.isEnabled();
+    }
+
+    /**
+     * @return true if the failure is recent enough to count towards the next, a failure retained
+     * past its {@link NegativeCacheEntry#getRetainUntil()} being treated as absent.
+     */
+    private static boolean isRetained(final NegativeCacheEntry entry, final Date now)
+    {
+        return entry != null
+            && (entry.getRetainUntil() == null || entry.getRetainUntil().after(now));
+    }
+
+    // returns the entry held even if expired, so that its version can be replaced
+    private NegativeCacheEntry read(final String key)
+    {
+        try
+        {
+            return this.cache.get(KEY_PREFIX + key, NegativeCacheEntry.class, false);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to read negative cache for key={}", key, cae);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.Date;
+
+/**
+ * Records that fetching the value for a key failed, so that further attempts are suppressed until
+ * {@link #getRetryAfter()}.  Held by {@link NegativeCache}; as an ordinary cached value its lookups
+ * are reported against this class by {@link ICache#getStatsByClass()}.
+ *
+ * @since 2.0
+ */
+@JsonDeserialize(builder = NegativeCacheEntry.Builder.class)
+public class NegativeCacheEntry extends AbstractCacheable
+{
+    private final int failureCount;
+    private final String reason;
+    private final Date failedAt;
+    private final Date retryAfter;
+    private final Date retainUntil;
+
+    private NegativeCacheEntry(final Builder builder)
+    {
+        this.failureCount = builder.failureCount;
+        this.reason = builder.reason;
+        this.failedAt = builder.failedAt;
+        this.retryAfter = builder.retryAfter;
+        this.retainUntil = builder.retainUntil;
+    }
+
+    /**
+     * @return the number of consecutive failures recorded for the key.
+     */
+    public int getFailureCount()
+    {
+        return this.failureCount;
+    }
+
+    /**
+     * @return description of the most recent failure.
+     */
+    public String getReason()
+    {
+        return this.reason;
+    }
+
+    public Date getFailedAt()
+    {
+        return this.failedAt;
+    }
+
+    /**
+     * @return time after which the value may be fetched again.
+     */
+    public Date getRetryAfter()
+    {
+        return this.retryAfter;
+    }
+
+    /**
+     * @return time until which the entry is retained, so that the failure count continues to grow
+     * if the next attempt also fails.
+     */
+    public Date getRetainUntil()
+    {
+        return this.retainUntil;
+    }
+
+    /**
+     * @param now the current time.
+     * @return true if attempts to fetch the value should still be suppressed.
+     */
+    public boolean suppresses(final Date now)
+    {
+        return this.retryAfter != null && this.retryAfter.after(now);
+    }
+
+    @Override
+    public Date expiryDeadline()
+    {
+        return this.retainUntil;
+    }
+
+    public static final class Builder implements IBuilder<NegativeCacheEntry>
+    {
+        private int failureCount;
+        private String reason;
+        private Date failedAt;
+        private Date retryAfter;
+        private Date retainUntil;
+
+        public Builder withFailureCount(final int val)
+        {
+            this.failureCount = val;
+            return this;
+        }
+
+        public Builder withReason(final String val)
+        {
+            this.reason = val;
+            return this;
+        }
+
+        public Builder withFailedAt(final Date val)
+        {
+            this.failedAt = val;
+            return this;
+        }
+
+        public Builder withRetryAfter(final Date val)
+        {
+            this.retryAfter = val;
+            return this;
+        }
+
+        public Builder withRetainUntil(final Date val)
+        {
+            this.retainUntil = val;
+            return this;
+        }
+
+        @Override
+        public NegativeCacheEntry build()
+        {
+            return new NegativeCacheEntry(this);
+        }
+    }
+}
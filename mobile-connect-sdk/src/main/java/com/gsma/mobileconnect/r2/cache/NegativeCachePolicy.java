@@ -0,0 +1,100 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines how long a failure recorded by {@link NegativeCache} suppresses further attempts.
+ * The first failure suppresses attempts for the initial ttl, each consecutive failure doubles it up
+ * to the maximum ttl.
+ *
+ * @since 2.0
+ */
+public final class NegativeCachePolicy
+{
+    /**
+     * Policy which never suppresses attempts.
+     */
+    public static final NegativeCachePolicy DISABLED = new NegativeCachePolicy(0L, 0L,
+        TimeUnit.MILLISECONDS);
+
+    private final long initialTtlMillis;
+    private final long maxTtlMillis;
+
+    /**
+     * @param initialTtl time attempts are suppressed for after the first failure, 0 to disable.
+     * @param maxTtl     upper bound the time grows to after consecutive failures.
+     * @param unit       of both ttls.
+     */
+    public NegativeCachePolicy(final long initialTtl, final long maxTtl, final TimeUnit unit)
+    {
+        if (initialTtl < 0L || maxTtl < initialTtl)
+        {
+            throw new IllegalArgumentException(String.format(
+                "Negative cache ttls must satisfy 0 <= initial <= max, were initial=%s, max=%s",
+                initialTtl, maxTtl));
+        }
+        this.initialTtlMillis = unit.toMillis(initialTtl);
+        this.maxTtlMillis = unit.toMillis(maxTtl);
+    }
+
+    /**
+     * @return policy using {@link DefaultOptions#NEGATIVE_CACHE_TTL_MS} and {@link
+     * DefaultOptions#NEGATIVE_CACHE_MAX_TTL_MS}.
+     */
+    public static NegativeCachePolicy defaults()
+    {
+        return new NegativeCachePolicy(DefaultOptions.NEGATIVE_CACHE_TTL_MS,
+            DefaultOptions.NEGATIVE_CACHE_MAX_TTL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled()
+    {
+        return this.initialTtlMillis > 0L;
+    }
+
+    public long getInitialTtlMillis()
+    {
+        return this.initialTtlMillis;
+    }
+
+    public long getMaxTtlMillis()
+    {
+        return this.maxTtlMillis;
+    }
+
+    /**
+     * @param failureCount number of consecutive failures, at least 1.
+     * @return the time attempts are suppressed for after that many failures.
+     */
+    public long ttlMillis(final int failureCount)
+    {
+        if (!this.isEnabled())
+        {
+            return 0L;
+        }
+        final int doublings = Math.min(Math.max(failureCount - 1, 0), 62);
+        final long ttl = this.initialTtlMillis << doublings;
+        // shifting out of range, or into the sign bit, means the maximum has long been reached
+        return ttl < 0L || ttl >>> doublings != this.initialTtlMillis
+               ? this.maxTtlMillis
+               : Math.min(ttl, this.maxTtlMillis);
+    }
+}
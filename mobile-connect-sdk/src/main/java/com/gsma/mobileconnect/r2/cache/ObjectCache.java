@@ -0,0 +1,305 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of {@link ICache} which holds live instances in a ConcurrentHashMap rather than
+ * their json representation, avoiding the cost of serialising on every add and deserialising on
+ * every get. <p> By default a copy of each value is taken as it enters and leaves the cache (see
+ * {@link AbstractCacheable#copy()}) so that changes made by callers, such as {@link
+ * com.gsma.mobileconnect.r2.discovery.DiscoveryResponse#setProviderMetadata}, are never seen
+ * by other callers.  Copies may be disabled via {@link Builder#withDefensiveCopies(boolean)}
+ * where all callers treat cached values as read only. </p>
+ *
+ * @since 2.0
+ */
+public class ObjectCache extends AbstractCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObjectCache.class);
+    private final ConcurrentHashMap<String, CacheEntry> cache =
+        new ConcurrentHashMap<String, CacheEntry>();
+    private final boolean defensiveCopies;
+    private final ICacheEntryCodec snapshotCodec;
+
+    private ObjectCache(final Builder builder)
+    {
+        super((ICacheEntryCodec) null, builder.cacheExpiryLimits);
+        this.defensiveCopies = builder.defensiveCopies;
+        this.snapshotCodec = builder.codec == null
+                             ? new JsonCacheEntryCodec(new JacksonJsonService())
+                             : builder.codec;
+
+        LOGGER.info("New instance of ObjectCache created with defensiveCopies={}",
+            this.defensiveCopies);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        final boolean empty = this.cache.isEmpty();
+
+        LOGGER.debug("Cache isEmpty={}", empty);
+
+        return empty;
+    }
+
+    @Override
+    public void clear()
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        if (!this.hasRemovalListeners())
+        {
+            this.cache.clear();
+            return;
+        }
+
+        for (final Map.Entry<String, CacheEntry> entry : this.cache.entrySet())
+        {
+            if (this.cache.remove(entry.getKey(), entry.getValue()))
+            {
+                this.notifyRemoval(entry.getKey(), entry.getValue().getCachedClass(),
+                    ICacheRemovalListener.RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    @Override
+    public void remove(final String key)
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            final CacheEntry removed = this.cache.remove(key);
+            if (removed != null)
+            {
+                this.notifyRemoval(key, removed.getCachedClass(),
+                    ICacheRemovalListener.RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    @Override
+    protected <T extends AbstractCacheable> CacheEntry createCacheEntry(final String key,
+        final T value, final Date expiry)
+    {
+        return new CacheEntry(this.defensiveCopies ? value.copy() : value, expiry);
+    }
+
+    @Override
+    protected <T extends AbstractCacheable> T readCacheEntry(final String key,
+        final CacheEntry entry, final Class<T> clazz) throws CacheAccessException
+    {
+        final AbstractCacheable instance = entry.getInstance();
+
+        if (!clazz.isInstance(instance))
+        {
+            LOGGER.warn("Cached instance with key={} is of class={} not requested class={}", key,
+                entry.getCachedClass(), clazz);
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key, clazz,
+                new ClassCastException(entry.getCachedClass().getName()));
+        }
+
+        return clazz.cast(this.defensiveCopies ? instance.copy() : instance);
+    }
+
+    @Override
+    protected byte[] snapshotPayload(final String key, final CacheEntry entry)
+        throws CacheAccessException
+    {
+        try
+        {
+            return this.snapshotCodec.encode(entry.getInstance());
+        }
+        catch (final JsonSerializationException jse)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.GET, key,
+                entry.getCachedClass(), jse);
+        }
+    }
+
+    @Override
+    protected CacheEntry restoreCacheEntry(final String key, final byte[] payload,
+        final Class<? extends AbstractCacheable> clazz, final Date cachedTime, final Date expiry)
+        throws CacheAccessException
+    {
+        try
+        {
+            return new CacheEntry(this.snapshotCodec.decode(payload, clazz), cachedTime, expiry);
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key, clazz, jde);
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        final CacheEntry replaced = this.cache.put(key, value);
+        if (replaced != null)
+        {
+            this.notifyRemoval(key, replaced.getCachedClass(),
+                ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+    }
+
+    @Override
+    protected Map<String, CacheEntry> internalEntries()
+    {
+        return Collections.unmodifiableMap(this.cache);
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final CacheEntry cacheEntry = this.cache.get(key);
+
+        if (cacheEntry != null)
+        {
+            LOGGER.debug("Fetched key={}, class={} from cache", key, cacheEntry.getCachedClass());
+        }
+        else
+        {
+            LOGGER.debug("Item with key={} is not held in the cache", key);
+        }
+
+        return cacheEntry;
+    }
+
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry value)
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final boolean replaced;
+        if (expected == null)
+        {
+            replaced = value == null
+                       ? !this.cache.containsKey(key)
+                       : this.cache.putIfAbsent(key, value) == null;
+        }
+        else
+        {
+            replaced = value == null
+                       ? this.cache.remove(key, expected)
+                       : this.cache.replace(key, expected, value);
+        }
+
+        if (replaced)
+        {
+            LOGGER.debug("Replaced key={} in cache", key);
+        }
+        return replaced;
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private boolean defensiveCopies = true;
+        private ICacheEntryCodec codec;
+        private File snapshot;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+
+        /**
+         * Specify if values should be copied as they enter and leave the cache, defaults to true.
+         * Disabling copies is only safe where no caller modifies a value returned by the cache.
+         *
+         * @param val true to copy values.
+         * @return this builder.
+         */
+        public Builder withDefensiveCopies(final boolean val)
+        {
+            this.defensiveCopies = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Set the codec used to encode values written to snapshots, by default values are written
+         * as the json produced by {@link JacksonJsonService}.
+         *
+         * @param val codec to use.
+         * @return this builder.
+         */
+        public Builder withCodec(final ICacheEntryCodec val)
+        {
+            this.codec = val;
+            return this;
+        }
+
+        /**
+         * Preload the cache from a snapshot file written by {@link ICache#snapshot(
+         * java.io.OutputStream)} when it is built.  A missing or unreadable snapshot leaves the
+         * cache empty.
+         *
+         * @param val snapshot file.
+         * @return this builder.
+         */
+        public Builder withSnapshot(final File val)
+        {
+            this.snapshot = val;
+            return this;
+        }
+
+        @Override
+        public ObjectCache build()
+        {
+            final ObjectCache cache = new ObjectCache(this);
+            if (this.snapshot != null)
+            {
+                cache.preloadSnapshot(this.snapshot);
+            }
+            return cache;
+        }
+    }
+}
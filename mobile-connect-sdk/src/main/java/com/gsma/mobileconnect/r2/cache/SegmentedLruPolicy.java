@@ -0,0 +1,196 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segmented LRU eviction policy used to bound the size of a cache by entry count and weight. <p>
+ * New keys enter a probation segment and are promoted to a protected segment when read again.
+ * Victims are taken from the least recently used end of probation first, so a burst of keys that
+ * are written once (such as sdkSession entries) cannot flush keys that are read repeatedly (such
+ * as discovery responses and provider metadata). </p> <p> This class is not thread safe, callers
+ * must hold a lock while calling it. </p>
+ *
+ * @since 2.0
+ */
+class SegmentedLruPolicy
+{
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long maxEntries;
+    private final long maxWeight;
+    private final long maxProtectedEntries;
+    private final long maxProtectedWeight;
+
+    private final LinkedHashMap<String, Long> probation =
+        new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> protectedSegment =
+        new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long weight = 0L;
+    private long protectedWeight = 0L;
+
+    /**
+     * @param maxEntries the maximum number of entries to hold.
+     * @param maxWeight  the maximum total weight of entries to hold.
+     */
+    SegmentedLruPolicy(final long maxEntries, final long maxWeight)
+    {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.maxProtectedEntries = (long) (maxEntries * PROTECTED_RATIO);
+        this.maxProtectedWeight = (long) (maxWeight * PROTECTED_RATIO);
+    }
+
+    /**
+     * Record that a key has been added or replaced.
+     *
+     * @param key         added.
+     * @param entryWeight weight of the entry added.
+     * @return the keys that must be evicted to keep within bounds, in the order evicted.
+     */
+    List<String> onAdd(final String key, final long entryWeight)
+    {
+        final Long protectedPrevious = this.protectedSegment.get(key);
+        if (protectedPrevious != null)
+        {
+            this.protectedSegment.put(key, entryWeight);
+            this.protectedWeight += entryWeight - protectedPrevious;
+            this.weight += entryWeight - protectedPrevious;
+        }
+        else
+        {
+            final Long previous = this.probation.put(key, entryWeight);
+            this.weight += entryWeight - (previous == null ? 0L : previous);
+        }
+
+        return this.evict();
+    }
+
+    /**
+     * Record that a key has been read, promoting it to the protected segment.
+     *
+     * @param key read.
+     */
+    void onAccess(final String key)
+    {
+        if (this.protectedSegment.get(key) == null)
+        {
+            final Long entryWeight = this.probation.remove(key);
+            if (entryWeight != null)
+            {
+                this.protectedSegment.put(key, entryWeight);
+                this.protectedWeight += entryWeight;
+                this.demote();
+            }
+        }
+    }
+
+    /**
+     * Record that a key has been removed from the cache.
+     *
+     * @param key removed.
+     */
+    void onRemove(final String key)
+    {
+        Long entryWeight = this.probation.remove(key);
+        if (entryWeight == null)
+        {
+            entryWeight = this.protectedSegment.remove(key);
+            if (entryWeight != null)
+            {
+                this.protectedWeight -= entryWeight;
+            }
+        }
+        if (entryWeight != null)
+        {
+            this.weight -= entryWeight;
+        }
+    }
+
+    /**
+     * Forget all keys.
+     */
+    void clear()
+    {
+        this.probation.clear();
+        this.protectedSegment.clear();
+        this.weight = 0L;
+        this.protectedWeight = 0L;
+    }
+
+    /**
+     * @return number of keys tracked.
+     */
+    long size()
+    {
+        return this.probation.size() + this.protectedSegment.size();
+    }
+
+    /**
+     * @return total weight of the keys tracked.
+     */
+    long weight()
+    {
+        return this.weight;
+    }
+
+    private void demote()
+    {
+        final Iterator<Map.Entry<String, Long>> it = this.protectedSegment.entrySet().iterator();
+        while (it.hasNext() && (this.protectedSegment.size() > this.maxProtectedEntries
+            || this.protectedWeight > this.maxProtectedWeight))
+        {
+            final Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            this.protectedWeight -= eldest.getValue();
+            this.probation.put(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private List<String> evict()
+    {
+        if (this.size() <= this.maxEntries && this.weight <= this.maxWeight)
+        {
+            return Collections.emptyList();
+        }
+
+        final List<String> evicted = new ArrayList<String>();
+        while (this.size() > this.maxEntries || this.weight > this.maxWeight)
+        {
+            final boolean fromProbation = !this.probation.isEmpty();
+            final Iterator<Map.Entry<String, Long>> it = fromProbation
+                                                         ? this.probation.entrySet().iterator()
+                                                         : this.protectedSegment.entrySet()
+                                                             .iterator();
+            final Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            this.weight -= eldest.getValue();
+            if (!fromProbation)
+            {
+                this.protectedWeight -= eldest.getValue();
+            }
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter spread over a number of cells, each on its own cache line, so that threads updating it
+ * concurrently rarely contend.  Threads are assigned a cell by their id; the total is only
+ * calculated when read.
+ *
+ * @since 2.0
+ */
+final class StripedCounter
+{
+    private static final int PADDING = 8;
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    static int stripes(final int processors)
+    {
+        int stripes = 1;
+        while (stripes < processors * 2 && stripes < 64)
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    void increment()
+    {
+        this.add(1L);
+    }
+
+    void add(final long delta)
+    {
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        this.cells.addAndGet(stripe * PADDING, delta);
+    }
+
+    long sum()
+    {
+        long sum = 0L;
+        for (int i = 0; i < STRIPES; i++)
+        {
+            sum += this.cells.get(i * PADDING);
+        }
+        return sum;
+    }
+}
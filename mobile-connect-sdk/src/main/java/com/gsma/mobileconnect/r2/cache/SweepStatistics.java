@@ -0,0 +1,110 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+/**
+ * Snapshot of the activity of the background expiry sweeper of a {@link ConcurrentCache}.
+ *
+ * @since 2.0
+ */
+public class SweepStatistics
+{
+    private final long sweepCount;
+    private final long expiredCount;
+    private final long rescheduledCount;
+    private final long staleCount;
+    private final int pendingCount;
+    private final long lastSweepDurationNanos;
+
+    SweepStatistics(final long sweepCount, final long expiredCount, final long rescheduledCount,
+        final long staleCount, final int pendingCount, final long lastSweepDurationNanos)
+    {
+        this.sweepCount = sweepCount;
+        this.expiredCount = expiredCount;
+        this.rescheduledCount = rescheduledCount;
+        this.staleCount = staleCount;
+        this.pendingCount = pendingCount;
+        this.lastSweepDurationNanos = lastSweepDurationNanos;
+    }
+
+    /**
+     * @return the number of sweeps run.
+     */
+    public long getSweepCount()
+    {
+        return this.sweepCount;
+    }
+
+    /**
+     * @return the number of expired entries removed from the cache.
+     */
+    public long getExpiredCount()
+    {
+        return this.expiredCount;
+    }
+
+    /**
+     * @return the number of entries found not yet expired when due, as their expiry time was
+     * changed after they were added.
+     */
+    public long getRescheduledCount()
+    {
+        return this.rescheduledCount;
+    }
+
+    /**
+     * @return the number of entries which were due but had already been replaced or removed.
+     */
+    public long getStaleCount()
+    {
+        return this.staleCount;
+    }
+
+    /**
+     * @return the number of entries waiting for their expiry deadline.
+     */
+    public int getPendingCount()
+    {
+        return this.pendingCount;
+    }
+
+    /**
+     * @return how long the most recent sweep took.
+     */
+    public long getLastSweepDurationNanos()
+    {
+        return this.lastSweepDurationNanos;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SweepStatistics(sweeps="
+            + this.sweepCount
+            + ", expired="
+            + this.expiredCount
+            + ", rescheduled="
+            + this.rescheduledCount
+            + ", stale="
+            + this.staleCount
+            + ", pending="
+            + this.pendingCount
+            + ", lastSweepNanos="
+            + this.lastSweepDurationNanos
+            + ")";
+    }
+}
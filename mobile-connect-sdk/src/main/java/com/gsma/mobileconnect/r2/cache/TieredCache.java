@@ -0,0 +1,621 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link ICache} for deployments of several nodes, holding entries in an
+ * {@link ISharedCacheStore} shared by all nodes with a small near cache of recently used entries
+ * in front of it. <p> Writes go to the shared store before the near cache and publish an
+ * invalidation message so that other nodes drop their near copy; reads are served from the near
+ * cache where possible and otherwise read through to the shared store.  As a message may be lost
+ * or overtaken by a concurrent read, a near entry is only trusted for a limited time (see {@link
+ * Builder#withNearCacheTtl(long, TimeUnit)}) which caps how stale a node may be. </p> <p> Expiry
+ * is measured from the time an entry was first added on any node, so every node expires it at
+ * the same time. </p> <p> Removal listeners are only told of removals made by this node of entries
+ * it holds in its near cache, as the shared store does not report what it held. </p>
+ *
+ * @since 2.0
+ */
+public class TieredCache extends AbstractCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredCache.class);
+    private static final long NO_EXPIRY = -1L;
+
+    private final ISharedCacheStore store;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long nearCacheTtlMillis;
+    private final Map<String, NearEntry> nearCache;
+
+    private TieredCache(final Builder builder)
+    {
+        super(builder.codec == null ? new JsonCacheEntryCodec(builder.jsonService) : builder.codec,
+            builder.cacheExpiryLimits);
+
+        this.store = builder.store;
+        this.nearCacheTtlMillis = builder.nearCacheTtlMillis;
+        this.nearCache = new NearCache(builder.nearCacheMaxEntries);
+
+        this.store.subscribe(new ICacheInvalidationListener()
+        {
+            @Override
+            public void onInvalidation(final String origin, final String key)
+            {
+                TieredCache.this.invalidate(origin, key);
+            }
+        });
+
+        LOGGER.info("New instance of TieredCache created with nodeId={}, nearCacheTtl={}ms",
+            this.nodeId, this.nearCacheTtlMillis);
+    }
+
+    /**
+     * @return identifier of this node in invalidation messages.
+     */
+    public String getNodeId()
+    {
+        return this.nodeId;
+    }
+
+    @Override
+    public boolean isEmpty() throws CacheAccessException
+    {
+        try
+        {
+            final boolean empty = this.store.isEmpty();
+
+            LOGGER.debug("Cache isEmpty={}", empty);
+
+            return empty;
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(CacheAccessException.Operation.GET, null, ioe);
+        }
+    }
+
+    @Override
+    public void clear() throws CacheAccessException
+    {
+        LOGGER.debug("Clearing entire cache");
+
+        Map<String, NearEntry> cleared = null;
+        try
+        {
+            this.store.clear();
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(CacheAccessException.Operation.REMOVE, null, ioe);
+        }
+        finally
+        {
+            cleared = this.clearNear();
+        }
+        this.store.publish(this.nodeId, null);
+
+        for (final Map.Entry<String, NearEntry> near : cleared.entrySet())
+        {
+            this.notifyRemoval(near.getKey(), near.getValue().entry.getCachedClass(),
+                ICacheRemovalListener.RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void remove(final String key) throws CacheAccessException
+    {
+        if (key != null)
+        {
+            LOGGER.debug("Removing key={} from cache", key);
+
+            NearEntry removed = null;
+            try
+            {
+                this.store.remove(key);
+            }
+            catch (final IOException ioe)
+            {
+                throw this.failure(CacheAccessException.Operation.REMOVE, key, ioe);
+            }
+            finally
+            {
+                removed = this.removeNear(key);
+            }
+            this.store.publish(this.nodeId, key);
+
+            if (removed != null)
+            {
+                this.notifyRemoval(key, removed.entry.getCachedClass(),
+                    ICacheRemovalListener.RemovalCause.EXPLICIT);
+            }
+        }
+    }
+
+    @Override
+    protected void internalAdd(final String key, final CacheEntry value)
+        throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+        ObjectUtils.requireNonNull(value, "value");
+
+        LOGGER.debug("Adding key={}, class={} to cache", key, value.getCachedClass());
+
+        try
+        {
+            this.store.put(key, encode(value), value.getExpiry());
+        }
+        catch (final IOException ioe)
+        {
+            this.removeNear(key);
+            LOGGER.warn("Failed to write key={} to shared store", key, ioe);
+            throw new CacheAccessException(CacheAccessException.Operation.ADD, key,
+                value.getCachedClass(), ioe);
+        }
+
+        final NearEntry replaced = this.putNear(key, value);
+        this.store.publish(this.nodeId, key);
+
+        if (replaced != null)
+        {
+            this.notifyRemoval(key, replaced.entry.getCachedClass(),
+                ICacheRemovalListener.RemovalCause.REPLACED);
+        }
+    }
+
+    @Override
+    protected CacheEntry internalGet(final String key) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final NearEntry near;
+        synchronized (this.nearCache)
+        {
+            near = this.nearCache.get(key);
+        }
+        if (near != null && System.currentTimeMillis() - near.loadedTime < this.nearCacheTtlMillis)
+        {
+            LOGGER.debug("Fetched key={}, class={} from near cache", key,
+                near.entry.getCachedClass());
+            return near.entry;
+        }
+
+        final byte[] record;
+        try
+        {
+            record = this.store.get(key);
+        }
+        catch (final IOException ioe)
+        {
+            throw this.failure(CacheAccessException.Operation.GET, key, ioe);
+        }
+
+        if (record == null)
+        {
+            this.removeNear(key);
+            return null;
+        }
+
+        final CacheEntry entry = this.decode(record);
+        if (entry == null)
+        {
+            this.removeNear(key);
+        }
+        else
+        {
+            LOGGER.debug("Fetched key={}, class={} from shared store", key,
+                entry.getCachedClass());
+            this.putNear(key, entry);
+        }
+        return entry;
+    }
+
+    @Override
+    protected Map<String, CacheEntry> internalGetAll(final Collection<String> keys)
+        throws CacheAccessException
+    {
+        final Map<String, CacheEntry> entries =
+            new HashMap<String, CacheEntry>(Math.max(4, keys.size() * 2));
+        final List<String> misses = new ArrayList<String>(keys.size());
+        final long now = System.currentTimeMillis();
+        synchronized (this.nearCache)
+        {
+            for (final String key : keys)
+            {
+                final NearEntry near = this.nearCache.get(key);
+                if (near != null && now - near.loadedTime < this.nearCacheTtlMillis)
+                {
+                    entries.put(key, near.entry);
+                }
+                else if (key != null)
+                {
+                    misses.add(key);
+                }
+            }
+        }
+
+        if (!misses.isEmpty())
+        {
+            final Map<String, byte[]> records;
+            try
+            {
+                records = this.store.getAll(misses);
+            }
+            catch (final IOException ioe)
+            {
+                throw this.failure(CacheAccessException.Operation.GET, misses.get(0), ioe);
+            }
+
+            for (final String key : misses)
+            {
+                final byte[] record = records.get(key);
+                final CacheEntry entry = record == null ? null : this.decode(record);
+                if (entry == null)
+                {
+                    this.removeNear(key);
+                }
+                else
+                {
+                    this.putNear(key, entry);
+                    entries.put(key, entry);
+                }
+            }
+        }
+
+        LOGGER.debug("Fetched {} of {} keys from cache", entries.size(), keys.size());
+
+        return entries;
+    }
+
+    /**
+     * {@inheritDoc} <p> Only the entries held by the near cache of this node are known, so a
+     * snapshot of a tiered cache holds the values recently read or written by this node. </p>
+     */
+    @Override
+    protected Map<String, CacheEntry> internalEntries()
+    {
+        final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>();
+        synchronized (this.nearCache)
+        {
+            for (final Map.Entry<String, NearEntry> near : this.nearCache.entrySet())
+            {
+                entries.put(near.getKey(), near.getValue().entry);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    protected boolean internalReplace(final String key, final CacheEntry expected,
+        final CacheEntry value) throws CacheAccessException
+    {
+        StringUtils.requireNonEmpty(key, "key");
+
+        final boolean replaced;
+        try
+        {
+            // compared against the shared store, the near cache may be behind
+            final byte[] current = this.store.get(key);
+            final CacheEntry currentEntry = current == null ? null : this.decode(current);
+            if (expected == null
+                ? current != null
+                : currentEntry == null || currentEntry.getVersion() != expected.getVersion())
+            {
+                replaced = false;
+            }
+            else
+            {
+                replaced = this.store.replace(key, current, value == null ? null : encode(value),
+                    value == null ? null : value.getExpiry());
+            }
+        }
+        catch (final IOException ioe)
+        {
+            this.removeNear(key);
+            throw this.failure(value == null
+                               ? CacheAccessException.Operation.REMOVE
+                               : CacheAccessException.Operation.ADD, key, ioe);
+        }
+
+        if (!replaced)
+        {
+            LOGGER.debug("Item with key={} was not replaced as the shared entry has changed", key);
+            this.removeNear(key);
+            return false;
+        }
+
+        LOGGER.debug("Replaced key={} in cache", key);
+        if (value == null)
+        {
+            this.removeNear(key);
+        }
+        else
+        {
+            this.putNear(key, value);
+        }
+        this.store.publish(this.nodeId, key);
+        return true;
+    }
+
+    private void invalidate(final String origin, final String key)
+    {
+        if (this.nodeId.equals(origin))
+        {
+            return;
+        }
+
+        LOGGER.debug("Invalidating key={} from near cache on message from node={}", key, origin);
+
+        if (key == null)
+        {
+            this.clearNear();
+        }
+        else
+        {
+            this.removeNear(key);
+        }
+    }
+
+    private NearEntry putNear(final String key, final CacheEntry entry)
+    {
+        synchronized (this.nearCache)
+        {
+            return this.nearCache.put(key, new NearEntry(entry, System.currentTimeMillis()));
+        }
+    }
+
+    private NearEntry removeNear(final String key)
+    {
+        synchronized (this.nearCache)
+        {
+            return this.nearCache.remove(key);
+        }
+    }
+
+    private Map<String, NearEntry> clearNear()
+    {
+        synchronized (this.nearCache)
+        {
+            final Map<String, NearEntry> cleared = this.hasRemovalListeners()
+                                                   ? new HashMap<String, NearEntry>(this.nearCache)
+                                                   : Collections.<String, NearEntry>emptyMap();
+            this.nearCache.clear();
+            return cleared;
+        }
+    }
+
+    private CacheAccessException failure(final CacheAccessException.Operation operation,
+        final String key, final IOException cause)
+    {
+        LOGGER.warn("Failed to access shared store for key={}", key, cause);
+        return new CacheAccessException(operation, key, AbstractCacheable.class, cause);
+    }
+
+    private static byte[] encode(final CacheEntry entry) throws IOException
+    {
+        final ByteArrayOutputStream bytes =
+            new ByteArrayOutputStream(entry.getPayload().length + 64);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(entry.getCachedClass().getName());
+        out.writeLong(entry.getCachedTime().getTime());
+        out.writeLong(entry.getExpiry() == null ? NO_EXPIRY : entry.getExpiry().getTime());
+        out.writeLong(entry.getVersion());
+        out.writeInt(entry.getPayload().length);
+        out.write(entry.getPayload());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private CacheEntry decode(final byte[] record)
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String className = null;
+        try
+        {
+            className = in.readUTF();
+            final Class<? extends AbstractCacheable> clazz = resolveCacheableClass(className);
+            if (clazz == null)
+            {
+                LOGGER.warn("Ignoring shared record of unknown or not cacheable class={}",
+                    className);
+                return null;
+            }
+            final long cachedTime = in.readLong();
+            final long expiry = in.readLong();
+            final long version = in.readLong();
+            final byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+
+            // versions written by other nodes must not be reused by this one
+            this.observeVersion(version);
+            return new CacheEntry(payload, clazz, new Date(cachedTime),
+                expiry == NO_EXPIRY ? null : new Date(expiry)).withVersion(version);
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.warn("Ignoring unreadable shared record of class={}", className, ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Entry held by the near cache along with the time it was read from the shared store.
+     */
+    private static final class NearEntry
+    {
+        private final CacheEntry entry;
+        private final long loadedTime;
+
+        private NearEntry(final CacheEntry entry, final long loadedTime)
+        {
+            this.entry = entry;
+            this.loadedTime = loadedTime;
+        }
+    }
+
+    /**
+     * Least recently used map bounding the number of near entries.
+     */
+    private static final class NearCache extends LinkedHashMap<String, NearEntry>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private NearCache(final int maxEntries)
+        {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, NearEntry> eldest)
+        {
+            return this.size() > this.maxEntries;
+        }
+    }
+
+    public static final class Builder implements IBuilder<ICache>
+    {
+        private IJsonService jsonService;
+        private ICacheEntryCodec codec;
+        private ISharedCacheStore store;
+        private File snapshot;
+        private long nearCacheTtlMillis = DefaultOptions.NEAR_CACHE_TTL_MS;
+        private int nearCacheMaxEntries = DefaultOptions.NEAR_CACHE_MAX_ENTRIES;
+        private Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> cacheExpiryLimits =
+            DEFAULT_CACHE_EXPIRY_LIMITS;
+
+        public Builder withJsonService(final IJsonService val)
+        {
+            this.jsonService = val;
+            return this;
+        }
+
+        /**
+         * Set the codec used to encode the values held, by default values are held as the json
+         * produced by the json service.  All nodes sharing a store must use the same codec.
+         *
+         * @param val codec to use.
+         * @return this builder.
+         */
+        public Builder withCodec(final ICacheEntryCodec val)
+        {
+            this.codec = val;
+            return this;
+        }
+
+        /**
+         * @param val store shared by all nodes.
+         * @return this builder.
+         */
+        public Builder withSharedStore(final ISharedCacheStore val)
+        {
+            this.store = val;
+            return this;
+        }
+
+        /**
+         * Set how long an entry read from the shared store is served from the near cache before
+         * it is read again, defaults to 5 seconds.  A period of zero disables the near cache.
+         *
+         * @param duration to hold near entries for.
+         * @param unit     unit of the duration.
+         * @return this builder.
+         */
+        public Builder withNearCacheTtl(final long duration, final TimeUnit unit)
+        {
+            this.nearCacheTtlMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * @param val maximum number of entries held by the near cache, defaults to 1000.
+         * @return this builder.
+         */
+        public Builder withNearCacheMaxEntries(final int val)
+        {
+            this.nearCacheMaxEntries = val;
+            return this;
+        }
+
+        public Builder withCacheExpiryLimits(
+            final Map<Class<? extends AbstractCacheable>, Tuple<Long, Long>> val)
+        {
+            ObjectUtils.requireNonNull(val, "val");
+
+            this.cacheExpiryLimits = Collections.unmodifiableMap(
+                new HashMap<Class<? extends AbstractCacheable>, Tuple<Long, Long>>(val));
+            return this;
+        }
+
+        /**
+         * Preload the cache from a snapshot file written by {@link ICache#snapshot(
+         * java.io.OutputStream)} when it is built.  A missing or unreadable snapshot leaves the
+         * cache empty.
+         *
+         * @param val snapshot file.
+         * @return this builder.
+         */
+        public Builder withSnapshot(final File val)
+        {
+            this.snapshot = val;
+            return this;
+        }
+
+        @Override
+        public TieredCache build()
+        {
+            if (this.codec == null)
+            {
+                ObjectUtils.requireNonNull(this.jsonService, "jsonService");
+            }
+            ObjectUtils.requireNonNull(this.store, "store");
+
+            final TieredCache cache = new TieredCache(this);
+            if (this.snapshot != null)
+            {
+                cache.preloadSnapshot(this.snapshot);
+            }
+            return cache;
+        }
+    }
+}
@@ -42,11 +42,39 @@ public final class DefaultOptions
     public static final String GRANT_TYPE_AUTH_CODE = "authorization_code";
     public static final String GRANT_TYPE_REFRESH_TOKEN = "refresh_token";
     public static final long PROVIDER_METADATA_TTL_MS = TimeUnit.SECONDS.toMillis(9L);
+    public static final double CACHE_REFRESH_AHEAD_FRACTION = 0.8;
+    public static final long CACHE_SWEEP_PERIOD_MS = TimeUnit.SECONDS.toMillis(1L);
+    public static final long NEAR_CACHE_TTL_MS = TimeUnit.SECONDS.toMillis(5L);
+    public static final int NEAR_CACHE_MAX_ENTRIES = 1000;
+    public static final long NEGATIVE_CACHE_TTL_MS = TimeUnit.SECONDS.toMillis(5L);
+    public static final long NEGATIVE_CACHE_MAX_TTL_MS = TimeUnit.MINUTES.toMillis(5L);
     public static final String VERSION_MOBILECONNECT = MC_V1_1;
     public static final String VERSION_MOBILECONNECTAUTHN = MC_V1_1;
     public static final String VERSION_MOBILECONNECTAUTHZ = MC_V1_2;
     public static final String VERSION_MOBILECONNECTIDENTITY = MC_V1_2;
     public static final int THREAD_POOL_SIZE = 100;
+    public static final int HTTP_MAX_CONNECTIONS = 200;
+    public static final int HTTP_MAX_CONNECTIONS_PER_ROUTE = 50;
+    public static final long HTTP_VALIDATE_AFTER_INACTIVITY_MS = TimeUnit.SECONDS.toMillis(2L);
+    public static final long HTTP_IDLE_CONNECTION_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final long HTTP_KEEP_ALIVE_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final long HTTP_TIMEOUT_TICK_MS = 10L;
+    public static final int HTTP_RESPONSE_COPY_LIMIT_BYTES = 8 * 1024;
+    public static final long HTTP_MAX_RESPONSE_BYTES = 1024L * 1024L;
+    public static final int HTTP_READ_BUFFER_BYTES = 16 * 1024;
+    public static final int HTTP_READ_BUFFER_POOL_SIZE = THREAD_POOL_SIZE;
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+    public static final long RETRY_BASE_DELAY_MS = 50L;
+    public static final long RETRY_MAX_DELAY_MS = TimeUnit.SECONDS.toMillis(2L);
+    public static final double RETRY_BUDGET_RATIO = 0.1;
+    public static final int RETRY_BUDGET_MAX_RETRIES = 10;
+    public static final int CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+    public static final int CIRCUIT_BREAKER_MINIMUM_CALLS = 10;
+    public static final int CIRCUIT_BREAKER_FAILURE_RATE = 50;
+    public static final int CIRCUIT_BREAKER_SLOW_CALL_RATE = 50;
+    public static final long CIRCUIT_BREAKER_SLOW_CALL_MS = TimeUnit.SECONDS.toMillis(10L);
+    public static final long CIRCUIT_BREAKER_OPEN_MS = TimeUnit.SECONDS.toMillis(30L);
+    public static final int CIRCUIT_BREAKER_HALF_OPEN_CALLS = 3;
 
     public static final String PROMPT = "mobile";
 
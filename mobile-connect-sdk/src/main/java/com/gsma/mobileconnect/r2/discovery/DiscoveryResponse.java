@@ -26,6 +26,7 @@ import com.gsma.mobileconnect.r2.json.DiscoveryResponseData;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.Link;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.*;
 
@@ -41,6 +42,12 @@ import java.util.*;
 @JsonDeserialize(builder = DiscoveryResponse.Builder.class)
 public class DiscoveryResponse extends AbstractCacheable
 {
+    /**
+     * Types into which a discovery response is read by {@link #fromRestResponse}.
+     */
+    public static final JsonResponseTypes RESPONSE_TYPES =
+        JsonResponseTypes.of(DiscoveryResponseData.class);
+
     private final Date ttl;
     private final int responseCode;
     private final List<KeyValuePair> headers;
@@ -49,6 +56,7 @@ public class DiscoveryResponse extends AbstractCacheable
     private final OperatorUrls operatorUrls;
     private final String clientName;
     private ProviderMetadata providerMetadata;
+    private volatile String cacheKey;
 
     private DiscoveryResponse(Builder builder)
     {
@@ -67,6 +75,19 @@ public class DiscoveryResponse extends AbstractCacheable
         }
     }
 
+    private DiscoveryResponse(final DiscoveryResponse response)
+    {
+        this.ttl = response.ttl;
+        this.responseCode = response.responseCode;
+        this.headers = response.headers;
+        this.errorResponse = response.errorResponse;
+        this.responseData = new DiscoveryResponseData.Builder(response.responseData).build();
+        this.providerMetadata = response.providerMetadata;
+        this.operatorUrls = response.operatorUrls == null ? null : response.operatorUrls.copy();
+        this.clientName = response.clientName;
+        this.cacheKey = response.cacheKey;
+    }
+
     /**
      * Convenience method that builds a {@link DiscoveryResponse} from a {@link RestResponse}.
      *
@@ -81,7 +102,7 @@ public class DiscoveryResponse extends AbstractCacheable
         ObjectUtils.requireNonNull(jsonService, "jsonService");
 
         final DiscoveryResponseData responseData =
-            jsonService.deserialize(restResponse.getContent(), DiscoveryResponseData.class);
+            restResponse.readContent(DiscoveryResponseData.class, jsonService);
 
         return new Builder()
             .withResponseCode(restResponse.getStatusCode())
@@ -93,7 +114,7 @@ public class DiscoveryResponse extends AbstractCacheable
     /**
      * Adjusts the ttl based to fit within the minimum and maximum times allowed.
      *
-     * @param responseTtl to adjust.
+     * @param responseTtl to adjust, in milliseconds from now.
      * @return the adjusted ttl.
      */
     protected static Date calculateTtl(final Long responseTtl)
@@ -122,6 +143,15 @@ public class DiscoveryResponse extends AbstractCacheable
         return this.ttl;
     }
 
+    /**
+     * @return the ttl of this response, so that it is cached for as long as the operator allows.
+     */
+    @Override
+    public Date expiryDeadline()
+    {
+        return this.ttl;
+    }
+
     public int getResponseCode()
     {
         return this.responseCode;
@@ -163,6 +193,21 @@ public class DiscoveryResponse extends AbstractCacheable
         return this.clientName;
     }
 
+    /**
+     * @return the key this response is shared under in the discovery cache, null if it is not
+     * held there.
+     */
+    @JsonIgnore
+    public String getCacheKey()
+    {
+        return this.cacheKey;
+    }
+
+    void setCacheKey(final String cacheKey)
+    {
+        this.cacheKey = cacheKey;
+    }
+
     /**
      * Create a copy of this DiscoveryResponse with the subscriberId set to this provided value.
      *
@@ -171,11 +216,13 @@ public class DiscoveryResponse extends AbstractCacheable
      */
     public DiscoveryResponse withSubscriberId(final String subscriberId)
     {
-        return new DiscoveryResponse.Builder(this)
+        final DiscoveryResponse response = new DiscoveryResponse.Builder(this)
             .withResponseData(new DiscoveryResponseData.Builder(this.responseData)
                 .withSubscriberId(subscriberId)
                 .build())
             .build();
+        response.cacheKey = this.cacheKey;
+        return response;
     }
 
     /**
@@ -223,6 +270,18 @@ public class DiscoveryResponse extends AbstractCacheable
         return retval;
     }
 
+    /**
+     * Copies the response data and operator urls as both are modified once the response leaves
+     * the cache, or when provider metadata is set.
+     *
+     * @return a copy of this response.
+     */
+    @Override
+    protected DiscoveryResponse copy()
+    {
+        return new DiscoveryResponse(this);
+    }
+
     @Override
     protected void cached()
     {
@@ -303,9 +362,12 @@ public class DiscoveryResponse extends AbstractCacheable
         {
             ObjectUtils.requireNonNull(this.responseData, "responseData");
 
-            if (this.ttl != null)
+            // only the operator's ttl is clamped, an explicit ttl (such as that of a response
+            // being copied) is an absolute deadline already and is kept as it is
+            if (this.ttl == null && this.responseData.getTtl() > 0L)
             {
-                this.ttl = calculateTtl(this.ttl.getTime());
+                this.ttl =
+                    calculateTtl(this.responseData.getTtl() - System.currentTimeMillis());
             }
 
             this.clientName = this.responseData.getClientName();
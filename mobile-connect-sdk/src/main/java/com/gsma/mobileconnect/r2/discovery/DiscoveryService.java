@@ -16,9 +16,17 @@
  */
 package com.gsma.mobileconnect.r2.discovery;
 
+import com.gsma.mobileconnect.r2.exceptions.AbstractMobileConnectException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
+import com.gsma.mobileconnect.r2.cache.AsyncCacheAdapter;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.IAsyncCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.ICacheLoader;
+import com.gsma.mobileconnect.r2.cache.NegativeCache;
+import com.gsma.mobileconnect.r2.cache.NegativeCacheEntry;
+import com.gsma.mobileconnect.r2.cache.NegativeCachePolicy;
 import com.gsma.mobileconnect.r2.constants.LinkRels;
 import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
@@ -27,6 +35,7 @@ import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.Link;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
@@ -36,10 +45,15 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Concrete implementation of {@link IDiscoveryService}
@@ -48,26 +62,42 @@ import java.util.concurrent.Future;
  */
 public class DiscoveryService implements IDiscoveryService
 {
+    /**
+     * Types into which a provider metadata response is read.
+     */
+    public static final JsonResponseTypes PROVIDER_METADATA_TYPES =
+        JsonResponseTypes.of(ProviderMetadata.class, null);
+
     private static final List<String> REQUIRED_COOKIES =
             Arrays.asList("ENUM_NONCE", "MOST_RECENT_SELECTED_OPERATOR",
                     "MOST_RECENT_SELECTED_OPERATOR_EXPIRY");
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DiscoveryService.class);
     private static final String ARG_PREFERENCES = "preferences";
+    private static final String NEGATIVE_DISCOVERY_PREFIX = "discovery:";
+    private static final String NEGATIVE_METADATA_PREFIX = "metadata:";
 
     private final ICache cache;
+    private final IAsyncCache asyncCache;
     private final IJsonService jsonService;
     private final ExecutorService executorService;
     private final IRestClient restClient;
     private final IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+    private final NegativeCache negativeCache;
+    // provider metadata url last seen for each cached discovery response, so both can be read
+    // from the cache together
+    private final ConcurrentMap<String, String> providerMetadataUrls =
+            new ConcurrentHashMap<String, String>();
 
     private DiscoveryService(final Builder builder)
     {
         this.cache = builder.cache;
         this.jsonService = builder.jsonService;
         this.executorService = builder.executorService;
+        this.asyncCache = AsyncCacheAdapter.inlineIfInMemory(builder.cache, this.executorService);
         this.restClient = builder.restClient;
         this.iMobileConnectEncodeDecoder = builder.iMobileConnectEncodeDecoder;
+        this.negativeCache = new NegativeCache(builder.cache, builder.negativeCachePolicy);
 
         LOGGER.info("New instance of DiscoveryService created");
     }
@@ -162,7 +192,9 @@ public class DiscoveryService implements IDiscoveryService
         ObjectUtils.requireNonNull(options, "options");
         ObjectUtils.requireNonNull(options.getRedirectUrl(), "options.redirectUrl");
 
-        DiscoveryResponse cachedDiscoveryResponse = fetchCachedDiscoveryResponse(options, useCache);
+        final DiscoveryResponse cachedDiscoveryResponse =
+                fetchCachedDiscoveryResponse(options, useCache);
+        final String key = useCache ? concatKey(getMcc(options), getMnc(options)) : null;
 
         DiscoveryResponse discoveryResponse;
 
@@ -170,45 +202,148 @@ public class DiscoveryService implements IDiscoveryService
         {
             discoveryResponse = cachedDiscoveryResponse;
         }
+        else if (key != null)
+        {
+            discoveryResponse = this.loadDiscoveryResponse(key, clientId, clientSecret,
+                    discoveryUrl, options, currentCookies, cachedDiscoveryResponse);
+        }
         else
         {
-            final Iterable<KeyValuePair> cookies =
-                    HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
-            final RestAuthentication authentication =
-                    RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
-            final List<KeyValuePair> queryParams = this.extractQueryParams(options);
+            discoveryResponse = this.fetchDiscoveryResponse(clientId, clientSecret, discoveryUrl,
+                    options, currentCookies, cachedDiscoveryResponse, null);
+        }
+
+        if (discoveryResponse == null && cachedDiscoveryResponse != null)
+        {
+            LOGGER.warn(
+                    "Falling back to expired cached instance of discovery response due to previous error");
+            discoveryResponse = cachedDiscoveryResponse;
+        }
 
-            RestResponse restResponse = null;
+        updateWithProviderMetadata(discoveryResponse, useCache);
 
-            try
+        return discoveryResponse;
+    }
+
+    /**
+     * Fetch the discovery response through the cache, so that concurrent misses for the same
+     * operator share a single call to the discovery endpoint.
+     */
+    private DiscoveryResponse loadDiscoveryResponse(final String key, final String clientId,
+                                                    final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                                    final Iterable<KeyValuePair> currentCookies,
+                                                    final DiscoveryResponse cachedDiscoveryResponse)
+            throws RequestFailedException, InvalidResponseException
+    {
+        // the key has already been read by getCachedDiscoveryResponse, so the read here is not
+        // counted again; the response is only stored if the entry read has not since been
+        // replaced
+        final Long expectedVersion = cachedDiscoveryResponse == null
+                ? ICache.NO_VERSION
+                : cachedDiscoveryResponse.getCacheVersion();
+        try
+        {
+            return this.cache.getOrLoad(key, DiscoveryResponse.class,
+                    new ICacheLoader<DiscoveryResponse, AbstractMobileConnectException>()
+                    {
+                        @Override
+                        public DiscoveryResponse load() throws AbstractMobileConnectException
+                        {
+                            return DiscoveryService.this.fetchDiscoveryResponse(clientId,
+                                    clientSecret, discoveryUrl, options, currentCookies,
+                                    cachedDiscoveryResponse, expectedVersion);
+                        }
+                    }, false);
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to load discovery response through cache", cae);
+            return this.fetchDiscoveryResponse(clientId, clientSecret, discoveryUrl, options,
+                    currentCookies, cachedDiscoveryResponse, expectedVersion);
+        }
+        catch (final RequestFailedException | InvalidResponseException e)
+        {
+            throw e;
+        }
+        catch (final AbstractMobileConnectException amce)
+        {
+            // not thrown by fetchDiscoveryResponse
+            throw new IllegalStateException(amce);
+        }
+    }
+
+    private DiscoveryResponse fetchDiscoveryResponse(final String clientId,
+                                                     final String clientSecret, final URI discoveryUrl, final DiscoveryOptions options,
+                                                     final Iterable<KeyValuePair> currentCookies,
+                                                     final DiscoveryResponse cachedDiscoveryResponse,
+                                                     final Long expectedVersion)
+            throws RequestFailedException, InvalidResponseException
+    {
+        final Iterable<KeyValuePair> cookies =
+                HttpUtils.proxyRequired(REQUIRED_COOKIES, currentCookies);
+        final RestAuthentication authentication =
+                RestAuthentication.basic(clientId, clientSecret, iMobileConnectEncodeDecoder);
+        final List<KeyValuePair> queryParams = this.extractQueryParams(options);
+        final boolean get = StringUtils.isNullOrEmpty(options.getMsisdn());
+        final String key = concatKey(getMcc(options), getMnc(options));
+        final String negativeKey = negativeDiscoveryKey(discoveryUrl, key);
+
+        final NegativeCacheEntry suppressing = this.negativeCache.getSuppressing(negativeKey);
+        if (suppressing != null)
+        {
+            LOGGER.warn("Skipping fetch of discovery response for key={} until {} after {} failures",
+                    negativeKey, suppressing.getRetryAfter(), suppressing.getFailureCount());
+            if (cachedDiscoveryResponse == null)
             {
-                restResponse = StringUtils.isNullOrEmpty(options.getMsisdn())
-                        ? this.restClient.get(discoveryUrl, authentication,
-                        options.getClientIp(), queryParams, cookies)
-                        : this.restClient.postFormData(discoveryUrl, authentication,
-                        queryParams, options.getClientIp(), cookies);
+                throw new RequestFailedException(get ? "GET" : "POST", discoveryUrl,
+                        new IllegalStateException(suppressing.getReason()));
             }
-            catch (final RequestFailedException e)
+            return null;
+        }
+
+        RestResponse restResponse = null;
+
+        try
+        {
+            restResponse = get
+                    ? this.restClient.get(discoveryUrl, authentication,
+                    options.getClientIp(), queryParams, cookies, DiscoveryResponse.RESPONSE_TYPES)
+                    : this.restClient.postFormData(discoveryUrl, authentication,
+                    queryParams, options.getClientIp(), cookies, DiscoveryResponse.RESPONSE_TYPES);
+        }
+        catch (final RequestFailedException e)
+        {
+            LOGGER.warn("Failed to perform fetch of discovery response", e);
+            this.negativeCache.recordFailure(negativeKey, e.getMessage());
+            if (cachedDiscoveryResponse == null)
             {
-                LOGGER.warn("Failed to perform fetch of discovery response", e);
-                if (cachedDiscoveryResponse == null)
-                {
-                    throw e;
-                }
+                throw e;
             }
-            discoveryResponse = convertFromRestResponse(restResponse, cachedDiscoveryResponse);
+            return null;
+        }
 
-            this.addCachedDiscoveryResponse(options, discoveryResponse);
+        final DiscoveryResponse discoveryResponse;
+        try
+        {
+            discoveryResponse = convertFromRestResponse(restResponse, cachedDiscoveryResponse);
+        }
+        catch (final InvalidResponseException ire)
+        {
+            this.negativeCache.recordFailure(negativeKey, ire.getMessage());
+            throw ire;
         }
 
-        if (discoveryResponse == null && cachedDiscoveryResponse != null)
+        if (discoveryResponse == null || restResponse.getStatusCode() >= 500)
         {
-            LOGGER.warn(
-                    "Falling back to expired cached instance of discovery response due to previous error");
-            discoveryResponse = cachedDiscoveryResponse;
+            this.negativeCache.recordFailure(negativeKey, String.format(
+                    "Discovery returned HTTP status %s", restResponse.getStatusCode()));
+        }
+        else
+        {
+            this.negativeCache.recordSuccess(negativeKey);
         }
 
-        updateWithProviderMetadata(discoveryResponse, useCache);
+        this.storeDiscoveryResponse(options, discoveryResponse, expectedVersion);
 
         return discoveryResponse;
     }
@@ -239,6 +374,10 @@ public class DiscoveryService implements IDiscoveryService
         if (discoveryResponse != null)
         {
             final URI url = this.extractProviderMetadataUrl(discoveryResponse);
+            if (url != null && discoveryResponse.getCacheKey() != null)
+            {
+                this.providerMetadataUrls.put(discoveryResponse.getCacheKey(), url.toString());
+            }
             discoveryResponse.setProviderMetadata(this.retrieveProviderMetadata(url, useCache));
         }
     }
@@ -261,33 +400,60 @@ public class DiscoveryService implements IDiscoveryService
         return cachedDiscoveryResponse;
     }
 
+    /**
+     * Failures are recorded against the discovery endpoint, along with the mcc_mnc where the
+     * options carry one, so that an endpoint which is down is suppressed for msisdn and
+     * unidentified discovery too.
+     */
+    private static String negativeDiscoveryKey(final URI discoveryUrl, final String key)
+    {
+        return key == null
+               ? NEGATIVE_DISCOVERY_PREFIX + discoveryUrl
+               : String.format("%s%s#%s", NEGATIVE_DISCOVERY_PREFIX, discoveryUrl, key);
+    }
+
+    private static String getMcc(final DiscoveryOptions options)
+    {
+        return ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
+    }
+
+    private static String getMnc(final DiscoveryOptions options)
+    {
+        return ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
+    }
+
     private DiscoveryResponse getCachedDiscoveryResponse(final DiscoveryOptions options)
             throws CacheAccessException
     {
-        final String mcc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
-        final String mnc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
-        return this.cache != null
-                ? this.cache.get(concatKey(mcc, mnc), DiscoveryResponse.class)
-                : null;
+        final String key = concatKey(getMcc(options), getMnc(options));
+
+        // expired responses are kept as a fallback should the discovery endpoint fail
+        final DiscoveryResponse discoveryResponse =
+                this.cache != null ? this.cache.get(key, DiscoveryResponse.class, false) : null;
+        if (discoveryResponse != null)
+        {
+            discoveryResponse.setCacheKey(key);
+        }
+        return discoveryResponse;
     }
 
     public void addCachedDiscoveryResponse(final DiscoveryOptions options,
                                            final DiscoveryResponse response)
     {
-        final String mcc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMcc(), options.getSelectedMcc());
-        final String mnc =
-                ObjectUtils.defaultIfNull(options.getIdentifiedMnc(), options.getSelectedMnc());
+        this.storeDiscoveryResponse(options, response, null);
+    }
 
-        final String key = concatKey(mcc, mnc);
+    private void storeDiscoveryResponse(final DiscoveryOptions options,
+                                        final DiscoveryResponse response, final Long expectedVersion)
+    {
+        final String key = concatKey(getMcc(options), getMnc(options));
 
-        if (response.getErrorResponse() == null && key != null)
+        if (response != null && response.getErrorResponse() == null && key != null)
         {
             try
             {
-                this.cache.add(key, response);
+                this.storeRefreshed(key, expectedVersion, response);
+                response.setCacheKey(key);
             }
             catch (final CacheAccessException cae)
             {
@@ -490,17 +656,34 @@ public class DiscoveryService implements IDiscoveryService
     public DiscoveryResponse getCachedDiscoveryResponse(final String mcc, final String mnc)
             throws CacheAccessException
     {
-        final DiscoveryResponse discoveryResponse = this.cache != null
-                ? this.cache.get(concatKey(mcc, mnc),
-                DiscoveryResponse.class)
-                : null;
+        final String key = concatKey(mcc, mnc);
+        if (this.cache == null || key == null)
+        {
+            return null;
+        }
+
+        final String knownUrl = this.providerMetadataUrls.get(key);
+        final Map<String, Class<? extends AbstractCacheable>> keys =
+                new HashMap<String, Class<? extends AbstractCacheable>>();
+        keys.put(key, DiscoveryResponse.class);
+        if (knownUrl != null)
+        {
+            keys.put(knownUrl, ProviderMetadata.class);
+        }
+        final Map<String, AbstractCacheable> cached = this.cache.getAll(keys);
+
+        final DiscoveryResponse discoveryResponse = (DiscoveryResponse) cached.get(key);
         if (discoveryResponse != null)
         {
+            discoveryResponse.setCacheKey(key);
             final URI providerMetadataUrl = this.extractProviderMetadataUrl(discoveryResponse);
             if (providerMetadataUrl != null)
             {
-                discoveryResponse.setProviderMetadata(
-                        this.cache.get(providerMetadataUrl.toString(), ProviderMetadata.class));
+                final String url = providerMetadataUrl.toString();
+                this.providerMetadataUrls.put(key, url);
+                discoveryResponse.setProviderMetadata(url.equals(knownUrl)
+                        ? (ProviderMetadata) cached.get(url)
+                        : this.cache.get(url, ProviderMetadata.class));
             }
         }
         return discoveryResponse;
@@ -532,6 +715,45 @@ public class DiscoveryService implements IDiscoveryService
     {
         final URI providerMetadataUrl = this.extractProviderMetadataUrl(response);
 
+        if (forceCacheBypass || this.asyncCache == null || providerMetadataUrl == null)
+        {
+            return this.submitProviderMetadata(response, providerMetadataUrl, forceCacheBypass);
+        }
+
+        // fresh cached metadata is returned without handing off to the executor
+        final CallbackFuture<ProviderMetadata> result = new CallbackFuture<ProviderMetadata>();
+        this.asyncCache.getAsync(providerMetadataUrl.toString(), ProviderMetadata.class, false)
+                .addCallback(new ICallback<ProviderMetadata>()
+                {
+                    @Override
+                    public void onSuccess(final ProviderMetadata cached)
+                    {
+                        if (cached != null && !cached.hasExpired() && !cached.needsRefresh())
+                        {
+                            response.setProviderMetadata(cached);
+                            result.complete(cached);
+                        }
+                        else
+                        {
+                            DiscoveryService.this.completeWithProviderMetadata(response,
+                                    providerMetadataUrl, result);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(final Exception exception)
+                    {
+                        DiscoveryService.this.completeWithProviderMetadata(response,
+                                providerMetadataUrl, result);
+                    }
+                });
+        return result;
+    }
+
+    private Future<ProviderMetadata> submitProviderMetadata(final DiscoveryResponse response,
+                                                            final URI providerMetadataUrl,
+                                                            final boolean forceCacheBypass)
+    {
         return this.executorService.submit(new Callable<ProviderMetadata>()
         {
             @Override
@@ -546,6 +768,38 @@ public class DiscoveryService implements IDiscoveryService
         });
     }
 
+    private void completeWithProviderMetadata(final DiscoveryResponse response,
+                                              final URI providerMetadataUrl,
+                                              final CallbackFuture<ProviderMetadata> result)
+    {
+        try
+        {
+            this.executorService.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        final ProviderMetadata providerMetadata =
+                                DiscoveryService.this.retrieveProviderMetadata(providerMetadataUrl,
+                                        true);
+                        response.setProviderMetadata(providerMetadata);
+                        result.complete(providerMetadata);
+                    }
+                    catch (final RuntimeException re)
+                    {
+                        result.fail(re);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            result.fail(ree);
+        }
+    }
+
     private URI extractProviderMetadataUrl(final DiscoveryResponse response)
     {
         ObjectUtils.requireNonNull(response, "response");
@@ -567,7 +821,7 @@ public class DiscoveryService implements IDiscoveryService
             {
                 try
                 {
-                    cached = this.cache.get(url.toString(), ProviderMetadata.class);
+                    cached = this.cache.get(url.toString(), ProviderMetadata.class, false);
                 }
                 catch (final CacheAccessException cae)
                 {
@@ -575,20 +829,18 @@ public class DiscoveryService implements IDiscoveryService
                 }
             }
 
+            final long expectedVersion =
+                    cached == null ? ICache.NO_VERSION : cached.getCacheVersion();
             if (cached == null || cached.hasExpired())
             {
-                try
-                {
-                    final RestResponse restResponse =
-                            this.restClient.get(url, null, null, null, null);
-
-                    providerMetadata = processRestResponse(restResponse, url);
-                }
-
-                catch (final RequestFailedException ehe)
-                {
-                    LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
-                }
+                providerMetadata = useCache
+                        ? this.loadProviderMetadata(url, expectedVersion)
+                        : this.fetchProviderMetadata(url, null);
+            }
+            else if (cached.needsRefresh())
+            {
+                this.cache.refreshAsync(url.toString(), ProviderMetadata.class,
+                        this.providerMetadataLoader(url, expectedVersion), this.executorService);
             }
 
             if (providerMetadata == null && cached != null)
@@ -612,7 +864,85 @@ public class DiscoveryService implements IDiscoveryService
         return providerMetadata;
     }
 
-    private ProviderMetadata processRestResponse(final RestResponse restResponse, final URI url)
+    /**
+     * Fetch the provider metadata through the cache, so that concurrent misses for the same url
+     * share a single request to the provider.
+     */
+    private ProviderMetadata loadProviderMetadata(final URI url, final long expectedVersion)
+    {
+        try
+        {
+            return this.cache.getOrLoad(url.toString(), ProviderMetadata.class,
+                    this.providerMetadataLoader(url, expectedVersion));
+        }
+        catch (final CacheAccessException cae)
+        {
+            LOGGER.warn("Failed to load provider metadata through cache", cae);
+            return this.fetchProviderMetadata(url, expectedVersion);
+        }
+    }
+
+    private ICacheLoader<ProviderMetadata, RuntimeException> providerMetadataLoader(final URI url,
+                                                                                  final long expectedVersion)
+    {
+        return new ICacheLoader<ProviderMetadata, RuntimeException>()
+        {
+            @Override
+            public ProviderMetadata load()
+            {
+                return DiscoveryService.this.fetchProviderMetadata(url, expectedVersion);
+            }
+        };
+    }
+
+    /**
+     * @param expectedVersion version of the cached entry being refreshed, null to store the
+     *                        fetched value unconditionally.
+     */
+    private ProviderMetadata fetchProviderMetadata(final URI url, final Long expectedVersion)
+    {
+        final String negativeKey = NEGATIVE_METADATA_PREFIX + url;
+        final NegativeCacheEntry suppressing = this.negativeCache.getSuppressing(negativeKey);
+        if (suppressing != null)
+        {
+            LOGGER.debug("Skipping fetch of provider metadata from {} until {} after {} failures",
+                    url, suppressing.getRetryAfter(), suppressing.getFailureCount());
+            return null;
+        }
+
+        ProviderMetadata providerMetadata = null;
+        String failure = null;
+        try
+        {
+            final RestResponse restResponse = this.restClient.get(url, null, null, null, null,
+                    PROVIDER_METADATA_TYPES);
+
+            providerMetadata = processRestResponse(restResponse, url, expectedVersion);
+            if (providerMetadata == null)
+            {
+                failure = String.format("Provider metadata request returned HTTP status %s",
+                        restResponse.getStatusCode());
+            }
+        }
+        catch (final RequestFailedException ehe)
+        {
+            LOGGER.warn("Failed to perform fetch of provider metadata from provider", ehe);
+            failure = ehe.getMessage();
+        }
+
+        if (failure == null)
+        {
+            this.negativeCache.recordSuccess(negativeKey);
+        }
+        else
+        {
+            this.negativeCache.recordFailure(negativeKey, failure);
+        }
+        return providerMetadata;
+    }
+
+    private ProviderMetadata processRestResponse(final RestResponse restResponse, final URI url,
+                                                 final Long expectedVersion)
     {
         ProviderMetadata providerMetadata = null;
         try
@@ -620,9 +950,9 @@ public class DiscoveryService implements IDiscoveryService
             if (!HttpUtils.isHttpErrorCode(restResponse.getStatusCode()))
             {
                 providerMetadata =
-                        this.jsonService.deserialize(restResponse.getContent(), ProviderMetadata.class);
+                        restResponse.readContent(ProviderMetadata.class, this.jsonService);
 
-                this.cache.add(url.toString(), providerMetadata);
+                this.storeRefreshed(url.toString(), expectedVersion, providerMetadata);
             }
             else
             {
@@ -642,6 +972,26 @@ public class DiscoveryService implements IDiscoveryService
         return providerMetadata;
     }
 
+    /**
+     * Store a value fetched to refresh a cached entry, unless the entry has been replaced by a
+     * newer value since it was read.
+     *
+     * @param expectedVersion version of the entry read, null to store unconditionally.
+     */
+    private void storeRefreshed(final String key, final Long expectedVersion,
+                                final AbstractCacheable value) throws CacheAccessException
+    {
+        if (expectedVersion == null)
+        {
+            this.cache.add(key, value);
+        }
+        else if (!this.cache.replace(key, expectedVersion, value)
+                && this.cache.addIfAbsent(key, value) != null)
+        {
+            LOGGER.debug("Entry with key={} was replaced while being refreshed, keeping newer value",
+                    key);
+        }
+    }
 
     public static final class Builder implements IBuilder<DiscoveryService>
     {
@@ -650,6 +1000,7 @@ public class DiscoveryService implements IDiscoveryService
         private ExecutorService executorService;
         private IRestClient restClient;
         private IMobileConnectEncodeDecoder iMobileConnectEncodeDecoder;
+        private NegativeCachePolicy negativeCachePolicy = NegativeCachePolicy.defaults();
 
         public Builder withCache(ICache val)
         {
@@ -681,6 +1032,19 @@ public class DiscoveryService implements IDiscoveryService
             return this;
         }
 
+        /**
+         * Specify how long failures to fetch discovery responses and provider metadata suppress
+         * further attempts, defaults to {@link NegativeCachePolicy#defaults()}.
+         *
+         * @param val policy to apply, {@link NegativeCachePolicy#DISABLED} to always retry.
+         * @return builder to continue further configuration.
+         */
+        public Builder withNegativeCachePolicy(NegativeCachePolicy val)
+        {
+            this.negativeCachePolicy = val;
+            return this;
+        }
+
         @Override
         public DiscoveryService build()
         {
@@ -688,6 +1052,7 @@ public class DiscoveryService implements IDiscoveryService
             ObjectUtils.requireNonNull(this.jsonService, "jsonService");
             ObjectUtils.requireNonNull(this.executorService, "executorService");
             ObjectUtils.requireNonNull(this.restClient, "restClient");
+            ObjectUtils.requireNonNull(this.negativeCachePolicy, "negativeCachePolicy");
             if (iMobileConnectEncodeDecoder == null)
             {
                 iMobileConnectEncodeDecoder = new DefaultEncodeDecoder();
@@ -214,6 +214,26 @@ public class OperatorUrls
      * @return Url for scopes call
      */
     public String getScopeUrl() {return  this.scopeUrl;}
+
+    /**
+     * @return a copy of these urls which is unaffected by later calls to {@link
+     * #override(ProviderMetadata)} on this instance.
+     */
+    OperatorUrls copy()
+    {
+        return new Builder()
+                .withAuthorizationUrl(this.authorizationUrl)
+                .withRequestTokenUrl(this.requestTokenUrl)
+                .withUserInfoUrl(this.userInfoUrl)
+                .withPremiumInfoUri(this.premiumInfoUri)
+                .withJwksUri(this.jwksUri)
+                .withRevokeTokenUrl(this.revokeTokenUrl)
+                .withRefershTokenUrl(this.refreshTokenUrl)
+                .withScopeUri(this.scopeUrl)
+                .withProviderMetadataUri(this.providerMetadataUri)
+                .build();
+    }
+
     /**
      * Replaces URLs from the discovery response with URLs from the provider metadata.
      * This allows providers to use temporary urls while the main url is down for maintenance.
@@ -0,0 +1,90 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.exceptions;
+
+import com.gsma.mobileconnect.r2.MobileConnectStatus;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+
+import java.net.URI;
+
+/**
+ * Exception thrown in place of issuing a request to a host whose circuit is open, as recent
+ * requests to it have failed or been slow.  See {@link
+ * com.gsma.mobileconnect.r2.rest.CircuitBreakerRestClient}.
+ *
+ * @since 2.0
+ */
+public class CircuitOpenException extends RequestFailedException
+{
+    private final String host;
+    private final long retryAfterMillis;
+
+    /**
+     * Create an instance of this exception.
+     *
+     * @param method           HTTP method of the request.
+     * @param uri              URI being accessed.
+     * @param host             whose circuit is open.
+     * @param retryAfterMillis time until requests to the host will next be tried.
+     */
+    public CircuitOpenException(final String method, final URI uri, final String host,
+        final long retryAfterMillis)
+    {
+        super(method, uri, null);
+
+        this.host = host;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Create an instance of this exception.
+     *
+     * @param method           HTTP method of the request.
+     * @param uri              URI being accessed.
+     * @param host             whose circuit is open.
+     * @param retryAfterMillis time until requests to the host will next be tried.
+     */
+    public CircuitOpenException(final HttpUtils.HttpMethod method, final URI uri,
+        final String host, final long retryAfterMillis)
+    {
+        this(method.name(), uri, host, retryAfterMillis);
+    }
+
+    /**
+     * @return the host whose circuit is open.
+     */
+    public String getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return time in milliseconds until requests to the host will next be tried.
+     */
+    public long getRetryAfterMillis()
+    {
+        return this.retryAfterMillis;
+    }
+
+    @Override
+    public MobileConnectStatus toMobileConnectStatus(final String task)
+    {
+        return MobileConnectStatus.error("circuit_open", String.format(
+            "Requests to '%s' are suspended after repeated failures while performing fetch for "
+                + "'%s'", this.host, task), this);
+    }
+}
@@ -16,6 +16,8 @@
  */
 package com.gsma.mobileconnect.r2.json;
 
+import java.io.InputStream;
+
 /**
  * Defines service that is capable of serialising and deserialising objects to or from json.
  *
@@ -34,6 +36,19 @@ public interface IJsonService
      */
     <T> T deserialize(final String json, final Class<T> clazz) throws JsonDeserializationException;
 
+    /**
+     * Read a stream of json to an instance of clazz, without first reading it to a String.  The
+     * stream may be closed once read.
+     *
+     * @param json  stream to read.
+     * @param clazz to instantiate.
+     * @param <T>   type of clazz.
+     * @return instance of clazz, null if the stream is empty.
+     * @throws JsonDeserializationException on failure to read or deserialise.
+     */
+    <T> T deserialize(final InputStream json, final Class<T> clazz)
+        throws JsonDeserializationException;
+
     /**
      * Convert an object to a representation in Json.
      *
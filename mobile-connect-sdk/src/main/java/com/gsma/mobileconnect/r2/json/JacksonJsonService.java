@@ -27,6 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 
 /**
  * Implementation of the {@link IJsonService} that uses Jackson to perform json serialisation and
@@ -67,6 +69,35 @@ public class JacksonJsonService implements IJsonService
         }
     }
 
+    @Override
+    public <T> T deserialize(final InputStream json, final Class<T> clazz)
+        throws JsonDeserializationException
+    {
+        ObjectUtils.requireNonNull(json, "json");
+        ObjectUtils.requireNonNull(clazz, "clazz");
+
+        try
+        {
+            LOGGER.debug("Deserializing json stream to instance of class={}", clazz);
+
+            // an empty body gives null, as for an empty String, rather than failing to map
+            final PushbackInputStream stream = new PushbackInputStream(json, 1);
+            final int first = stream.read();
+            if (first == -1)
+            {
+                return null;
+            }
+            stream.unread(first);
+
+            return this.objectMapper.readValue(stream, clazz);
+        }
+        catch (final IOException ioe)
+        {
+            LOGGER.info("Failed to deserialize json stream to instance of class={}", clazz, ioe);
+            throw new JsonDeserializationException(clazz, null, ioe);
+        }
+    }
+
     @Override
     public String serialize(final Object object) throws JsonSerializationException
     {
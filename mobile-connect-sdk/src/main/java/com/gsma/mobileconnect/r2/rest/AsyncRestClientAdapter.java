@@ -0,0 +1,209 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link IRestClient} to {@link IAsyncRestClient}.  Requests run on the
+ * executor supplied, which is held for the whole round trip, so this frees the calling thread
+ * but not the number of threads needed for concurrent requests; without an executor they run on
+ * the calling thread.
+ *
+ * @since 2.0
+ */
+public class AsyncRestClientAdapter implements IAsyncRestClient
+{
+    private final IRestClient restClient;
+    private final Executor executor;
+
+    /**
+     * @param restClient to adapt.
+     * @param executor   to run requests on, null to run them on the calling thread.
+     */
+    public AsyncRestClientAdapter(final IRestClient restClient, final Executor executor)
+    {
+        this.restClient = ObjectUtils.requireNonNull(restClient, "restClient");
+        this.executor = executor;
+    }
+
+    /**
+     * Return the rest client as an {@link IAsyncRestClient}, adapting it only if it does not
+     * already implement the interface.
+     *
+     * @param restClient to adapt, may be null.
+     * @param executor   to run requests on if adapted, null to run them on the calling thread.
+     * @return the async rest client, null if restClient is null.
+     */
+    public static IAsyncRestClient of(final IRestClient restClient, final Executor executor)
+    {
+        if (restClient == null)
+        {
+            return null;
+        }
+        return restClient instanceof IAsyncRestClient
+               ? (IAsyncRestClient) restClient
+               : new AsyncRestClientAdapter(restClient, executor);
+    }
+
+    /**
+     * @return the rest client adapted.
+     */
+    public IRestClient getRestClient()
+    {
+        return this.restClient;
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> getAsync(final URI uri,
+        final RestAuthentication authentication, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.get(uri, authentication, sourceIp,
+                    queryParams, cookies);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> getAsync(final URI uri,
+        final RestAuthentication authentication, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies,
+        final JsonResponseTypes responseTypes)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.get(uri, authentication, sourceIp,
+                    queryParams, cookies, responseTypes);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> postFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final List<KeyValuePair> formData,
+        final String sourceIp, final Iterable<KeyValuePair> cookies)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.postFormData(uri, authentication,
+                    formData, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> postFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final List<KeyValuePair> formData,
+        final String sourceIp, final Iterable<KeyValuePair> cookies,
+        final JsonResponseTypes responseTypes)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.postFormData(uri, authentication,
+                    formData, sourceIp, cookies, responseTypes);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> postJsonContentAsync(final URI uri,
+        final RestAuthentication authentication, final Object content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.postJsonContent(uri, authentication,
+                    content, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> postStringContentAsync(final URI uri,
+        final RestAuthentication authentication, final String content,
+        final ContentType contentType, final String sourceIp, final Iterable<KeyValuePair> cookies)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.postStringContent(uri,
+                    authentication, content, contentType, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<RestResponse> postContentAsync(final URI uri,
+        final RestAuthentication authentication, final HttpEntity content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies)
+    {
+        return CallbackFuture.run(this.executor, new Callable<RestResponse>()
+        {
+            @Override
+            public RestResponse call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.postContent(uri, authentication,
+                    content, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public CallbackFuture<URI> getFinalRedirectAsync(final URI authUrl, final URI redirectUrl,
+        final RestAuthentication authentication)
+    {
+        return CallbackFuture.run(this.executor, new Callable<URI>()
+        {
+            @Override
+            public URI call() throws RequestFailedException
+            {
+                return AsyncRestClientAdapter.this.restClient.getFinalRedirect(authUrl,
+                    redirectUrl, authentication);
+            }
+        });
+    }
+}
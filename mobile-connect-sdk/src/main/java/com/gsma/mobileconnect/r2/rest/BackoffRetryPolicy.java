@@ -0,0 +1,269 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.ClientProtocolException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link IRetryPolicy} retrying requests which failed with an I/O error or received a response
+ * with a status showing the provider is briefly unavailable, such as 503.  Requests which timed
+ * out are only retried if enabled by {@link Builder#withRetryTimeouts(boolean)}, as each attempt
+ * at a provider which has stopped responding holds the calling thread for the whole timeout.
+ * <p> Delays grow exponentially with decorrelated jitter, each being chosen at random between the
+ * base delay and three times the previous delay, capped at the maximum delay.  A delay asked for
+ * by a Retry-After header is used instead, unless it is longer than the maximum delay, when the
+ * request is not retried at all. </p> <p> The number of attempts may be set per operation, the
+ * operation being identified by the types its response is read into, such as {@link
+ * com.gsma.mobileconnect.r2.discovery.DiscoveryService#PROVIDER_METADATA_TYPES}. </p>
+ *
+ * @since 2.0
+ */
+public final class BackoffRetryPolicy implements IRetryPolicy
+{
+    private static final Set<Integer> DEFAULT_RETRYABLE_STATUS_CODES = Collections.unmodifiableSet(
+        new HashSet<Integer>(Arrays.asList(HttpStatus.SC_BAD_GATEWAY,
+            HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT, 429)));
+
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxAttempts;
+    private final Map<JsonResponseTypes, Integer> maxAttemptsByType;
+    private final Set<Integer> retryableStatusCodes;
+    private final boolean retryTimeouts;
+    private final Random random;
+
+    private BackoffRetryPolicy(final Builder builder)
+    {
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.maxAttempts = builder.maxAttempts;
+        this.maxAttemptsByType = new HashMap<JsonResponseTypes, Integer>(builder.maxAttemptsByType);
+        this.retryableStatusCodes = builder.retryableStatusCodes;
+        this.retryTimeouts = builder.retryTimeouts;
+        this.random = builder.random;
+    }
+
+    @Override
+    public long getRetryDelay(final RetryAttempt attempt)
+    {
+        if (attempt.getAttempt() >= this.getMaxAttempts(attempt.getResponseTypes())
+            || !this.isRetryable(attempt))
+        {
+            return NO_RETRY;
+        }
+
+        final long retryAfter = attempt.getRetryAfter();
+        if (retryAfter >= 0)
+        {
+            return retryAfter > this.maxDelay ? NO_RETRY : retryAfter;
+        }
+
+        final long previousDelay = Math.max(this.baseDelay, attempt.getPreviousDelay());
+        final long upper = Math.min(this.maxDelay, previousDelay * 3);
+        if (upper <= this.baseDelay)
+        {
+            return upper;
+        }
+        final Random rnd = this.random == null ? ThreadLocalRandom.current() : this.random;
+        return this.baseDelay + (long) (rnd.nextDouble() * (upper - this.baseDelay));
+    }
+
+    /**
+     * @param responseTypes identifying the operation, null for requests read as a String.
+     * @return the maximum number of attempts at a request for the operation, including the first.
+     */
+    public int getMaxAttempts(final JsonResponseTypes responseTypes)
+    {
+        final Integer attempts =
+            responseTypes == null ? null : this.maxAttemptsByType.get(responseTypes);
+        return attempts == null ? this.maxAttempts : attempts;
+    }
+
+    private boolean isRetryable(final RetryAttempt attempt)
+    {
+        if (attempt.getFailure() == null)
+        {
+            return this.retryableStatusCodes.contains(attempt.getStatusCode());
+        }
+
+        // a malformed or oversized response will be no different on a second attempt
+        final Throwable cause = attempt.getFailure().getCause();
+        if (cause instanceof TimeoutException || cause instanceof InterruptedIOException)
+        {
+            return this.retryTimeouts;
+        }
+        return cause instanceof IOException
+            && !(cause instanceof ClientProtocolException)
+            && !(cause instanceof ResponseTooLargeException);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BackoffRetryPolicy(baseDelayMs="
+            + this.baseDelay
+            + ", maxDelayMs="
+            + this.maxDelay
+            + ", maxAttempts="
+            + this.maxAttempts
+            + ", maxAttemptsByType="
+            + this.maxAttemptsByType
+            + ", retryableStatusCodes="
+            + this.retryableStatusCodes
+            + ", retryTimeouts="
+            + this.retryTimeouts
+            + ")";
+    }
+
+    public static final class Builder implements IBuilder<BackoffRetryPolicy>
+    {
+        private long baseDelay = DefaultOptions.RETRY_BASE_DELAY_MS;
+        private long maxDelay = DefaultOptions.RETRY_MAX_DELAY_MS;
+        private int maxAttempts = DefaultOptions.RETRY_MAX_ATTEMPTS;
+        private final Map<JsonResponseTypes, Integer> maxAttemptsByType =
+            new HashMap<JsonResponseTypes, Integer>();
+        private Set<Integer> retryableStatusCodes = DEFAULT_RETRYABLE_STATUS_CODES;
+        private boolean retryTimeouts = false;
+        private Random random;
+
+        /**
+         * Set the shortest delay before a retry, defaults to {@link
+         * DefaultOptions#RETRY_BASE_DELAY_MS}.
+         *
+         * @param val delay in milliseconds, must be positive.
+         * @return this builder.
+         */
+        public Builder withBaseDelay(final long val)
+        {
+            this.baseDelay = requirePositive(val, "baseDelay");
+            return this;
+        }
+
+        /**
+         * Set the longest delay before a retry, defaults to {@link
+         * DefaultOptions#RETRY_MAX_DELAY_MS}.  A response asking to be retried later than this
+         * is not retried.
+         *
+         * @param val delay in milliseconds, must be positive.
+         * @return this builder.
+         */
+        public Builder withMaxDelay(final long val)
+        {
+            this.maxDelay = requirePositive(val, "maxDelay");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of attempts at a request, including the first, defaults to
+         * {@link DefaultOptions#RETRY_MAX_ATTEMPTS}.
+         *
+         * @param val maximum number of attempts, 1 to never retry.
+         * @return this builder.
+         */
+        public Builder withMaxAttempts(final int val)
+        {
+            this.maxAttempts = (int) requirePositive(val, "maxAttempts");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of attempts at a request for one operation, overriding {@link
+         * #withMaxAttempts(int)} for that operation.
+         *
+         * @param responseTypes identifying the operation.
+         * @param val           maximum number of attempts, 1 to never retry.
+         * @return this builder.
+         */
+        public Builder withMaxAttempts(final JsonResponseTypes responseTypes, final int val)
+        {
+            this.maxAttemptsByType.put(ObjectUtils.requireNonNull(responseTypes, "responseTypes"),
+                (int) requirePositive(val, "maxAttempts"));
+            return this;
+        }
+
+        /**
+         * Set the status codes of responses which are retried, defaults to 429, 502, 503 and
+         * 504.
+         *
+         * @param val status codes to retry.
+         * @return this builder.
+         */
+        public Builder withRetryableStatusCodes(final Set<Integer> val)
+        {
+            this.retryableStatusCodes = Collections.unmodifiableSet(
+                new HashSet<Integer>(ObjectUtils.requireNonNull(val, "val")));
+            return this;
+        }
+
+        /**
+         * Set whether requests which timed out, on connecting or waiting for a response, are
+         * retried, defaults to false.
+         *
+         * @param val true to retry requests which timed out.
+         * @return this builder.
+         */
+        public Builder withRetryTimeouts(final boolean val)
+        {
+            this.retryTimeouts = val;
+            return this;
+        }
+
+        Builder withRandom(final Random val)
+        {
+            this.random = val;
+            return this;
+        }
+
+        private static long requirePositive(final long val, final String name)
+        {
+            if (val <= 0)
+            {
+                throw new IllegalArgumentException(
+                    String.format("%s must be greater than 0, was %d", name, val));
+            }
+            return val;
+        }
+
+        @Override
+        public BackoffRetryPolicy build()
+        {
+            if (this.maxDelay < this.baseDelay)
+            {
+                throw new IllegalArgumentException(
+                    String.format("maxDelay must not be less than baseDelay=%d, was %d",
+                        this.baseDelay, this.maxDelay));
+            }
+            return new BackoffRetryPolicy(this);
+        }
+    }
+}
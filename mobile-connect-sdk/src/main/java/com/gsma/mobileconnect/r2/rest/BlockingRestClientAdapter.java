@@ -0,0 +1,183 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Adapts an {@link IAsyncRestClient} to {@link IRestClient}, so that the services may be run on
+ * a non-blocking client.  Each call waits for the request to complete; the timeout of the request
+ * is left to the client adapted.
+ *
+ * @since 2.0
+ */
+public class BlockingRestClientAdapter implements IRestClient
+{
+    private final IAsyncRestClient asyncRestClient;
+
+    /**
+     * @param asyncRestClient to adapt.
+     */
+    public BlockingRestClientAdapter(final IAsyncRestClient asyncRestClient)
+    {
+        this.asyncRestClient = ObjectUtils.requireNonNull(asyncRestClient, "asyncRestClient");
+    }
+
+    /**
+     * Return the async rest client as an {@link IRestClient}, adapting it only if it does not
+     * already implement the interface.
+     *
+     * @param asyncRestClient to adapt, may be null.
+     * @return the rest client, null if asyncRestClient is null.
+     */
+    public static IRestClient of(final IAsyncRestClient asyncRestClient)
+    {
+        if (asyncRestClient == null)
+        {
+            return null;
+        }
+        return asyncRestClient instanceof IRestClient
+               ? (IRestClient) asyncRestClient
+               : new BlockingRestClientAdapter(asyncRestClient);
+    }
+
+    /**
+     * @return the async rest client adapted.
+     */
+    public IAsyncRestClient getAsyncRestClient()
+    {
+        return this.asyncRestClient;
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return await(
+            this.asyncRestClient.getAsync(uri, authentication, sourceIp, queryParams, cookies),
+            HttpUtils.HttpMethod.GET, uri);
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
+    {
+        return await(this.asyncRestClient.getAsync(uri, authentication, sourceIp, queryParams,
+            cookies, responseTypes), HttpUtils.HttpMethod.GET, uri);
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return await(this.asyncRestClient.postFormDataAsync(uri, authentication, formData,
+            sourceIp, cookies), HttpUtils.HttpMethod.POST, uri);
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
+    {
+        return await(this.asyncRestClient.postFormDataAsync(uri, authentication, formData,
+            sourceIp, cookies, responseTypes), HttpUtils.HttpMethod.POST, uri);
+    }
+
+    @Override
+    public RestResponse postJsonContent(final URI uri, final RestAuthentication authentication,
+        final Object content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return await(this.asyncRestClient.postJsonContentAsync(uri, authentication, content,
+            sourceIp, cookies), HttpUtils.HttpMethod.POST, uri);
+    }
+
+    @Override
+    public RestResponse postStringContent(final URI uri, final RestAuthentication authentication,
+        final String content, final ContentType contentType, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return await(this.asyncRestClient.postStringContentAsync(uri, authentication, content,
+            contentType, sourceIp, cookies), HttpUtils.HttpMethod.POST, uri);
+    }
+
+    @Override
+    public RestResponse postContent(final URI uri, final RestAuthentication authentication,
+        final HttpEntity content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return await(this.asyncRestClient.postContentAsync(uri, authentication, content,
+            sourceIp, cookies), HttpUtils.HttpMethod.POST, uri);
+    }
+
+    @Override
+    public URI getFinalRedirect(final URI authUrl, final URI redirectUrl,
+        final RestAuthentication authentication) throws RequestFailedException
+    {
+        return await(
+            this.asyncRestClient.getFinalRedirectAsync(authUrl, redirectUrl, authentication),
+            HttpUtils.HttpMethod.GET, authUrl);
+    }
+
+    private static <T> T await(final Future<T> future, final HttpUtils.HttpMethod method,
+        final URI uri) throws RequestFailedException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RequestFailedException(method, uri, ie);
+        }
+        catch (final CancellationException ce)
+        {
+            throw new RequestFailedException(method, uri, ce);
+        }
+        catch (final ExecutionException ee)
+        {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RequestFailedException)
+            {
+                throw (RequestFailedException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            throw new RequestFailedException(method, uri, cause);
+        }
+    }
+}
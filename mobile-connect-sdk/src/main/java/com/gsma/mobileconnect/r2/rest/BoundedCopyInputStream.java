@@ -0,0 +1,114 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Keeps a copy of up to a limited number of the bytes read through it, so that the start of a
+ * body read as a stream remains available for error reporting and debug logging.
+ *
+ * @since 2.0
+ */
+class BoundedCopyInputStream extends FilterInputStream
+{
+    private final ByteArrayOutputStream copy;
+    private final int limit;
+    private boolean truncated = false;
+
+    /**
+     * @param in    stream to read.
+     * @param limit maximum number of bytes to copy.
+     */
+    BoundedCopyInputStream(final InputStream in, final int limit)
+    {
+        super(in);
+        this.limit = limit;
+        this.copy = new ByteArrayOutputStream(Math.min(limit, 1024));
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        final int b = super.read();
+        if (b != -1)
+        {
+            this.record(new byte[] {(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException
+    {
+        final int read = super.read(b, off, len);
+        if (read > 0)
+        {
+            this.record(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException
+    {
+        // read rather than skip so that skipped bytes are copied
+        final byte[] buffer = new byte[(int) Math.min(n, 4096L)];
+        final int read = this.read(buffer, 0, buffer.length);
+        return Math.max(read, 0);
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    /**
+     * @param charset of the bytes copied.
+     * @return the bytes copied as a String.
+     */
+    String getCopy(final Charset charset)
+    {
+        return new String(this.copy.toByteArray(), charset);
+    }
+
+    /**
+     * @return true if more bytes were read than were copied.
+     */
+    boolean isTruncated()
+    {
+        return this.truncated;
+    }
+
+    private void record(final byte[] b, final int off, final int len)
+    {
+        final int remaining = this.limit - this.copy.size();
+        if (len > remaining)
+        {
+            this.truncated = true;
+        }
+        if (remaining > 0)
+        {
+            this.copy.write(b, off, Math.min(len, remaining));
+        }
+    }
+}
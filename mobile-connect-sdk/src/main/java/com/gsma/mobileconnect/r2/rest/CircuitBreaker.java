@@ -0,0 +1,282 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.apache.http.HttpHost;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit kept by a {@link CircuitBreakerRestClient} for one host, recording the outcome of the
+ * most recent calls to it in a sliding window.  See {@link CircuitBreakerConfig} for how the
+ * circuit moves between states.
+ *
+ * @since 2.0
+ */
+public final class CircuitBreaker
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * State of a circuit.
+     */
+    public enum State
+    {
+        /**
+         * Calls are made, their outcomes recorded.
+         */
+        CLOSED,
+        /**
+         * Calls fail without being made.
+         */
+        OPEN,
+        /**
+         * A limited number of probe calls are made to decide whether to close the circuit.
+         */
+        HALF_OPEN
+    }
+
+    private final HttpHost host;
+    private final CircuitBreakerConfig config;
+    private final List<ICircuitBreakerListener> listeners;
+    private final long slowCallNanos;
+    private final long openNanos;
+
+    // guarded by this
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failedCount;
+    private int slowCount;
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesRemaining;
+
+    CircuitBreaker(final HttpHost host, final CircuitBreakerConfig config,
+        final List<ICircuitBreakerListener> listeners)
+    {
+        this.host = host;
+        this.config = config;
+        this.listeners = listeners;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationMillis());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMillis());
+        this.window = new byte[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * @return the host this circuit is kept for.
+     */
+    public HttpHost getHost()
+    {
+        return this.host;
+    }
+
+    /**
+     * @return current state of the circuit.
+     */
+    public synchronized State getState()
+    {
+        return this.state;
+    }
+
+    /**
+     * @return time in milliseconds until an open circuit lets probe calls through, 0 if it is
+     * not open.
+     */
+    public synchronized long getRemainingOpenMillis()
+    {
+        if (this.state != State.OPEN)
+        {
+            return 0L;
+        }
+        final long remaining = this.openNanos - (System.nanoTime() - this.openedAt);
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(remaining));
+    }
+
+    /**
+     * Ask to make a call, moving an open circuit whose open duration has passed to half open.
+     * A permitted call must be followed by {@link #onResult(Permit, boolean, long)}.
+     *
+     * @return permit to make the call, null if it may not be made.
+     */
+    Permit tryAcquire()
+    {
+        final State from;
+        final State to;
+        final boolean permitted;
+        final long permittedGeneration;
+        synchronized (this)
+        {
+            from = this.state;
+            if (this.state == State.OPEN && System.nanoTime() - this.openedAt >= this.openNanos)
+            {
+                this.transitionTo(State.HALF_OPEN);
+            }
+            if (this.state == State.HALF_OPEN)
+            {
+                permitted = this.probesRemaining > 0;
+                if (permitted)
+                {
+                    this.probesRemaining--;
+                }
+            }
+            else
+            {
+                permitted = this.state == State.CLOSED;
+            }
+            permittedGeneration = this.generation;
+            to = this.state;
+        }
+
+        this.notifyIfChanged(from, to);
+        return permitted ? new Permit(permittedGeneration) : null;
+    }
+
+    /**
+     * Record the outcome of a call permitted by {@link #tryAcquire()}.
+     *
+     * @param permit        given for the call.
+     * @param failed        true if the call failed.
+     * @param durationNanos how long the call took.
+     */
+    void onResult(final Permit permit, final boolean failed, final long durationNanos)
+    {
+        final State from;
+        final State to;
+        synchronized (this)
+        {
+            from = this.state;
+            // calls permitted before the circuit last changed state are not counted in the new
+            // state, so a late call started while closed is not taken as a half open probe
+            if (permit.generation == this.generation)
+            {
+                this.record((byte) ((failed ? FAILED : 0)
+                    | (durationNanos >= this.slowCallNanos ? SLOW : 0)));
+
+                if (this.state == State.HALF_OPEN)
+                {
+                    if (this.windowCount >= this.config.getHalfOpenCalls())
+                    {
+                        this.transitionTo(
+                            this.isThresholdReached() ? State.OPEN : State.CLOSED);
+                    }
+                }
+                else if (this.windowCount >= this.config.getMinimumCalls()
+                    && this.isThresholdReached())
+                {
+                    this.transitionTo(State.OPEN);
+                }
+            }
+            to = this.state;
+        }
+
+        this.notifyIfChanged(from, to);
+    }
+
+    private void record(final byte outcome)
+    {
+        if (this.windowCount == this.window.length)
+        {
+            final byte evicted = this.window[this.windowIndex];
+            this.failedCount -= evicted & FAILED;
+            this.slowCount -= (evicted & SLOW) >> 1;
+        }
+        else
+        {
+            this.windowCount++;
+        }
+
+        this.window[this.windowIndex] = outcome;
+        this.failedCount += outcome & FAILED;
+        this.slowCount += (outcome & SLOW) >> 1;
+        this.windowIndex = (this.windowIndex + 1) % this.window.length;
+    }
+
+    private boolean isThresholdReached()
+    {
+        return this.failedCount * 100 >= this.config.getFailureRateThreshold() * this.windowCount
+            || this.slowCount * 100 >= this.config.getSlowCallRateThreshold() * this.windowCount;
+    }
+
+    private void transitionTo(final State newState)
+    {
+        LOGGER.info("Circuit to host={} moving from state={} to state={}, failed={}, slow={} of "
+                + "calls={}", this.host, this.state, newState, this.failedCount, this.slowCount,
+            this.windowCount);
+
+        this.state = newState;
+        this.generation++;
+        this.windowIndex = 0;
+        this.windowCount = 0;
+        this.failedCount = 0;
+        this.slowCount = 0;
+        if (newState == State.OPEN)
+        {
+            this.openedAt = System.nanoTime();
+        }
+        else if (newState == State.HALF_OPEN)
+        {
+            this.probesRemaining = this.config.getHalfOpenCalls();
+        }
+    }
+
+    private void notifyIfChanged(final State from, final State to)
+    {
+        if (from == to)
+        {
+            return;
+        }
+        for (final ICircuitBreakerListener listener : this.listeners)
+        {
+            try
+            {
+                listener.onStateChange(this.host, from, to);
+            }
+            catch (final RuntimeException re)
+            {
+                LOGGER.warn("Circuit breaker listener failed for host={}, state={}", this.host,
+                    to, re);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CircuitBreaker(host=" + this.host + ", state=" + this.getState() + ")";
+    }
+
+    /**
+     * Permission to make a call, tagged with the state of the circuit it was given in.
+     */
+    static final class Permit
+    {
+        private final long generation;
+
+        private Permit(final long generation)
+        {
+            this.generation = generation;
+        }
+    }
+}
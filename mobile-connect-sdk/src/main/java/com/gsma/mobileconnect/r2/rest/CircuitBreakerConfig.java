@@ -0,0 +1,268 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the circuits kept by a {@link CircuitBreakerRestClient} for each host it calls.
+ * <p> A circuit opens once the share of failed calls, or of slow calls, among the most recent
+ * calls to its host reaches a threshold.  While open, calls to the host fail immediately.  Once
+ * the open duration has passed a few probe calls are let through; if they succeed the circuit
+ * closes, otherwise it opens again. </p>
+ *
+ * @since 2.0
+ */
+public final class CircuitBreakerConfig
+{
+    private final int slidingWindowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallDurationMillis;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+
+    private CircuitBreakerConfig(final Builder builder)
+    {
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationMillis = builder.slowCallDurationMillis;
+        this.openDurationMillis = builder.openDurationMillis;
+        this.halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    /**
+     * @return number of the most recent calls to a host over which rates are measured.
+     */
+    public int getSlidingWindowSize()
+    {
+        return this.slidingWindowSize;
+    }
+
+    /**
+     * @return number of calls to a host which must be measured before its circuit may open.
+     */
+    public int getMinimumCalls()
+    {
+        return this.minimumCalls;
+    }
+
+    /**
+     * @return percentage of failed calls at which a circuit opens.
+     */
+    public int getFailureRateThreshold()
+    {
+        return this.failureRateThreshold;
+    }
+
+    /**
+     * @return percentage of slow calls at which a circuit opens.
+     */
+    public int getSlowCallRateThreshold()
+    {
+        return this.slowCallRateThreshold;
+    }
+
+    /**
+     * @return duration at or above which a call is counted as slow.
+     */
+    public long getSlowCallDurationMillis()
+    {
+        return this.slowCallDurationMillis;
+    }
+
+    /**
+     * @return how long a circuit stays open before probe calls are let through.
+     */
+    public long getOpenDurationMillis()
+    {
+        return this.openDurationMillis;
+    }
+
+    /**
+     * @return number of probe calls let through a half open circuit.
+     */
+    public int getHalfOpenCalls()
+    {
+        return this.halfOpenCalls;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CircuitBreakerConfig(slidingWindowSize="
+            + this.slidingWindowSize
+            + ", minimumCalls="
+            + this.minimumCalls
+            + ", failureRateThreshold="
+            + this.failureRateThreshold
+            + ", slowCallRateThreshold="
+            + this.slowCallRateThreshold
+            + ", slowCallDurationMs="
+            + this.slowCallDurationMillis
+            + ", openDurationMs="
+            + this.openDurationMillis
+            + ", halfOpenCalls="
+            + this.halfOpenCalls
+            + ")";
+    }
+
+    private static long requirePositive(final long val, final String name)
+    {
+        if (val <= 0)
+        {
+            throw new IllegalArgumentException(
+                String.format("%s must be greater than 0, was %d", name, val));
+        }
+        return val;
+    }
+
+    private static int requirePercentage(final int val, final String name)
+    {
+        if (val <= 0 || val > 100)
+        {
+            throw new IllegalArgumentException(
+                String.format("%s must be between 1 and 100, was %d", name, val));
+        }
+        return val;
+    }
+
+    public static final class Builder implements IBuilder<CircuitBreakerConfig>
+    {
+        private int slidingWindowSize = DefaultOptions.CIRCUIT_BREAKER_WINDOW_SIZE;
+        private int minimumCalls = DefaultOptions.CIRCUIT_BREAKER_MINIMUM_CALLS;
+        private int failureRateThreshold = DefaultOptions.CIRCUIT_BREAKER_FAILURE_RATE;
+        private int slowCallRateThreshold = DefaultOptions.CIRCUIT_BREAKER_SLOW_CALL_RATE;
+        private long slowCallDurationMillis = DefaultOptions.CIRCUIT_BREAKER_SLOW_CALL_MS;
+        private long openDurationMillis = DefaultOptions.CIRCUIT_BREAKER_OPEN_MS;
+        private int halfOpenCalls = DefaultOptions.CIRCUIT_BREAKER_HALF_OPEN_CALLS;
+
+        /**
+         * Set the number of the most recent calls to a host over which rates are measured,
+         * defaults to {@link DefaultOptions#CIRCUIT_BREAKER_WINDOW_SIZE}.
+         *
+         * @param val number of calls.
+         * @return this builder.
+         */
+        public Builder withSlidingWindowSize(final int val)
+        {
+            this.slidingWindowSize = (int) requirePositive(val, "slidingWindowSize");
+            return this;
+        }
+
+        /**
+         * Set the number of calls to a host which must be measured before its circuit may open,
+         * defaults to {@link DefaultOptions#CIRCUIT_BREAKER_MINIMUM_CALLS}.
+         *
+         * @param val number of calls, no more than the sliding window size.
+         * @return this builder.
+         */
+        public Builder withMinimumCalls(final int val)
+        {
+            this.minimumCalls = (int) requirePositive(val, "minimumCalls");
+            return this;
+        }
+
+        /**
+         * Set the percentage of failed calls at which a circuit opens, defaults to {@link
+         * DefaultOptions#CIRCUIT_BREAKER_FAILURE_RATE}.  A call fails if it throws or receives a
+         * response with a 5xx status.
+         *
+         * @param val percentage between 1 and 100.
+         * @return this builder.
+         */
+        public Builder withFailureRateThreshold(final int val)
+        {
+            this.failureRateThreshold = requirePercentage(val, "failureRateThreshold");
+            return this;
+        }
+
+        /**
+         * Set the percentage of slow calls at which a circuit opens, defaults to {@link
+         * DefaultOptions#CIRCUIT_BREAKER_SLOW_CALL_RATE}.
+         *
+         * @param val percentage between 1 and 100.
+         * @return this builder.
+         */
+        public Builder withSlowCallRateThreshold(final int val)
+        {
+            this.slowCallRateThreshold = requirePercentage(val, "slowCallRateThreshold");
+            return this;
+        }
+
+        /**
+         * Set the duration at or above which a call is counted as slow, defaults to {@link
+         * DefaultOptions#CIRCUIT_BREAKER_SLOW_CALL_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return this builder.
+         */
+        public Builder withSlowCallDuration(final long duration, final TimeUnit unit)
+        {
+            this.slowCallDurationMillis =
+                requirePositive(unit.toMillis(duration), "slowCallDuration");
+            return this;
+        }
+
+        /**
+         * Set how long a circuit stays open before probe calls are let through, defaults to
+         * {@link DefaultOptions#CIRCUIT_BREAKER_OPEN_MS}.
+         *
+         * @param duration the number of units.
+         * @param unit     the unit of the duration.
+         * @return this builder.
+         */
+        public Builder withOpenDuration(final long duration, final TimeUnit unit)
+        {
+            this.openDurationMillis = requirePositive(unit.toMillis(duration), "openDuration");
+            return this;
+        }
+
+        /**
+         * Set the number of probe calls let through a half open circuit, defaults to {@link
+         * DefaultOptions#CIRCUIT_BREAKER_HALF_OPEN_CALLS}.
+         *
+         * @param val number of calls, no more than the sliding window size.
+         * @return this builder.
+         */
+        public Builder withHalfOpenCalls(final int val)
+        {
+            this.halfOpenCalls = (int) requirePositive(val, "halfOpenCalls");
+            return this;
+        }
+
+        @Override
+        public CircuitBreakerConfig build()
+        {
+            if (this.minimumCalls > this.slidingWindowSize
+                || this.halfOpenCalls > this.slidingWindowSize)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "minimumCalls=%d and halfOpenCalls=%d must not exceed slidingWindowSize=%d",
+                    this.minimumCalls, this.halfOpenCalls, this.slidingWindowSize));
+            }
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
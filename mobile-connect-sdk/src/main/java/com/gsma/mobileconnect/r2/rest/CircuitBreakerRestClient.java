@@ -0,0 +1,354 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.CircuitOpenException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.LogUtils;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.entity.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Decorates an {@link IRestClient} with a {@link CircuitBreaker} for each host called, so that
+ * once an operator's endpoints start failing or responding slowly, further requests to them fail
+ * at once with a {@link CircuitOpenException} rather than each holding a thread until it times
+ * out.  Requests to other hosts are unaffected.
+ *
+ * @since 2.0
+ */
+public class CircuitBreakerRestClient implements IRestClient
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakerRestClient.class);
+
+    private final IRestClient restClient;
+    private final CircuitBreakerConfig config;
+    private final List<ICircuitBreakerListener> listeners;
+    private final ConcurrentHashMap<HttpHost, CircuitBreaker> circuitBreakers =
+        new ConcurrentHashMap<HttpHost, CircuitBreaker>();
+
+    private CircuitBreakerRestClient(final Builder builder)
+    {
+        this.restClient = builder.restClient;
+        this.config = builder.config;
+        this.listeners =
+            new CopyOnWriteArrayList<ICircuitBreakerListener>(builder.listeners);
+
+        LOGGER.info("New instance of CircuitBreakerRestClient created with config={}",
+            this.config);
+    }
+
+    /**
+     * @return the rest client decorated.
+     */
+    public IRestClient getRestClient()
+    {
+        return this.restClient;
+    }
+
+    /**
+     * @param uri of an endpoint of the host, only its scheme, host and port are used.
+     * @return state of the circuit to the host, closed if the host has not been called.
+     */
+    public CircuitBreaker.State getState(final URI uri)
+    {
+        final HttpHost host = toHttpHost(ObjectUtils.requireNonNull(uri, "uri"));
+        final CircuitBreaker circuitBreaker =
+            host == null ? null : this.circuitBreakers.get(host);
+        return circuitBreaker == null ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+    }
+
+    /**
+     * @return the circuits kept for each host called.
+     */
+    public List<CircuitBreaker> getCircuitBreakers()
+    {
+        return Collections.unmodifiableList(
+            new ArrayList<CircuitBreaker>(this.circuitBreakers.values()));
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.GET, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.get(uri, authentication, sourceIp,
+                    queryParams, cookies);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.GET, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.get(uri, authentication, sourceIp,
+                    queryParams, cookies, responseTypes);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.POST, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.postFormData(uri, authentication,
+                    formData, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.POST, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.postFormData(uri, authentication,
+                    formData, sourceIp, cookies, responseTypes);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse postJsonContent(final URI uri, final RestAuthentication authentication,
+        final Object content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.POST, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.postJsonContent(uri,
+                    authentication, content, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse postStringContent(final URI uri, final RestAuthentication authentication,
+        final String content, final ContentType contentType, final String sourceIp,
+        final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.POST, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.postStringContent(uri,
+                    authentication, content, contentType, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public RestResponse postContent(final URI uri, final RestAuthentication authentication,
+        final HttpEntity content, final String sourceIp, final Iterable<KeyValuePair> cookies)
+        throws RequestFailedException
+    {
+        return this.call(HttpUtils.HttpMethod.POST, uri, true, new Operation<RestResponse>()
+        {
+            @Override
+            public RestResponse apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.postContent(uri, authentication,
+                    content, sourceIp, cookies);
+            }
+        });
+    }
+
+    @Override
+    public URI getFinalRedirect(final URI authUrl, final URI redirectUrl,
+        final RestAuthentication authentication) throws RequestFailedException
+    {
+        // the flow polls for the redirect over many requests, so its duration says nothing of
+        // how quickly the operator responds and is not counted as slow
+        return this.call(HttpUtils.HttpMethod.GET, authUrl, false, new Operation<URI>()
+        {
+            @Override
+            public URI apply() throws RequestFailedException
+            {
+                return CircuitBreakerRestClient.this.restClient.getFinalRedirect(authUrl,
+                    redirectUrl, authentication);
+            }
+        });
+    }
+
+    /**
+     * Make a call through the circuit of the host of the uri, failing at once if it is open.  A
+     * call fails if it throws or its response has a 5xx status; it is slow if timed and it takes
+     * longer than the slow call duration.
+     */
+    private <T> T call(final HttpUtils.HttpMethod method, final URI uri, final boolean timed,
+        final Operation<T> operation) throws RequestFailedException
+    {
+        final CircuitBreaker circuitBreaker = this.getCircuitBreaker(uri);
+        if (circuitBreaker == null)
+        {
+            return operation.apply();
+        }
+
+        final CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null)
+        {
+            LOGGER.debug("Rejecting httpMethod={} request to uri={} as circuit is open",
+                method, LogUtils.maskUri(uri, LOGGER, Level.DEBUG));
+            throw new CircuitOpenException(method, uri, circuitBreaker.getHost().toHostString(),
+                circuitBreaker.getRemainingOpenMillis());
+        }
+
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try
+        {
+            final T result = operation.apply();
+            failed = result instanceof RestResponse
+                && ((RestResponse) result).getStatusCode() >= 500;
+            return result;
+        }
+        finally
+        {
+            circuitBreaker.onResult(permit, failed, timed ? System.nanoTime() - start : 0L);
+        }
+    }
+
+    private CircuitBreaker getCircuitBreaker(final URI uri)
+    {
+        final HttpHost host = toHttpHost(ObjectUtils.requireNonNull(uri, "uri"));
+        if (host == null)
+        {
+            return null;
+        }
+
+        CircuitBreaker circuitBreaker = this.circuitBreakers.get(host);
+        if (circuitBreaker == null)
+        {
+            final CircuitBreaker created = new CircuitBreaker(host, this.config, this.listeners);
+            circuitBreaker = this.circuitBreakers.putIfAbsent(host, created);
+            if (circuitBreaker == null)
+            {
+                circuitBreaker = created;
+            }
+        }
+        return circuitBreaker;
+    }
+
+    private static HttpHost toHttpHost(final URI uri)
+    {
+        return uri.getHost() == null ? null : ConnectionPoolConfig.toHttpHost(uri);
+    }
+
+    private interface Operation<T>
+    {
+        T apply() throws RequestFailedException;
+    }
+
+    public static final class Builder implements IBuilder<CircuitBreakerRestClient>
+    {
+        private IRestClient restClient;
+        private CircuitBreakerConfig config;
+        private final List<ICircuitBreakerListener> listeners =
+            new ArrayList<ICircuitBreakerListener>();
+
+        /**
+         * Specify the rest client to decorate, required.
+         *
+         * @param val rest client to decorate.
+         * @return this builder.
+         */
+        public Builder withRestClient(final IRestClient val)
+        {
+            this.restClient = val;
+            return this;
+        }
+
+        /**
+         * Specify the settings of the circuit kept for each host, by default those of {@link
+         * CircuitBreakerConfig}.
+         *
+         * @param val circuit breaker settings.
+         * @return this builder.
+         */
+        public Builder withConfig(final CircuitBreakerConfig val)
+        {
+            this.config = val;
+            return this;
+        }
+
+        /**
+         * Add a listener to be told of circuits changing state.
+         *
+         * @param val listener to add.
+         * @return this builder.
+         */
+        public Builder withListener(final ICircuitBreakerListener val)
+        {
+            this.listeners.add(ObjectUtils.requireNonNull(val, "val"));
+            return this;
+        }
+
+        @Override
+        public CircuitBreakerRestClient build()
+        {
+            ObjectUtils.requireNonNull(this.restClient, "restClient");
+            if (this.config == null)
+            {
+                this.config = new CircuitBreakerConfig.Builder().build();
+            }
+
+            return new CircuitBreakerRestClient(this);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Http client built by a {@link RestClient} over a pool of connections configured by a {@link
+ * ConnectionPoolConfig}, along with the pool so that its use can be reported.
+ *
+ * @since 2.0
+ */
+class ConnectionPool implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    ConnectionPool(final ConnectionPoolConfig config)
+    {
+        this.connectionManager = new PoolingHttpClientConnectionManager();
+        this.connectionManager.setMaxTotal(config.getMaxTotal());
+        this.connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        this.connectionManager.setValidateAfterInactivity(
+            (int) Math.min(config.getValidateAfterInactivityMillis(), Integer.MAX_VALUE));
+        for (final Map.Entry<HttpHost, Integer> host : config.getMaxPerHost().entrySet())
+        {
+            // the route planner marks routes to https hosts as secure, which routes compare on
+            final boolean secure = "https".equalsIgnoreCase(host.getKey().getSchemeName());
+            this.connectionManager.setMaxPerRoute(new HttpRoute(host.getKey(), null, secure),
+                host.getValue());
+        }
+
+        final HttpClientBuilder builder = HttpClientBuilder
+            .create()
+            .setConnectionManager(this.connectionManager)
+            .setKeepAliveStrategy(new CappedKeepAliveStrategy(config.getKeepAliveMillis()));
+        if (config.getIdleTimeoutMillis() > 0)
+        {
+            builder.evictIdleConnections(config.getIdleTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (config.isEvictExpired())
+        {
+            builder.evictExpiredConnections();
+        }
+        this.httpClient = builder.build();
+
+        LOGGER.info("New connection pool created with {}", config);
+    }
+
+    CloseableHttpClient getHttpClient()
+    {
+        return this.httpClient;
+    }
+
+    ConnectionPoolStats getStats()
+    {
+        final Map<String, ConnectionPoolStats> routeStats =
+            new LinkedHashMap<String, ConnectionPoolStats>();
+        for (final HttpRoute route : this.connectionManager.getRoutes())
+        {
+            final PoolStats stats = this.connectionManager.getStats(route);
+            routeStats.put(route.getTargetHost().toURI(),
+                new ConnectionPoolStats(stats.getLeased(), stats.getPending(),
+                    stats.getAvailable(), stats.getMax(),
+                    Collections.<String, ConnectionPoolStats>emptyMap()));
+        }
+
+        final PoolStats total = this.connectionManager.getTotalStats();
+        return new ConnectionPoolStats(total.getLeased(), total.getPending(),
+            total.getAvailable(), total.getMax(), routeStats);
+    }
+
+    /**
+     * Close the http client, closing all pooled connections and stopping the eviction threads.
+     *
+     * @throws IOException if the client could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.httpClient.close();
+    }
+
+    /**
+     * Keeps connections alive for as long as the server allows, up to a limit which also applies
+     * when the server does not say.
+     */
+    private static final class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy
+    {
+        private final long keepAliveMillis;
+
+        private CappedKeepAliveStrategy(final long keepAliveMillis)
+        {
+            this.keepAliveMillis = keepAliveMillis;
+        }
+
+        @Override
+        public long getKeepAliveDuration(final HttpResponse response, final HttpContext context)
+        {
+            final long duration =
+                DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response,
+                    context);
+            return duration > 0 ? Math.min(duration, this.keepAliveMillis) : this.keepAliveMillis;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import org.apache.http.HttpHost;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the pool of HTTP connections used by a {@link RestClient} which builds its own http
+ * client.  Connections are pooled per route, a route being the scheme, host and port of the
+ * operator endpoint called.
+ *
+ * @since 2.0
+ */
+public final class ConnectionPoolConfig
+{
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final Map<HttpHost, Integer> maxPerHost;
+    private final long validateAfterInactivityMillis;
+    private final long idleTimeoutMillis;
+    private final boolean evictExpired;
+    private final long keepAliveMillis;
+
+    private ConnectionPoolConfig(final Builder builder)
+    {
+        this.maxTotal = builder.maxTotal;
+        this.maxPerRoute = builder.maxPerRoute;
+        this.maxPerHost =
+            Collections.unmodifiableMap(new HashMap<HttpHost, Integer>(builder.maxPerHost));
+        this.validateAfterInactivityMillis = builder.validateAfterInactivityMillis;
+        this.idleTimeoutMillis = builder.idleTimeoutMillis;
+        this.evictExpired = builder.evictExpired;
+        this.keepAliveMillis = builder.keepAliveMillis;
+    }
+
+    /**
+     * @return the maximum number of connections open across all routes.
+     */
+    public int getMaxTotal()
+    {
+        return this.maxTotal;
+    }
+
+    /**
+     * @return the maximum number of connections open to a route without an override.
+     */
+    public int getMaxPerRoute()
+    {
+        return this.maxPerRoute;
+    }
+
+    /**
+     * @return the maximum number of connections open to specific hosts, overriding {@link
+     * #getMaxPerRoute()}.
+     */
+    public Map<HttpHost, Integer> getMaxPerHost()
+    {
+        return this.maxPerHost;
+    }
+
+    /**
+     * @return how long a pooled connection may be idle before it is checked before reuse, 0 if
+     * connections are never checked.
+     */
+    public long getValidateAfterInactivityMillis()
+    {
+        return this.validateAfterInactivityMillis;
+    }
+
+    /**
+     * @return how long a pooled connection may be idle before a background thread closes it, 0
+     * if idle connections are not closed.
+     */
+    public long getIdleTimeoutMillis()
+    {
+        return this.idleTimeoutMillis;
+    }
+
+    /**
+     * @return true if a background thread closes pooled connections whose keep-alive has expired.
+     */
+    public boolean isEvictExpired()
+    {
+        return this.evictExpired;
+    }
+
+    /**
+     * @return the longest a connection is kept alive for reuse, applied when the server does not
+     * specify a keep-alive and used to cap one it does specify.
+     */
+    public long getKeepAliveMillis()
+    {
+        return this.keepAliveMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectionPoolConfig(maxTotal="
+            + this.maxTotal
+            + ", maxPerRoute="
+            + this.maxPerRoute
+            + ", maxPerHost="
+            + this.maxPerHost
+            + ", validateAfterInactivityMs="
+            + this.validateAfterInactivityMillis
+            + ", idleTimeoutMs="
+            + this.idleTimeoutMillis
+            + ", evictExpired="
+            + this.evictExpired
+            + ", keepAliveMs="
+            + this.keepAliveMillis
+            + ")";
+    }
+
+    private static long requirePositive(final long val, final String name)
+    {
+        if (val <= 0)
+        {
+            throw new IllegalArgumentException(
+                String.format("%s must be greater than 0, was %d", name, val));
+        }
+        return val;
+    }
+
+    private static long requireNonNegative(final long val, final String name)
+    {
+        if (val < 0)
+        {
+            throw new IllegalArgumentException(
+                String.format("%s must not be negative, was %d", name, val));
+        }
+        return val;
+    }
+
+    public static final class Builder implements IBuilder<ConnectionPoolConfig>
+    {
+        private int maxTotal = DefaultOptions.HTTP_MAX_CONNECTIONS;
+        private int maxPerRoute = DefaultOptions.HTTP_MAX_CONNECTIONS_PER_ROUTE;
+        private final Map<HttpHost, Integer> maxPerHost = new HashMap<HttpHost, Integer>();
+        private long validateAfterInactivityMillis =
+            DefaultOptions.HTTP_VALIDATE_AFTER_INACTIVITY_MS;
+        private long idleTimeoutMillis = DefaultOptions.HTTP_IDLE_CONNECTION_TIMEOUT_MS;
+        private boolean evictExpired = true;
+        private long keepAliveMillis = DefaultOptions.HTTP_KEEP_ALIVE_MS;
+
+        /**
+         * Set the maximum number of connections open across all routes, defaults to {@link
+         * DefaultOptions#HTTP_MAX_CONNECTIONS}.
+         *
+         * @param val maximum number of connections.
+         * @return this builder.
+         */
+        public Builder withMaxTotal(final int val)
+        {
+            this.maxTotal = (int) requirePositive(val, "maxTotal");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of connections open to each route, defaults to {@link
+         * DefaultOptions#HTTP_MAX_CONNECTIONS_PER_ROUTE}.
+         *
+         * @param val maximum number of connections.
+         * @return this builder.
+         */
+        public Builder withMaxPerRoute(final int val)
+        {
+            this.maxPerRoute = (int) requirePositive(val, "maxPerRoute");
+            return this;
+        }
+
+        /**
+         * Set the maximum number of connections open to one host, such as an operator whose
+         * endpoints receive more traffic than others.
+         *
+         * @param uri of an endpoint of the host, only its scheme, host and port are used.
+         * @param val maximum number of connections.
+         * @return this builder.
+         */
+        public Builder withMaxPerHost(final URI uri, final int val)
+        {
+            ObjectUtils.requireNonNull(uri, "uri");
+
+            this.maxPerHost.put(toHttpHost(uri), (int) requirePositive(val, "maxPerHost"));
+            return this;
+        }
+
+        /**
+         * Set how long a pooled connection may be idle before it is checked to still be open
+         * before being reused, defaults to {@link DefaultOptions#HTTP_VALIDATE_AFTER_INACTIVITY_MS}.
+         *
+         * @param duration of inactivity, 0 to never check.
+         * @param unit     of the duration.
+         * @return this builder.
+         */
+        public Builder withValidateAfterInactivity(final long duration, final TimeUnit unit)
+        {
+            this.validateAfterInactivityMillis =
+                requireNonNegative(unit.toMillis(duration), "validateAfterInactivity");
+            return this;
+        }
+
+        /**
+         * Set how long a pooled connection may be idle before a background thread closes it,
+         * defaults to {@link DefaultOptions#HTTP_IDLE_CONNECTION_TIMEOUT_MS}.
+         *
+         * @param duration of inactivity, 0 to leave idle connections open.
+         * @param unit     of the duration.
+         * @return this builder.
+         */
+        public Builder withIdleTimeout(final long duration, final TimeUnit unit)
+        {
+            this.idleTimeoutMillis = requireNonNegative(unit.toMillis(duration), "idleTimeout");
+            return this;
+        }
+
+        /**
+         * Specify if a background thread should close pooled connections whose keep-alive has
+         * expired, defaults to true.
+         *
+         * @param val true to close expired connections.
+         * @return this builder.
+         */
+        public Builder withEvictExpired(final boolean val)
+        {
+            this.evictExpired = val;
+            return this;
+        }
+
+        /**
+         * Set the longest a connection is kept alive for reuse, defaults to {@link
+         * DefaultOptions#HTTP_KEEP_ALIVE_MS}.
+         *
+         * @param duration to keep connections alive for.
+         * @param unit     of the duration.
+         * @return this builder.
+         */
+        public Builder withKeepAlive(final long duration, final TimeUnit unit)
+        {
+            this.keepAliveMillis = requirePositive(unit.toMillis(duration), "keepAlive");
+            return this;
+        }
+
+        @Override
+        public ConnectionPoolConfig build()
+        {
+            return new ConnectionPoolConfig(this);
+        }
+    }
+
+    /**
+     * Convert the uri of an endpoint to the host of its route, with the port resolved from the
+     * scheme if not given.
+     *
+     * @param uri of the endpoint.
+     * @return host of the route.
+     */
+    static HttpHost toHttpHost(final URI uri)
+    {
+        final String scheme = uri.getScheme() == null ? "http" : uri.getScheme();
+        int port = uri.getPort();
+        if (port < 0)
+        {
+            port = "https".equalsIgnoreCase(scheme) ? 443 : 80;
+        }
+        return new HttpHost(uri.getHost(), port, scheme);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Snapshot of the use of the HTTP connection pool of a {@link RestClient}, for the whole pool or
+ * for a single route.
+ *
+ * @since 2.0
+ */
+public class ConnectionPoolStats
+{
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+    private final Map<String, ConnectionPoolStats> routeStats;
+
+    ConnectionPoolStats(final int leased, final int pending, final int available, final int max,
+        final Map<String, ConnectionPoolStats> routeStats)
+    {
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+        this.routeStats = Collections.unmodifiableMap(routeStats);
+    }
+
+    /**
+     * @return the number of connections in use by requests.
+     */
+    public int getLeased()
+    {
+        return this.leased;
+    }
+
+    /**
+     * @return the number of requests waiting for a connection.
+     */
+    public int getPending()
+    {
+        return this.pending;
+    }
+
+    /**
+     * @return the number of idle connections held open for reuse.
+     */
+    public int getAvailable()
+    {
+        return this.available;
+    }
+
+    /**
+     * @return the maximum number of connections allowed.
+     */
+    public int getMax()
+    {
+        return this.max;
+    }
+
+    /**
+     * @return statistics of each route the pool holds connections for, keyed by the scheme, host
+     * and port of the route; empty for the statistics of a single route.
+     */
+    public Map<String, ConnectionPoolStats> getRouteStats()
+    {
+        return this.routeStats;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConnectionPoolStats(leased="
+            + this.leased
+            + ", pending="
+            + this.pending
+            + ", available="
+            + this.available
+            + ", max="
+            + this.max
+            + ")";
+    }
+}
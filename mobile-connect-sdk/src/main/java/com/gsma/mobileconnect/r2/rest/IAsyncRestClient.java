@@ -0,0 +1,174 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link IRestClient}, for clients which issue requests without
+ * holding the calling thread for the round trip to the operator.  Responses are delivered through
+ * a {@link CallbackFuture}, which fails with a {@link RequestFailedException} where the equivalent
+ * {@link IRestClient} method would throw one; callbacks attached to it run on the thread
+ * completing the request, so should not block.  <p> The SDK does not provide a non-blocking
+ * implementation; this is the point at which one built on a non-blocking http client may be
+ * supplied.  A blocking client may be used through {@link AsyncRestClientAdapter}, which still
+ * holds a thread for each request, and the services may be run on a non-blocking client through
+ * {@link BlockingRestClientAdapter}. </p>
+ *
+ * @since 2.0
+ */
+public interface IAsyncRestClient
+{
+    /**
+     * Executes a HTTP GET to the supplied uri optional basic auth and optional cookies.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     * @see IRestClient#get(URI, RestAuthentication, String, List, Iterable)
+     */
+    CallbackFuture<RestResponse> getAsync(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP GET to the supplied uri optional basic auth and optional cookies, reading
+     * the json body of the response as it is received.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @param responseTypes  to read the body into, null to read it as a String.
+     * @return future RestResponse.
+     * @see IRestClient#get(URI, RestAuthentication, String, List, Iterable, JsonResponseTypes)
+     */
+    CallbackFuture<RestResponse> getAsync(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with x-www-form-urlencoded content and optional
+     * cookies.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     * @see IRestClient#postFormData(URI, RestAuthentication, List, String, Iterable)
+     */
+    CallbackFuture<RestResponse> postFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final List<KeyValuePair> formData,
+        final String sourceIp, final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with x-www-form-urlencoded content and optional
+     * cookies, reading the json body of the response as it is received.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @param responseTypes  to read the body into, null to read it as a String.
+     * @return future RestResponse.
+     * @see IRestClient#postFormData(URI, RestAuthentication, List, String, Iterable,
+     * JsonResponseTypes)
+     */
+    CallbackFuture<RestResponse> postFormDataAsync(final URI uri,
+        final RestAuthentication authentication, final List<KeyValuePair> formData,
+        final String sourceIp, final Iterable<KeyValuePair> cookies,
+        final JsonResponseTypes responseTypes);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with the supplied content serialised to json, with
+     * optional cookies.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request to serialise as json.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     * @see IRestClient#postJsonContent(URI, RestAuthentication, Object, String, Iterable)
+     */
+    CallbackFuture<RestResponse> postJsonContentAsync(final URI uri,
+        final RestAuthentication authentication, final Object content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with the supplied content type and content, with
+     * optional cookies.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request.
+     * @param contentType    of the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     * @see IRestClient#postStringContent(URI, RestAuthentication, String, ContentType, String,
+     * Iterable)
+     */
+    CallbackFuture<RestResponse> postStringContentAsync(final URI uri,
+        final RestAuthentication authentication, final String content,
+        final ContentType contentType, final String sourceIp,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Executes a HTTP POST to the supplied uri with the supplied HttpContent object, with optional
+     * cookies.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param content        of the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @return future RestResponse.
+     * @see IRestClient#postContent(URI, RestAuthentication, HttpEntity, String, Iterable)
+     */
+    CallbackFuture<RestResponse> postContentAsync(final URI uri,
+        final RestAuthentication authentication, final HttpEntity content, final String sourceIp,
+        final Iterable<KeyValuePair> cookies);
+
+    /**
+     * Attempts to follow a redirect path until a concrete url is loaded or the expectedRedirectUrl
+     * is reached.
+     *
+     * @param authUrl        Target uri to attempt a HTTP GET
+     * @param redirectUrl    Redirect url expected, if a redirect with this location is hit the
+     *                       absolute uri of the location will be returned
+     * @param authentication value to be used (if auth required).
+     * @return future final redirected url.
+     * @see IRestClient#getFinalRedirect(URI, URI, RestAuthentication)
+     */
+    CallbackFuture<URI> getFinalRedirectAsync(final URI authUrl, final URI redirectUrl,
+        final RestAuthentication authentication);
+}
@@ -0,0 +1,38 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.apache.http.HttpHost;
+
+/**
+ * Receives notice of the circuit to a host changing state, registered with {@link
+ * CircuitBreakerRestClient.Builder#withListener(ICircuitBreakerListener)}.
+ *
+ * @since 2.0
+ */
+public interface ICircuitBreakerListener
+{
+    /**
+     * Called on the thread whose request caused the change, after the change has been made.
+     *
+     * @param host whose circuit changed state.
+     * @param from previous state of the circuit.
+     * @param to   new state of the circuit.
+     */
+    void onStateChange(final HttpHost host, final CircuitBreaker.State from,
+        final CircuitBreaker.State to);
+}
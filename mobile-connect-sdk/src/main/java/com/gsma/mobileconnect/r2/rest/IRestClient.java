@@ -47,6 +47,23 @@ public interface IRestClient
         final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies)
         throws RequestFailedException;
 
+    /**
+     * Executes a HTTP GET to the supplied uri optional basic auth and optional cookies, reading
+     * the json body of the response as it is received.
+     *
+     * @param uri            of the GET.
+     * @param authentication value to be used (if auth required).
+     * @param sourceIp       of the request (if identified).
+     * @param queryParams    to be added to the GET request.
+     * @param cookies        to add to the request (if required).
+     * @param responseTypes  to read the body into, null to read it as a String.
+     * @return RestResponse, whose content is read by {@link RestResponse#readContent}.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    RestResponse get(final URI uri, final RestAuthentication authentication, final String sourceIp,
+        final List<KeyValuePair> queryParams, final Iterable<KeyValuePair> cookies,
+        final JsonResponseTypes responseTypes) throws RequestFailedException;
+
     /**
      * Executes a HTTP POST to the supplied uri with x-www-form-urlencoded content and optional
      * cookies
@@ -63,6 +80,24 @@ public interface IRestClient
         final List<KeyValuePair> formData, final String sourceIp,
         final Iterable<KeyValuePair> cookies) throws RequestFailedException;
 
+    /**
+     * Executes a HTTP POST to the supplied uri with x-www-form-urlencoded content and optional
+     * cookies, reading the json body of the response as it is received.
+     *
+     * @param uri            of the POST.
+     * @param authentication value to be used (if auth required).
+     * @param formData       to be added to the POST request.
+     * @param sourceIp       of the request (if identified).
+     * @param cookies        to add to the request (if required).
+     * @param responseTypes  to read the body into, null to read it as a String.
+     * @return RestResponse, whose content is read by {@link RestResponse#readContent}.
+     * @throws RequestFailedException if there is a failure issuing the request.
+     */
+    RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException;
+
     /**
      * Executes a HTTP POST to the supplied uri with the supplied content deserialize to json, with
      * optional cookies.
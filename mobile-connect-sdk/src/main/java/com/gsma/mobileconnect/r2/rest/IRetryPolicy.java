@@ -0,0 +1,43 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+/**
+ * Decides whether, and after what delay, a failed request made by {@link RestClient} is retried.
+ * <p> Only GET requests are offered to the policy.  Posts are never retried whatever the policy
+ * decides, as replaying one may not be safe; the token request, for example, carries an
+ * authorization code which may be redeemed only once. </p>
+ *
+ * @see BackoffRetryPolicy
+ * @see RestClient.Builder#withRetryPolicy(IRetryPolicy)
+ * @since 2.0
+ */
+public interface IRetryPolicy
+{
+    /**
+     * Delay returned by {@link #getRetryDelay(RetryAttempt)} to give up.
+     */
+    long NO_RETRY = -1L;
+
+    /**
+     * Decide whether to retry a request which failed or received an error response.
+     *
+     * @param attempt the attempt which failed.
+     * @return delay in milliseconds before the request is retried, or {@link #NO_RETRY}.
+     */
+    long getRetryDelay(final RetryAttempt attempt);
+}
@@ -0,0 +1,92 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+
+/**
+ * Types into which the json body of a response is read as it is received, rather than being
+ * held as a String and parsed afterwards; see {@link RestResponse#readContent(Class,
+ * com.gsma.mobileconnect.r2.json.IJsonService)}.  A body with an error status code may be read
+ * into a different type to other bodies.
+ *
+ * @since 2.0
+ */
+public final class JsonResponseTypes
+{
+    private final Class<?> type;
+    private final Class<?> errorType;
+
+    private JsonResponseTypes(final Class<?> type, final Class<?> errorType)
+    {
+        this.type = type;
+        this.errorType = errorType;
+    }
+
+    /**
+     * @param type to read all bodies into.
+     * @return response types reading all bodies into type.
+     */
+    public static JsonResponseTypes of(final Class<?> type)
+    {
+        ObjectUtils.requireNonNull(type, "type");
+        return new JsonResponseTypes(type, type);
+    }
+
+    /**
+     * @param type      to read bodies with a successful status code into, null to leave them as
+     *                  a String.
+     * @param errorType to read bodies with an error status code into, null to leave them as a
+     *                  String.
+     * @return response types reading bodies by status code.
+     */
+    public static JsonResponseTypes of(final Class<?> type, final Class<?> errorType)
+    {
+        return new JsonResponseTypes(type, errorType);
+    }
+
+    /**
+     * @param statusCode of the response.
+     * @return type to read the body of the response into, null to leave it as a String.
+     */
+    public Class<?> forStatus(final int statusCode)
+    {
+        return HttpUtils.isHttpErrorCode(statusCode) ? this.errorType : this.type;
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        return other instanceof JsonResponseTypes
+            && ((JsonResponseTypes) other).type == this.type
+            && ((JsonResponseTypes) other).errorType == this.errorType;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (this.type == null ? 0 : this.type.hashCode())
+            + (this.errorType == null ? 0 : this.errorType.hashCode());
+    }
+
+    @Override
+    public String toString()
+    {
+        return "JsonResponseTypes(type=" + this.type + ", errorType=" + this.errorType + ")";
+    }
+}
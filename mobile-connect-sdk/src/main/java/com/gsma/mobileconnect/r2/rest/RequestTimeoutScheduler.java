@@ -0,0 +1,258 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
+import com.gsma.mobileconnect.r2.utils.TimerWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the tasks aborting requests which time out. <p> Deadlines are held on a {@link TimerWheel}
+ * advanced by a single daemon thread each tick, so scheduling and cancelling a timeout cost O(1)
+ * and take no lock, unlike the delay queue of a ScheduledExecutorService.  Timeouts are handed to
+ * the thread through a lock free queue; a timeout cancelled once its request completes stays on
+ * the wheel, having released its task, until its deadline passes. </p> <p> Timeouts run up to one
+ * tick late, which is negligible against the timeout of a request. </p>
+ *
+ * @since 2.0
+ */
+public final class RequestTimeoutScheduler implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestTimeoutScheduler.class);
+
+    private final long tickMillis;
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean closed = false;
+    private volatile int pendingCount = 0;
+
+    private RequestTimeoutScheduler(final Builder builder)
+    {
+        this.tickMillis = builder.tickMillis;
+        this.thread = new Thread(new Ticker(), builder.threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+
+        LOGGER.info("New instance of RequestTimeoutScheduler created with tick={} ms",
+            this.tickMillis);
+    }
+
+    /**
+     * @return the scheduler shared by rest clients not given one of their own, started on first
+     * use and never closed.
+     */
+    static RequestTimeoutScheduler shared()
+    {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Schedule a task to run once the delay has passed, unless cancelled first.
+     *
+     * @param task  to run, should not block.
+     * @param delay before running the task.
+     * @param unit  of the delay.
+     * @return future which may be used to cancel the task.
+     * @throws RejectedExecutionException if this scheduler has been closed.
+     */
+    public Future<?> schedule(final Runnable task, final long delay, final TimeUnit unit)
+    {
+        ObjectUtils.requireNonNull(task, "task");
+        if (this.closed)
+        {
+            throw new RejectedExecutionException("RequestTimeoutScheduler has been closed");
+        }
+
+        final Timeout timeout =
+            new Timeout(task, System.currentTimeMillis() + unit.toMillis(delay));
+        this.added.offer(timeout);
+        this.scheduledCount.incrementAndGet();
+        return timeout;
+    }
+
+    /**
+     * @return number of tasks scheduled.
+     */
+    public long getScheduledCount()
+    {
+        return this.scheduledCount.get();
+    }
+
+    /**
+     * @return number of tasks which reached their deadline without being cancelled and so ran.
+     */
+    public long getExpiredCount()
+    {
+        return this.expiredCount.get();
+    }
+
+    /**
+     * @return number of tasks on the wheel at the last tick, including cancelled tasks whose
+     * deadline has not yet passed.
+     */
+    public int getPendingCount()
+    {
+        return this.pendingCount;
+    }
+
+    /**
+     * Stop the thread running timeouts; timeouts still pending never run.
+     */
+    @Override
+    public void close()
+    {
+        this.closed = true;
+        this.thread.interrupt();
+    }
+
+    private static final class Timeout extends FutureTask<Void>
+    {
+        private final long deadlineMillis;
+
+        private Timeout(final Runnable task, final long deadlineMillis)
+        {
+            super(task, null);
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    /**
+     * Moves timeouts added onto the wheel and runs those due; the only thread to touch the wheel.
+     */
+    private final class Ticker implements Runnable
+    {
+        private final TimerWheel<Timeout> timerWheel = new TimerWheel<Timeout>(
+            RequestTimeoutScheduler.this.tickMillis, System.currentTimeMillis());
+        private final List<Timeout> due = new ArrayList<Timeout>();
+
+        @Override
+        public void run()
+        {
+            while (!RequestTimeoutScheduler.this.closed)
+            {
+                try
+                {
+                    Thread.sleep(RequestTimeoutScheduler.this.tickMillis);
+                }
+                catch (final InterruptedException ie)
+                {
+                    LOGGER.debug("RequestTimeoutScheduler interrupted, closed={}",
+                        RequestTimeoutScheduler.this.closed);
+                    continue;
+                }
+
+                try
+                {
+                    this.tick();
+                }
+                catch (final RuntimeException re)
+                {
+                    LOGGER.warn("Failed to run request timeouts", re);
+                }
+            }
+        }
+
+        private void tick()
+        {
+            Timeout next;
+            while ((next = RequestTimeoutScheduler.this.added.poll()) != null)
+            {
+                if (!next.isCancelled())
+                {
+                    this.timerWheel.schedule(next, next.deadlineMillis, this.due);
+                }
+            }
+
+            this.timerWheel.advance(System.currentTimeMillis(), this.due);
+
+            for (final Timeout timeout : this.due)
+            {
+                if (!timeout.isCancelled())
+                {
+                    RequestTimeoutScheduler.this.expiredCount.incrementAndGet();
+                    timeout.run();
+                }
+            }
+            this.due.clear();
+            RequestTimeoutScheduler.this.pendingCount = this.timerWheel.size();
+        }
+    }
+
+    private static final class SharedHolder
+    {
+        private static final RequestTimeoutScheduler INSTANCE = new Builder()
+            .withThreadName("mobileconnect-request-timeouts")
+            .build();
+    }
+
+    public static final class Builder implements IBuilder<RequestTimeoutScheduler>
+    {
+        private long tickMillis = DefaultOptions.HTTP_TIMEOUT_TICK_MS;
+        private String threadName = "request-timeouts";
+
+        /**
+         * Set the resolution of the timeouts, defaults to {@link
+         * DefaultOptions#HTTP_TIMEOUT_TICK_MS}.
+         *
+         * @param duration of each tick, must be positive.
+         * @param unit     of the duration.
+         * @return this builder.
+         */
+        public Builder withTick(final long duration, final TimeUnit unit)
+        {
+            final long millis = unit.toMillis(duration);
+            if (millis <= 0)
+            {
+                throw new IllegalArgumentException(
+                    String.format("tick must be at least 1 ms, was %d %s", duration, unit));
+            }
+            this.tickMillis = millis;
+            return this;
+        }
+
+        /**
+         * @param val name of the thread running timeouts.
+         * @return this builder.
+         */
+        public Builder withThreadName(final String val)
+        {
+            this.threadName = ObjectUtils.requireNonNull(val, "threadName");
+            return this;
+        }
+
+        @Override
+        public RequestTimeoutScheduler build()
+        {
+            return new RequestTimeoutScheduler(this);
+        }
+    }
+}
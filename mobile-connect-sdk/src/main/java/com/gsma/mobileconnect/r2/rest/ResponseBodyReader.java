@@ -0,0 +1,220 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the bodies of responses, failing with a {@link ResponseTooLargeException} as soon as a
+ * body is known to exceed its limit. <p> Bodies read to a String are read through a pool of
+ * reusable buffers, so that once the pool is warm the only allocation is the String itself unless
+ * a body is larger than a buffer.  Buffers are taken from the pool for the duration of a read
+ * and the pool holds no more than a fixed number of them. </p>
+ *
+ * @since 2.0
+ */
+class ResponseBodyReader
+{
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * @param bufferSize size of each pooled buffer.
+     * @param maxPooled  maximum number of buffers held by the pool.
+     */
+    ResponseBodyReader(final int bufferSize, final int maxPooled)
+    {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Read a body to a String, decoded as {@link org.apache.http.util.EntityUtils#toString(
+     * HttpEntity)} would.
+     *
+     * @param entity   to read, may be null.
+     * @param maxBytes maximum size of the body.
+     * @return the body, null if there is no entity.
+     * @throws ResponseTooLargeException if the body exceeds maxBytes.
+     * @throws IOException               if the body could not be read.
+     */
+    String readString(final HttpEntity entity, final long maxBytes) throws IOException
+    {
+        if (entity == null)
+        {
+            return null;
+        }
+
+        final InputStream content = this.limit(entity, maxBytes);
+        if (content == null)
+        {
+            return null;
+        }
+
+        byte[] buffer = this.acquire();
+        try
+        {
+            int count = 0;
+            int read;
+            while ((read = content.read(buffer, count, buffer.length - count)) != -1)
+            {
+                count += read;
+                if (count == buffer.length)
+                {
+                    final byte[] larger = new byte[(int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.min(maxBytes + 1, buffer.length * 2L))];
+                    System.arraycopy(buffer, 0, larger, 0, count);
+                    this.release(buffer);
+                    buffer = larger;
+                }
+            }
+            return new String(buffer, 0, count, charsetOf(entity));
+        }
+        finally
+        {
+            this.release(buffer);
+            content.close();
+        }
+    }
+
+    /**
+     * Open the content of a body, failing once more than maxBytes are read from it.
+     *
+     * @param entity   to read.
+     * @param maxBytes maximum size of the body.
+     * @return stream of the content, null if there is none.
+     * @throws ResponseTooLargeException if the body declares a length exceeding maxBytes.
+     * @throws IOException               if the body could not be opened.
+     */
+    InputStream limit(final HttpEntity entity, final long maxBytes) throws IOException
+    {
+        if (entity.getContentLength() > maxBytes)
+        {
+            throw new ResponseTooLargeException(maxBytes, entity.getContentLength());
+        }
+
+        final InputStream content = entity.getContent();
+        return content == null ? null : new LimitedInputStream(content, maxBytes);
+    }
+
+    /**
+     * @return number of buffers held by the pool.
+     */
+    int getPooledCount()
+    {
+        return this.pooled.get();
+    }
+
+    private byte[] acquire()
+    {
+        final byte[] buffer = this.pool.poll();
+        if (buffer == null)
+        {
+            return new byte[this.bufferSize];
+        }
+        this.pooled.decrementAndGet();
+        return buffer;
+    }
+
+    private void release(final byte[] buffer)
+    {
+        if (buffer.length != this.bufferSize)
+        {
+            return;
+        }
+        if (this.pooled.incrementAndGet() <= this.maxPooled)
+        {
+            this.pool.offer(buffer);
+        }
+        else
+        {
+            this.pooled.decrementAndGet();
+        }
+    }
+
+    private static Charset charsetOf(final HttpEntity entity)
+    {
+        final ContentType contentType = ContentType.get(entity);
+        final Charset charset = contentType == null ? null : contentType.getCharset();
+        return charset == null ? Consts.ISO_8859_1 : charset;
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream
+    {
+        private final long maxBytes;
+        private long count = 0;
+
+        private LimitedInputStream(final InputStream in, final long maxBytes)
+        {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            final int b = super.read();
+            if (b != -1)
+            {
+                this.count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException
+        {
+            final int read = super.read(b, off, len);
+            if (read > 0)
+            {
+                this.count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException
+        {
+            final long skipped = super.skip(n);
+            if (skipped > 0)
+            {
+                this.count(skipped);
+            }
+            return skipped;
+        }
+
+        private void count(final long read) throws ResponseTooLargeException
+        {
+            this.count += read;
+            if (this.count > this.maxBytes)
+            {
+                throw new ResponseTooLargeException(this.maxBytes, this.count);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import java.io.IOException;
+
+/**
+ * Cause of a {@link com.gsma.mobileconnect.r2.exceptions.RequestFailedException} where the body
+ * of a response exceeded the maximum size allowed, see {@link
+ * RestClient.Builder#withMaxResponseSize(long)}.  The body is not read beyond the limit.
+ *
+ * @since 2.0
+ */
+public class ResponseTooLargeException extends IOException
+{
+    private final long maxBytes;
+    private final long length;
+
+    /**
+     * @param maxBytes maximum size of the body allowed.
+     * @param length   size of the body declared by the response, or the number of bytes read
+     *                 before the limit was exceeded.
+     */
+    public ResponseTooLargeException(final long maxBytes, final long length)
+    {
+        super(String.format("Response body of at least %d bytes exceeds the limit of %d bytes",
+            length, maxBytes));
+        this.maxBytes = maxBytes;
+        this.length = length;
+    }
+
+    /**
+     * @return maximum size of the body allowed.
+     */
+    public long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    /**
+     * @return size of the body declared by the response, or the number of bytes read before the
+     * limit was exceeded.
+     */
+    public long getLength()
+    {
+        return this.length;
+    }
+}
@@ -21,6 +21,7 @@ import com.gsma.mobileconnect.r2.constants.Headers;
 import com.gsma.mobileconnect.r2.exceptions.HeadlessOperationFailedException;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.json.JsonSerializationException;
 import com.gsma.mobileconnect.r2.utils.*;
 import org.apache.http.*;
@@ -32,45 +33,72 @@ import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Concrete implementation of {@link IRestClient}
  *
  * @since 2.0
  */
-public class RestClient implements IRestClient
+public class RestClient implements IRestClient, Closeable
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(RestClient.class);
 
     private final IJsonService jsonService;
-    private final ScheduledExecutorService scheduledExecutorService;
+    private final RequestTimeoutScheduler timeoutScheduler;
+    private final AtomicLong timedOutCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
     private final HttpClient httpClient;
+    private final ConnectionPool connectionPool;
     private final long timeout;
     private final long waitTime;
     private final RequestConfig requestConfig;
+    private final ResponseBodyReader bodyReader = new ResponseBodyReader(
+        DefaultOptions.HTTP_READ_BUFFER_BYTES, DefaultOptions.HTTP_READ_BUFFER_POOL_SIZE);
+    private final long maxResponseBytes;
+    private final Map<JsonResponseTypes, Long> maxResponseBytesByType;
+    private final IRetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+    private final Map<JsonResponseTypes, RetryBudget> retryBudgetsByType;
 
     private RestClient(Builder builder)
     {
         this.jsonService = builder.jsonService;
-        this.scheduledExecutorService = builder.scheduledExecutorService;
-        this.httpClient = builder.httpClient;
+        this.timeoutScheduler = builder.timeoutScheduler == null
+                                ? RequestTimeoutScheduler.shared()
+                                : builder.timeoutScheduler;
+        this.connectionPool = builder.connectionPool;
+        this.httpClient =
+            this.connectionPool == null ? builder.httpClient : this.connectionPool.getHttpClient();
         this.timeout = builder.timeout;
         this.waitTime = builder.waitTime;
+        this.maxResponseBytes = builder.maxResponseBytes;
+        this.maxResponseBytesByType =
+            new HashMap<JsonResponseTypes, Long>(builder.maxResponseBytesByType);
+        this.retryPolicy = builder.retryPolicy;
+        this.retryBudget =
+            builder.retryBudget == null ? new RetryBudget.Builder().build() : builder.retryBudget;
+        this.retryBudgetsByType =
+            new HashMap<JsonResponseTypes, RetryBudget>(builder.retryBudgetsByType);
 
         final int timeoutAsInt = (int) this.timeout;
 
@@ -82,13 +110,70 @@ public class RestClient implements IRestClient
             .setRedirectsEnabled(false)
             .build();
 
-        LOGGER.info("New instance of RestClient created with timeout={} ms", timeoutAsInt);
+        LOGGER.info("New instance of RestClient created with timeout={} ms, retryPolicy={}",
+            timeoutAsInt, this.retryPolicy);
+    }
+
+    /**
+     * @return statistics of the connection pool of the http client built by this rest client,
+     * null if the http client was supplied to its builder.
+     */
+    public ConnectionPoolStats getConnectionPoolStats()
+    {
+        return this.connectionPool == null ? null : this.connectionPool.getStats();
+    }
+
+    /**
+     * @return number of requests aborted as they had not completed within the timeout.
+     */
+    public long getTimedOutRequestCount()
+    {
+        return this.timedOutCount.get();
+    }
+
+    /**
+     * @return number of times a request has been retried.
+     */
+    public long getRetryCount()
+    {
+        return this.retryCount.get();
+    }
+
+    private long getMaxResponseBytes(final JsonResponseTypes responseTypes)
+    {
+        final Long maxBytes =
+            responseTypes == null ? null : this.maxResponseBytesByType.get(responseTypes);
+        return maxBytes == null ? this.maxResponseBytes : maxBytes;
+    }
+
+    /**
+     * Close the http client built by this rest client, closing its pooled connections.  A http
+     * client supplied to the builder is left open for its owner to close.
+     *
+     * @throws IOException if the http client could not be closed.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.connectionPool != null)
+        {
+            this.connectionPool.close();
+        }
     }
 
     @Override
     public RestResponse get(final URI uri, final RestAuthentication authentication,
         final String sourceIp, final List<KeyValuePair> queryParams,
         final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.get(uri, authentication, sourceIp, queryParams, cookies, null);
+    }
+
+    @Override
+    public RestResponse get(final URI uri, final RestAuthentication authentication,
+        final String sourceIp, final List<KeyValuePair> queryParams,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
     {
         LOGGER.debug("Getting from uri={} for sourceIp={}",
             LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
@@ -99,14 +184,10 @@ public class RestClient implements IRestClient
             uriBuilder.addParameters(new ArrayList<NameValuePair>(queryParams));
         }
 
+        final URI requestUri;
         try
         {
-            final HttpUriRequest request = this
-                .createRequest(HttpUtils.HttpMethod.GET, uriBuilder.build(), authentication,
-                    sourceIp, cookies)
-                .build();
-
-            return this.submitRequest(request, true);
+            requestUri = uriBuilder.build();
         }
         catch (final URISyntaxException use)
         {
@@ -114,12 +195,118 @@ public class RestClient implements IRestClient
                 LogUtils.maskUri(uri, LOGGER, Level.WARN), use);
             throw new RequestFailedException(HttpUtils.HttpMethod.GET, uri, use);
         }
+
+        if (this.retryPolicy != null)
+        {
+            this.getRetryBudget(responseTypes).onRequest();
+        }
+
+        int attempt = 1;
+        long delay = 0L;
+        while (true)
+        {
+            // an aborted request cannot be reused, so each attempt builds its own
+            final HttpUriRequest request = this
+                .createRequest(HttpUtils.HttpMethod.GET, requestUri, authentication, sourceIp,
+                    cookies)
+                .build();
+
+            RestResponse response = null;
+            RequestFailedException failure = null;
+            try
+            {
+                response = this.submitRequest(request, true, responseTypes);
+            }
+            catch (final RequestFailedException rfe)
+            {
+                failure = rfe;
+            }
+
+            final long previousDelay = delay;
+            delay = this.getRetryDelay(
+                new RetryAttempt(request.getMethod(), requestUri, responseTypes, attempt,
+                    previousDelay, response, failure));
+            if (delay < 0 || !this.sleepBeforeRetry(request, attempt, delay))
+            {
+                if (failure != null)
+                {
+                    throw failure;
+                }
+                return response;
+            }
+
+            this.retryCount.incrementAndGet();
+            attempt++;
+        }
+    }
+
+    /**
+     * Consult the retry policy, and if it would retry, the retry budget.
+     *
+     * @return delay before retrying, or {@link IRetryPolicy#NO_RETRY}.
+     */
+    private long getRetryDelay(final RetryAttempt attempt)
+    {
+        if (this.retryPolicy == null
+            || (attempt.getFailure() == null
+                && !HttpUtils.isHttpErrorCode(attempt.getStatusCode())))
+        {
+            return IRetryPolicy.NO_RETRY;
+        }
+
+        final long delay = this.retryPolicy.getRetryDelay(attempt);
+        if (delay >= 0 && !this.getRetryBudget(attempt.getResponseTypes()).tryAcquire())
+        {
+            LOGGER.warn("Not retrying httpMethod={} request to uri={}; retry budget exhausted",
+                attempt.getMethod(), LogUtils.maskUri(attempt.getUri(), LOGGER, Level.WARN));
+            return IRetryPolicy.NO_RETRY;
+        }
+        return delay;
+    }
+
+    /**
+     * @param responseTypes identifying the operation, null for requests read as a String.
+     * @return the budget limiting retries of requests for the operation.
+     */
+    private RetryBudget getRetryBudget(final JsonResponseTypes responseTypes)
+    {
+        final RetryBudget budget =
+            responseTypes == null ? null : this.retryBudgetsByType.get(responseTypes);
+        return budget == null ? this.retryBudget : budget;
+    }
+
+    private boolean sleepBeforeRetry(final HttpUriRequest request, final int attempt,
+        final long delay)
+    {
+        LOGGER.info("Retrying httpMethod={} request to uri={} after attempt={}, delay={} ms",
+            request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.INFO), attempt,
+            delay);
+        try
+        {
+            Thread.sleep(delay);
+            return true;
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            LOGGER.info("Interrupted while waiting to retry; giving up");
+            return false;
+        }
     }
 
     @Override
     public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
         final List<KeyValuePair> formData, final String sourceIp,
         final Iterable<KeyValuePair> cookies) throws RequestFailedException
+    {
+        return this.postFormData(uri, authentication, formData, sourceIp, cookies, null);
+    }
+
+    @Override
+    public RestResponse postFormData(final URI uri, final RestAuthentication authentication,
+        final List<KeyValuePair> formData, final String sourceIp,
+        final Iterable<KeyValuePair> cookies, final JsonResponseTypes responseTypes)
+        throws RequestFailedException
     {
         LOGGER.debug("Posting form data to uri={} for sourceIp={}",
             LogUtils.maskUri(uri, LOGGER, Level.DEBUG), sourceIp);
@@ -130,7 +317,7 @@ public class RestClient implements IRestClient
                 ObjectUtils.requireNonNull(formData, "formData").toArray(new NameValuePair[] {}))
             .build();
 
-        return this.submitRequest(request, true);
+        return this.submitRequest(request, true, responseTypes);
     }
 
     @Override
@@ -182,7 +369,7 @@ public class RestClient implements IRestClient
             .setEntity(ObjectUtils.requireNonNull(content, "content"))
             .build();
 
-        return this.submitRequest(request, true);
+        return this.submitRequest(request, true, null);
     }
 
     @Override
@@ -228,7 +415,7 @@ public class RestClient implements IRestClient
             }
             RequestBuilder requestBuilder =
                 this.createRequest(HttpUtils.HttpMethod.GET, nextUrl, authentication, null, null);
-            response = this.submitRequest(requestBuilder.build(), false);
+            response = this.submitRequest(requestBuilder.build(), false, null);
 
             locationUri = this.retrieveLocation(response);
 
@@ -320,20 +507,22 @@ public class RestClient implements IRestClient
     }
 
     /**
-     * Submits a request to the executor.  When the request runs, an additional task is scheduled in
-     * the future which will abort the request after the configured timeout period.
+     * Submits a request to the http client.  A task is scheduled on the timeout scheduler which
+     * will abort the request after the configured timeout period, unless it completes or fails
+     * first; only a request seen to have been aborted is counted as timed out.
      *
-     * @param request   to be run.
-     * @param addHeader boolean flag to specify if headers should be added
+     * @param request       to be run.
+     * @param addHeader     boolean flag to specify if headers should be added
+     * @param responseTypes to read the body into, null to read it as a String.
      * @return the RestResponse.
      * @throws RequestFailedException if there is a failure issuing the request.
      */
-    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader)
-        throws RequestFailedException
+    private RestResponse submitRequest(final HttpUriRequest request, final boolean addHeader,
+        final JsonResponseTypes responseTypes) throws RequestFailedException
     {
         ObjectUtils.requireNonNull(request, "request");
 
-        final Future<?> abortFuture = this.scheduledExecutorService.schedule(new Runnable()
+        final Future<?> abortFuture = this.timeoutScheduler.schedule(new Runnable()
         {
             @Override
             public void run()
@@ -358,12 +547,15 @@ public class RestClient implements IRestClient
                 LogUtils.maskUri(request.getURI(), LOGGER, Level.DEBUG));
 
             return this.httpClient.execute(request,
-                new RestResponseHandler(request.getMethod(), request.getURI(), abortFuture));
+                new RestResponseHandler(request.getMethod(), request.getURI(), abortFuture,
+                    responseTypes, this.jsonService, this.bodyReader,
+                    this.getMaxResponseBytes(responseTypes)));
         }
         catch (final InterruptedIOException ioe)
         {
             if (request.isAborted())
             {
+                this.timedOutCount.incrementAndGet();
                 LOGGER.warn("Failed to perform httpMethod={} to uri={}; timed out, timeout={} ms",
                     request.getMethod(), LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN),
                     this.timeout, ioe);
@@ -387,6 +579,11 @@ public class RestClient implements IRestClient
                 LogUtils.maskUri(request.getURI(), LOGGER, Level.WARN), e);
             throw new RequestFailedException(request.getMethod(), request.getURI(), e);
         }
+        finally
+        {
+            // a request which fails before a response arrives must not be aborted later
+            abortFuture.cancel(false);
+        }
     }
 
     static class RestResponseHandler implements ResponseHandler<RestResponse>
@@ -394,12 +591,29 @@ public class RestClient implements IRestClient
         private final String method;
         private final URI uri;
         private final Future<?> abortFuture;
+        private final JsonResponseTypes responseTypes;
+        private final IJsonService jsonService;
+        private final ResponseBodyReader bodyReader;
+        private final long maxBytes;
 
         RestResponseHandler(final String method, final URI uri, final Future<?> abortFuture)
+        {
+            this(method, uri, abortFuture, null, null,
+                new ResponseBodyReader(DefaultOptions.HTTP_READ_BUFFER_BYTES, 1),
+                DefaultOptions.HTTP_MAX_RESPONSE_BYTES);
+        }
+
+        RestResponseHandler(final String method, final URI uri, final Future<?> abortFuture,
+            final JsonResponseTypes responseTypes, final IJsonService jsonService,
+            final ResponseBodyReader bodyReader, final long maxBytes)
         {
             this.method = method;
             this.uri = uri;
             this.abortFuture = abortFuture;
+            this.responseTypes = responseTypes;
+            this.jsonService = jsonService;
+            this.bodyReader = bodyReader;
+            this.maxBytes = maxBytes;
         }
 
         @Override
@@ -418,13 +632,88 @@ public class RestClient implements IRestClient
                 headersBuilder.add(header.getName(), header.getValue());
             }
 
-            return new RestResponse.Builder()
+            final int statusCode = httpResponse.getStatusLine().getStatusCode();
+            final RestResponse.Builder builder = new RestResponse.Builder()
                 .withMethod(this.method)
                 .withUri(this.uri)
-                .withStatusCode(httpResponse.getStatusLine().getStatusCode())
-                .withHeaders(headersBuilder.build())
-                .withContent(EntityUtils.toString(httpResponse.getEntity()))
-                .build();
+                .withStatusCode(statusCode)
+                .withHeaders(headersBuilder.build());
+
+            final HttpEntity entity = httpResponse.getEntity();
+            final Class<?> contentType =
+                this.responseTypes == null ? null : this.responseTypes.forStatus(statusCode);
+            try
+            {
+                if (contentType == null || entity == null)
+                {
+                    return builder
+                        .withContent(this.bodyReader.readString(entity, this.maxBytes))
+                        .build();
+                }
+
+                return this.readJson(builder, entity, contentType,
+                    HttpUtils.isHttpErrorCode(statusCode) || LOGGER.isDebugEnabled());
+            }
+            catch (final ResponseTooLargeException rtle)
+            {
+                LOGGER.warn("Abandoning response for httpMethod={} request to uri={}; {}",
+                    this.method, LogUtils.maskUri(this.uri, LOGGER, Level.WARN),
+                    rtle.getMessage());
+
+                // close rather than consume the rest of the body, which would read it all
+                if (httpResponse instanceof Closeable)
+                {
+                    ((Closeable) httpResponse).close();
+                }
+                throw rtle;
+            }
+        }
+
+        /**
+         * Read the json body straight into the type given rather than first into a String,
+         * keeping a bounded copy of the body only where it may be reported.
+         */
+        private RestResponse readJson(final RestResponse.Builder builder,
+            final HttpEntity entity, final Class<?> contentType, final boolean keepCopy)
+            throws IOException
+        {
+            final InputStream content = this.bodyReader.limit(entity, this.maxBytes);
+            if (content == null)
+            {
+                return builder.withParsedContent(contentType, null).build();
+            }
+
+            final BoundedCopyInputStream copy = keepCopy ? new BoundedCopyInputStream(content,
+                DefaultOptions.HTTP_RESPONSE_COPY_LIMIT_BYTES) : null;
+            try
+            {
+                builder.withParsedContent(contentType,
+                    this.jsonService.deserialize(copy == null ? content : copy, contentType));
+            }
+            catch (final JsonDeserializationException jde)
+            {
+                if (jde.getCause() instanceof ResponseTooLargeException)
+                {
+                    throw (ResponseTooLargeException) jde.getCause();
+                }
+                LOGGER.warn("Failed to read response for httpMethod={} request to uri={} as {}",
+                    this.method, LogUtils.maskUri(this.uri, LOGGER, Level.WARN), contentType);
+                builder.withContentFailure(contentType, jde);
+            }
+            finally
+            {
+                content.close();
+            }
+
+            if (copy != null)
+            {
+                final Charset charset = ContentType.getOrDefault(entity).getCharset();
+                builder.withContent(copy.getCopy(charset == null ? Consts.UTF_8 : charset));
+                LOGGER.debug("Kept copy of response for httpMethod={} request to uri={}, "
+                        + "truncated={}", this.method,
+                    LogUtils.maskUri(this.uri, LOGGER, Level.DEBUG), copy.isTruncated());
+            }
+            return builder.build();
         }
     }
 
@@ -432,10 +721,19 @@ public class RestClient implements IRestClient
     public static final class Builder implements IBuilder<RestClient>
     {
         private IJsonService jsonService;
-        private ScheduledExecutorService scheduledExecutorService;
+        private RequestTimeoutScheduler timeoutScheduler;
         private HttpClient httpClient;
+        private ConnectionPoolConfig connectionPoolConfig;
+        private ConnectionPool connectionPool;
         private long timeout = DefaultOptions.TIMEOUT_MS;
         private long waitTime = DefaultOptions.WAIT_TIME;
+        private long maxResponseBytes = DefaultOptions.HTTP_MAX_RESPONSE_BYTES;
+        private IRetryPolicy retryPolicy;
+        private RetryBudget retryBudget;
+        private final Map<JsonResponseTypes, RetryBudget> retryBudgetsByType =
+            new HashMap<JsonResponseTypes, RetryBudget>();
+        private final Map<JsonResponseTypes, Long> maxResponseBytesByType =
+            new HashMap<JsonResponseTypes, Long>();
 
         public Builder withJsonService(final IJsonService val)
         {
@@ -443,9 +741,28 @@ public class RestClient implements IRestClient
             return this;
         }
 
+        /**
+         * @param val ignored.
+         * @return this builder.
+         * @deprecated requests are now aborted on timeout by a {@link RequestTimeoutScheduler},
+         * see {@link #withTimeoutScheduler(RequestTimeoutScheduler)}.
+         */
+        @Deprecated
         public Builder withScheduledExecutorService(final ScheduledExecutorService val)
         {
-            this.scheduledExecutorService = val;
+            return this;
+        }
+
+        /**
+         * Specify the scheduler aborting requests which time out, by default a scheduler shared
+         * by all rest clients is used.
+         *
+         * @param val timeout scheduler to use.
+         * @return this builder.
+         */
+        public Builder withTimeoutScheduler(final RequestTimeoutScheduler val)
+        {
+            this.timeoutScheduler = val;
             return this;
         }
 
@@ -455,12 +772,114 @@ public class RestClient implements IRestClient
             return this;
         }
 
+        /**
+         * Build a http client over a pool of connections with the settings given, rather than
+         * using a http client supplied by {@link #withHttpClient(HttpClient)}.
+         *
+         * @param val settings of the connection pool.
+         * @return this builder.
+         */
+        public Builder withConnectionPool(final ConnectionPoolConfig val)
+        {
+            this.connectionPoolConfig = val;
+            return this;
+        }
+
         public Builder withTimeout(final long duration, final TimeUnit unit)
         {
             this.timeout = unit.toMillis(duration);
             return this;
         }
 
+        /**
+         * Specify the maximum size of a response body, defaults to {@link
+         * DefaultOptions#HTTP_MAX_RESPONSE_BYTES}.  Requests receiving a larger body fail with a
+         * {@link ResponseTooLargeException} as the cause, without the rest of the body being
+         * read.
+         *
+         * @param maxBytes maximum size of a response body, must be positive.
+         * @return this builder.
+         */
+        public Builder withMaxResponseSize(final long maxBytes)
+        {
+            this.maxResponseBytes = requirePositive(maxBytes);
+            return this;
+        }
+
+        /**
+         * Specify the maximum size of the body of responses to one operation, identified by the
+         * types its responses are read into, such as {@link
+         * com.gsma.mobileconnect.r2.discovery.DiscoveryResponse#RESPONSE_TYPES}.  Overrides
+         * {@link #withMaxResponseSize(long)} for that operation.
+         *
+         * @param responseTypes identifying the operation.
+         * @param maxBytes      maximum size of a response body, must be positive.
+         * @return this builder.
+         */
+        public Builder withMaxResponseSize(final JsonResponseTypes responseTypes,
+            final long maxBytes)
+        {
+            this.maxResponseBytesByType.put(
+                ObjectUtils.requireNonNull(responseTypes, "responseTypes"),
+                requirePositive(maxBytes));
+            return this;
+        }
+
+        private static long requirePositive(final long maxBytes)
+        {
+            if (maxBytes <= 0)
+            {
+                throw new IllegalArgumentException(
+                    String.format("maxBytes must be positive, was %d", maxBytes));
+            }
+            return maxBytes;
+        }
+
+        /**
+         * Specify the policy deciding which failed GET requests are retried, by default no
+         * request is retried.  Requests which post content are never retried.
+         *
+         * @param val retry policy to use, such as {@link BackoffRetryPolicy}.
+         * @return this builder.
+         */
+        public Builder withRetryPolicy(final IRetryPolicy val)
+        {
+            this.retryPolicy = val;
+            return this;
+        }
+
+        /**
+         * Specify the budget limiting the number of retries, which may be shared with other rest
+         * clients.  By default each rest client has its own budget with the default settings of
+         * {@link RetryBudget}.
+         *
+         * @param val retry budget to use.
+         * @return this builder.
+         */
+        public Builder withRetryBudget(final RetryBudget val)
+        {
+            this.retryBudget = val;
+            return this;
+        }
+
+        /**
+         * Specify the budget limiting the number of retries of one operation, overriding {@link
+         * #withRetryBudget(RetryBudget)} for that operation, so that retries of a failing
+         * operation cannot spend the retries of others.
+         *
+         * @param responseTypes identifying the operation.
+         * @param val           retry budget to use for the operation.
+         * @return this builder.
+         */
+        public Builder withRetryBudget(final JsonResponseTypes responseTypes,
+            final RetryBudget val)
+        {
+            this.retryBudgetsByType.put(
+                ObjectUtils.requireNonNull(responseTypes, "responseTypes"),
+                ObjectUtils.requireNonNull(val, "val"));
+            return this;
+        }
+
         public Builder withWaitTime(final long waitTime)
         {
             this.waitTime = waitTime;
@@ -471,8 +890,14 @@ public class RestClient implements IRestClient
         public RestClient build()
         {
             ObjectUtils.requireNonNull(this.jsonService, "jsonService");
-            ObjectUtils.requireNonNull(this.scheduledExecutorService, "scheduledExecutorService");
-            ObjectUtils.requireNonNull(this.httpClient, "httpClient");
+            if (this.connectionPoolConfig == null)
+            {
+                ObjectUtils.requireNonNull(this.httpClient, "httpClient");
+            }
+            else
+            {
+                this.connectionPool = new ConnectionPool(this.connectionPoolConfig);
+            }
 
             return new RestClient(this);
         }
@@ -16,9 +16,12 @@
  */
 package com.gsma.mobileconnect.r2.rest;
 
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.utils.IBuilder;
 import com.gsma.mobileconnect.r2.utils.KeyValuePair;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 
 import java.net.URI;
 import java.util.List;
@@ -35,6 +38,9 @@ public class RestResponse
     private final int statusCode;
     private final List<KeyValuePair> headers;
     private final String content;
+    private final Class<?> contentType;
+    private final Object parsedContent;
+    private final JsonDeserializationException contentFailure;
 
     private RestResponse(final Builder builder)
     {
@@ -43,6 +49,9 @@ public class RestResponse
         this.statusCode = builder.statusCode;
         this.headers = builder.headers;
         this.content = builder.content;
+        this.contentType = builder.contentType;
+        this.parsedContent = builder.parsedContent;
+        this.contentFailure = builder.contentFailure;
     }
 
     /**
@@ -78,13 +87,44 @@ public class RestResponse
     }
 
     /**
-     * @return Content returned by the http response.
+     * @return Content returned by the http response.  Where the content was read as json (see
+     * {@link JsonResponseTypes}) this is a copy of at most {@link
+     * com.gsma.mobileconnect.r2.constants.DefaultOptions#HTTP_RESPONSE_COPY_LIMIT_BYTES} of it,
+     * kept only for error responses or when debug logging, and null otherwise.
      */
     public String getContent()
     {
         return this.content;
     }
 
+    /**
+     * Get the content of the response as an instance of clazz, taking the instance read as the
+     * response was received if it was read into clazz, otherwise deserialising {@link
+     * #getContent()}.
+     *
+     * @param clazz       to read the content into.
+     * @param jsonService to deserialise the content if it was not read into clazz.
+     * @param <T>         type of clazz.
+     * @return instance of clazz, null if there was no content.
+     * @throws JsonDeserializationException if the content could not be read into clazz.
+     */
+    public <T> T readContent(final Class<T> clazz, final IJsonService jsonService)
+        throws JsonDeserializationException
+    {
+        ObjectUtils.requireNonNull(clazz, "clazz");
+
+        if (clazz.equals(this.contentType))
+        {
+            if (this.contentFailure != null)
+            {
+                throw this.contentFailure;
+            }
+            return clazz.cast(this.parsedContent);
+        }
+        return ObjectUtils.requireNonNull(jsonService, "jsonService").deserialize(this.content,
+            clazz);
+    }
+
 
     public static final class Builder implements IBuilder<RestResponse>
     {
@@ -93,6 +133,9 @@ public class RestResponse
         private int statusCode;
         private List<KeyValuePair> headers;
         private String content;
+        private Class<?> contentType;
+        private Object parsedContent;
+        private JsonDeserializationException contentFailure;
 
         public Builder withMethod(final String method)
         {
@@ -124,6 +167,33 @@ public class RestResponse
             return this;
         }
 
+        /**
+         * @param type the content was read into.
+         * @param val  instance read, may be null.
+         * @return this builder.
+         */
+        public Builder withParsedContent(final Class<?> type, final Object val)
+        {
+            this.contentType = type;
+            this.parsedContent = val;
+            this.contentFailure = null;
+            return this;
+        }
+
+        /**
+         * @param type the content failed to be read into.
+         * @param val  failure reading the content.
+         * @return this builder.
+         */
+        public Builder withContentFailure(final Class<?> type,
+            final JsonDeserializationException val)
+        {
+            this.contentType = type;
+            this.parsedContent = null;
+            this.contentFailure = val;
+            return this;
+        }
+
         @Override
         public RestResponse build()
         {
@@ -0,0 +1,178 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import com.gsma.mobileconnect.r2.utils.StringUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.utils.DateUtils;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes a failed attempt at a request, offered to an {@link IRetryPolicy} to decide whether
+ * the request is retried.
+ *
+ * @since 2.0
+ */
+public final class RetryAttempt
+{
+    private final String method;
+    private final URI uri;
+    private final JsonResponseTypes responseTypes;
+    private final int attempt;
+    private final long previousDelay;
+    private final RestResponse response;
+    private final RequestFailedException failure;
+    private final long retryAfter;
+
+    RetryAttempt(final String method, final URI uri, final JsonResponseTypes responseTypes,
+        final int attempt, final long previousDelay, final RestResponse response,
+        final RequestFailedException failure)
+    {
+        this.method = method;
+        this.uri = uri;
+        this.responseTypes = responseTypes;
+        this.attempt = attempt;
+        this.previousDelay = previousDelay;
+        this.response = response;
+        this.failure = failure;
+        this.retryAfter = response == null
+                          ? -1L
+                          : parseRetryAfter(response.getHeaders(), System.currentTimeMillis());
+    }
+
+    /**
+     * @return the http method of the request.
+     */
+    public String getMethod()
+    {
+        return this.method;
+    }
+
+    /**
+     * @return the uri requested.
+     */
+    public URI getUri()
+    {
+        return this.uri;
+    }
+
+    /**
+     * @return the types the response body is read into, identifying the operation, or null for
+     * requests whose body is read as a String.
+     */
+    public JsonResponseTypes getResponseTypes()
+    {
+        return this.responseTypes;
+    }
+
+    /**
+     * @return number of attempts made so far, including this one; 1 for the first attempt.
+     */
+    public int getAttempt()
+    {
+        return this.attempt;
+    }
+
+    /**
+     * @return delay in milliseconds before this attempt, 0 for the first attempt.
+     */
+    public long getPreviousDelay()
+    {
+        return this.previousDelay;
+    }
+
+    /**
+     * @return the error response received, null if the request failed without a response.
+     */
+    public RestResponse getResponse()
+    {
+        return this.response;
+    }
+
+    /**
+     * @return the failure of the request, null if an error response was received.
+     */
+    public RequestFailedException getFailure()
+    {
+        return this.failure;
+    }
+
+    /**
+     * @return the status code of the error response, 0 if the request failed without a response.
+     */
+    public int getStatusCode()
+    {
+        return this.response == null ? 0 : this.response.getStatusCode();
+    }
+
+    /**
+     * @return delay in milliseconds asked for by the Retry-After header of the response, -1 if
+     * there is no such header or it could not be parsed.
+     */
+    public long getRetryAfter()
+    {
+        return this.retryAfter;
+    }
+
+    /**
+     * Parse a Retry-After header, which gives either a number of seconds or a http date.
+     *
+     * @param headers to search for header.
+     * @param now     current time in milliseconds, against which a http date is compared.
+     * @return delay in milliseconds, -1 if there is no valid header.
+     */
+    static long parseRetryAfter(final List<KeyValuePair> headers, final long now)
+    {
+        final String value =
+            headers == null ? null : KeyValuePair.findFirst(headers, HttpHeaders.RETRY_AFTER);
+        if (StringUtils.isNullOrEmpty(value))
+        {
+            return -1L;
+        }
+
+        try
+        {
+            final long seconds = Long.parseLong(value.trim());
+            return seconds < 0 ? -1L : TimeUnit.SECONDS.toMillis(seconds);
+        }
+        catch (final NumberFormatException nfe)
+        {
+            final Date date = DateUtils.parseDate(value.trim());
+            return date == null ? -1L : Math.max(0L, date.getTime() - now);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RetryAttempt(method="
+            + this.method
+            + ", attempt="
+            + this.attempt
+            + ", statusCode="
+            + this.getStatusCode()
+            + ", retryAfterMs="
+            + this.retryAfter
+            + ")";
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
+import com.gsma.mobileconnect.r2.utils.IBuilder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a fraction of the requests made, so that when a provider is failing the
+ * retries of a {@link RestClient} cannot multiply the load on it.  <p> Each request which may be
+ * retried earns a fraction of a retry, and each retry spends a whole one; up to a maximum number
+ * of retries may be saved, allowing short bursts of failures to be retried in full.  A budget may
+ * be shared between rest clients, see {@link RestClient.Builder#withRetryBudget(RetryBudget)}.
+ * </p>
+ *
+ * @since 2.0
+ */
+public final class RetryBudget
+{
+    private static final long SCALE = 1000L;
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    private RetryBudget(final Builder builder)
+    {
+        this.depositPerRequest = Math.round(builder.ratio * SCALE);
+        this.maxBalance = builder.maxRetries * SCALE;
+        this.balance = new AtomicLong(this.maxBalance);
+    }
+
+    /**
+     * Record a request which may be retried, earning it a fraction of a retry.
+     */
+    void onRequest()
+    {
+        long current;
+        do
+        {
+            current = this.balance.get();
+            if (current >= this.maxBalance)
+            {
+                return;
+            }
+        } while (!this.balance.compareAndSet(current,
+            Math.min(this.maxBalance, current + this.depositPerRequest)));
+    }
+
+    /**
+     * Spend a retry from the budget.
+     *
+     * @return true if a retry was available, false if the budget is exhausted.
+     */
+    boolean tryAcquire()
+    {
+        long current;
+        do
+        {
+            current = this.balance.get();
+            if (current < SCALE)
+            {
+                return false;
+            }
+        } while (!this.balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * @return number of whole retries currently available.
+     */
+    public int getAvailableRetries()
+    {
+        return (int) (this.balance.get() / SCALE);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RetryBudget(depositPerRequest="
+            + ((double) this.depositPerRequest / SCALE)
+            + ", maxRetries="
+            + (this.maxBalance / SCALE)
+            + ", availableRetries="
+            + this.getAvailableRetries()
+            + ")";
+    }
+
+    public static final class Builder implements IBuilder<RetryBudget>
+    {
+        private double ratio = DefaultOptions.RETRY_BUDGET_RATIO;
+        private int maxRetries = DefaultOptions.RETRY_BUDGET_MAX_RETRIES;
+
+        /**
+         * Set the number of retries earned by each request, defaults to {@link
+         * DefaultOptions#RETRY_BUDGET_RATIO}; 0.1 allows one retry for every ten requests.
+         *
+         * @param val retries earned per request, between 0 and 1.
+         * @return this builder.
+         */
+        public Builder withRatio(final double val)
+        {
+            if (val < 0 || val > 1)
+            {
+                throw new IllegalArgumentException(
+                    String.format("ratio must be between 0 and 1, was %s", val));
+            }
+            this.ratio = val;
+            return this;
+        }
+
+        /**
+         * Set the number of retries which may be saved, and which are available when the budget
+         * is built, defaults to {@link DefaultOptions#RETRY_BUDGET_MAX_RETRIES}.
+         *
+         * @param val maximum number of retries saved, must not be negative.
+         * @return this builder.
+         */
+        public Builder withMaxRetries(final int val)
+        {
+            if (val < 0)
+            {
+                throw new IllegalArgumentException(
+                    String.format("maxRetries must not be negative, was %d", val));
+            }
+            this.maxRetries = val;
+            return this;
+        }
+
+        @Override
+        public RetryBudget build()
+        {
+            return new RetryBudget(this);
+        }
+    }
+}
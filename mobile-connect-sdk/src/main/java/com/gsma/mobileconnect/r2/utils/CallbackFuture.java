@@ -0,0 +1,254 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future completed by an asynchronous operation, such as those of {@link
+ * com.gsma.mobileconnect.r2.cache.IAsyncCache} and {@link
+ * com.gsma.mobileconnect.r2.rest.IAsyncRestClient}, to which callbacks may be attached so that
+ * dependent work runs once the operation completes rather than blocking a thread to wait for it.
+ * Callbacks run on the thread completing the future, or on the thread attaching them if it has
+ * already completed, so should not block.
+ *
+ * @param <T> type of the result.
+ * @since 2.0
+ */
+public class CallbackFuture<T> implements Future<T>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallbackFuture.class);
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final List<ICallback<? super T>> callbacks =
+        new ArrayList<ICallback<? super T>>();
+
+    private boolean done = false;
+    private T result;
+    private Exception exception;
+
+    /**
+     * @param result to complete with.
+     * @param <T>    type of the result.
+     * @return a future already completed with the result.
+     */
+    public static <T> CallbackFuture<T> completed(final T result)
+    {
+        final CallbackFuture<T> future = new CallbackFuture<T>();
+        future.complete(result);
+        return future;
+    }
+
+    /**
+     * Run a task on an executor, completing the future returned with the result of the task or
+     * the exception it throws.
+     *
+     * @param executor to run the task on, null to run it on the calling thread.
+     * @param task     to run.
+     * @param <T>      type of the result.
+     * @return future completed once the task has run, failed with a {@link
+     * RejectedExecutionException} if the executor would not accept it.
+     */
+    public static <T> CallbackFuture<T> run(final Executor executor, final Callable<T> task)
+    {
+        ObjectUtils.requireNonNull(task, "task");
+
+        final CallbackFuture<T> future = new CallbackFuture<T>();
+        final Runnable runnable = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    future.complete(task.call());
+                }
+                catch (final Exception e)
+                {
+                    future.fail(e);
+                }
+            }
+        };
+
+        if (executor == null)
+        {
+            runnable.run();
+        }
+        else
+        {
+            try
+            {
+                executor.execute(runnable);
+            }
+            catch (final RejectedExecutionException ree)
+            {
+                future.fail(ree);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Complete this future with a result, running any callbacks attached.
+     *
+     * @param result of the operation.
+     * @return true if this call completed the future, false if it was already complete.
+     */
+    public boolean complete(final T result)
+    {
+        return this.finish(result, null);
+    }
+
+    /**
+     * Complete this future with an exception, running any callbacks attached.
+     *
+     * @param exception thrown by the operation.
+     * @return true if this call completed the future, false if it was already complete.
+     */
+    public boolean fail(final Exception exception)
+    {
+        return this.finish(null, ObjectUtils.requireNonNull(exception, "exception"));
+    }
+
+    /**
+     * Attach a callback to run once this future completes, or immediately if it already has.
+     *
+     * @param callback to run.
+     * @return this future.
+     */
+    public CallbackFuture<T> addCallback(final ICallback<? super T> callback)
+    {
+        ObjectUtils.requireNonNull(callback, "callback");
+
+        synchronized (this)
+        {
+            if (!this.done)
+            {
+                this.callbacks.add(callback);
+                return this;
+            }
+        }
+        notify(callback, this.result, this.exception);
+        return this;
+    }
+
+    private boolean finish(final T result, final Exception exception)
+    {
+        final List<ICallback<? super T>> toNotify;
+        synchronized (this)
+        {
+            if (this.done)
+            {
+                return false;
+            }
+            this.done = true;
+            this.result = result;
+            this.exception = exception;
+            toNotify = new ArrayList<ICallback<? super T>>(this.callbacks);
+            this.callbacks.clear();
+        }
+        this.latch.countDown();
+
+        for (final ICallback<? super T> callback : toNotify)
+        {
+            notify(callback, result, exception);
+        }
+        return true;
+    }
+
+    private static <T> void notify(final ICallback<? super T> callback, final T result,
+        final Exception exception)
+    {
+        try
+        {
+            if (exception == null)
+            {
+                callback.onSuccess(result);
+            }
+            else
+            {
+                callback.onFailure(exception);
+            }
+        }
+        catch (final RuntimeException re)
+        {
+            LOGGER.warn("Callback failed", re);
+        }
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning)
+    {
+        return this.fail(new CancellationException());
+    }
+
+    @Override
+    public synchronized boolean isCancelled()
+    {
+        return this.exception instanceof CancellationException;
+    }
+
+    @Override
+    public synchronized boolean isDone()
+    {
+        return this.done;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException
+    {
+        this.latch.await();
+        return this.report();
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit)
+        throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!this.latch.await(timeout, unit))
+        {
+            throw new TimeoutException();
+        }
+        return this.report();
+    }
+
+    private synchronized T report() throws ExecutionException
+    {
+        if (this.exception instanceof CancellationException)
+        {
+            throw (CancellationException) this.exception;
+        }
+        if (this.exception != null)
+        {
+            throw new ExecutionException(this.exception);
+        }
+        return this.result;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel used to find items as their deadline passes without scanning every
+ * item held, such as cache entries reaching their expiry or requests reaching their timeout. <p> Each of the {@value #LEVELS} levels holds {@value #BUCKETS}
+ * buckets, a bucket at level n spanning {@value #BUCKETS}^n ticks.  Scheduling places an item
+ * directly in the bucket covering its deadline and advancing moves items from coarse buckets into
+ * finer ones as time reaches them, so both cost O(1) per item.  Deadlines beyond the span of the
+ * top level are held aside until the top level rolls over. </p> <p> This class is not thread safe
+ * and is expected to be driven by a single sweeping thread. </p>
+ *
+ * @param <T> type of item scheduled.
+ * @since 2.0
+ */
+public class TimerWheel<T>
+{
+    public static final int BUCKETS = 64;
+    public static final int LEVELS = 4;
+    private static final int BITS = 6;
+    private static final int MASK = BUCKETS - 1;
+
+    private final long tickMillis;
+    private final List<List<Node<T>>> buckets;
+    private final List<Node<T>> overflow = new ArrayList<Node<T>>();
+    private long currentTick;
+    private int size = 0;
+
+    /**
+     * @param tickMillis the resolution of the wheel.
+     * @param nowMillis  the current time.
+     */
+    public TimerWheel(final long tickMillis, final long nowMillis)
+    {
+        this.tickMillis = Math.max(1L, tickMillis);
+        this.currentTick = nowMillis / this.tickMillis;
+        this.buckets = new ArrayList<List<Node<T>>>(LEVELS * BUCKETS);
+        for (int i = 0; i < LEVELS * BUCKETS; i++)
+        {
+            this.buckets.add(new ArrayList<Node<T>>());
+        }
+    }
+
+    /**
+     * Schedule an item to become due once the deadline has passed.
+     *
+     * @param item           to schedule.
+     * @param deadlineMillis time at which the item becomes due.
+     * @param due            receives the item if its deadline has already passed.
+     */
+    public void schedule(final T item, final long deadlineMillis, final Collection<T> due)
+    {
+        final long deadlineTick = (deadlineMillis + this.tickMillis - 1) / this.tickMillis;
+        this.schedule(new Node<T>(item, deadlineTick), due);
+    }
+
+    /**
+     * Advance the wheel to the current time, collecting all items now due.
+     *
+     * @param nowMillis the current time.
+     * @param due       receives the items whose deadline has passed.
+     */
+    public void advance(final long nowMillis, final Collection<T> due)
+    {
+        final long targetTick = nowMillis / this.tickMillis;
+
+        while (this.currentTick < targetTick)
+        {
+            this.currentTick++;
+
+            for (int level = LEVELS; level > 0; level--)
+            {
+                if ((this.currentTick & ((1L << (BITS * level)) - 1)) == 0)
+                {
+                    this.cascade(level, due);
+                }
+            }
+
+            final List<Node<T>> bucket = this.bucket(0, this.currentTick);
+            for (final Node<T> node : bucket)
+            {
+                due.add(node.item);
+            }
+            this.size -= bucket.size();
+            bucket.clear();
+        }
+    }
+
+    /**
+     * @return the number of items scheduled and not yet due.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    private void cascade(final int level, final Collection<T> due)
+    {
+        final List<Node<T>> pending;
+        if (level == LEVELS)
+        {
+            pending = new ArrayList<Node<T>>(this.overflow);
+            this.overflow.clear();
+        }
+        else
+        {
+            final List<Node<T>> bucket = this.bucket(level, this.currentTick);
+            pending = new ArrayList<Node<T>>(bucket);
+            bucket.clear();
+        }
+
+        this.size -= pending.size();
+        for (final Node<T> node : pending)
+        {
+            this.schedule(node, due);
+        }
+    }
+
+    private void schedule(final Node<T> node, final Collection<T> due)
+    {
+        if (node.deadlineTick <= this.currentTick)
+        {
+            due.add(node.item);
+            return;
+        }
+
+        this.size++;
+        for (int level = 0; level < LEVELS; level++)
+        {
+            final int shift = BITS * (level + 1);
+            if ((node.deadlineTick >>> shift) == (this.currentTick >>> shift))
+            {
+                this.bucket(level, node.deadlineTick).add(node);
+                return;
+            }
+        }
+        this.overflow.add(node);
+    }
+
+    private List<Node<T>> bucket(final int level, final long tick)
+    {
+        return this.buckets.get(level * BUCKETS + (int) ((tick >>> (BITS * level)) & MASK));
+    }
+
+    private static final class Node<T>
+    {
+        private final T item;
+        private final long deadlineTick;
+
+        private Node(final T item, final long deadlineTick)
+        {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 import com.gsma.mobileconnect.r2.utils.Predicate;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -61,4 +62,16 @@ public class JWKeyset extends AbstractCacheable
         }
         return ListUtils.allMatches(keys, predicate);
     }
+
+    /**
+     * Copies the list of keys, so that a copy handed out by a cache does not share it with the
+     * instance held; the keys themselves are immutable.
+     */
+    @Override
+    protected JWKeyset copy()
+    {
+        final JWKeyset copy = (JWKeyset) super.copy();
+        copy.keys = this.keys == null ? null : new ArrayList<JWKey>(this.keys);
+        return copy;
+    }
 }
@@ -16,19 +16,30 @@
 */
 package com.gsma.mobileconnect.r2.validation;
 
+import com.gsma.mobileconnect.r2.cache.AsyncCacheAdapter;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.IAsyncCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.ICacheLoader;
+import com.gsma.mobileconnect.r2.cache.NegativeCache;
+import com.gsma.mobileconnect.r2.cache.NegativeCacheEntry;
+import com.gsma.mobileconnect.r2.cache.NegativeCachePolicy;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
 import com.gsma.mobileconnect.r2.rest.IRestClient;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.ICallback;
+import com.gsma.mobileconnect.r2.utils.ObjectUtils;
 
 import java.net.URI;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Concrete implementation see {@link IJWKeysetService}
@@ -37,8 +48,17 @@ import java.util.concurrent.Future;
  */
 public class JWKeysetService implements IJWKeysetService
 {
+    /**
+     * Types into which a JWKS response is read.
+     */
+    public static final JsonResponseTypes JWKS_TYPES = JsonResponseTypes.of(JWKeyset.class);
+
+    private static final String NEGATIVE_JWKS_PREFIX = "jwks:";
+
     private final IRestClient restClient;
     private final ICache iCache;
+    private final IAsyncCache asyncCache;
+    private final NegativeCache negativeCache;
 
     private final ExecutorService executorService;
     private final JacksonJsonService jacksonJsonService;
@@ -52,7 +72,9 @@ public class JWKeysetService implements IJWKeysetService
     {
         this.restClient = builder.restClient;
         this.iCache = builder.iCache;
+        this.negativeCache = new NegativeCache(builder.iCache, builder.negativeCachePolicy);
         this.executorService = Executors.newCachedThreadPool();
+        this.asyncCache = AsyncCacheAdapter.inlineIfInMemory(builder.iCache, this.executorService);
         this.jacksonJsonService = new JacksonJsonService();
     }
 
@@ -61,6 +83,40 @@ public class JWKeysetService implements IJWKeysetService
      */
     @Override
     public Future<JWKeyset> retrieveJwksAsync(final String url)
+    {
+        if (this.asyncCache == null)
+        {
+            return this.submitRetrieveJwks(url);
+        }
+
+        // a fresh keyset held in memory is returned without handing off to the executor
+        final CallbackFuture<JWKeyset> result = new CallbackFuture<JWKeyset>();
+        this.asyncCache.getAsync(url, JWKeyset.class).addCallback(new ICallback<JWKeyset>()
+        {
+            @Override
+            public void onSuccess(final JWKeyset cached)
+            {
+                if (cached != null && !cached.needsRefresh())
+                {
+                    result.complete(cached);
+                }
+                else
+                {
+                    // the read above has been counted, so the keyset is not counted again
+                    JWKeysetService.this.completeWithRetrieveJwks(url, result, false);
+                }
+            }
+
+            @Override
+            public void onFailure(final Exception exception)
+            {
+                JWKeysetService.this.completeWithRetrieveJwks(url, result, true);
+            }
+        });
+        return result;
+    }
+
+    private Future<JWKeyset> submitRetrieveJwks(final String url)
     {
         return this.executorService.submit(new Callable<JWKeyset>()
         {
@@ -72,6 +128,33 @@ public class JWKeysetService implements IJWKeysetService
         });
     }
 
+    private void completeWithRetrieveJwks(final String url, final CallbackFuture<JWKeyset> result,
+        final boolean recordStats)
+    {
+        try
+        {
+            this.executorService.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        result.complete(JWKeysetService.this.retrieveJwks(url, recordStats));
+                    }
+                    catch (final Exception e)
+                    {
+                        result.fail(e);
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException ree)
+        {
+            result.fail(ree);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -79,42 +162,110 @@ public class JWKeysetService implements IJWKeysetService
     public JWKeyset retrieveJwks(final String url)
         throws CacheAccessException, RequestFailedException, JsonDeserializationException
     {
-        final JWKeyset cachedJWKeyset = retrieveFromCache(url);
-        if (cachedJWKeyset != null && !cachedJWKeyset.hasExpired())
+        return this.retrieveJwks(url, true);
+    }
+
+    private JWKeyset retrieveJwks(final String url, final boolean recordStats)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
+    {
+        if (this.iCache == null)
         {
-            return cachedJWKeyset;
+            return fetchJwks(url, null);
         }
-        final RestResponse response = this.restClient.get(URI.create(url), null, null, null, null);
-        final JWKeyset jwKeyset =
-            this.jacksonJsonService.deserialize(response.getContent(), JWKeyset.class);
-
-        addToCache(url, jwKeyset);
+        try
+        {
+            final JWKeyset jwKeyset =
+                this.iCache.getOrLoad(url, JWKeyset.class, this.jwksLoader(url, null),
+                    recordStats);
+            if (jwKeyset != null && jwKeyset.needsRefresh())
+            {
+                this.iCache.refreshAsync(url, JWKeyset.class,
+                    this.jwksLoader(url, jwKeyset.getCacheVersion()), this.executorService);
+            }
+            return jwKeyset;
+        }
+        catch (final RuntimeException | CacheAccessException | RequestFailedException
+            | JsonDeserializationException e)
+        {
+            throw e;
+        }
+        catch (final Exception e)
+        {
+            // not thrown by fetchJwks
+            throw new IllegalStateException(e);
+        }
+    }
 
-        return jwKeyset;
+    private ICacheLoader<JWKeyset, Exception> jwksLoader(final String url,
+        final Long expectedVersion)
+    {
+        return new ICacheLoader<JWKeyset, Exception>()
+        {
+            @Override
+            public JWKeyset load() throws Exception
+            {
+                return JWKeysetService.this.fetchJwks(url, expectedVersion);
+            }
+        };
     }
 
-    private JWKeyset retrieveFromCache(final String url) throws CacheAccessException
+    private JWKeyset fetchJwks(final String url, final Long expectedVersion)
+        throws CacheAccessException, RequestFailedException, JsonDeserializationException
     {
-        if (this.iCache == null)
+        final String negativeKey = NEGATIVE_JWKS_PREFIX + url;
+        final NegativeCacheEntry suppressing = this.negativeCache.getSuppressing(negativeKey);
+        if (suppressing != null)
+        {
+            throw new RequestFailedException("GET", URI.create(url),
+                new IllegalStateException(suppressing.getReason()));
+        }
+
+        final JWKeyset jwKeyset;
+        try
+        {
+            final RestResponse response =
+                this.restClient.get(URI.create(url), null, null, null, null, JWKS_TYPES);
+            jwKeyset = response.readContent(JWKeyset.class, this.jacksonJsonService);
+        }
+        catch (final RequestFailedException | JsonDeserializationException e)
         {
-            return null;
+            this.negativeCache.recordFailure(negativeKey, e.getMessage());
+            throw e;
         }
-        return this.iCache.get(url, JWKeyset.class);
+        this.negativeCache.recordSuccess(negativeKey);
+
+        addToCache(url, jwKeyset, expectedVersion);
+
+        return jwKeyset;
     }
 
-    private void addToCache(final String url, final JWKeyset jwKeyset) throws CacheAccessException
+    /**
+     * @param expectedVersion version of the cached keyset being refreshed, null to add the keyset
+     *                        unconditionally.
+     */
+    private void addToCache(final String url, final JWKeyset jwKeyset, final Long expectedVersion)
+        throws CacheAccessException
     {
-        if (this.iCache != null && jwKeyset != null)
+        if (this.iCache == null || jwKeyset == null)
+        {
+            return;
+        }
+        if (expectedVersion == null)
         {
             this.iCache.add(url, jwKeyset);
         }
+        else if (!this.iCache.replace(url, expectedVersion, jwKeyset))
+        {
+            // keeps any newer keyset stored while this one was being fetched
+            this.iCache.addIfAbsent(url, jwKeyset);
+        }
     }
 
     public static final class Builder
     {
         private IRestClient restClient;
         private ICache iCache;
-
+        private NegativeCachePolicy negativeCachePolicy = NegativeCachePolicy.defaults();
 
         public Builder()
         {
@@ -135,8 +286,24 @@ public class JWKeysetService implements IJWKeysetService
             return this;
         }
 
+        /**
+         * Specify how long failures to fetch a keyset suppress further attempts, defaults to
+         * {@link NegativeCachePolicy#defaults()}.  Failures are only recorded where a cache is
+         * used.
+         *
+         * @param negativeCachePolicy policy to apply, {@link NegativeCachePolicy#DISABLED} to
+         *                            always retry.
+         * @return builder to continue further configuration.
+         */
+        public Builder withNegativeCachePolicy(final NegativeCachePolicy negativeCachePolicy)
+        {
+            this.negativeCachePolicy = negativeCachePolicy;
+            return this;
+        }
+
         public JWKeysetService build()
         {
+            ObjectUtils.requireNonNull(this.negativeCachePolicy, "negativeCachePolicy");
             return new JWKeysetService(this);
         }
     }
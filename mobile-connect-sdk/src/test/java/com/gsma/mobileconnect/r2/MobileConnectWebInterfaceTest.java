@@ -18,6 +18,7 @@ package com.gsma.mobileconnect.r2;
 
 import com.gsma.mobileconnect.r2.authentication.*;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.ICache;
 import com.gsma.mobileconnect.r2.constants.Parameters;
 import com.gsma.mobileconnect.r2.discovery.*;
 import com.gsma.mobileconnect.r2.encoding.DefaultEncodeDecoder;
@@ -25,6 +26,7 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.rest.*;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
@@ -39,8 +41,10 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Date;
 import java.util.List;
 
 import static org.mockito.Matchers.any;
@@ -225,6 +229,108 @@ public class MobileConnectWebInterfaceTest
         assertNotNull(status.getIdentityResponse());
     }
 
+    @Test
+    public void sdkSessionShouldReferenceSharedDiscoveryResponse() throws CacheAccessException
+    {
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(TestUtils.USERINFO_RESPONSE);
+
+        final MobileConnectStatus discoveryStatus =
+            this.mcWebInterface.attemptDiscovery(this.request, null, "111", "11", false, null);
+
+        assertEquals(discoveryStatus.getResponseType(),
+            MobileConnectStatus.ResponseType.START_AUTHENTICATION);
+        assertNotNull(discoveryStatus.getSdkSession());
+
+        final SdkSession session = this.discoveryService.getCache()
+            .get(discoveryStatus.getSdkSession(), SdkSession.class);
+        assertEquals(session.getDiscoveryKey(), "111_11");
+        assertNull(session.getDiscoveryResponse());
+        assertNotNull(session.getCreated());
+
+        final MobileConnectStatus status =
+            this.mcWebInterface.requestUserInfo(this.request, discoveryStatus.getSdkSession(),
+                "zaqwsxcderfvbgtyhnmjukilop");
+
+        assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.USER_INFO);
+        assertNotNull(status.getIdentityResponse());
+    }
+
+    @Test
+    public void sdkSessionShouldNotFindRemovedDiscoveryResponse() throws CacheAccessException
+    {
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+
+        final MobileConnectStatus discoveryStatus =
+            this.mcWebInterface.attemptDiscovery(this.request, null, "111", "11", false, null);
+        this.discoveryService.clearCache("111", "11");
+
+        // the response is discovered again, which fails
+        this.restClient.addResponse(new RequestFailedException(HttpUtils.HttpMethod.GET,
+            URI.create("http://discovery/test"), new IOException()));
+
+        final MobileConnectStatus status =
+            this.mcWebInterface.requestUserInfo(this.request, discoveryStatus.getSdkSession(),
+                "zaqwsxcderfvbgtyhnmjukilop");
+
+        assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.ERROR);
+        assertEquals(status.getErrorCode(), "sdksession_not_found");
+    }
+
+    @Test
+    public void sdkSessionShouldRediscoverRemovedDiscoveryResponse() throws CacheAccessException
+    {
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+
+        final MobileConnectStatus discoveryStatus =
+            this.mcWebInterface.attemptDiscovery(this.request, null, "111", "11", false, null);
+        this.discoveryService.clearCache("111", "11");
+
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.USERINFO_RESPONSE);
+
+        final MobileConnectStatus status =
+            this.mcWebInterface.requestUserInfo(this.request, discoveryStatus.getSdkSession(),
+                "zaqwsxcderfvbgtyhnmjukilop");
+
+        assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.USER_INFO);
+        assertNotNull(this.discoveryService.getCache().get("111_11", DiscoveryResponse.class));
+    }
+
+    @Test
+    public void sdkSessionShouldOutliveExpiredDiscoveryResponse() throws CacheAccessException
+    {
+        this.restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE)
+            .addResponse(TestUtils.USERINFO_RESPONSE);
+
+        final MobileConnectStatus discoveryStatus =
+            this.mcWebInterface.attemptDiscovery(this.request, null, "111", "11", false, null);
+
+        // the shared response expires before the session does
+        final ICache cache = this.discoveryService.getCache();
+        final DiscoveryResponse shared = cache.get("111_11", DiscoveryResponse.class);
+        cache.add("111_11", shared, new Date(System.currentTimeMillis() - 1000L));
+        assertTrue(cache.get(discoveryStatus.getSdkSession(), SdkSession.class).getExpiry()
+            .after(new Date()));
+
+        final MobileConnectStatus status =
+            this.mcWebInterface.requestUserInfo(this.request, discoveryStatus.getSdkSession(),
+                "zaqwsxcderfvbgtyhnmjukilop");
+
+        assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.USER_INFO);
+        // the expired response is kept as the fallback of discovery
+        assertNotNull(cache.get("111_11", DiscoveryResponse.class, false));
+    }
+
     @Test
     public void requestTokenShouldReturnErrorForInvalidSession()
     {
@@ -526,7 +632,7 @@ public class MobileConnectWebInterfaceTest
                 .withContent(providerMetadata).build();
 
         when(restClientLocal.get(any(URI.class), (RestAuthentication) eq(null), (String) eq(null),
-                (List<KeyValuePair>) eq(null), (Iterable<KeyValuePair>) eq(null)))
+                (List<KeyValuePair>) eq(null), (Iterable<KeyValuePair>) eq(null), any(JsonResponseTypes.class)))
                 .thenReturn(response).thenReturn(response);
 
         DiscoveryResponse discoveryResponse = mobileConnectWebInterface.generateDiscoveryManually(secretKey, clientKey, subscriberId, name, operatorUrls);
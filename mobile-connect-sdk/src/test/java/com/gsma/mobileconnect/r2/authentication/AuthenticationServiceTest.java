@@ -211,7 +211,8 @@ public class AuthenticationServiceTest
     {
         when(this.restClient.postFormData(eq(TOKEN_URL), isA(RestAuthentication.class),
             anyListOf(KeyValuePair.class), isNull(String.class),
-            isNull(Iterable.class))).thenReturn(TestUtils.TOKEN_RESPONSE);
+            isNull(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(TestUtils.TOKEN_RESPONSE);
 
         final RequestTokenResponse response =
             this.authentication.requestToken(this.config.getClientId(),
@@ -230,7 +231,8 @@ public class AuthenticationServiceTest
     {
         when(this.restClient.postFormData(eq(TOKEN_URL), isA(RestAuthentication.class),
             anyListOf(KeyValuePair.class), isNull(String.class),
-            isNull(Iterable.class))).thenReturn(TestUtils.INVALID_CODE_RESPONSE);
+            isNull(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(TestUtils.INVALID_CODE_RESPONSE);
 
         final RequestTokenResponse response =
             this.authentication.requestToken(this.config.getClientId(),
@@ -249,7 +251,8 @@ public class AuthenticationServiceTest
         throws RequestFailedException, InvalidResponseException
     {
         when(this.restClient.postFormData(eq(TOKEN_URL), isA(RestAuthentication.class),
-            anyListOf(KeyValuePair.class), isNull(String.class), isNull(Iterable.class))).thenThrow(
+            anyListOf(KeyValuePair.class), isNull(String.class), isNull(Iterable.class),
+            any(JsonResponseTypes.class))).thenThrow(
             new RequestFailedException(HttpUtils.HttpMethod.POST, TOKEN_URL,
                 new Exception("test")));
 
@@ -395,7 +398,8 @@ public class AuthenticationServiceTest
         // Given
         when(this.restClient.postFormData(isA(URI.class), isA(RestAuthentication.class),
             anyListOf(KeyValuePair.class), isNull(String.class),
-            isNull(Iterable.class))).thenReturn(TestUtils.TOKEN_RESPONSE);
+            isNull(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(TestUtils.TOKEN_RESPONSE);
 
         // When
         final RequestTokenResponse requestTokenResponse =
@@ -524,7 +528,8 @@ public class AuthenticationServiceTest
                 .withMethod("GET")
                 .withContent(providerMetadata).build();
 
-        when(restClient.get(any(URI.class), (RestAuthentication) eq(null), (String) eq(null), (List<KeyValuePair>) eq(null), (Iterable<KeyValuePair>) eq(null))).thenReturn(response).thenReturn(response);
+        when(restClient.get(any(URI.class), (RestAuthentication) eq(null), (String) eq(null), (List<KeyValuePair>) eq(null), (Iterable<KeyValuePair>) eq(null),
+                any(JsonResponseTypes.class))).thenReturn(response).thenReturn(response);
 
         //When
         final DiscoveryResponse discoveryResponse =
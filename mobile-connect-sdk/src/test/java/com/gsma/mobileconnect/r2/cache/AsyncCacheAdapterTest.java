@@ -0,0 +1,152 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.ICallback;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link AsyncCacheAdapter}
+ *
+ * @since 2.0
+ */
+public class AsyncCacheAdapterTest
+{
+    private ICache cache;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.cache = new ConcurrentCache.Builder().withJsonService(new JacksonJsonService()).build();
+    }
+
+    @Test
+    public void operationsShouldCompleteOnCallingThreadWithoutExecutor()
+        throws ExecutionException, InterruptedException
+    {
+        final IAsyncCache asyncCache = AsyncCacheAdapter.of(this.cache, null);
+
+        final CallbackFuture<Void> added =
+            asyncCache.addAsync("key", new ProviderMetadata.Builder().build());
+        assertTrue(added.isDone());
+
+        final AtomicReference<ProviderMetadata> result = new AtomicReference<ProviderMetadata>();
+        final CallbackFuture<ProviderMetadata> future =
+            asyncCache.getAsync("key", ProviderMetadata.class);
+        future.addCallback(new ICallback<ProviderMetadata>()
+        {
+            @Override
+            public void onSuccess(final ProviderMetadata value)
+            {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(final Exception exception)
+            {
+                fail("unexpected failure", exception);
+            }
+        });
+
+        assertTrue(future.isDone());
+        assertNotNull(result.get());
+        assertTrue(future.get().isCached());
+    }
+
+    @Test
+    public void operationsShouldRunOnExecutor()
+        throws ExecutionException, InterruptedException, CacheAccessException
+    {
+        final Executor executor = Mockito.mock(Executor.class);
+        final IAsyncCache asyncCache = new AsyncCacheAdapter(this.cache, executor);
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+
+        final CallbackFuture<ProviderMetadata> future =
+            asyncCache.getAsync("key", ProviderMetadata.class);
+        assertFalse(future.isDone());
+
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(executor).execute(captor.capture());
+        captor.getValue().run();
+
+        assertTrue(future.isDone());
+        assertNotNull(future.get());
+    }
+
+    @Test
+    public void inlineIfInMemoryShouldOnlyUseExecutorForCachesNotInMemory()
+    {
+        final Executor executor = Mockito.mock(Executor.class);
+
+        assertTrue(AsyncCacheAdapter.inlineIfInMemory(this.cache, executor)
+            .getAsync("key", ProviderMetadata.class).isDone());
+        Mockito.verifyZeroInteractions(executor);
+
+        final ICache notInMemory = Mockito.mock(ICache.class);
+        assertFalse(AsyncCacheAdapter.inlineIfInMemory(notInMemory, executor)
+            .getAsync("key", ProviderMetadata.class).isDone());
+        Mockito.verify(executor).execute(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    public void failureShouldBeDeliveredToCallback()
+    {
+        final IAsyncCache asyncCache = AsyncCacheAdapter.of(this.cache, null);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+        asyncCache.addAsync("", new ProviderMetadata.Builder().build())
+            .addCallback(new ICallback<Void>()
+            {
+                @Override
+                public void onSuccess(final Void value)
+                {
+                    fail("unexpected success");
+                }
+
+                @Override
+                public void onFailure(final Exception exception)
+                {
+                    failure.set(exception);
+                }
+            });
+
+        assertNotNull(failure.get());
+    }
+
+    @Test(expectedExceptions = ExecutionException.class)
+    public void getShouldThrowFailure() throws ExecutionException, InterruptedException
+    {
+        final CallbackFuture<Void> future = new CallbackFuture<Void>();
+        future.fail(new CacheAccessException(CacheAccessException.Operation.GET, "key",
+            ProviderMetadata.class, null));
+
+        assertFalse(future.complete(null));
+        future.get();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ICache#snapshot(java.io.OutputStream)} and {@link
+ * ICache#preload(java.io.InputStream)}
+ *
+ * @since 2.0
+ */
+public class CacheSnapshotTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private ConcurrentCache cache;
+
+    private ConcurrentCache newCache()
+    {
+        return new ConcurrentCache.Builder().withJsonService(this.jsonService).build();
+    }
+
+    private byte[] snapshot(final ICache source) throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        source.snapshot(out);
+        return out.toByteArray();
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.cache = this.newCache();
+    }
+
+    @Test
+    public void preloadShouldRestoreEntriesWithOriginalCachedTimeAndExpiry()
+        throws CacheAccessException, IOException
+    {
+        final Date expiry = new Date(System.currentTimeMillis() + 60000L);
+        this.cache.add("first", new ProviderMetadata.Builder().withIssuer("first").build(), expiry);
+        this.cache.add("second", new ProviderMetadata.Builder().withIssuer("second").build());
+        final CacheEntry original = this.cache.internalEntries().get("first");
+
+        final ConcurrentCache restored = this.newCache();
+        final int added = restored.preload(new ByteArrayInputStream(this.snapshot(this.cache)));
+
+        assertEquals(added, 2);
+        assertEquals(restored.get("first", ProviderMetadata.class).getIssuer(), "first");
+        assertEquals(restored.get("second", ProviderMetadata.class).getIssuer(), "second");
+
+        final CacheEntry entry = restored.internalEntries().get("first");
+        assertEquals(entry.getCachedTime(), original.getCachedTime());
+        assertEquals(entry.getExpiry(), expiry);
+        assertNull(restored.internalEntries().get("second").getExpiry());
+    }
+
+    @Test
+    public void snapshotShouldSkipExpiredEntries() throws CacheAccessException, IOException
+    {
+        this.cache.add("expired", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() - 1000L));
+        this.cache.add("live", new ProviderMetadata.Builder().build());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(this.cache.snapshot(out), 1);
+
+        final ConcurrentCache restored = this.newCache();
+        restored.preload(new ByteArrayInputStream(out.toByteArray()));
+
+        assertNull(restored.get("expired", ProviderMetadata.class));
+        assertNotNull(restored.get("live", ProviderMetadata.class));
+    }
+
+    @Test
+    public void preloadShouldSkipEntriesExpiredSinceSnapshot()
+        throws CacheAccessException, IOException, InterruptedException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() + 50L));
+        final byte[] snapshot = this.snapshot(this.cache);
+
+        Thread.sleep(100L);
+
+        final ConcurrentCache restored = this.newCache();
+        assertEquals(restored.preload(new ByteArrayInputStream(snapshot)), 0);
+        assertTrue(restored.isEmpty());
+    }
+
+    @Test
+    public void preloadShouldNotReplaceEntriesAlreadyHeld() throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("snapshot").build());
+        final byte[] snapshot = this.snapshot(this.cache);
+
+        final ConcurrentCache restored = this.newCache();
+        restored.add("key", new ProviderMetadata.Builder().withIssuer("held").build());
+
+        assertEquals(restored.preload(new ByteArrayInputStream(snapshot)), 0);
+        assertEquals(restored.get("key", ProviderMetadata.class).getIssuer(), "held");
+    }
+
+    @Test
+    public void snapshotOfObjectCacheShouldPreloadCacheHoldingJson()
+        throws CacheAccessException, IOException
+    {
+        final ObjectCache objectCache = new ObjectCache.Builder().build();
+        objectCache.add("key", new ProviderMetadata.Builder().withIssuer("issuer").build());
+
+        assertEquals(this.cache.preload(new ByteArrayInputStream(this.snapshot(objectCache))), 1);
+        assertEquals(this.cache.get("key", ProviderMetadata.class).getIssuer(), "issuer");
+
+        final ObjectCache restored = new ObjectCache.Builder().build();
+        assertEquals(restored.preload(new ByteArrayInputStream(this.snapshot(this.cache))), 1);
+        assertEquals(restored.get("key", ProviderMetadata.class).getIssuer(), "issuer");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void preloadShouldRejectStreamNotHoldingSnapshot() throws IOException
+    {
+        this.cache.preload(new ByteArrayInputStream("{\"not\":\"a snapshot\"}".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void preloadShouldFailOnTruncatedSnapshotKeepingEntriesRead()
+        throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        this.cache.add("other", new ProviderMetadata.Builder().build());
+        final byte[] snapshot = this.snapshot(this.cache);
+
+        final ConcurrentCache restored = this.newCache();
+        try
+        {
+            restored.preload(
+                new ByteArrayInputStream(Arrays.copyOf(snapshot, snapshot.length - 10)));
+            fail("Expected truncated snapshot to be rejected");
+        }
+        catch (final IOException ioe)
+        {
+            // expected
+        }
+
+        assertEquals(restored.getStats().getEstimatedSize(), 1L);
+    }
+
+    @Test
+    public void builderShouldPreloadFromSnapshotFile() throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("issuer").build());
+
+        final File file = File.createTempFile("cache-snapshot-test", ".snapshot");
+        try
+        {
+            final OutputStream out = new FileOutputStream(file);
+            try
+            {
+                this.cache.snapshot(out);
+            }
+            finally
+            {
+                out.close();
+            }
+
+            final ICache restored = new ConcurrentCache.Builder()
+                .withJsonService(this.jsonService)
+                .withSnapshot(file)
+                .build();
+
+            assertEquals(restored.get("key", ProviderMetadata.class).getIssuer(), "issuer");
+        }
+        finally
+        {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void builderShouldStartEmptyWithoutSnapshotFile() throws CacheAccessException
+    {
+        final ICache restored = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withSnapshot(new File("does-not-exist.snapshot"))
+            .build();
+
+        assertTrue(restored.isEmpty());
+    }
+}
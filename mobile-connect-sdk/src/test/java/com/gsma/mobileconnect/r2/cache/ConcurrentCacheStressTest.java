@@ -0,0 +1,226 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Exercises {@link ConcurrentCache} from several threads at once.
+ *
+ * @since 2.0
+ */
+public class ConcurrentCacheStressTest
+{
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    private ExecutorService executorService;
+    private ConcurrentCache cache;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.executorService = Executors.newFixedThreadPool(THREADS);
+        this.cache = new ConcurrentCache.Builder().withJsonService(new JacksonJsonService()).build();
+    }
+
+    @AfterMethod
+    public void afterMethod() throws InterruptedException
+    {
+        this.executorService.shutdownNow();
+        assertTrue(this.executorService.awaitTermination(5L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void concurrentAddAndGetShouldOnlyReturnValuesWritten() throws Exception
+    {
+        this.runConcurrently(THREADS, new Task()
+        {
+            @Override
+            public void run(final int thread, final int iteration) throws Exception
+            {
+                final String key = "key" + (iteration % 16);
+                final String issuer = key + ":" + thread;
+                ConcurrentCacheStressTest.this.cache.add(key,
+                    new ProviderMetadata.Builder().withIssuer(issuer).build());
+
+                final ProviderMetadata read =
+                    ConcurrentCacheStressTest.this.cache.get(key, ProviderMetadata.class, false);
+                assertNotNull(read);
+                assertTrue(read.getIssuer().startsWith(key + ":"), read.getIssuer());
+            }
+        });
+    }
+
+    @Test
+    public void removalOfExpiredEntryShouldNotRemoveFreshEntry() throws Exception
+    {
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final String key = "contended";
+
+        // readers repeatedly expel the expired entries written below
+        final List<Future<Void>> readers = new ArrayList<Future<Void>>();
+        for (int i = 0; i < THREADS - 1; i++)
+        {
+            readers.add(this.executorService.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    while (writing.get())
+                    {
+                        ConcurrentCacheStressTest.this.cache.get(key, ProviderMetadata.class,
+                            true);
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        try
+        {
+            for (int i = 0; i < ITERATIONS; i++)
+            {
+                this.cache.add(key, new ProviderMetadata.Builder().withIssuer("expired" + i).build(),
+                    new Date(System.currentTimeMillis() - 1000L));
+                this.cache.add(key, new ProviderMetadata.Builder().withIssuer("fresh" + i).build(),
+                    new Date(System.currentTimeMillis() + 60000L));
+
+                final ProviderMetadata read = this.cache.get(key, ProviderMetadata.class, false);
+                assertNotNull(read, "fresh entry removed in iteration " + i);
+                assertEquals(read.getIssuer(), "fresh" + i);
+            }
+        }
+        finally
+        {
+            writing.set(false);
+        }
+        for (final Future<Void> reader : readers)
+        {
+            reader.get(5L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void expiryTimeChangesShouldBeSafeUnderReads() throws Exception
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+
+        this.runConcurrently(THREADS, new Task()
+        {
+            @Override
+            public void run(final int thread, final int iteration) throws Exception
+            {
+                if (thread == 0)
+                {
+                    ConcurrentCacheStressTest.this.cache.setCacheExpiryTime(
+                        iteration % 2 == 0 ? 1L : 2L, TimeUnit.HOURS, ProviderMetadata.class);
+                }
+                else if (thread == 1)
+                {
+                    ConcurrentCacheStressTest.this.cache.setCacheExpiryTime(1L, TimeUnit.DAYS,
+                        OtherCacheable.class);
+                }
+                else
+                {
+                    assertNotNull(ConcurrentCacheStressTest.this.cache.get("key",
+                        ProviderMetadata.class, true));
+                }
+            }
+        });
+
+        final CacheExpiryPolicy policy = this.cache.getExpiryPolicy();
+        assertEquals(policy.getExpiryTimeMillis(ProviderMetadata.class),
+            TimeUnit.HOURS.toMillis(2L));
+        assertEquals(policy.getExpiryTimeMillis(OtherCacheable.class),
+            TimeUnit.DAYS.toMillis(1L));
+    }
+
+    private void runConcurrently(final int threads, final Task task) throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+        final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            final int thread = i;
+            futures.add(this.executorService.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    start.await();
+                    for (int iteration = 0; iteration < ITERATIONS; iteration++)
+                    {
+                        try
+                        {
+                            task.run(thread, iteration);
+                        }
+                        catch (final Exception | AssertionError e)
+                        {
+                            failures.add(e);
+                            return null;
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (final Future<?> future : futures)
+        {
+            future.get(30L, TimeUnit.SECONDS);
+        }
+        if (!failures.isEmpty())
+        {
+            throw new AssertionError(failures.peek());
+        }
+    }
+
+    private interface Task
+    {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    /**
+     * Second cacheable type, so that expiry times of several classes change together.
+     */
+    public static class OtherCacheable extends AbstractCacheable
+    {
+    }
+}
@@ -22,15 +22,40 @@ import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
 import com.gsma.mobileconnect.r2.utils.ListUtils;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
 import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.testng.Assert.*;
 
 /**
@@ -210,4 +235,775 @@ public class ConcurrentCacheTest
             this.cacheWithLimits(TimeUnit.SECONDS.toMillis(200L), TimeUnit.SECONDS.toMillis(400L));
         cacheWithLimits.setCacheExpiryTime(seconds, TimeUnit.SECONDS, ProviderMetadata.class);
     }
+
+    @Test
+    public void boundedCacheShouldEvictWhenMaxEntriesExceeded() throws CacheAccessException
+    {
+        final ICache boundedCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(2L)
+            .build();
+
+        boundedCache.add("a", new ProviderMetadata.Builder().build());
+        boundedCache.add("b", new ProviderMetadata.Builder().build());
+        boundedCache.add("c", new ProviderMetadata.Builder().build());
+
+        assertNull(boundedCache.get("a", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("b", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("c", ProviderMetadata.class));
+    }
+
+    @Test
+    public void boundedCacheShouldKeepFrequentlyReadEntriesDuringBurst()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ICache boundedCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(10L)
+            .build();
+
+        boundedCache.add("001_01",
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService));
+        assertNotNull(boundedCache.get("001_01", DiscoveryResponse.class));
+
+        for (int i = 0; i < 100; i++)
+        {
+            boundedCache.add("session" + i, new ProviderMetadata.Builder().build());
+        }
+
+        assertNotNull(boundedCache.get("001_01", DiscoveryResponse.class));
+        assertNull(boundedCache.get("session0", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("session99", ProviderMetadata.class));
+    }
+
+    @Test
+    public void boundedCacheShouldEvictWhenMaxWeightExceeded()
+        throws CacheAccessException, JsonSerializationException
+    {
+        final ICache boundedCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxWeight(this.jsonService.serialize(new ProviderMetadata.Builder().build())
+                .length() * 2L)
+            .build();
+
+        boundedCache.add("a", new ProviderMetadata.Builder().build());
+        boundedCache.add("b", new ProviderMetadata.Builder().build());
+        assertNotNull(boundedCache.get("a", ProviderMetadata.class));
+
+        boundedCache.add("c", new ProviderMetadata.Builder().build());
+
+        assertNull(boundedCache.get("b", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("a", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("c", ProviderMetadata.class));
+    }
+
+    @Test
+    public void getAllShouldReturnPresentValues() throws CacheAccessException
+    {
+        final Map<String, AbstractCacheable> values = new HashMap<String, AbstractCacheable>();
+        values.put("a", new ProviderMetadata.Builder().build());
+        values.put("b", new ProviderMetadata.Builder().build());
+        this.cache.addAll(values);
+
+        final Map<String, Class<? extends AbstractCacheable>> keys =
+            new HashMap<String, Class<? extends AbstractCacheable>>();
+        keys.put("a", ProviderMetadata.class);
+        keys.put("b", ProviderMetadata.class);
+        keys.put("c", ProviderMetadata.class);
+        final Map<String, AbstractCacheable> cached = this.cache.getAll(keys);
+
+        assertEquals(cached.size(), 2);
+        assertTrue(cached.get("a") instanceof ProviderMetadata);
+        assertTrue(cached.get("a").isCached());
+        assertTrue(cached.get("b") instanceof ProviderMetadata);
+        assertFalse(cached.containsKey("c"));
+
+        final CacheStats stats = this.cache.getStats();
+        assertEquals(stats.getHitCount(), 2L);
+        assertEquals(stats.getMissCount(), 1L);
+    }
+
+    @Test
+    public void getAllShouldRemoveExpiredValues() throws CacheAccessException
+    {
+        this.cache.add("a", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() - 1L));
+
+        final Map<String, Class<? extends AbstractCacheable>> keys =
+            new HashMap<String, Class<? extends AbstractCacheable>>();
+        keys.put("a", ProviderMetadata.class);
+
+        assertTrue(this.cache.getAll(keys, false).get("a").hasExpired());
+        assertTrue(this.cache.getAll(keys).isEmpty());
+        assertTrue(this.cache.isEmpty());
+    }
+
+    @Test
+    public void addAllShouldEvictFromBoundedCache() throws CacheAccessException
+    {
+        final ICache boundedCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(2L)
+            .build();
+        final Map<String, AbstractCacheable> values =
+            new LinkedHashMap<String, AbstractCacheable>();
+        values.put("a", new ProviderMetadata.Builder().build());
+        values.put("b", new ProviderMetadata.Builder().build());
+        values.put("c", new ProviderMetadata.Builder().build());
+
+        boundedCache.addAll(values);
+
+        assertNull(boundedCache.get("a", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("b", ProviderMetadata.class));
+        assertNotNull(boundedCache.get("c", ProviderMetadata.class));
+        assertEquals(boundedCache.getStats().getEvictionCount(), 1L);
+    }
+
+    @Test
+    public void cacheShouldUseCodec() throws CacheAccessException, JsonDeserializationException
+    {
+        final ICache codecCache = new ConcurrentCache.Builder()
+            .withCodec(new DeflateCacheEntryCodec(new JsonCacheEntryCodec(this.jsonService), 0))
+            .build();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        codecCache.add("001_01", discoveryResponse);
+        final DiscoveryResponse cached = codecCache.get("001_01", DiscoveryResponse.class);
+
+        assertNotNull(cached);
+        assertTrue(cached.isCached());
+        assertEquals(cached.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+    }
+
+    private Runnable captureSweeper(final ScheduledExecutorService executorService)
+    {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(executorService).scheduleWithFixedDelay(captor.capture(), anyLong(),
+            anyLong(), any(TimeUnit.class));
+        return captor.getValue();
+    }
+
+    @Test
+    public void sweeperShouldRemoveExpiredEntriesWithoutRead()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ScheduledExecutorService executorService =
+            Mockito.mock(ScheduledExecutorService.class);
+        final ConcurrentCache sweptCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withExpirySweeper(executorService, 1L, TimeUnit.MILLISECONDS)
+            .build();
+        final Runnable sweeper = this.captureSweeper(executorService);
+
+        sweptCache.setCacheExpiryTime(10L, TimeUnit.MILLISECONDS, ProviderMetadata.class);
+        sweptCache.add("expiring", new ProviderMetadata.Builder().build());
+        sweptCache.add("removed", new ProviderMetadata.Builder().build());
+        sweptCache.remove("removed");
+
+        sweeper.run();
+        assertFalse(sweptCache.isEmpty());
+        assertEquals(sweptCache.getSweepStatistics().getPendingCount(), 2);
+
+        Thread.sleep(50L);
+        sweeper.run();
+
+        final SweepStatistics statistics = sweptCache.getSweepStatistics();
+        assertTrue(sweptCache.isEmpty());
+        assertEquals(statistics.getSweepCount(), 2L);
+        assertEquals(statistics.getExpiredCount(), 1L);
+        assertEquals(statistics.getStaleCount(), 1L);
+        assertEquals(statistics.getPendingCount(), 0);
+    }
+
+    @Test
+    public void closeShouldCancelSweeper() throws CacheAccessException
+    {
+        final ScheduledExecutorService executorService =
+            Mockito.mock(ScheduledExecutorService.class);
+        final ScheduledFuture<?> sweepFuture = Mockito.mock(ScheduledFuture.class);
+        Mockito.doReturn(sweepFuture).when(executorService).scheduleWithFixedDelay(
+            any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+        final ConcurrentCache sweptCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withExpirySweeper(executorService, 1L, TimeUnit.SECONDS)
+            .build();
+        final Runnable sweeper = this.captureSweeper(executorService);
+
+        sweptCache.close();
+        sweptCache.add("metadata", new ProviderMetadata.Builder().build());
+        sweeper.run();
+
+        Mockito.verify(sweepFuture).cancel(false);
+        assertEquals(sweptCache.getSweepStatistics().getPendingCount(), 0);
+        assertNotNull(sweptCache.get("metadata", ProviderMetadata.class));
+    }
+
+    @Test
+    public void sweeperShouldNotTrackEntriesWithoutExpiry()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ScheduledExecutorService executorService =
+            Mockito.mock(ScheduledExecutorService.class);
+        final ConcurrentCache sweptCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withExpirySweeper(executorService, 1L, TimeUnit.SECONDS)
+            .build();
+        final Runnable sweeper = this.captureSweeper(executorService);
+
+        sweptCache.add("session",
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService), null);
+        sweptCache.add("metadata", new ProviderMetadata.Builder().build());
+        sweeper.run();
+
+        assertEquals(sweptCache.getSweepStatistics().getPendingCount(), 1);
+        assertFalse(sweptCache.isEmpty());
+    }
+
+    @Test
+    public void getOrLoadShouldReturnCachedValueWithoutLoading() throws CacheAccessException
+    {
+        final ProviderMetadata value = new ProviderMetadata.Builder().build();
+        this.cache.add("key", value);
+
+        final ProviderMetadata result = this.cache.getOrLoad("key", ProviderMetadata.class,
+            new ICacheLoader<ProviderMetadata, RuntimeException>()
+            {
+                @Override
+                public ProviderMetadata load()
+                {
+                    throw new AssertionError("loader should not be called");
+                }
+            });
+
+        assertNotNull(result);
+        assertTrue(result.isCached());
+    }
+
+    @Test
+    public void getOrLoadShouldLoadOnceForConcurrentCallers() throws Exception
+    {
+        final int callers = 8;
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<ProviderMetadata> loadedValue =
+            new AtomicReference<ProviderMetadata>();
+
+        final ICacheLoader<ProviderMetadata, InterruptedException> loader =
+            new ICacheLoader<ProviderMetadata, InterruptedException>()
+            {
+                @Override
+                public ProviderMetadata load() throws InterruptedException
+                {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+
+                    final ProviderMetadata value = new ProviderMetadata.Builder().build();
+                    loadedValue.set(value);
+                    try
+                    {
+                        ConcurrentCacheTest.this.cache.add("key", value);
+                    }
+                    catch (final CacheAccessException cae)
+                    {
+                        throw new IllegalStateException(cae);
+                    }
+                    return value;
+                }
+            };
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        try
+        {
+            final List<Future<ProviderMetadata>> results = new ArrayList<Future<ProviderMetadata>>();
+            for (int i = 0; i < callers; i++)
+            {
+                results.add(executorService.submit(new Callable<ProviderMetadata>()
+                {
+                    @Override
+                    public ProviderMetadata call() throws Exception
+                    {
+                        return ConcurrentCacheTest.this.cache.getOrLoad("key",
+                            ProviderMetadata.class, loader);
+                    }
+                }));
+            }
+
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50L);
+            release.countDown();
+
+            // every caller, the one which loaded included, has its own copy of the value
+            final Set<ProviderMetadata> distinct =
+                Collections.newSetFromMap(new IdentityHashMap<ProviderMetadata, Boolean>());
+            distinct.add(loadedValue.get());
+            for (final Future<ProviderMetadata> result : results)
+            {
+                final ProviderMetadata value = result.get(5, TimeUnit.SECONDS);
+                assertNotNull(value);
+                assertTrue(distinct.add(value));
+            }
+            assertEquals(loads.get(), 1);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getOrLoadShouldRethrowLoaderExceptionAndAllowRetry() throws CacheAccessException
+    {
+        try
+        {
+            this.cache.getOrLoad("key", ProviderMetadata.class,
+                new ICacheLoader<ProviderMetadata, JsonDeserializationException>()
+                {
+                    @Override
+                    public ProviderMetadata load() throws JsonDeserializationException
+                    {
+                        throw new JsonDeserializationException(ProviderMetadata.class, "{}",
+                            new IllegalArgumentException());
+                    }
+                });
+            fail("expected JsonDeserializationException");
+        }
+        catch (final JsonDeserializationException jde)
+        {
+            assertEquals(jde.getCause().getClass(), IllegalArgumentException.class);
+        }
+
+        final ProviderMetadata result = this.cache.getOrLoad("key", ProviderMetadata.class,
+            new ICacheLoader<ProviderMetadata, RuntimeException>()
+            {
+                @Override
+                public ProviderMetadata load()
+                {
+                    return new ProviderMetadata.Builder().build();
+                }
+            });
+
+        assertNotNull(result);
+        assertFalse(result.isCached());
+    }
+
+    @Test
+    public void getShouldFlagRefreshAfterRefreshAheadFraction()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ICache noLimitCache = this.cacheWithLimits(null, null);
+        noLimitCache.setCacheExpiryTime(1L, TimeUnit.SECONDS, ProviderMetadata.class);
+        noLimitCache.setRefreshAheadFraction(0.01);
+        noLimitCache.add("key", new ProviderMetadata.Builder().build());
+
+        Thread.sleep(20L);
+        final ProviderMetadata cached = noLimitCache.get("key", ProviderMetadata.class);
+
+        assertNotNull(cached);
+        assertFalse(cached.hasExpired());
+        assertTrue(cached.needsRefresh());
+    }
+
+    @Test
+    public void getShouldNotFlagRefreshBeforeRefreshAheadFraction() throws CacheAccessException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+
+        final ProviderMetadata cached = this.cache.get("key", ProviderMetadata.class);
+
+        assertNotNull(cached);
+        assertFalse(cached.needsRefresh());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void setRefreshAheadFractionShouldRejectOutOfRange()
+    {
+        this.cache.setRefreshAheadFraction(1.5);
+    }
+
+    @Test
+    public void refreshAsyncShouldRunSingleRefreshOnExecutor() throws CacheAccessException
+    {
+        final Executor executor = Mockito.mock(Executor.class);
+        final AtomicInteger loads = new AtomicInteger();
+        final ICacheLoader<ProviderMetadata, CacheAccessException> loader =
+            new ICacheLoader<ProviderMetadata, CacheAccessException>()
+            {
+                @Override
+                public ProviderMetadata load() throws CacheAccessException
+                {
+                    loads.incrementAndGet();
+                    final ProviderMetadata value = new ProviderMetadata.Builder().build();
+                    ConcurrentCacheTest.this.cache.add("key", value);
+                    return value;
+                }
+            };
+
+        assertTrue(this.cache.refreshAsync("key", ProviderMetadata.class, loader, executor));
+        assertFalse(this.cache.refreshAsync("key", ProviderMetadata.class, loader, executor));
+
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(executor).execute(captor.capture());
+        captor.getValue().run();
+
+        assertEquals(loads.get(), 1);
+        assertNotNull(this.cache.get("key", ProviderMetadata.class));
+        assertTrue(this.cache.refreshAsync("key", ProviderMetadata.class, loader, executor));
+    }
+
+    @Test
+    public void statsShouldCountHitsAndMissesByClass()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        this.cache.add("metadata", new ProviderMetadata.Builder().build());
+
+        this.cache.get("metadata", ProviderMetadata.class);
+        this.cache.get("metadata", ProviderMetadata.class);
+        this.cache.get("missing", ProviderMetadata.class);
+        this.cache.get("session", DiscoveryResponse.class);
+
+        final CacheStats metadataStats = this.cache.getStatsByClass().get(ProviderMetadata.class);
+        assertEquals(metadataStats.getHitCount(), 2L);
+        assertEquals(metadataStats.getMissCount(), 1L);
+        assertEquals(metadataStats.getEstimatedSize(), 1L);
+
+        final CacheStats sessionStats = this.cache.getStatsByClass().get(DiscoveryResponse.class);
+        assertEquals(sessionStats.getHitCount(), 0L);
+        assertEquals(sessionStats.getMissCount(), 1L);
+
+        final CacheStats stats = this.cache.getStats();
+        assertEquals(stats.getHitCount(), 2L);
+        assertEquals(stats.getMissCount(), 2L);
+        assertEquals(stats.getHitRate(), 0.5);
+        assertEquals(stats.getEstimatedSize(), 1L);
+    }
+
+    @Test
+    public void statsShouldCountLoads() throws CacheAccessException
+    {
+        this.cache.getOrLoad("loaded", ProviderMetadata.class,
+            new ICacheLoader<ProviderMetadata, RuntimeException>()
+            {
+                @Override
+                public ProviderMetadata load()
+                {
+                    return new ProviderMetadata.Builder().build();
+                }
+            });
+        this.cache.getOrLoad("failed", ProviderMetadata.class,
+            new ICacheLoader<ProviderMetadata, RuntimeException>()
+            {
+                @Override
+                public ProviderMetadata load()
+                {
+                    return null;
+                }
+            });
+
+        final CacheStats stats = this.cache.getStats();
+        assertEquals(stats.getMissCount(), 2L);
+        assertEquals(stats.getLoadSuccessCount(), 1L);
+        assertEquals(stats.getLoadFailureCount(), 1L);
+        assertTrue(stats.getTotalLoadTimeNanos() > 0L);
+    }
+
+    @Test
+    public void getOrLoadShouldNotCountReadAlreadyMadeByCaller() throws CacheAccessException
+    {
+        assertNull(this.cache.get("loaded", ProviderMetadata.class));
+        this.cache.getOrLoad("loaded", ProviderMetadata.class,
+            new ICacheLoader<ProviderMetadata, RuntimeException>()
+            {
+                @Override
+                public ProviderMetadata load()
+                {
+                    return new ProviderMetadata.Builder().build();
+                }
+            }, false);
+
+        final CacheStats stats = this.cache.getStats();
+        assertEquals(stats.getMissCount(), 1L);
+        assertEquals(stats.getHitCount(), 0L);
+        assertEquals(stats.getLoadSuccessCount(), 1L);
+    }
+
+    @Test
+    public void statsShouldCountEvictionsAndExpiries()
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ICache boundedCache = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .withMaxEntries(1L)
+            .build();
+        boundedCache.setCacheExpiryTime(10L, TimeUnit.MILLISECONDS, ProviderMetadata.class);
+
+        boundedCache.add("a", new ProviderMetadata.Builder().build());
+        boundedCache.add("b", new ProviderMetadata.Builder().build());
+        Thread.sleep(20L);
+        assertNull(boundedCache.get("b", ProviderMetadata.class));
+
+        final CacheStats stats = boundedCache.getStats();
+        assertEquals(stats.getEvictionCount(), 1L);
+        assertEquals(stats.getExpiryCount(), 1L);
+        assertEquals(stats.getMissCount(), 1L);
+        assertEquals(stats.getEstimatedSize(), 0L);
+    }
+
+    @Test
+    public void addWithExpiryShouldExpireAtDeadline()
+        throws CacheAccessException, JsonDeserializationException, InterruptedException
+    {
+        final DiscoveryResponse response =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        this.cache.add("session", response, new Date(System.currentTimeMillis() + 20L));
+
+        assertNotNull(this.cache.get("session", DiscoveryResponse.class));
+
+        Thread.sleep(40L);
+        assertNull(this.cache.get("session", DiscoveryResponse.class));
+        assertEquals(this.cache.getStats().getExpiryCount(), 1L);
+    }
+
+    @Test
+    public void addShouldUseExpiryDeadlineOfValue()
+        throws CacheAccessException, JsonDeserializationException, InterruptedException
+    {
+        final DiscoveryResponse response =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        this.cache.setRefreshAheadFraction(0.000001);
+        this.cache.add("session", response);
+
+        Thread.sleep(10L);
+        final DiscoveryResponse cached = this.cache.get("session", DiscoveryResponse.class);
+
+        assertNotNull(cached);
+        assertFalse(cached.hasExpired());
+        assertTrue(cached.needsRefresh());
+    }
+
+    @Test
+    public void replaceShouldOnlySucceedWhileVersionIsHeld() throws CacheAccessException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("first").build());
+        final ProviderMetadata read = this.cache.get("key", ProviderMetadata.class);
+        assertNotEquals(read.getCacheVersion(), ICache.NO_VERSION);
+
+        assertTrue(this.cache.replace("key", read.getCacheVersion(),
+            new ProviderMetadata.Builder().withIssuer("second").build()));
+        // a second writer holding the same version loses
+        assertFalse(this.cache.replace("key", read.getCacheVersion(),
+            new ProviderMetadata.Builder().withIssuer("third").build()));
+
+        final ProviderMetadata replaced = this.cache.get("key", ProviderMetadata.class);
+        assertEquals(replaced.getIssuer(), "second");
+        assertTrue(replaced.getCacheVersion() > read.getCacheVersion());
+    }
+
+    @Test
+    public void replaceWithNoVersionShouldOnlyAddWhenAbsent() throws CacheAccessException
+    {
+        assertTrue(this.cache.replace("key", ICache.NO_VERSION,
+            new ProviderMetadata.Builder().withIssuer("first").build()));
+        assertFalse(this.cache.replace("key", ICache.NO_VERSION,
+            new ProviderMetadata.Builder().withIssuer("second").build()));
+
+        assertEquals(this.cache.get("key", ProviderMetadata.class).getIssuer(), "first");
+    }
+
+    @Test
+    public void addIfAbsentShouldReturnValueAlreadyHeld() throws CacheAccessException
+    {
+        assertNull(
+            this.cache.addIfAbsent("key", new ProviderMetadata.Builder().withIssuer("first").build()));
+
+        final ProviderMetadata held = this.cache.addIfAbsent("key",
+            new ProviderMetadata.Builder().withIssuer("second").build());
+
+        assertNotNull(held);
+        assertEquals(held.getIssuer(), "first");
+        assertEquals(this.cache.get("key", ProviderMetadata.class).getIssuer(), "first");
+    }
+
+    @Test
+    public void addIfAbsentShouldReplaceExpiredValue() throws CacheAccessException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("expired").build(),
+            new Date(System.currentTimeMillis() - 1000L));
+
+        assertNull(
+            this.cache.addIfAbsent("key", new ProviderMetadata.Builder().withIssuer("fresh").build()));
+        assertEquals(this.cache.get("key", ProviderMetadata.class).getIssuer(), "fresh");
+    }
+
+    @Test
+    public void removeWithVersionShouldNotRemoveNewerValue() throws CacheAccessException
+    {
+        final ProviderMetadata value = new ProviderMetadata.Builder().build();
+        this.cache.add("key", value);
+        final long firstVersion = this.cache.get("key", ProviderMetadata.class).getCacheVersion();
+        // identical payload, so only the version tells the entries apart
+        this.cache.add("key", value);
+
+        assertFalse(this.cache.remove("key", firstVersion));
+        final ProviderMetadata held = this.cache.get("key", ProviderMetadata.class);
+        assertNotNull(held);
+
+        assertTrue(this.cache.remove("key", held.getCacheVersion()));
+        assertNull(this.cache.get("key", ProviderMetadata.class));
+    }
+
+    private static final class QueuedExecutor implements Executor
+    {
+        private final List<Runnable> queued = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(final Runnable command)
+        {
+            this.queued.add(command);
+        }
+
+        private void runAll()
+        {
+            for (final Runnable runnable : this.queued)
+            {
+                runnable.run();
+            }
+            this.queued.clear();
+        }
+    }
+
+    private static final class RecordingRemovalListener implements ICacheRemovalListener
+    {
+        private final List<String> removals = new ArrayList<String>();
+
+        @Override
+        public void onRemoval(final String key, final Class<? extends AbstractCacheable> clazz,
+            final RemovalCause cause)
+        {
+            this.removals.add(key + ":" + clazz.getSimpleName() + ":" + cause);
+        }
+    }
+
+    @Test
+    public void removalListenerShouldBeCalledOnExecutor() throws CacheAccessException
+    {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RecordingRemovalListener listener = new RecordingRemovalListener();
+        this.cache.addRemovalListener(listener, executor);
+
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        this.cache.remove("key");
+        this.cache.remove("missing");
+
+        assertTrue(listener.removals.isEmpty());
+        executor.runAll();
+        assertEquals(listener.removals, Arrays.asList("key:ProviderMetadata:EXPLICIT"));
+    }
+
+    @Test
+    public void removalListenerShouldBeToldCauseOfRemoval() throws CacheAccessException
+    {
+        final ICache bounded = new ConcurrentCache.Builder()
+            .withJsonService(this.jsonService)
+            .withMaxEntries(2)
+            .build();
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RecordingRemovalListener listener = new RecordingRemovalListener();
+        bounded.addRemovalListener(listener, executor);
+
+        bounded.add("replaced", new ProviderMetadata.Builder().build());
+        bounded.add("replaced", new ProviderMetadata.Builder().build());
+        bounded.add("expired", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() - 1000L));
+        assertNull(bounded.get("expired", ProviderMetadata.class));
+        for (int i = 0; i < 5; i++)
+        {
+            bounded.add("key" + i, new ProviderMetadata.Builder().build());
+        }
+        bounded.clear();
+        executor.runAll();
+
+        assertEquals(listener.removals.subList(0, 2),
+            Arrays.asList("replaced:ProviderMetadata:REPLACED", "expired:ProviderMetadata:EXPIRED"));
+        assertTrue(listener.removals.contains("replaced:ProviderMetadata:EVICTED"));
+        int evicted = 0;
+        int explicit = 0;
+        for (final String removal : listener.removals)
+        {
+            evicted += removal.endsWith(":EVICTED") ? 1 : 0;
+            explicit += removal.endsWith(":EXPLICIT") ? 1 : 0;
+        }
+        assertEquals(evicted, 4);
+        assertEquals(explicit, 2);
+    }
+
+    @Test
+    public void removalListenerShouldBeToldOfVersionedRemovals() throws CacheAccessException
+    {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RecordingRemovalListener listener = new RecordingRemovalListener();
+        this.cache.addRemovalListener(listener, executor);
+
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        final long version = this.cache.get("key", ProviderMetadata.class).getCacheVersion();
+        assertTrue(this.cache.replace("key", version, new ProviderMetadata.Builder().build()));
+        assertFalse(this.cache.remove("key", version));
+        assertTrue(this.cache.remove("key",
+            this.cache.get("key", ProviderMetadata.class).getCacheVersion()));
+        executor.runAll();
+
+        assertEquals(listener.removals, Arrays.asList("key:ProviderMetadata:REPLACED",
+            "key:ProviderMetadata:EXPLICIT"));
+    }
+
+    @Test
+    public void failingRemovalListenerShouldNotAffectCache() throws CacheAccessException
+    {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RecordingRemovalListener listener = new RecordingRemovalListener();
+        this.cache.addRemovalListener(new ICacheRemovalListener()
+        {
+            @Override
+            public void onRemoval(final String key, final Class<? extends AbstractCacheable> clazz,
+                final RemovalCause cause)
+            {
+                throw new IllegalStateException("listener failure");
+            }
+        }, executor);
+        this.cache.addRemovalListener(listener, executor);
+
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        this.cache.remove("key");
+        executor.runAll();
+
+        assertEquals(listener.removals, Arrays.asList("key:ProviderMetadata:EXPLICIT"));
+    }
+
+    @Test
+    public void removedListenerShouldNotBeCalled() throws CacheAccessException
+    {
+        final QueuedExecutor executor = new QueuedExecutor();
+        final RecordingRemovalListener listener = new RecordingRemovalListener();
+        this.cache.addRemovalListener(listener, executor);
+        this.cache.removeRemovalListener(listener);
+
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        this.cache.remove("key");
+
+        assertTrue(executor.queued.isEmpty());
+    }
 }
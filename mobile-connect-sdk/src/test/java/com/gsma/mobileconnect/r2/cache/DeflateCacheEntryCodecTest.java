@@ -0,0 +1,104 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.json.JsonSerializationException;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link DeflateCacheEntryCodec}
+ *
+ * @since 2.0
+ */
+public class DeflateCacheEntryCodecTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+    private final ICacheEntryCodec jsonCodec = new JsonCacheEntryCodec(this.jsonService);
+
+    private DiscoveryResponse discoveryResponse() throws JsonDeserializationException
+    {
+        return DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+            this.jsonService);
+    }
+
+    @Test
+    public void encodeShouldCompressPayloadAboveThreshold()
+        throws JsonSerializationException, JsonDeserializationException
+    {
+        final DiscoveryResponse response = this.discoveryResponse();
+        final ICacheEntryCodec codec = new DeflateCacheEntryCodec(this.jsonCodec, 64);
+
+        final byte[] json = this.jsonCodec.encode(response);
+        final byte[] payload = codec.encode(response);
+
+        assertEquals(payload[0], 1);
+        assertTrue(payload.length < json.length);
+
+        final DiscoveryResponse decoded = codec.decode(payload, DiscoveryResponse.class);
+        assertEquals(decoded.getOperatorUrls().getAuthorizationUrl(),
+            response.getOperatorUrls().getAuthorizationUrl());
+    }
+
+    @Test
+    public void encodeShouldNotCompressPayloadBelowThreshold()
+        throws JsonSerializationException, JsonDeserializationException
+    {
+        final DiscoveryResponse response = this.discoveryResponse();
+        final ICacheEntryCodec codec = new DeflateCacheEntryCodec(this.jsonCodec, Integer.MAX_VALUE);
+
+        final byte[] json = this.jsonCodec.encode(response);
+        final byte[] payload = codec.encode(response);
+
+        assertEquals(payload[0], 0);
+        assertEquals(payload.length, json.length + 1);
+
+        final DiscoveryResponse decoded = codec.decode(payload, DiscoveryResponse.class);
+        assertEquals(decoded.getOperatorUrls().getAuthorizationUrl(),
+            response.getOperatorUrls().getAuthorizationUrl());
+    }
+
+    @Test(expectedExceptions = JsonDeserializationException.class)
+    public void decodeShouldFailForCorruptPayload() throws JsonDeserializationException
+    {
+        final ICacheEntryCodec codec = new DeflateCacheEntryCodec(this.jsonCodec, 0);
+
+        codec.decode(new byte[] { 1, 42, 42, 42 }, DiscoveryResponse.class);
+    }
+
+    @Test
+    public void jacksonCodecShouldRoundTripThroughDeflate()
+        throws JsonSerializationException, JsonDeserializationException
+    {
+        final DiscoveryResponse response = this.discoveryResponse();
+        final ICacheEntryCodec codec = new DeflateCacheEntryCodec(
+            new JacksonCacheEntryCodec(((JacksonJsonService) this.jsonService).getObjectMapper()),
+            0);
+
+        final DiscoveryResponse decoded =
+            codec.decode(codec.encode(response), DiscoveryResponse.class);
+
+        assertEquals(decoded.getOperatorUrls().getAuthorizationUrl(),
+            response.getOperatorUrls().getAuthorizationUrl());
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Date;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link FileCache}
+ *
+ * @since 2.0
+ */
+public class FileCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private File directory;
+    private FileCache cache;
+
+    private FileCache openCache(final int segmentSize)
+    {
+        return new FileCache.Builder()
+            .withJsonService(this.jsonService)
+            .withDirectory(this.directory)
+            .withSegmentSize(segmentSize)
+            .build();
+    }
+
+    private File[] segmentFiles()
+    {
+        return this.directory.listFiles();
+    }
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        this.directory = Files.createTempDirectory("file-cache-test").toFile();
+        this.cache = this.openCache(64 * 1024);
+    }
+
+    @AfterMethod
+    public void afterMethod() throws IOException
+    {
+        this.cache.close();
+        for (final File file : this.segmentFiles())
+        {
+            assertTrue(file.delete());
+        }
+        assertTrue(this.directory.delete());
+    }
+
+    @Test
+    public void addShouldStoreDiscoveryResponse()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        this.cache.add("001_01", discoveryResponse);
+        final DiscoveryResponse cached = this.cache.get("001_01", DiscoveryResponse.class);
+
+        assertNotNull(cached);
+        assertTrue(cached.isCached());
+        assertEquals(cached.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertNull(cached.getResponseData().getSubscriberId());
+        assertFalse(this.cache.isEmpty());
+    }
+
+    @Test
+    public void entriesShouldSurviveReopen()
+        throws CacheAccessException, JsonDeserializationException, IOException
+    {
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        this.cache.add("001_01", discoveryResponse);
+        this.cache.add("replaced", new ProviderMetadata.Builder().build());
+        this.cache.add("replaced", new ProviderMetadata.Builder().build());
+        this.cache.add("removed", new ProviderMetadata.Builder().build());
+        this.cache.remove("removed");
+        this.cache.close();
+
+        this.cache = this.openCache(64 * 1024);
+
+        final DiscoveryResponse cached = this.cache.get("001_01", DiscoveryResponse.class);
+        assertNotNull(cached);
+        assertFalse(cached.hasExpired());
+        assertNotNull(this.cache.get("replaced", ProviderMetadata.class));
+        assertNull(this.cache.get("removed", ProviderMetadata.class));
+        assertEquals(this.cache.getStats().getEstimatedSize(), 2L);
+    }
+
+    @Test
+    public void clearShouldRemoveAllEntries() throws CacheAccessException, IOException
+    {
+        this.cache.add("a", new ProviderMetadata.Builder().build());
+        this.cache.clear();
+        this.cache.close();
+
+        this.cache = this.openCache(64 * 1024);
+
+        assertTrue(this.cache.isEmpty());
+    }
+
+    @Test
+    public void compactionShouldReclaimReplacedRecords() throws CacheAccessException, IOException
+    {
+        this.cache.close();
+        this.cache = this.openCache(1024);
+
+        for (int i = 0; i < 50; i++)
+        {
+            this.cache.add("key", new ProviderMetadata.Builder().build());
+        }
+        this.cache.add("other", new ProviderMetadata.Builder().build());
+
+        assertTrue(this.segmentFiles().length <= 2);
+        assertNotNull(this.cache.get("key", ProviderMetadata.class));
+        assertNotNull(this.cache.get("other", ProviderMetadata.class));
+
+        this.cache.close();
+        this.cache = this.openCache(1024);
+
+        assertNotNull(this.cache.get("key", ProviderMetadata.class));
+        assertNotNull(this.cache.get("other", ProviderMetadata.class));
+    }
+
+    @Test
+    public void compactionShouldDropExpiredEntries() throws CacheAccessException, IOException
+    {
+        this.cache.add("expired", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() - 1000L));
+        this.cache.add("kept", new ProviderMetadata.Builder().build());
+
+        this.cache.compact();
+
+        assertNull(this.cache.get("expired", ProviderMetadata.class, false));
+        assertNotNull(this.cache.get("kept", ProviderMetadata.class));
+
+        this.cache.close();
+        this.cache = this.openCache(64 * 1024);
+
+        assertNull(this.cache.get("expired", ProviderMetadata.class, false));
+        assertNotNull(this.cache.get("kept", ProviderMetadata.class));
+    }
+
+    @Test
+    public void failedCompactionShouldLeaveCacheUnchanged() throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+        this.cache.add("key", new ProviderMetadata.Builder().build());
+
+        // the first segment the compaction writes cannot be created
+        final File blocked = new File(this.directory, "segment-0000000000000002.log");
+        assertTrue(blocked.mkdir());
+        try
+        {
+            this.cache.compact();
+            fail("compaction should fail");
+        }
+        catch (final CacheAccessException cae)
+        {
+            // expected
+        }
+        assertTrue(blocked.delete());
+
+        assertNotNull(this.cache.get("key", ProviderMetadata.class));
+        this.cache.add("other", new ProviderMetadata.Builder().build());
+
+        this.cache.compact();
+        this.cache.close();
+        this.cache = this.openCache(64 * 1024);
+
+        assertNotNull(this.cache.get("key", ProviderMetadata.class));
+        assertNotNull(this.cache.get("other", ProviderMetadata.class));
+    }
+
+    @Test
+    public void corruptRecordShouldBeDiscardedOnReopen() throws CacheAccessException, IOException
+    {
+        this.cache.add("kept", new ProviderMetadata.Builder().build());
+        this.cache.add("torn", new ProviderMetadata.Builder().build());
+        this.cache.close();
+
+        final File segment = this.segmentFiles()[0];
+        final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try
+        {
+            // corrupt the last byte of the value of the second record
+            long end = 0L;
+            while (end < file.length())
+            {
+                file.seek(end);
+                final int length = file.readInt();
+                if (length == 0)
+                {
+                    break;
+                }
+                end += 8 + length;
+            }
+            file.seek(end - 1);
+            file.write('x');
+        }
+        finally
+        {
+            file.close();
+        }
+
+        this.cache = this.openCache(64 * 1024);
+
+        assertNotNull(this.cache.get("kept", ProviderMetadata.class));
+        assertNull(this.cache.get("torn", ProviderMetadata.class));
+
+        this.cache.add("after", new ProviderMetadata.Builder().build());
+        this.cache.close();
+        this.cache = this.openCache(64 * 1024);
+
+        assertNotNull(this.cache.get("after", ProviderMetadata.class));
+    }
+
+    @Test
+    public void replaceShouldCompareVersionsAfterReopen() throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("first").build());
+
+        this.cache.close();
+        this.cache = this.openCache(64 * 1024);
+        final long version = this.cache.get("key", ProviderMetadata.class).getCacheVersion();
+
+        assertTrue(this.cache.replace("key", version,
+            new ProviderMetadata.Builder().withIssuer("second").build()));
+        assertFalse(this.cache.replace("key", version,
+            new ProviderMetadata.Builder().withIssuer("third").build()));
+        assertEquals(this.cache.get("key", ProviderMetadata.class).getIssuer(), "second");
+    }
+
+    @Test
+    public void snapshotShouldIncludeEntriesPersistedBeforeReopen()
+        throws CacheAccessException, IOException
+    {
+        this.cache.add("key", new ProviderMetadata.Builder().withIssuer("issuer").build());
+        this.cache.close();
+        this.cache = this.openCache(64 * 1024);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(this.cache.snapshot(out), 1);
+
+        final ICache restored = new ConcurrentCache.Builder().withJsonService(this.jsonService).build();
+        restored.preload(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(restored.get("key", ProviderMetadata.class).getIssuer(), "issuer");
+    }
+}
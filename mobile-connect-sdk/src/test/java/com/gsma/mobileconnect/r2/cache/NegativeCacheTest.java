@@ -0,0 +1,197 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link NegativeCache} and {@link NegativeCachePolicy}
+ *
+ * @since 2.0
+ */
+public class NegativeCacheTest
+{
+    private ICache cache;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.cache = new ConcurrentCache.Builder().withJsonService(new JacksonJsonService()).build();
+    }
+
+    @Test
+    public void policyShouldDoubleTtlUpToMaximum()
+    {
+        final NegativeCachePolicy policy = new NegativeCachePolicy(1L, 10L, TimeUnit.SECONDS);
+
+        assertEquals(policy.ttlMillis(1), 1000L);
+        assertEquals(policy.ttlMillis(2), 2000L);
+        assertEquals(policy.ttlMillis(3), 4000L);
+        assertEquals(policy.ttlMillis(4), 8000L);
+        assertEquals(policy.ttlMillis(5), 10000L);
+        assertEquals(policy.ttlMillis(Integer.MAX_VALUE), 10000L);
+        assertEquals(new NegativeCachePolicy(1L, 1L, TimeUnit.HOURS).ttlMillis(43), 3600000L);
+        assertEquals(NegativeCachePolicy.DISABLED.ttlMillis(3), 0L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void policyShouldRejectMaximumBelowInitial()
+    {
+        new NegativeCachePolicy(10L, 1L, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void failuresShouldSuppressAndGrow()
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(1L, 1L, TimeUnit.HOURS));
+
+        assertFalse(negativeCache.isSuppressed("key"));
+
+        final NegativeCacheEntry first = negativeCache.recordFailure("key", "timed out");
+        assertEquals(first.getFailureCount(), 1);
+        assertTrue(negativeCache.isSuppressed("key"));
+        assertEquals(negativeCache.getSuppressing("key").getReason(), "timed out");
+
+        final NegativeCacheEntry second = negativeCache.recordFailure("key", "timed out");
+        assertEquals(second.getFailureCount(), 2);
+        assertFalse(negativeCache.isSuppressed("other"));
+    }
+
+    @Test
+    public void successShouldClearFailures()
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(1L, 1L, TimeUnit.HOURS));
+
+        negativeCache.recordFailure("key", "timed out");
+        negativeCache.recordSuccess("key");
+
+        assertFalse(negativeCache.isSuppressed("key"));
+        assertEquals(negativeCache.recordFailure("key", "timed out").getFailureCount(), 1);
+    }
+
+    @Test
+    public void expiredFailureShouldAllowRetry() throws InterruptedException
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(10L, 1000L, TimeUnit.MILLISECONDS));
+
+        negativeCache.recordFailure("key", "timed out");
+        Thread.sleep(50L);
+
+        assertFalse(negativeCache.isSuppressed("key"));
+        // the count is retained so the next failure suppresses for longer
+        assertEquals(negativeCache.recordFailure("key", "timed out").getFailureCount(), 2);
+    }
+
+    @Test
+    public void backoffShouldResetOnceFailureNoLongerRetained() throws InterruptedException
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(5L, 10L, TimeUnit.MILLISECONDS));
+
+        assertEquals(negativeCache.recordFailure("key", "timed out").getFailureCount(), 1);
+        assertEquals(negativeCache.recordFailure("key", "timed out").getFailureCount(), 2);
+        // retained for the ttl plus twice the maximum ttl, at most 30ms
+        Thread.sleep(60L);
+
+        assertFalse(negativeCache.isSuppressed("key"));
+        assertEquals(negativeCache.recordFailure("key", "timed out").getFailureCount(), 1);
+    }
+
+    @Test
+    public void concurrentFailuresShouldAllBeCounted() throws Exception
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(1L, 1L, TimeUnit.HOURS));
+        final int threads = 4;
+        final int failuresPerThread = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try
+        {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < threads; i++)
+            {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws InterruptedException
+                    {
+                        start.await();
+                        for (int j = 0; j < failuresPerThread; j++)
+                        {
+                            negativeCache.recordFailure("key", "timed out");
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures)
+            {
+                future.get(10L, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertEquals(negativeCache.getSuppressing("key").getFailureCount(),
+            threads * failuresPerThread);
+    }
+
+    @Test
+    public void disabledPolicyShouldNeverSuppress()
+    {
+        final NegativeCache negativeCache =
+            new NegativeCache(this.cache, NegativeCachePolicy.DISABLED);
+
+        assertNull(negativeCache.recordFailure("key", "timed out"));
+        assertFalse(negativeCache.isSuppressed("key"));
+    }
+
+    @Test
+    public void lookupsShouldBeReportedInStats()
+    {
+        final NegativeCache negativeCache = new NegativeCache(this.cache,
+            new NegativeCachePolicy(1L, 1L, TimeUnit.HOURS));
+
+        negativeCache.recordFailure("key", "timed out");
+        negativeCache.isSuppressed("key");
+
+        final CacheStats stats = this.cache.getStatsByClass().get(NegativeCacheEntry.class);
+        assertNotNull(stats);
+        assertEquals(stats.getHitCount(), 1L);
+        assertEquals(stats.getEstimatedSize(), 1L);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.ListUtils;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ObjectCache}
+ *
+ * @since 2.0
+ */
+public class ObjectCacheTest
+{
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private ICache cache;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.cache = new ObjectCache.Builder().build();
+    }
+
+    @Test
+    public void addShouldStoreDiscoveryResponse()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        this.cache.add("001_01", discoveryResponse);
+
+        final DiscoveryResponse actual = this.cache.get("001_01", DiscoveryResponse.class);
+
+        assertFalse(this.cache.isEmpty());
+        assertNotNull(actual);
+        assertNotSame(actual, discoveryResponse);
+        assertTrue(actual.isCached());
+        assertFalse(discoveryResponse.isCached());
+        assertEquals(actual.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertNull(actual.getResponseData().getSubscriberId());
+        assertNotNull(discoveryResponse.getResponseData().getSubscriberId());
+    }
+
+    @Test
+    public void changesToReturnedValueShouldNotAffectCachedValue()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        this.cache.add("001_01",
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService));
+
+        final DiscoveryResponse first = this.cache.get("001_01", DiscoveryResponse.class);
+        first.setProviderMetadata(
+            new ProviderMetadata.Builder().withAuthorizationEndpoint("http://override").build());
+
+        final DiscoveryResponse second = this.cache.get("001_01", DiscoveryResponse.class);
+
+        assertEquals(first.getOperatorUrls().getAuthorizationUrl(), "http://override");
+        assertNotEquals(second.getOperatorUrls().getAuthorizationUrl(), "http://override");
+        assertNull(second.getProviderMetadata());
+    }
+
+    @Test
+    public void withoutDefensiveCopiesShouldReturnSameInstance()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final ICache sharedCache = new ObjectCache.Builder().withDefensiveCopies(false).build();
+        sharedCache.add("001_01",
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService));
+
+        assertSame(sharedCache.get("001_01", DiscoveryResponse.class),
+            sharedCache.get("001_01", DiscoveryResponse.class));
+    }
+
+    @Test(expectedExceptions = CacheAccessException.class)
+    public void getShouldThrowWhenClassDoesNotMatch()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        this.cache.add("001_01",
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService));
+
+        this.cache.get("001_01", ProviderMetadata.class);
+    }
+
+    @DataProvider
+    public Object[][] removeIfExpiredData()
+    {
+        return new Object[][] {{Boolean.TRUE}, {Boolean.FALSE}};
+    }
+
+    @Test(dataProvider = "removeIfExpiredData")
+    public void cacheShouldNotReturnValueIfExpiredAndRemoveIfExpiredIsTrue(
+        final Boolean removeIfExpired)
+        throws CacheAccessException, CacheExpiryLimitException, InterruptedException
+    {
+        final ICache noLimitCache = new ObjectCache.Builder()
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .build();
+        noLimitCache.setCacheExpiryTime(0L, TimeUnit.SECONDS, ProviderMetadata.class);
+
+        noLimitCache.add("test", new ProviderMetadata.Builder().build());
+
+        Thread.sleep(50L);
+
+        assertEquals(null == noLimitCache.get("test", ProviderMetadata.class, removeIfExpired),
+            removeIfExpired.booleanValue());
+        assertEquals(noLimitCache.isEmpty(), removeIfExpired.booleanValue());
+    }
+
+    @Test
+    public void clearShouldClearStore() throws CacheAccessException
+    {
+        this.cache.add("test", new ProviderMetadata.Builder().build());
+        this.cache.clear();
+
+        assertTrue(this.cache.isEmpty());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.cache;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryResponse;
+import com.gsma.mobileconnect.r2.discovery.ProviderMetadata;
+import com.gsma.mobileconnect.r2.json.IJsonService;
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
+import com.gsma.mobileconnect.r2.utils.ListUtils;
+import com.gsma.mobileconnect.r2.utils.TestUtils;
+import com.gsma.mobileconnect.r2.utils.Tuple;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link TieredCache}
+ *
+ * @since 2.0
+ */
+public class TieredCacheTest
+{
+    // set if the class named by a shared record is initialised
+    private static final AtomicBoolean INITIALISED = new AtomicBoolean(false);
+
+    private final IJsonService jsonService = new JacksonJsonService();
+
+    private InMemorySharedCacheStore store;
+    private ICache nodeA;
+    private ICache nodeB;
+
+    private ICache node(final long nearCacheTtlMillis)
+    {
+        return new TieredCache.Builder()
+            .withJsonService(this.jsonService)
+            .withSharedStore(this.store)
+            .withNearCacheTtl(nearCacheTtlMillis, TimeUnit.MILLISECONDS)
+            .withCacheExpiryLimits(
+                new ListUtils.HashMapBuilder<Class<? extends AbstractCacheable>, Tuple<Long, Long>>()
+                    .build())
+            .build();
+    }
+
+    private DiscoveryResponse discoveryResponse() throws JsonDeserializationException
+    {
+        return DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+            this.jsonService);
+    }
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.store = new InMemorySharedCacheStore();
+        this.nodeA = this.node(TimeUnit.MINUTES.toMillis(1L));
+        this.nodeB = this.node(TimeUnit.MINUTES.toMillis(1L));
+    }
+
+    @Test
+    public void entryAddedOnOneNodeShouldBeReadOnAnother()
+        throws CacheAccessException, JsonDeserializationException
+    {
+        final DiscoveryResponse discoveryResponse = this.discoveryResponse();
+
+        this.nodeA.add("session", discoveryResponse);
+        final DiscoveryResponse cached = this.nodeB.get("session", DiscoveryResponse.class);
+
+        assertNotNull(cached);
+        assertTrue(cached.isCached());
+        assertEquals(cached.getOperatorUrls().getAuthorizationUrl(),
+            discoveryResponse.getOperatorUrls().getAuthorizationUrl());
+        assertFalse(this.nodeB.isEmpty());
+    }
+
+    @Test
+    public void removeShouldInvalidateNearEntryOnOtherNodes() throws CacheAccessException
+    {
+        this.nodeA.add("key", new ProviderMetadata.Builder().build());
+        assertNotNull(this.nodeB.get("key", ProviderMetadata.class));
+
+        this.nodeA.remove("key");
+
+        assertNull(this.nodeB.get("key", ProviderMetadata.class));
+        assertTrue(this.nodeB.isEmpty());
+    }
+
+    @Test
+    public void clearShouldInvalidateAllNearEntriesOnOtherNodes() throws CacheAccessException
+    {
+        this.nodeA.add("a", new ProviderMetadata.Builder().build());
+        this.nodeA.add("b", new ProviderMetadata.Builder().build());
+        assertNotNull(this.nodeB.get("a", ProviderMetadata.class));
+        assertNotNull(this.nodeB.get("b", ProviderMetadata.class));
+
+        this.nodeA.clear();
+
+        assertNull(this.nodeB.get("a", ProviderMetadata.class));
+        assertNull(this.nodeB.get("b", ProviderMetadata.class));
+    }
+
+    @Test
+    public void nearEntryShouldBeServedUntilItsTtlWithoutInvalidation()
+        throws CacheAccessException
+    {
+        final ICache nodeC = this.node(0L);
+        this.nodeA.add("key", new ProviderMetadata.Builder().build());
+        assertNotNull(this.nodeB.get("key", ProviderMetadata.class));
+        assertNotNull(nodeC.get("key", ProviderMetadata.class));
+
+        // a lost invalidation message
+        this.store.remove("key");
+
+        assertNotNull(this.nodeB.get("key", ProviderMetadata.class));
+        assertNull(nodeC.get("key", ProviderMetadata.class));
+    }
+
+    @Test
+    public void entriesShouldExpireFromTimeFirstAdded() throws CacheAccessException
+    {
+        this.nodeA.add("key", new ProviderMetadata.Builder().build(),
+            new Date(System.currentTimeMillis() - 1L));
+
+        assertNull(this.nodeB.get("key", ProviderMetadata.class));
+    }
+
+    @Test
+    public void getAllShouldReadNearAndSharedEntries() throws CacheAccessException
+    {
+        this.nodeA.add("a", new ProviderMetadata.Builder().build());
+        this.nodeA.add("b", new ProviderMetadata.Builder().build());
+        assertNotNull(this.nodeB.get("a", ProviderMetadata.class));
+
+        final Map<String, Class<? extends AbstractCacheable>> keys =
+            new HashMap<String, Class<? extends AbstractCacheable>>();
+        keys.put("a", ProviderMetadata.class);
+        keys.put("b", ProviderMetadata.class);
+        keys.put("c", ProviderMetadata.class);
+        final Map<String, AbstractCacheable> cached = this.nodeB.getAll(keys);
+
+        assertEquals(cached.size(), 2);
+        assertTrue(cached.get("a").isCached());
+        assertTrue(cached.get("b").isCached());
+    }
+
+    @Test
+    public void replaceShouldFailAfterWriteOnAnotherNode() throws CacheAccessException
+    {
+        this.nodeA.add("key", new ProviderMetadata.Builder().withIssuer("first").build());
+        final ProviderMetadata readOnA = this.nodeA.get("key", ProviderMetadata.class);
+        final ProviderMetadata readOnB = this.nodeB.get("key", ProviderMetadata.class);
+        assertEquals(readOnA.getCacheVersion(), readOnB.getCacheVersion());
+
+        assertTrue(this.nodeB.replace("key", readOnB.getCacheVersion(),
+            new ProviderMetadata.Builder().withIssuer("second").build()));
+        assertFalse(this.nodeA.replace("key", readOnA.getCacheVersion(),
+            new ProviderMetadata.Builder().withIssuer("third").build()));
+
+        assertEquals(this.nodeA.get("key", ProviderMetadata.class).getIssuer(), "second");
+    }
+
+    @Test
+    public void recordOfClassNotCacheableShouldBeIgnoredWithoutInitialisingClass()
+        throws CacheAccessException, IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(NotCacheable.class.getName());
+        out.writeLong(System.currentTimeMillis());
+        out.writeLong(-1L);
+        out.writeLong(1L);
+        out.writeInt(0);
+        out.flush();
+        this.store.put("key", bytes.toByteArray(), null);
+
+        assertNull(this.nodeA.get("key", ProviderMetadata.class));
+        assertFalse(INITIALISED.get());
+    }
+
+    private static final class NotCacheable
+    {
+        static
+        {
+            INITIALISED.set(true);
+        }
+    }
+}
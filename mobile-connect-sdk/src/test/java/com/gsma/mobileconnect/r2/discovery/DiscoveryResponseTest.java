@@ -16,6 +16,7 @@
  */
 package com.gsma.mobileconnect.r2.discovery;
 
+import com.gsma.mobileconnect.r2.constants.DefaultOptions;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.json.JsonDeserializationException;
@@ -27,6 +28,8 @@ import org.apache.http.HttpStatus;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Date;
+
 import static java.util.Arrays.asList;
 import static org.testng.Assert.*;
 
@@ -53,6 +56,39 @@ public class DiscoveryResponseTest
         assertNull(discoveryResponse.getResponseData().getSubscriberId());
     }
 
+    @Test
+    public void ttlShouldBeTakenFromResponseDataWithinLimits() throws JsonDeserializationException
+    {
+        final long before = System.currentTimeMillis();
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+
+        // the ttl in the response has already passed, so the minimum applies
+        assertNotNull(discoveryResponse.getTtl());
+        assertTrue(discoveryResponse.getTtl().getTime() >= before + DefaultOptions.MIN_TTL_MS);
+        assertTrue(discoveryResponse.getTtl().getTime()
+            <= System.currentTimeMillis() + DefaultOptions.MIN_TTL_MS);
+        assertEquals(discoveryResponse.expiryDeadline(), discoveryResponse.getTtl());
+    }
+
+    @Test
+    public void copyShouldKeepTtl() throws JsonDeserializationException
+    {
+        final DiscoveryResponse discoveryResponse =
+            DiscoveryResponse.fromRestResponse(TestUtils.DISCOVERY_REQUEST_RESPONSE,
+                this.jsonService);
+        final Date ttl = new Date(System.currentTimeMillis() + 1000L);
+
+        final DiscoveryResponse withTtl =
+            new DiscoveryResponse.Builder(discoveryResponse).withTtl(ttl).build();
+        final DiscoveryResponse copy = new DiscoveryResponse.Builder(withTtl).build();
+
+        assertEquals(withTtl.getTtl(), ttl);
+        assertEquals(copy.getTtl(), ttl);
+        assertEquals(withTtl.copy().getTtl(), ttl);
+    }
+
     @Test
     public void operatorUrlsShouldBeOverridenByProviderMetadataOnSet()
         throws JsonDeserializationException
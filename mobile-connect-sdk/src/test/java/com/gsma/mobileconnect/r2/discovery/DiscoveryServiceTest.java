@@ -19,9 +19,12 @@ package com.gsma.mobileconnect.r2.discovery;
 import com.gsma.mobileconnect.r2.exceptions.InvalidArgumentException;
 import com.gsma.mobileconnect.r2.exceptions.InvalidResponseException;
 import com.gsma.mobileconnect.r2.MobileConnectConfig;
+import com.gsma.mobileconnect.r2.cache.AbstractCacheable;
 import com.gsma.mobileconnect.r2.cache.CacheAccessException;
+import com.gsma.mobileconnect.r2.cache.CacheStats;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.cache.ICache;
+import com.gsma.mobileconnect.r2.cache.NegativeCacheEntry;
 import com.gsma.mobileconnect.r2.json.IJsonService;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.rest.MockRestClient;
@@ -30,9 +33,11 @@ import com.gsma.mobileconnect.r2.rest.RestResponse;
 import com.gsma.mobileconnect.r2.utils.HttpUtils;
 import com.gsma.mobileconnect.r2.utils.TestUtils;
 import org.apache.http.HttpStatus;
+import org.mockito.Mockito;
 import org.testng.annotations.*;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.concurrent.*;
 
 import static org.testng.Assert.*;
@@ -289,6 +294,52 @@ public class DiscoveryServiceTest
         assertTrue(second.getProviderMetadata().isCached());
     }
 
+    @Test
+    public void getCachedDiscoveryResultShouldReadResponseAndMetadataTogether()
+        throws RequestFailedException, InvalidResponseException, CacheAccessException
+    {
+        final ICache cache =
+            Mockito.spy(new ConcurrentCache.Builder().withJsonService(jsonService).build());
+        final DiscoveryService service = new DiscoveryService.Builder()
+            .withExecutorService(executorService)
+            .withJsonService(jsonService)
+            .withCache(cache)
+            .withRestClient(restClient)
+            .build();
+        restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+
+        service.completeSelectedOperatorDiscovery(config, REDIRECT_URL, "901", "01");
+        final DiscoveryResponse cached = service.getCachedDiscoveryResponse("901", "01");
+
+        assertNotNull(cached);
+        assertNotNull(cached.getProviderMetadata());
+        assertTrue(cached.getProviderMetadata().isCached());
+        Mockito.verify(cache, Mockito.times(1))
+            .getAll(Mockito.<Map<String, Class<? extends AbstractCacheable>>>any());
+        Mockito.verify(cache, Mockito.never()).get(Mockito.anyString(),
+            Mockito.eq(ProviderMetadata.class));
+    }
+
+    @Test
+    public void getProviderMetadataShouldCompleteFromCacheWithoutExecutor()
+        throws RequestFailedException, InvalidResponseException, ExecutionException,
+        InterruptedException
+    {
+        restClient
+            .addResponse(TestUtils.AUTHENTICATION_RESPONSE)
+            .addResponse(TestUtils.PROVIDER_METADATA_RESPONSE);
+        final DiscoveryResponse response =
+            discoveryService.completeSelectedOperatorDiscovery(config, REDIRECT_URL, "901", "01");
+
+        final Future<ProviderMetadata> future = discoveryService.getProviderMetadata(response, false);
+
+        assertTrue(future.isDone());
+        assertTrue(future.get().isCached());
+        assertSame(response.getProviderMetadata(), future.get());
+    }
+
     @Test
     public void clearDiscoveryCacheShouldEmptyCacheWithEmptyArguments()
         throws RequestFailedException, InvalidResponseException, CacheAccessException
@@ -364,6 +415,59 @@ public class DiscoveryServiceTest
         assertEquals(original.getProviderMetadata(), metadata);
     }
 
+    @Test
+    public void retrieveProviderMetadataShouldNotRetryFailedUrlWithinNegativeTtl()
+    {
+        final URI url = URI.create("http://localhost:8080/.well-known/openid-configuration");
+        restClient.addResponse(
+            new RequestFailedException(HttpUtils.HttpMethod.GET, url, new TimeoutException()));
+
+        final DiscoveryService service = (DiscoveryService) discoveryService;
+        final ProviderMetadata first = service.retrieveProviderMetadata(url, true);
+        // not queued, so would fail if the url were requested again
+        final ProviderMetadata second = service.retrieveProviderMetadata(url, true);
+
+        assertNull(first.getIssuer());
+        assertNull(second.getIssuer());
+
+        final CacheStats stats = discoveryCache.getStatsByClass().get(NegativeCacheEntry.class);
+        assertEquals(stats.getHitCount(), 1L);
+    }
+
+    @Test
+    public void discoveryWithoutMccMncShouldNotRetryFailedEndpointWithinNegativeTtl()
+        throws InvalidResponseException
+    {
+        // a cache of its own, so that the stats are not shared with other tests
+        final ICache cache = new ConcurrentCache.Builder().withJsonService(jsonService).build();
+        final IDiscoveryService service = new DiscoveryService.Builder()
+            .withExecutorService(executorService)
+            .withJsonService(jsonService)
+            .withCache(cache)
+            .withRestClient(restClient)
+            .build();
+        restClient.addResponse(new RequestFailedException(HttpUtils.HttpMethod.GET,
+            DISCOVERY_URL, new TimeoutException()));
+
+        for (int i = 0; i < 2; i++)
+        {
+            try
+            {
+                // not queued the second time, so would fail if the endpoint were requested again
+                service.startAutomatedOperatorDiscovery(config, REDIRECT_URL,
+                    new DiscoveryOptions.Builder().build(), null);
+                fail("discovery should fail");
+            }
+            catch (final RequestFailedException rfe)
+            {
+                // expected
+            }
+        }
+
+        final CacheStats stats = cache.getStatsByClass().get(NegativeCacheEntry.class);
+        assertEquals(stats.getHitCount(), 1L);
+    }
+
     @DataProvider
     public Object[][] argValidationData()
     {
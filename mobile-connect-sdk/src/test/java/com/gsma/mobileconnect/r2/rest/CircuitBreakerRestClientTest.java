@@ -0,0 +1,338 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.MobileConnectStatus;
+import com.gsma.mobileconnect.r2.exceptions.CircuitOpenException;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpHost;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link CircuitBreakerRestClient} and {@link CircuitBreaker}
+ *
+ * @since 2.0
+ */
+public class CircuitBreakerRestClientTest
+{
+    private static final URI FAILING_URI = URI.create("https://failing.operator/token");
+    private static final URI HEALTHY_URI = URI.create("https://healthy.operator/token");
+
+    private static final CircuitBreakerConfig CONFIG = new CircuitBreakerConfig.Builder()
+        .withSlidingWindowSize(4)
+        .withMinimumCalls(4)
+        .withFailureRateThreshold(50)
+        .withHalfOpenCalls(2)
+        .withOpenDuration(50L, TimeUnit.MILLISECONDS)
+        .build();
+
+    private static RestResponse response(final int statusCode)
+    {
+        return new RestResponse.Builder().withStatusCode(statusCode).build();
+    }
+
+    private static RequestFailedException failure(final URI uri)
+    {
+        return new RequestFailedException(HttpUtils.HttpMethod.GET, uri,
+            new IOException("Connection reset"));
+    }
+
+    private static void callIgnoringFailure(final IRestClient restClient, final URI uri)
+    {
+        try
+        {
+            restClient.get(uri, null, null, null, null);
+        }
+        catch (final RequestFailedException rfe)
+        {
+            assertFalse(rfe instanceof CircuitOpenException);
+        }
+    }
+
+    @Test
+    public void circuitShouldOpenOnceFailureRateReached() throws RequestFailedException
+    {
+        final MockRestClient mockRestClient = new MockRestClient()
+            .addResponse(failure(FAILING_URI))
+            .addResponse(response(200))
+            .addResponse(response(503))
+            .addResponse(response(200));
+        final CircuitBreakerRestClient restClient = new CircuitBreakerRestClient.Builder()
+            .withRestClient(mockRestClient)
+            .withConfig(CONFIG)
+            .build();
+
+        for (int i = 0; i < 4; i++)
+        {
+            callIgnoringFailure(restClient, FAILING_URI);
+        }
+        assertEquals(restClient.getState(FAILING_URI), CircuitBreaker.State.OPEN);
+
+        try
+        {
+            restClient.postFormData(FAILING_URI, null, Collections.<KeyValuePair>emptyList(),
+                null, null);
+            fail("expected exception");
+        }
+        catch (final CircuitOpenException coe)
+        {
+            assertEquals(coe.getHost(), "failing.operator:443");
+            assertTrue(coe.getRetryAfterMillis() <= 50L);
+
+            final MobileConnectStatus status = coe.toMobileConnectStatus("request token");
+            assertEquals(status.getResponseType(), MobileConnectStatus.ResponseType.ERROR);
+            assertEquals(status.getErrorCode(), "circuit_open");
+        }
+        assertTrue(mockRestClient.reset().isEmpty());
+    }
+
+    @Test
+    public void clientErrorsShouldNotOpenCircuit() throws RequestFailedException
+    {
+        final MockRestClient mockRestClient = new MockRestClient();
+        for (int i = 0; i < 4; i++)
+        {
+            mockRestClient.addResponse(response(400));
+        }
+        final CircuitBreakerRestClient restClient = new CircuitBreakerRestClient.Builder()
+            .withRestClient(mockRestClient)
+            .withConfig(CONFIG)
+            .build();
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(restClient.get(FAILING_URI, null, null, null, null).getStatusCode(),
+                400);
+        }
+        assertEquals(restClient.getState(FAILING_URI), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void otherHostsShouldBeUnaffected() throws RequestFailedException
+    {
+        final MockRestClient mockRestClient = new MockRestClient();
+        for (int i = 0; i < 4; i++)
+        {
+            mockRestClient.addResponse(failure(FAILING_URI));
+        }
+        mockRestClient.addResponse(response(200));
+        final CircuitBreakerRestClient restClient = new CircuitBreakerRestClient.Builder()
+            .withRestClient(mockRestClient)
+            .withConfig(CONFIG)
+            .build();
+
+        for (int i = 0; i < 4; i++)
+        {
+            callIgnoringFailure(restClient, FAILING_URI);
+        }
+
+        assertEquals(restClient.getState(FAILING_URI), CircuitBreaker.State.OPEN);
+        assertEquals(restClient.get(HEALTHY_URI, null, null, null, null).getStatusCode(), 200);
+        assertEquals(restClient.getState(HEALTHY_URI), CircuitBreaker.State.CLOSED);
+        assertEquals(restClient.getCircuitBreakers().size(), 2);
+    }
+
+    @Test
+    public void circuitShouldOpenOnceSlowCallRateReached()
+    {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(new HttpHost("slow.operator"),
+            new CircuitBreakerConfig.Builder()
+                .withSlidingWindowSize(4)
+                .withMinimumCalls(4)
+                .withSlowCallRateThreshold(50)
+                .withSlowCallDuration(1L, TimeUnit.SECONDS)
+                .build(), Collections.<ICircuitBreakerListener>emptyList());
+
+        for (int i = 0; i < 4; i++)
+        {
+            final CircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+            assertNotNull(permit);
+            circuitBreaker.onResult(permit, false,
+                i % 2 == 0 ? TimeUnit.SECONDS.toNanos(2L) : TimeUnit.MILLISECONDS.toNanos(10L));
+        }
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void finalRedirectShouldNotBeCountedAsSlow() throws RequestFailedException
+    {
+        final IRestClient slowRestClient = Mockito.mock(IRestClient.class);
+        Mockito.when(slowRestClient.getFinalRedirect(HEALTHY_URI, HEALTHY_URI, null))
+            .thenAnswer(new Answer<URI>()
+            {
+                @Override
+                public URI answer(final InvocationOnMock invocation) throws Throwable
+                {
+                    Thread.sleep(5L);
+                    return HEALTHY_URI;
+                }
+            });
+        final CircuitBreakerRestClient restClient = new CircuitBreakerRestClient.Builder()
+            .withRestClient(slowRestClient)
+            .withConfig(new CircuitBreakerConfig.Builder()
+                .withSlidingWindowSize(4)
+                .withMinimumCalls(4)
+                .withSlowCallRateThreshold(50)
+                .withSlowCallDuration(1L, TimeUnit.MILLISECONDS)
+                .build())
+            .build();
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(restClient.getFinalRedirect(HEALTHY_URI, HEALTHY_URI, null),
+                HEALTHY_URI);
+        }
+
+        assertEquals(restClient.getState(HEALTHY_URI), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void outcomesShouldSlideOutOfWindow()
+    {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(new HttpHost("operator"),
+            CONFIG, Collections.<ICircuitBreakerListener>emptyList());
+
+        circuitBreaker.onResult(circuitBreaker.tryAcquire(), true, 0L);
+        for (int i = 0; i < 10; i++)
+        {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), false, 0L);
+        }
+        // one failure in every four calls stays below the threshold of a half
+        for (int i = 0; i < 3; i++)
+        {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), i == 0, 0L);
+        }
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void halfOpenCircuitShouldCloseAfterSuccessfulProbes() throws InterruptedException
+    {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(new HttpHost("operator"),
+            CONFIG, Arrays.<ICircuitBreakerListener>asList(new ICircuitBreakerListener()
+        {
+            @Override
+            public void onStateChange(final HttpHost host, final CircuitBreaker.State from,
+                final CircuitBreaker.State to)
+            {
+                events.add(from + "->" + to);
+            }
+        }));
+
+        for (int i = 0; i < 4; i++)
+        {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), true, 0L);
+        }
+        assertNull(circuitBreaker.tryAcquire());
+
+        Thread.sleep(60L);
+
+        // only the configured number of probes are let through
+        final CircuitBreaker.Permit first = circuitBreaker.tryAcquire();
+        final CircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(circuitBreaker.tryAcquire());
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+
+        circuitBreaker.onResult(first, false, 0L);
+        circuitBreaker.onResult(second, false, 0L);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+        assertNotNull(circuitBreaker.tryAcquire());
+        assertEquals(events, Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"));
+    }
+
+    @Test
+    public void halfOpenCircuitShouldReopenAfterFailedProbe() throws InterruptedException
+    {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(new HttpHost("operator"),
+            CONFIG, Collections.<ICircuitBreakerListener>singletonList(
+            new ICircuitBreakerListener()
+            {
+                @Override
+                public void onStateChange(final HttpHost host, final CircuitBreaker.State from,
+                    final CircuitBreaker.State to)
+                {
+                    throw new IllegalStateException("listener failures are ignored");
+                }
+            }));
+
+        for (int i = 0; i < 4; i++)
+        {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), true, 0L);
+        }
+        Thread.sleep(60L);
+
+        final CircuitBreaker.Permit first = circuitBreaker.tryAcquire();
+        final CircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+        circuitBreaker.onResult(first, true, 0L);
+        circuitBreaker.onResult(second, false, 0L);
+
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.OPEN);
+        assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void callStartedBeforeCircuitOpenedShouldNotCountAsProbe() throws InterruptedException
+    {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(new HttpHost("operator"),
+            CONFIG, Collections.<ICircuitBreakerListener>emptyList());
+
+        final CircuitBreaker.Permit late = circuitBreaker.tryAcquire();
+        for (int i = 0; i < 4; i++)
+        {
+            circuitBreaker.onResult(circuitBreaker.tryAcquire(), true, 0L);
+        }
+        Thread.sleep(60L);
+        final CircuitBreaker.Permit probe = circuitBreaker.tryAcquire();
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+
+        // the call made while closed finishes after the circuit has moved to half open
+        circuitBreaker.onResult(late, true, 0L);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.HALF_OPEN);
+
+        circuitBreaker.onResult(probe, false, 0L);
+        circuitBreaker.onResult(circuitBreaker.tryAcquire(), false, 0L);
+        assertEquals(circuitBreaker.getState(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void configShouldRejectMinimumCallsAboveWindowSize()
+    {
+        new CircuitBreakerConfig.Builder().withSlidingWindowSize(5).withMinimumCalls(6).build();
+    }
+}
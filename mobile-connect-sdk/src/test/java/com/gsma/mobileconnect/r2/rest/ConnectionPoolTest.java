@@ -0,0 +1,163 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.json.JacksonJsonService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link ConnectionPool} and {@link ConnectionPoolConfig}
+ *
+ * @since 2.0
+ */
+public class ConnectionPoolTest
+{
+    private HttpServer server;
+    private URI serverUri;
+
+    @BeforeMethod
+    public void startServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException
+            {
+                final byte[] body = "{}".getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        this.server.start();
+        this.serverUri = URI.create(
+            String.format("http://127.0.0.1:%d/", this.server.getAddress().getPort()));
+    }
+
+    @AfterMethod
+    public void stopServer()
+    {
+        this.server.stop(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void builderShouldRejectNonPositiveMaxTotal()
+    {
+        new ConnectionPoolConfig.Builder().withMaxTotal(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void builderShouldRejectNegativeIdleTimeout()
+    {
+        new ConnectionPoolConfig.Builder().withIdleTimeout(-1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void toHttpHostShouldResolveDefaultPorts()
+    {
+        assertEquals(ConnectionPoolConfig.toHttpHost(URI.create("https://operator.com/token")),
+            new HttpHost("operator.com", 443, "https"));
+        assertEquals(ConnectionPoolConfig.toHttpHost(URI.create("http://operator.com")),
+            new HttpHost("operator.com", 80, "http"));
+        assertEquals(ConnectionPoolConfig.toHttpHost(URI.create("http://operator.com:8080")),
+            new HttpHost("operator.com", 8080, "http"));
+    }
+
+    @Test
+    public void statsShouldReportConfiguredLimitsAndReleasedConnections() throws IOException
+    {
+        final ConnectionPool pool = new ConnectionPool(new ConnectionPoolConfig.Builder()
+            .withMaxTotal(10)
+            .withMaxPerRoute(4)
+            .withMaxPerHost(this.serverUri, 2)
+            .build());
+        try
+        {
+            final CloseableHttpResponse response =
+                pool.getHttpClient().execute(new HttpGet(this.serverUri));
+            try
+            {
+                assertEquals(pool.getStats().getLeased(), 1);
+                EntityUtils.consume(response.getEntity());
+            }
+            finally
+            {
+                response.close();
+            }
+
+            final ConnectionPoolStats stats = pool.getStats();
+
+            assertEquals(stats.getMax(), 10);
+            assertEquals(stats.getLeased(), 0);
+            assertEquals(stats.getAvailable(), 1);
+
+            final ConnectionPoolStats routeStats =
+                stats.getRouteStats().get(String.format("http://127.0.0.1:%d",
+                    this.serverUri.getPort()));
+            assertNotNull(routeStats);
+            assertEquals(routeStats.getMax(), 2);
+            assertEquals(routeStats.getAvailable(), 1);
+        }
+        finally
+        {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void restClientShouldOnlyReportStatsForPoolItBuilt() throws IOException
+    {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final RestClient pooled = new RestClient.Builder()
+            .withScheduledExecutorService(executor)
+            .withJsonService(new JacksonJsonService())
+            .withConnectionPool(new ConnectionPoolConfig.Builder().withMaxTotal(7).build())
+            .build();
+        final RestClient supplied = new RestClient.Builder()
+            .withScheduledExecutorService(executor)
+            .withJsonService(new JacksonJsonService())
+            .withHttpClient(mock(org.apache.http.client.HttpClient.class))
+            .build();
+
+        assertEquals(pooled.getConnectionPoolStats().getMax(), 7);
+        assertNull(supplied.getConnectionPoolStats());
+
+        pooled.close();
+        supplied.close();
+        executor.shutdown();
+    }
+}
@@ -104,6 +104,14 @@ public class MockRestClient implements IRestClient
         return this.getNext();
     }
 
+    @Override
+    public RestResponse get(URI uri, RestAuthentication authentication, String sourceIp,
+        List<KeyValuePair> queryParams, Iterable<KeyValuePair> cookies,
+        JsonResponseTypes responseTypes) throws RequestFailedException
+    {
+        return this.getNext();
+    }
+
     @Override
     public RestResponse postFormData(URI uri, RestAuthentication authentication,
         List<KeyValuePair> formData, String sourceIp, Iterable<KeyValuePair> cookies)
@@ -112,6 +120,14 @@ public class MockRestClient implements IRestClient
         return this.getNext();
     }
 
+    @Override
+    public RestResponse postFormData(URI uri, RestAuthentication authentication,
+        List<KeyValuePair> formData, String sourceIp, Iterable<KeyValuePair> cookies,
+        JsonResponseTypes responseTypes) throws RequestFailedException
+    {
+        return this.getNext();
+    }
+
     @Override
     public RestResponse postJsonContent(URI uri, RestAuthentication authentication, Object content,
         String sourceIp, Iterable<KeyValuePair> cookies) throws RequestFailedException
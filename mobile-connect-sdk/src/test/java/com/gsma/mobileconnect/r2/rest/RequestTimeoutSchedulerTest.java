@@ -0,0 +1,124 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link RequestTimeoutScheduler}
+ *
+ * @since 2.0
+ */
+public class RequestTimeoutSchedulerTest
+{
+    private RequestTimeoutScheduler scheduler;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.scheduler = new RequestTimeoutScheduler.Builder()
+            .withTick(1L, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @AfterMethod
+    public void afterMethod()
+    {
+        this.scheduler.close();
+    }
+
+    @Test
+    public void scheduleShouldRunTaskOnceDelayPassed() throws InterruptedException
+    {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        this.scheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                latch.countDown();
+            }
+        }, 20L, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20L));
+        assertEquals(this.scheduler.getScheduledCount(), 1L);
+        assertEquals(this.scheduler.getExpiredCount(), 1L);
+    }
+
+    @Test
+    public void cancelledTaskShouldNotRun() throws InterruptedException
+    {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Runnable task = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                runs.incrementAndGet();
+            }
+        };
+
+        final Future<?> cancelled = this.scheduler.schedule(task, 10L, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel(false));
+        this.scheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                latch.countDown();
+            }
+        }, 30L, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5L, TimeUnit.SECONDS));
+        assertEquals(runs.get(), 0);
+        assertTrue(cancelled.isCancelled());
+        assertEquals(this.scheduler.getExpiredCount(), 1L);
+    }
+
+    @Test(expectedExceptions = RejectedExecutionException.class)
+    public void scheduleShouldBeRejectedOnceClosed()
+    {
+        this.scheduler.close();
+        this.scheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+            }
+        }, 1L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void builderShouldRejectTickBelowOneMillisecond()
+    {
+        new RequestTimeoutScheduler.Builder().withTick(10L, TimeUnit.MICROSECONDS);
+    }
+}
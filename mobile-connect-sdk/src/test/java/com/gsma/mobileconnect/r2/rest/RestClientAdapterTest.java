@@ -0,0 +1,175 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.CallbackFuture;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link AsyncRestClientAdapter} and {@link BlockingRestClientAdapter}
+ *
+ * @since 2.0
+ */
+public class RestClientAdapterTest
+{
+    private static final URI TEST_URI = URI.create("http://test");
+
+    private static RestResponse response(final int statusCode)
+    {
+        return new RestResponse.Builder()
+            .withMethod("GET")
+            .withUri(TEST_URI)
+            .withStatusCode(statusCode)
+            .build();
+    }
+
+    @Test
+    public void asyncAdapterShouldCompleteWithResponseOnExecutor() throws Exception
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            final MockRestClient restClient = new MockRestClient().addResponse(response(200));
+            final IAsyncRestClient asyncRestClient =
+                AsyncRestClientAdapter.of(restClient, executor);
+
+            final CallbackFuture<RestResponse> future =
+                asyncRestClient.getAsync(TEST_URI, null, null, null, null);
+
+            assertEquals(future.get().getStatusCode(), 200);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void asyncAdapterShouldFailWithRequestFailedException() throws InterruptedException
+    {
+        final RequestFailedException rfe =
+            new RequestFailedException(HttpUtils.HttpMethod.POST, TEST_URI, new IOException());
+        final IAsyncRestClient asyncRestClient =
+            new AsyncRestClientAdapter(new MockRestClient().addResponse(rfe), null);
+
+        try
+        {
+            asyncRestClient.postFormDataAsync(TEST_URI, null, null, null, null).get();
+            fail("expected failure");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertSame(ee.getCause(), rfe);
+        }
+    }
+
+    @Test
+    public void asyncAdapterShouldFailWhenExecutorRejects() throws InterruptedException
+    {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        final IAsyncRestClient asyncRestClient =
+            new AsyncRestClientAdapter(new MockRestClient(), executor);
+
+        try
+        {
+            asyncRestClient.getAsync(TEST_URI, null, null, null, null).get();
+            fail("expected failure");
+        }
+        catch (final ExecutionException ee)
+        {
+            assertTrue(ee.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void blockingAdapterShouldReturnResponseAndRethrowFailure()
+        throws RequestFailedException
+    {
+        final RequestFailedException rfe =
+            new RequestFailedException(HttpUtils.HttpMethod.GET, TEST_URI, new IOException());
+        final MockRestClient mockRestClient =
+            new MockRestClient().addResponse(response(202)).addResponse(rfe);
+        final IRestClient restClient =
+            BlockingRestClientAdapter.of(new AsyncRestClientAdapter(mockRestClient, null));
+
+        assertEquals(restClient.get(TEST_URI, null, null, null, null).getStatusCode(), 202);
+        try
+        {
+            restClient.get(TEST_URI, null, null, null, null);
+            fail("expected failure");
+        }
+        catch (final RequestFailedException e)
+        {
+            assertSame(e, rfe);
+        }
+    }
+
+    @Test
+    public void blockingAdapterShouldWrapCancellation()
+    {
+        final IRestClient restClient = new BlockingRestClientAdapter(new AsyncRestClientAdapter(
+            new MockRestClient(), null)
+        {
+            @Override
+            public CallbackFuture<RestResponse> getAsync(final URI uri,
+                final RestAuthentication authentication, final String sourceIp,
+                final List<KeyValuePair> queryParams,
+                final Iterable<KeyValuePair> cookies)
+            {
+                final CallbackFuture<RestResponse> future = new CallbackFuture<RestResponse>();
+                future.cancel(false);
+                return future;
+            }
+        });
+
+        try
+        {
+            restClient.get(TEST_URI, null, null, null, null);
+            fail("expected failure");
+        }
+        catch (final RequestFailedException rfe)
+        {
+            assertEquals(rfe.getMethod(), "GET");
+            assertEquals(rfe.getUri(), TEST_URI);
+        }
+    }
+
+    @Test
+    public void ofShouldNotAdaptTwice()
+    {
+        final IRestClient restClient = new MockRestClient();
+        final IAsyncRestClient asyncRestClient = AsyncRestClientAdapter.of(restClient, null);
+
+        assertSame(((AsyncRestClientAdapter) asyncRestClient).getRestClient(), restClient);
+        assertNull(AsyncRestClientAdapter.of(null, null));
+        assertNull(BlockingRestClientAdapter.of(null));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.rest;
+
+import com.gsma.mobileconnect.r2.discovery.DiscoveryService;
+import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.utils.HttpUtils;
+import com.gsma.mobileconnect.r2.utils.KeyValuePair;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.utils.DateUtils;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link BackoffRetryPolicy}, {@link RetryBudget} and {@link RetryAttempt}
+ *
+ * @since 2.0
+ */
+public class RetryPolicyTest
+{
+    private static final URI TEST_URI = URI.create("http://test");
+
+    private static RetryAttempt failedAttempt(final int attempt, final long previousDelay,
+        final IOException cause)
+    {
+        return new RetryAttempt("GET", TEST_URI, null, attempt, previousDelay, null,
+            new RequestFailedException(HttpUtils.HttpMethod.GET, TEST_URI, cause));
+    }
+
+    private static RetryAttempt errorAttempt(final JsonResponseTypes responseTypes,
+        final int statusCode, final List<KeyValuePair> headers)
+    {
+        return new RetryAttempt("GET", TEST_URI, responseTypes, 1, 0L, new RestResponse.Builder()
+            .withStatusCode(statusCode)
+            .withHeaders(headers)
+            .build(), null);
+    }
+
+    @Test
+    public void delaysShouldGrowWithJitterWithinBounds()
+    {
+        final BackoffRetryPolicy policy = new BackoffRetryPolicy.Builder()
+            .withBaseDelay(10L)
+            .withMaxDelay(1000L)
+            .withMaxAttempts(100)
+            .withRandom(new Random(42L))
+            .build();
+
+        long previousDelay = 0L;
+        for (int attempt = 1; attempt < 20; attempt++)
+        {
+            final long delay = policy.getRetryDelay(
+                failedAttempt(attempt, previousDelay, new SocketException("Connection reset")));
+
+            assertTrue(delay >= 10L, "delay=" + delay);
+            assertTrue(delay <= Math.min(1000L, Math.max(10L, previousDelay) * 3),
+                "delay=" + delay + ", previousDelay=" + previousDelay);
+            previousDelay = delay;
+        }
+    }
+
+    @Test
+    public void shouldStopAfterMaxAttempts()
+    {
+        final BackoffRetryPolicy policy =
+            new BackoffRetryPolicy.Builder().withMaxAttempts(2).build();
+
+        assertTrue(policy.getRetryDelay(failedAttempt(1, 0L, new SocketException())) >= 0);
+        assertEquals(policy.getRetryDelay(failedAttempt(2, 50L, new SocketException())),
+            IRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    public void maxAttemptsShouldBeSetPerOperation()
+    {
+        final BackoffRetryPolicy policy = new BackoffRetryPolicy.Builder()
+            .withMaxAttempts(3)
+            .withMaxAttempts(DiscoveryService.PROVIDER_METADATA_TYPES, 1)
+            .build();
+
+        assertEquals(policy.getMaxAttempts(DiscoveryService.PROVIDER_METADATA_TYPES), 1);
+        assertEquals(policy.getMaxAttempts(null), 3);
+        assertEquals(policy.getRetryDelay(errorAttempt(DiscoveryService.PROVIDER_METADATA_TYPES,
+            HttpStatus.SC_SERVICE_UNAVAILABLE, new KeyValuePair.ListBuilder().build())),
+            IRetryPolicy.NO_RETRY);
+        assertTrue(policy.getRetryDelay(errorAttempt(null, HttpStatus.SC_SERVICE_UNAVAILABLE,
+            new KeyValuePair.ListBuilder().build())) >= 0);
+    }
+
+    @Test
+    public void shouldOnlyRetryTransientFailures()
+    {
+        final BackoffRetryPolicy policy = new BackoffRetryPolicy.Builder().build();
+        final List<KeyValuePair> noHeaders = new KeyValuePair.ListBuilder().build();
+
+        assertTrue(policy.getRetryDelay(errorAttempt(null, HttpStatus.SC_BAD_GATEWAY, noHeaders))
+            >= 0);
+        assertTrue(policy.getRetryDelay(errorAttempt(null, 429, noHeaders)) >= 0);
+        assertEquals(
+            policy.getRetryDelay(errorAttempt(null, HttpStatus.SC_BAD_REQUEST, noHeaders)),
+            IRetryPolicy.NO_RETRY);
+        assertEquals(policy.getRetryDelay(
+            errorAttempt(null, HttpStatus.SC_INTERNAL_SERVER_ERROR, noHeaders)),
+            IRetryPolicy.NO_RETRY);
+        assertEquals(policy.getRetryDelay(failedAttempt(1, 0L, new ClientProtocolException())),
+            IRetryPolicy.NO_RETRY);
+        assertEquals(
+            policy.getRetryDelay(failedAttempt(1, 0L, new ResponseTooLargeException(10L, 20L))),
+            IRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    public void timeoutsShouldOnlyBeRetriedIfEnabled()
+    {
+        final RetryAttempt timedOut = new RetryAttempt("GET", TEST_URI, null, 1, 0L, null,
+            new RequestFailedException(HttpUtils.HttpMethod.GET, TEST_URI,
+                new TimeoutException("aborted")));
+
+        assertEquals(new BackoffRetryPolicy.Builder().build().getRetryDelay(timedOut),
+            IRetryPolicy.NO_RETRY);
+        assertEquals(new BackoffRetryPolicy.Builder().build()
+            .getRetryDelay(failedAttempt(1, 0L, new SocketTimeoutException())),
+            IRetryPolicy.NO_RETRY);
+        assertTrue(new BackoffRetryPolicy.Builder().withRetryTimeouts(true).build()
+            .getRetryDelay(timedOut) >= 0);
+    }
+
+    @Test
+    public void shouldHonourRetryAfterWithinMaxDelay()
+    {
+        final BackoffRetryPolicy policy =
+            new BackoffRetryPolicy.Builder().withMaxDelay(5000L).build();
+
+        assertEquals(policy.getRetryDelay(errorAttempt(null, HttpStatus.SC_SERVICE_UNAVAILABLE,
+            new KeyValuePair.ListBuilder().add("Retry-After", "2").build())), 2000L);
+        assertEquals(policy.getRetryDelay(errorAttempt(null, HttpStatus.SC_SERVICE_UNAVAILABLE,
+            new KeyValuePair.ListBuilder().add("Retry-After", "120").build())),
+            IRetryPolicy.NO_RETRY);
+    }
+
+    @Test
+    public void retryAfterShouldBeParsedAsSecondsOrDate()
+    {
+        final long now = System.currentTimeMillis();
+        final String date = DateUtils.formatDate(new Date(now + 30000L));
+
+        assertEquals(RetryAttempt.parseRetryAfter(
+            new KeyValuePair.ListBuilder().add("retry-after", " 3 ").build(), now), 3000L);
+        final long fromDate = RetryAttempt.parseRetryAfter(
+            new KeyValuePair.ListBuilder().add("Retry-After", date).build(), now);
+        assertTrue(fromDate > 28000L && fromDate <= 30000L, "fromDate=" + fromDate);
+        assertEquals(RetryAttempt.parseRetryAfter(
+            new KeyValuePair.ListBuilder().add("Retry-After", "soon").build(), now), -1L);
+        assertEquals(RetryAttempt.parseRetryAfter(new KeyValuePair.ListBuilder().build(), now),
+            -1L);
+    }
+
+    @Test
+    public void budgetShouldLimitRetriesToRatioOfRequests()
+    {
+        final RetryBudget budget =
+            new RetryBudget.Builder().withRatio(0.5).withMaxRetries(2).build();
+
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        budget.onRequest();
+        assertFalse(budget.tryAcquire());
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 10; i++)
+        {
+            budget.onRequest();
+        }
+        assertEquals(budget.getAvailableRetries(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void builderShouldRejectMaxDelayBelowBaseDelay()
+    {
+        new BackoffRetryPolicy.Builder().withBaseDelay(100L).withMaxDelay(10L).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void budgetBuilderShouldRejectRatioAboveOne()
+    {
+        new RetryBudget.Builder().withRatio(1.5);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * SOFTWARE USE PERMISSION
+ *
+ * By downloading and accessing this software and associated documentation files ("Software") you are granted the
+ * unrestricted right to deal in the Software, including, without limitation the right to use, copy, modify, publish,
+ * sublicense and grant such rights to third parties, subject to the following conditions:
+ *
+ * The following copyright notice and this permission notice shall be included in all copies, modifications or
+ * substantial portions of this Software: Copyright © 2016 GSM Association.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS," WITHOUT WARRANTY OF ANY KIND, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. YOU AGREE TO
+ * INDEMNIFY AND HOLD HARMLESS THE AUTHORS AND COPYRIGHT HOLDERS FROM AND AGAINST ANY SUCH LIABILITY.
+ */
+package com.gsma.mobileconnect.r2.utils;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests {@link TimerWheel}
+ *
+ * @since 2.0
+ */
+public class TimerWheelTest
+{
+    @DataProvider
+    public Object[][] deadlineData()
+    {
+        return new Object[][] {{1L}, {63L}, {64L}, {65L}, {4095L}, {4097L}, {300000L},
+            {20000000L}};
+    }
+
+    @Test(dataProvider = "deadlineData")
+    public void advanceShouldReturnItemOnlyOnceDeadlinePassed(final Long delay)
+    {
+        final long start = 1000L;
+        final TimerWheel<String> timerWheel = new TimerWheel<String>(1L, start);
+        final List<String> due = new ArrayList<String>();
+
+        timerWheel.schedule("item", start + delay, due);
+        assertEquals(timerWheel.size(), 1);
+
+        timerWheel.advance(start + delay - 1, due);
+        assertTrue(due.isEmpty());
+
+        timerWheel.advance(start + delay, due);
+        assertEquals(due.size(), 1);
+        assertEquals(timerWheel.size(), 0);
+    }
+
+    @Test
+    public void scheduleShouldReturnItemImmediatelyIfDeadlinePassed()
+    {
+        final TimerWheel<String> timerWheel = new TimerWheel<String>(10L, 1000L);
+        final List<String> due = new ArrayList<String>();
+
+        timerWheel.schedule("item", 500L, due);
+
+        assertEquals(due.size(), 1);
+        assertEquals(timerWheel.size(), 0);
+    }
+
+    @Test
+    public void advanceShouldReturnItemsInDeadlineOrder()
+    {
+        final TimerWheel<String> timerWheel = new TimerWheel<String>(1000L, 0L);
+        final List<String> due = new ArrayList<String>();
+
+        timerWheel.schedule("late", 90000L, due);
+        timerWheel.schedule("early", 2000L, due);
+        timerWheel.advance(100000L, due);
+
+        assertEquals(due.size(), 2);
+        assertEquals(due.get(0), "early");
+        assertEquals(due.get(1), "late");
+    }
+}
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableMap;
 import com.gsma.mobileconnect.r2.cache.ConcurrentCache;
 import com.gsma.mobileconnect.r2.json.JacksonJsonService;
 import com.gsma.mobileconnect.r2.exceptions.RequestFailedException;
+import com.gsma.mobileconnect.r2.rest.JsonResponseTypes;
 import com.gsma.mobileconnect.r2.rest.RestAuthentication;
 import com.gsma.mobileconnect.r2.rest.RestClient;
 import com.gsma.mobileconnect.r2.rest.RestResponse;
@@ -82,8 +83,8 @@ public class JWKeysetServiceTest
         throws RequestFailedException, ExecutionException, InterruptedException
     {
         when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(),
-            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
-            responses.get("single"));
+            anyListOf(KeyValuePair.class), any(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(responses.get("single"));
 
         final Future<JWKeyset> jwKeysetFuture =
             jwKeysetServiceWithCache.retrieveJwksAsync("http://jwks.com/jwks");
@@ -107,8 +108,8 @@ public class JWKeysetServiceTest
         throws RequestFailedException, ExecutionException, InterruptedException
     {
         when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(),
-            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
-            responses.get("single"));
+            anyListOf(KeyValuePair.class), any(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(responses.get("single"));
 
         String jwksUrl = "http://jwks.com/jwks";
         final Future<JWKeyset> jwKeysetFuture = jwKeysetServiceWithCache.retrieveJwksAsync(jwksUrl);
@@ -135,8 +136,8 @@ public class JWKeysetServiceTest
         throws RequestFailedException, ExecutionException, InterruptedException
     {
         when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(),
-            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
-            responses.get("single"));
+            anyListOf(KeyValuePair.class), any(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(responses.get("single"));
 
         final Future<JWKeyset> jwKeysetFuture =
             jwKeysetServiceWithoutCache.retrieveJwksAsync("http://jwks.com/jwks");
@@ -160,8 +161,8 @@ public class JWKeysetServiceTest
         throws RequestFailedException, ExecutionException, InterruptedException
     {
         when(mockRestClient.get(any(URI.class), any(RestAuthentication.class), anyString(),
-            anyListOf(KeyValuePair.class), any(Iterable.class))).thenReturn(
-            responses.get("single"));
+            anyListOf(KeyValuePair.class), any(Iterable.class), any(JsonResponseTypes.class)))
+            .thenReturn(responses.get("single"));
 
         String jwksUrl = "http://jwks.com/jwks";
         final Future<JWKeyset> jwKeysetFuture = jwKeysetServiceWithoutCache.retrieveJwksAsync(jwksUrl);
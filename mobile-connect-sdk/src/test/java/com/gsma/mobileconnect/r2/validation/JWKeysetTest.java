@@ -38,6 +38,19 @@ public class JWKeysetTest
         assertNull(jwKeysetEmpty);
     }
 
+    @Test
+    public void copyShouldNotShareKeys() throws Exception
+    {
+        final String jwksJson =
+            "{\"keys\":[{\"alg\":\"RS256\",\"e\":\"AQAB\",\"n\":\"hzr2li5ABVbbQ4BvdDskl6hejaVw0tIDYO\",\"kty\":\"RSA\",\"use\":\"sig\"}]}";
+        final JWKeyset jwKeyset = jacksonJsonService.deserialize(jwksJson, JWKeyset.class);
+
+        final JWKeyset copy = jwKeyset.copy();
+        copy.getKeys().clear();
+
+        assertEquals(jwKeyset.getKeys().size(), 1);
+    }
+
     @Test
     public void testGetMatchingWithSingleMatching() throws Exception
     {